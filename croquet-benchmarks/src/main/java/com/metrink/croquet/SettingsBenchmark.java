@@ -0,0 +1,65 @@
+package com.metrink.croquet;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.wicket.util.io.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.metrink.croquet.benchmarks.CroquetBenchmark;
+
+/**
+ * Measures parsing the settings YAML the way {@link CroquetWicketBuilder#create(Class, String[])} does.
+ *
+ * In this package because {@link AbstractSettings#initialize()} is protected.
+ */
+@State(Scope.Thread)
+public class SettingsBenchmark {
+    private final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    private byte[] yaml;
+
+    /**
+     * Reads the benchmark settings.
+     * @throws IOException if the settings cannot be read.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try(final InputStream in = SettingsBenchmark.class.getResourceAsStream(CroquetBenchmark.SETTINGS_RESOURCE)) {
+            yaml = IOUtils.toByteArray(in);
+        }
+    }
+
+    /**
+     * Parses the settings with a new {@link ObjectMapper}, as done at startup.
+     * @return the settings.
+     * @throws IOException if the settings cannot be parsed.
+     */
+    @Benchmark
+    public WicketSettings parseWithNewMapper() throws IOException {
+        return parse(new ObjectMapper(new YAMLFactory()));
+    }
+
+    /**
+     * Parses the settings with a shared {@link ObjectMapper}, which keeps its deserializers cached.
+     * @return the settings.
+     * @throws IOException if the settings cannot be parsed.
+     */
+    @Benchmark
+    public WicketSettings parseWithSharedMapper() throws IOException {
+        return parse(mapper);
+    }
+
+    private WicketSettings parse(final ObjectMapper objectMapper) throws IOException {
+        final WicketSettings settings = objectMapper.readValue(yaml, WicketSettings.class);
+
+        settings.initialize();
+
+        return settings;
+    }
+}
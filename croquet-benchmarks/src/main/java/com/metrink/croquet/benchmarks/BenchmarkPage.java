@@ -0,0 +1,80 @@
+package com.metrink.croquet.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+
+import com.google.inject.Inject;
+import com.sop4j.dbutils.QueryRunner;
+
+/**
+ * A page shaped like a typical Croquet page: constructor injected {@link EntityManager} and {@link QueryRunner} proxies
+ * and a table of labels, for the page creation and serialization benchmarks.
+ */
+public class BenchmarkPage extends WebPage {
+    /**
+     * The number of rows in the page's table.
+     */
+    public static final int ROWS = 50;
+
+    private static final long serialVersionUID = 1L;
+
+    private final EntityManager entityManager;
+    private final QueryRunner queryRunner;
+
+    /**
+     * Constructor.
+     * @param params the {@link PageParameters} passed to this page.
+     * @param entityManager the {@link EntityManager} proxy.
+     * @param queryRunner the {@link QueryRunner} proxy.
+     */
+    @Inject
+    public BenchmarkPage(final PageParameters params,
+                         final EntityManager entityManager,
+                         final QueryRunner queryRunner) {
+        super(params);
+
+        this.entityManager = entityManager;
+        this.queryRunner = queryRunner;
+
+        final List<String> rows = new ArrayList<String>();
+
+        for(int i = 0; i < ROWS; ++i) {
+            rows.add("Row " + i);
+        }
+
+        add(new Label("title", "Benchmark"));
+        add(new ListView<String>("rows", rows) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void populateItem(final ListItem<String> item) {
+                item.add(new Label("name", item.getModel()));
+                item.add(new Label("value", String.valueOf(item.getIndex())));
+            }
+        });
+    }
+
+    /**
+     * Gets the injected {@link EntityManager}.
+     * @return the {@link EntityManager} proxy.
+     */
+    public EntityManager getEntityManager() {
+        return entityManager;
+    }
+
+    /**
+     * Gets the injected {@link QueryRunner}.
+     * @return the {@link QueryRunner} proxy.
+     */
+    public QueryRunner getQueryRunner() {
+        return queryRunner;
+    }
+}
@@ -0,0 +1,140 @@
+package com.metrink.croquet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.guice.GuiceInjectorHolder;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.inject.Injector;
+import com.metrink.croquet.CroquetTester;
+import com.metrink.croquet.CroquetWicketBuilder;
+import com.metrink.croquet.WicketSettings;
+
+/**
+ * Base class for benchmarks that need a running Croquet application.
+ *
+ * The application is started through a {@link CroquetTester} with the benchmark.yml settings and an in-memory HSQLDB
+ * database, so there is no Jetty and no network in the measurements. The {@link WicketTester} binds its application,
+ * session and request cycle to the thread that created it, so the state is per thread and benchmarks should be run with a
+ * single thread.
+ */
+@State(Scope.Thread)
+public abstract class CroquetBenchmark {
+    /**
+     * The settings file, on the classpath, used to start the application.
+     */
+    public static final String SETTINGS_RESOURCE = "/benchmark.yml";
+
+    private WicketTester tester;
+    private Injector injector;
+
+    /**
+     * Starts the application, then calls {@link #setUpBenchmark()}.
+     * @throws Exception if the application cannot be started.
+     */
+    @Setup(Level.Trial)
+    public void setUpCroquet() throws Exception {
+        tester = buildTester(copySettings(getSettingsResource()).getAbsolutePath()).getTester();
+        injector = tester.getApplication().getMetaData(GuiceInjectorHolder.INJECTOR_KEY).getInjector();
+
+        setUpBenchmark();
+    }
+
+    /**
+     * Binds the tester's application, session and request cycle to the benchmark thread.
+     */
+    @Setup(Level.Iteration)
+    public void bindThreadContext() {
+        ThreadContext.setApplication(tester.getApplication());
+        ThreadContext.setSession(tester.getSession());
+        ThreadContext.setRequestCycle(tester.getRequestCycle());
+    }
+
+    /**
+     * Calls {@link #tearDownBenchmark()} then stops the Wicket application, the rest of Croquet is stopped by its
+     * shutdown hook when the fork exits.
+     */
+    @TearDown(Level.Trial)
+    public void tearDownCroquet() {
+        try {
+            tearDownBenchmark();
+        } finally {
+            tester.destroy();
+        }
+    }
+
+    /**
+     * Configures the application to benchmark, by default one whose home page is a {@link BenchmarkPage}.
+     * @param settingsFile the settings file.
+     * @return the tester, before its {@link WicketTester} is created.
+     * @throws Exception if the settings cannot be read.
+     */
+    protected CroquetTester<?> buildTester(final String settingsFile) throws Exception {
+        return CroquetWicketBuilder.create(WicketSettings.class, new String[] { settingsFile })
+                                   .setHomePageClass(BenchmarkPage.class)
+                                   .buildTester();
+    }
+
+    /**
+     * Gets the settings file, on the classpath, used to start the application.
+     * @return {@link #SETTINGS_RESOURCE}, unless overridden.
+     */
+    protected String getSettingsResource() {
+        return SETTINGS_RESOURCE;
+    }
+
+    /**
+     * Called once the application is running to set up what the benchmark measures.
+     * @throws Exception if the benchmark cannot be set up.
+     */
+    protected void setUpBenchmark() throws Exception {
+    }
+
+    /**
+     * Called before the application is stopped to release what {@link #setUpBenchmark()} created.
+     */
+    protected void tearDownBenchmark() {
+    }
+
+    /**
+     * Gets the Wicket tester driving the application.
+     * @return the tester.
+     */
+    protected WicketTester getTester() {
+        return tester;
+    }
+
+    /**
+     * Gets the application's injector.
+     * @return the injector.
+     */
+    protected Injector getInjector() {
+        return injector;
+    }
+
+    /**
+     * Copies the settings to a file, as {@link CroquetWicketBuilder#create(Class, String[])} only reads files and the
+     * benchmarks run from a jar.
+     */
+    private static File copySettings(final String resource) throws IOException {
+        final File file = File.createTempFile("croquet-benchmark", ".yml");
+
+        file.deleteOnExit();
+
+        try(final InputStream in = CroquetBenchmark.class.getResourceAsStream(resource)) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return file;
+    }
+}
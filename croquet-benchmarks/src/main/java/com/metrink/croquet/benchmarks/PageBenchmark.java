@@ -0,0 +1,56 @@
+package com.metrink.croquet.benchmarks;
+
+import org.apache.wicket.serialize.ISerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.metrink.croquet.wicket.GuicePageFactory;
+
+/**
+ * Measures creating a page through {@link GuicePageFactory} and serializing it with the application's
+ * {@link ISerializer}, which is what the page store does with every stateful page at the end of a request.
+ */
+@State(Scope.Thread)
+public class PageBenchmark extends CroquetBenchmark {
+    private GuicePageFactory pageFactory;
+    private ISerializer serializer;
+    private BenchmarkPage page;
+    private byte[] serializedPage;
+
+    @Override
+    protected void setUpBenchmark() {
+        pageFactory = getInjector().getInstance(GuicePageFactory.class);
+        serializer = getTester().getApplication().getFrameworkSettings().getSerializer();
+        page = pageFactory.newPage(BenchmarkPage.class);
+        serializedPage = serializer.serialize(page);
+    }
+
+    /**
+     * Creates a page with injected dependencies through a child injector.
+     * @return the page.
+     */
+    @Benchmark
+    public BenchmarkPage newPage() {
+        return pageFactory.newPage(BenchmarkPage.class);
+    }
+
+    /**
+     * Serializes a page, including the write-replace of its {@link javax.persistence.EntityManager} and
+     * {@link com.sop4j.dbutils.QueryRunner} proxies.
+     * @return the serialized page.
+     */
+    @Benchmark
+    public byte[] serializePage() {
+        return serializer.serialize(page);
+    }
+
+    /**
+     * Deserializes a page, recreating its proxies.
+     * @return the page.
+     */
+    @Benchmark
+    public Object deserializePage() {
+        return serializer.deserialize(serializedPage);
+    }
+}
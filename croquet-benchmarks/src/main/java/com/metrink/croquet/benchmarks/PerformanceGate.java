@@ -0,0 +1,158 @@
+package com.metrink.croquet.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares benchmark results against a baseline and fails when a result regressed by more than a tolerance.
+ *
+ * Both files are in the JSON format JMH writes with -rf json: an array of results, each with a benchmark name, a mode
+ * and a primaryMetric holding the score. The load test writes the same format with --json. Throughput (mode thrpt) is
+ * better when higher, every other mode (average time, sample time, latency percentiles) is better when lower.
+ *
+ * Usage: PerformanceGate result.json baseline.json [--tolerance=0.10] [--update=true]
+ * <ul>
+ * <li>Results that are not in the baseline are reported but never fail the gate, so new benchmarks can be added.</li>
+ * <li>When --update=true is given, the result is copied over the baseline and the gate passes. Commit the baseline to
+ * have later builds compared against it.</li>
+ * <li>Otherwise a baseline that is missing, or that has none of the results, fails the gate: a build that compared
+ * nothing must not look like one that passed.</li>
+ * </ul>
+ * Exits with 1 when any result regressed, 2 when the arguments are invalid, and 3 when there is no baseline to compare
+ * against.
+ */
+public final class PerformanceGate {
+    private static final double DEFAULT_TOLERANCE = 0.10;
+    private static final double PERCENT = 100.0;
+    private static final int REGRESSED = 1;
+    private static final int USAGE_ERROR = 2;
+    private static final int NO_BASELINE = 3;
+    private static final String THROUGHPUT_MODE = "thrpt";
+    private static final String TOLERANCE_OPTION = "--tolerance=";
+    private static final String UPDATE_OPTION = "--update=";
+
+    private PerformanceGate() {
+    }
+
+    /**
+     * Runs the comparison.
+     * @param args the result file, the baseline file, then the options.
+     * @throws IOException if a file cannot be read or written.
+     */
+    public static void main(final String[] args) throws IOException {
+        if(args.length < 2) {
+            System.err.println("Usage: PerformanceGate result.json baseline.json [--tolerance=0.10] [--update=true]");
+            System.exit(USAGE_ERROR);
+            return;
+        }
+
+        final File result = new File(args[0]);
+        final File baseline = new File(args[1]);
+        double tolerance = DEFAULT_TOLERANCE;
+        boolean update = false;
+
+        for(int i = 2; i < args.length; ++i) {
+            if(args[i].startsWith(TOLERANCE_OPTION)) {
+                tolerance = Double.parseDouble(args[i].substring(TOLERANCE_OPTION.length()));
+            } else if(args[i].startsWith(UPDATE_OPTION)) {
+                update = Boolean.parseBoolean(args[i].substring(UPDATE_OPTION.length()));
+            } else {
+                System.err.println("Unknown option " + args[i]);
+                System.exit(USAGE_ERROR);
+                return;
+            }
+        }
+
+        if(update) {
+            Files.createDirectories(baseline.toPath().toAbsolutePath().getParent());
+            Files.copy(result.toPath(), baseline.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Wrote baseline " + baseline);
+            return;
+        }
+
+        if(!baseline.exists()) {
+            System.err.println("No baseline " + baseline + ", record one with --update=true");
+            System.exit(NO_BASELINE);
+            return;
+        }
+
+        final Map<String, JsonNode> results = read(result);
+        final Map<String, JsonNode> baselines = read(baseline);
+
+        if(compare(results, baselines, tolerance) > 0) {
+            System.exit(REGRESSED);
+        } else if(Collections.disjoint(results.keySet(), baselines.keySet())) {
+            System.err.println("Baseline " + baseline + " has none of the results, record it with --update=true");
+            System.exit(NO_BASELINE);
+        }
+    }
+
+    /**
+     * Prints each result next to its baseline.
+     * @return the number of results that regressed by more than the tolerance.
+     */
+    private static int compare(final Map<String, JsonNode> results,
+                               final Map<String, JsonNode> baselines,
+                               final double tolerance) {
+        int regressions = 0;
+
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "result", "change");
+
+        for(final Map.Entry<String, JsonNode> entry:results.entrySet()) {
+            final JsonNode metric = entry.getValue().path("primaryMetric");
+            final double score = metric.path("score").asDouble();
+            final String unit = metric.path("scoreUnit").asText();
+            final JsonNode baseline = baselines.get(entry.getKey());
+
+            if(baseline == null) {
+                System.out.printf("%-70s %14s %14.3f %9s  new, %s%n", entry.getKey(), "", score, "", unit);
+                continue;
+            }
+
+            final double baselineScore = baseline.path("primaryMetric").path("score").asDouble();
+            final boolean higherIsBetter = THROUGHPUT_MODE.equals(entry.getValue().path("mode").asText());
+
+            // positive when the result is worse than the baseline, whichever direction is better
+            final double change = (score - baselineScore) / baselineScore;
+            final double regression = higherIsBetter ? -change : change;
+            final boolean regressed = baselineScore != 0 && regression > tolerance;
+
+            if(regressed) {
+                ++regressions;
+            }
+
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s, %s%n",
+                              entry.getKey(),
+                              baselineScore,
+                              score,
+                              change * PERCENT,
+                              unit,
+                              regressed ? "REGRESSED" : "ok");
+        }
+
+        System.out.printf("%d of %d results regressed by more than %.1f%%%n", regressions, results.size(), tolerance * PERCENT);
+
+        return regressions;
+    }
+
+    /**
+     * Reads a JMH JSON result file, keyed by benchmark name and mode.
+     */
+    private static Map<String, JsonNode> read(final File file) throws IOException {
+        final Map<String, JsonNode> ret = new LinkedHashMap<String, JsonNode>();
+
+        for(final JsonNode node:new ObjectMapper().readTree(file)) {
+            ret.put(node.path("benchmark").asText() + " (" + node.path("mode").asText() + ")", node);
+        }
+
+        return ret;
+    }
+}
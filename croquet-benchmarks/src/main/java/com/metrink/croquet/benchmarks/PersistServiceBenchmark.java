@@ -0,0 +1,51 @@
+package com.metrink.croquet.benchmarks;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+
+/**
+ * Measures the unit of work the PersistFilter wraps around every request that uses the database.
+ */
+@State(Scope.Thread)
+public class PersistServiceBenchmark extends CroquetBenchmark {
+    private UnitOfWork unitOfWork;
+    private Provider<EntityManager> entityManagerProvider;
+
+    @Override
+    protected void setUpBenchmark() {
+        unitOfWork = getInjector().getInstance(UnitOfWork.class);
+        entityManagerProvider = getInjector().getProvider(EntityManager.class);
+    }
+
+    /**
+     * Begins and ends a unit of work without using the database, as for a request that never touches it.
+     */
+    @Benchmark
+    public void beginEnd() {
+        unitOfWork.begin();
+        unitOfWork.end();
+    }
+
+    /**
+     * Begins a unit of work and commits an empty transaction in it.
+     */
+    @Benchmark
+    public void beginTransactionEnd() {
+        unitOfWork.begin();
+
+        try {
+            final EntityManager entityManager = entityManagerProvider.get();
+
+            entityManager.getTransaction().begin();
+            entityManager.getTransaction().commit();
+        } finally {
+            unitOfWork.end();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.metrink.croquet.benchmarks.crm;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.metrink.croquet.CroquetTester;
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.benchmarks.CroquetBenchmark;
+import com.metrink.croquet.examples.crm.CrmModule;
+import com.metrink.croquet.examples.crm.CrmSettings;
+import com.metrink.croquet.examples.crm.EmailModule;
+import com.metrink.croquet.examples.crm.Main;
+import com.metrink.croquet.examples.crm.data.CrmSeeder;
+
+/**
+ * Base class for benchmarks that run against the CRM example, configured as its Main configures it, with the
+ * crm-benchmark.yml settings.
+ */
+@State(Scope.Thread)
+public abstract class CrmBenchmark extends CroquetBenchmark {
+    /**
+     * The settings file, on the classpath, used to start the CRM example.
+     */
+    public static final String CRM_SETTINGS_RESOURCE = "/crm-benchmark.yml";
+
+    @Override
+    protected CroquetTester<?> buildTester(final String settingsFile) throws Exception {
+        final CroquetTester<CrmSettings> croquetTester =
+                Main.configureBuilder(CrmSettings.class, new String[] { settingsFile }).buildTester();
+
+        croquetTester.addGuiceModule(new CrmModule(croquetTester.getSettings()));
+        croquetTester.addManagedModule(EmailModule.class);
+
+        return croquetTester;
+    }
+
+    @Override
+    protected String getSettingsResource() {
+        return CRM_SETTINGS_RESOURCE;
+    }
+
+    /**
+     * Creates the CRM's tables and fills them.
+     * @param companies the number of companies.
+     * @param people the number of people, spread across the companies.
+     * @throws SQLException if the tables cannot be created.
+     */
+    protected void seed(final int companies, final int people) throws SQLException {
+        try(final Connection connection = getInjector().getInstance(DataSourceFactory.class).getDataSource().getConnection()) {
+            CrmSeeder.seed(connection, companies, people);
+        }
+    }
+}
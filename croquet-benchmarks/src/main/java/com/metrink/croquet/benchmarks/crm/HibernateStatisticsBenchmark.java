@@ -0,0 +1,82 @@
+package com.metrink.croquet.benchmarks.crm;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+import com.metrink.croquet.examples.crm.data.PeopleBean;
+
+/**
+ * Measures the cost of collecting Hibernate statistics by running the same mix of finds and queries with statistics
+ * enabled and disabled.
+ */
+@State(Scope.Thread)
+public class HibernateStatisticsBenchmark extends CrmBenchmark {
+    private static final int PEOPLE = 1000;
+    private static final int COMPANIES = 10;
+    private static final int FINDS_PER_OP = 20;
+    private static final String QUERY = "select p from PeopleBean p where p.company.companyId = :companyId";
+
+    @Param({ "false", "true" })
+    private boolean statistics;
+
+    private UnitOfWork unitOfWork;
+    private Provider<EntityManager> entityManagerProvider;
+    private int next;
+
+    @Override
+    protected void setUpBenchmark() throws Exception {
+        seed(COMPANIES, PEOPLE);
+
+        unitOfWork = getInjector().getInstance(UnitOfWork.class);
+        entityManagerProvider = getInjector().getProvider(EntityManager.class);
+
+        final Statistics stats = ((HibernateEntityManagerFactory)getInjector().getInstance(EntityManagerFactory.class))
+                .getSessionFactory()
+                .getStatistics();
+
+        stats.setStatisticsEnabled(statistics);
+        stats.clear();
+    }
+
+    /**
+     * One request's worth of work: a query and a handful of finds, inside a unit of work and transaction.
+     * @return the number of people the query found.
+     */
+    @Benchmark
+    public int findsAndQuery() {
+        final int op = next;
+
+        next = (next + 1) % PEOPLE;
+        unitOfWork.begin();
+
+        try {
+            final EntityManager em = entityManagerProvider.get();
+
+            em.getTransaction().begin();
+
+            final int found = em.createQuery(QUERY, PeopleBean.class)
+                                .setParameter("companyId", op % COMPANIES)
+                                .getResultList()
+                                .size();
+
+            for(int f = 0; f < FINDS_PER_OP; ++f) {
+                em.find(PeopleBean.class, (op * FINDS_PER_OP + f) % PEOPLE);
+            }
+
+            em.getTransaction().commit();
+
+            return found;
+        } finally {
+            unitOfWork.end();
+        }
+    }
+}
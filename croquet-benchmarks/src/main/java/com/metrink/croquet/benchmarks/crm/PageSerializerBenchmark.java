@@ -0,0 +1,89 @@
+package com.metrink.croquet.benchmarks.crm;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.metrink.croquet.examples.crm.pages.CompanyPage;
+import com.metrink.croquet.examples.crm.pages.PeoplePage;
+import com.metrink.croquet.wicket.DeflatePageCodec;
+import com.metrink.croquet.wicket.KryoSerializer;
+import com.metrink.croquet.wicket.PageCodec;
+
+/**
+ * Compares the time to serialize and deserialize the rendered CRM pages with Wicket's Java serialization and with the
+ * {@link KryoSerializer}, and the time to compress them with the {@link DeflatePageCodec}.
+ *
+ * The serialized and compressed size of the page is printed when each trial starts.
+ */
+@State(Scope.Thread)
+public class PageSerializerBenchmark extends CrmBenchmark {
+    private static final int PEOPLE = 200;
+    private static final int COMPANIES = 10;
+    private static final String JAVA = "java";
+    private static final String KRYO = "kryo";
+    private static final String PEOPLE_PAGE = "people";
+    private static final String COMPANY_PAGE = "company";
+
+    @Param({ JAVA, KRYO })
+    private String serializer;
+
+    @Param({ PEOPLE_PAGE, COMPANY_PAGE })
+    private String page;
+
+    private final PageCodec codec = new DeflatePageCodec();
+    private ISerializer pageSerializer;
+    private Page renderedPage;
+    private byte[] serializedPage;
+
+    @Override
+    protected void setUpBenchmark() throws Exception {
+        seed(COMPANIES, PEOPLE);
+
+        final String applicationKey = getTester().getApplication().getApplicationKey();
+
+        pageSerializer = KRYO.equals(serializer)
+                ? new KryoSerializer(applicationKey)
+                : new JavaSerializer(applicationKey);
+
+        getTester().startPage(COMPANY_PAGE.equals(page) ? CompanyPage.class : PeoplePage.class);
+        renderedPage = getTester().getLastRenderedPage();
+        serializedPage = pageSerializer.serialize(renderedPage);
+
+        final byte[] compressed = codec.compress(serializedPage);
+
+        System.out.println(renderedPage.getClass().getSimpleName() + " " + serializer + ": " + serializedPage.length
+                           + " bytes, " + (compressed == null ? serializedPage.length : compressed.length) + " compressed");
+    }
+
+    /**
+     * Serializes the page.
+     * @return the serialized page.
+     */
+    @Benchmark
+    public byte[] serialize() {
+        return pageSerializer.serialize(renderedPage);
+    }
+
+    /**
+     * Deserializes the page.
+     * @return the page.
+     */
+    @Benchmark
+    public Object deserialize() {
+        return pageSerializer.deserialize(serializedPage);
+    }
+
+    /**
+     * Compresses the serialized page, as the page store does before writing it.
+     * @return the compressed page, or null if compressing it didn't make it smaller.
+     */
+    @Benchmark
+    public byte[] compress() {
+        return codec.compress(serializedPage);
+    }
+}
@@ -0,0 +1,86 @@
+package com.metrink.croquet.benchmarks.crm;
+
+import java.util.List;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+import com.metrink.croquet.examples.crm.data.PeopleBean;
+import com.metrink.croquet.hibernate.ReadOnlyQueries;
+
+/**
+ * Compares loading every person through a normal {@link EntityManager} query, a read-only query, and a stateless scan.
+ *
+ * Each load runs inside a unit of work and transaction, so the normal query pays for dirty checking at commit. Run
+ * with -prof gc to also compare the memory allocated by each.
+ */
+@State(Scope.Thread)
+public class ReadOnlyQueriesBenchmark extends CrmBenchmark {
+    private static final int PEOPLE = 20000;
+    private static final int COMPANIES = 100;
+    private static final String QUERY = "select p from PeopleBean p join fetch p.company";
+
+    private UnitOfWork unitOfWork;
+    private Provider<EntityManager> entityManagerProvider;
+    private ReadOnlyQueries readOnlyQueries;
+
+    @Override
+    protected void setUpBenchmark() throws Exception {
+        seed(COMPANIES, PEOPLE);
+
+        unitOfWork = getInjector().getInstance(UnitOfWork.class);
+        entityManagerProvider = getInjector().getProvider(EntityManager.class);
+        readOnlyQueries = getInjector().getInstance(ReadOnlyQueries.class);
+    }
+
+    /**
+     * Loads the people into the persistence context, with a snapshot of each for dirty checking.
+     * @return the people.
+     */
+    @Benchmark
+    public List<PeopleBean> entityManager() {
+        return inTransaction(em -> em.createQuery(QUERY, PeopleBean.class).getResultList());
+    }
+
+    /**
+     * Loads the people read-only, without snapshots.
+     * @return the people.
+     */
+    @Benchmark
+    public List<PeopleBean> readOnly() {
+        return inTransaction(em -> readOnlyQueries.list(em.createQuery(QUERY, PeopleBean.class)));
+    }
+
+    /**
+     * Visits the people one at a time through a stateless session, without keeping them.
+     * @return the number of people visited.
+     */
+    @Benchmark
+    public long statelessScan() {
+        return inTransaction(em -> readOnlyQueries.scan(PeopleBean.class, QUERY, null, person -> person.getCompany() != null));
+    }
+
+    private <T> T inTransaction(final Function<EntityManager, T> load) {
+        unitOfWork.begin();
+
+        try {
+            final EntityManager em = entityManagerProvider.get();
+
+            em.getTransaction().begin();
+
+            final T result = load.apply(em);
+
+            em.getTransaction().commit();
+
+            return result;
+        } finally {
+            unitOfWork.end();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.metrink.croquet.health;
+
+import java.io.IOException;
+
+import org.apache.wicket.request.resource.AbstractResource.ResourceResponse;
+import org.apache.wicket.request.resource.IResource.Attributes;
+import org.apache.wicket.response.StringResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.metrink.croquet.benchmarks.CroquetBenchmark;
+
+/**
+ * Measures rendering the {@link HealthCheck} resource, which load balancers poll continuously.
+ *
+ * In this package because {@link HealthCheck#newResourceResponse(Attributes)} is protected.
+ */
+@State(Scope.Thread)
+public class HealthCheckBenchmark extends CroquetBenchmark {
+    private HealthCheck healthCheck;
+    private StringResponse response;
+    private Attributes attributes;
+
+    @Override
+    protected void setUpBenchmark() {
+        healthCheck = new HealthCheck();
+        response = new StringResponse();
+        attributes = new Attributes(getTester().getRequestCycle().getRequest(), response);
+    }
+
+    /**
+     * Builds the health check's response and writes its body.
+     * @return the written body.
+     * @throws IOException if the body cannot be written.
+     */
+    @Benchmark
+    public CharSequence render() throws IOException {
+        response.reset();
+
+        final ResourceResponse resourceResponse = healthCheck.newResourceResponse(attributes);
+
+        resourceResponse.getWriteCallback().writeData(attributes);
+
+        return response.getBuffer();
+    }
+}
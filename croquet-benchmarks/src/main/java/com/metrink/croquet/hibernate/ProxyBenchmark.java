@@ -0,0 +1,106 @@
+package com.metrink.croquet.hibernate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.benchmarks.CroquetBenchmark;
+import com.sop4j.dbutils.QueryRunner;
+
+/**
+ * Measures creating the {@link EntityManager} and {@link QueryRunner} proxies and the cost they add to every call,
+ * against calling the proxied objects directly.
+ *
+ * In this package because {@link EntityManagerProxyFactory} is package-private.
+ */
+@State(Scope.Thread)
+public class ProxyBenchmark extends CroquetBenchmark {
+    private HibernateEntityManagerFactory entityManagerFactory;
+    private DataSourceFactory dataSourceFactory;
+    private EntityManager entityManagerProxy;
+    private EntityManager entityManager;
+    private QueryRunner queryRunnerProxy;
+    private QueryRunner queryRunner;
+
+    @Override
+    protected void setUpBenchmark() {
+        entityManagerFactory = (HibernateEntityManagerFactory)getInjector().getInstance(EntityManagerFactory.class);
+        dataSourceFactory = new DataSourceFactory(getInjector().getInstance(AbstractSettings.class).getDatabaseSettings());
+
+        entityManagerProxy = EntityManagerProxyFactory.createProxy(entityManagerFactory);
+        entityManager = entityManagerFactory.createEntityManager();
+        queryRunnerProxy = QueryRunnerProxyFactory.createProxy(dataSourceFactory);
+        queryRunner = new QueryRunner(dataSourceFactory.getDataSource());
+
+        // the proxies create what they wrap on the first call, which is not part of the dispatch benchmarks
+        entityManagerProxy.isOpen();
+        queryRunnerProxy.getDataSource();
+    }
+
+    @Override
+    protected void tearDownBenchmark() {
+        entityManagerProxy.close();
+        entityManager.close();
+    }
+
+    /**
+     * Creates an {@link EntityManager} proxy, done by every unit of work.
+     * @return the proxy.
+     */
+    @Benchmark
+    public EntityManager createEntityManagerProxy() {
+        return EntityManagerProxyFactory.createProxy(entityManagerFactory);
+    }
+
+    /**
+     * Calls a method through the {@link EntityManager} proxy.
+     * @return the result of the call.
+     */
+    @Benchmark
+    public boolean entityManagerProxyDispatch() {
+        return entityManagerProxy.isOpen();
+    }
+
+    /**
+     * Calls the same method on an {@link EntityManager} directly, the baseline for the proxy.
+     * @return the result of the call.
+     */
+    @Benchmark
+    public boolean entityManagerDirectDispatch() {
+        return entityManager.isOpen();
+    }
+
+    /**
+     * Creates a {@link QueryRunner} proxy.
+     * @return the proxy.
+     */
+    @Benchmark
+    public QueryRunner createQueryRunnerProxy() {
+        return QueryRunnerProxyFactory.createProxy(dataSourceFactory);
+    }
+
+    /**
+     * Calls a method through the {@link QueryRunner} proxy.
+     * @return the result of the call.
+     */
+    @Benchmark
+    public DataSource queryRunnerProxyDispatch() {
+        return queryRunnerProxy.getDataSource();
+    }
+
+    /**
+     * Calls the same method on a {@link QueryRunner} directly, the baseline for the proxy.
+     * @return the result of the call.
+     */
+    @Benchmark
+    public DataSource queryRunnerDirectDispatch() {
+        return queryRunner.getDataSource();
+    }
+}
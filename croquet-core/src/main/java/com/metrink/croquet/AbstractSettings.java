@@ -27,12 +27,21 @@ public abstract class AbstractSettings implements Serializable {
     @JsonProperty("pid_file")
     private String pidFile;
 
+    @JsonProperty("jmx")
+    private Boolean jmxEnabled = Boolean.TRUE;
+
     @JsonProperty("logging")
     private LoggingSettings loggingSettings = new LoggingSettings();
 
     @JsonProperty("db")
     private DatabaseSettings dbSettings;
 
+    @JsonProperty("metrics")
+    private MetricsSettings metricsSettings = new MetricsSettings();
+
+    @JsonProperty("tracing")
+    private TracingSettings tracingSettings = new TracingSettings();
+
 
     /**
      * Perform post de-serialization modification of the Settings.
@@ -92,6 +101,15 @@ public abstract class AbstractSettings implements Serializable {
     }
 
 
+    /**
+     * Are MXBeans for the application, Jetty's thread pool, the connection pool, Hibernate, the loggers and the
+     * managed modules registered?
+     * @return true if the MXBeans are registered, defaults to true.
+     */
+    public boolean getJmxEnabled() {
+        return jmxEnabled;
+    }
+
     /**
      * Get the {@link DatabaseSettings}.
      * @return the {@link DatabaseSettings}.
@@ -108,6 +126,22 @@ public abstract class AbstractSettings implements Serializable {
         return loggingSettings;
     }
 
+    /**
+     * Get the {@link MetricsSettings}.
+     * @return the {@link MetricsSettings}.
+     */
+    public MetricsSettings getMetricsSettings() {
+        return metricsSettings;
+    }
+
+    /**
+     * Get the {@link TracingSettings}.
+     * @return the {@link TracingSettings}.
+     */
+    public TracingSettings getTracingSettings() {
+        return tracingSettings;
+    }
+
     /**
      * Get pidFile.
      * @return the pidFile
@@ -0,0 +1,150 @@
+package com.metrink.croquet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpSession;
+
+import org.eclipse.jetty.http.HttpCookie;
+import org.eclipse.jetty.server.session.AbstractSession;
+import org.eclipse.jetty.server.session.HashSessionManager;
+import org.eclipse.jetty.server.session.HashedSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * A {@link HashSessionManager} that holds at most a fixed number of sessions in memory, evicting the least recently
+ * used when a new session would exceed it.
+ *
+ * Without a passivation directory an evicted session is invalidated, and its user starts a new one on their next
+ * request. With one, an evicted session is written to the directory and its attributes dropped from memory, and it is
+ * read back in if its user returns before it expires. Either way a flood of clients that never send their cookie back
+ * pushes out each other's sessions, instead of the sessions of users who are still active.
+ */
+class BoundedSessionManager extends HashSessionManager {
+    static final String SESSIONS = "croquet_sessions";
+    static final String CREATED = "croquet_sessions_created_total";
+    static final String EVICTED = "croquet_sessions_evicted_total";
+
+    private static final Logger LOG = LoggerFactory.getLogger(BoundedSessionManager.class);
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int maxSessions;
+    private final boolean passivate;
+    private final Counter created;
+    private final Counter evicted;
+
+    // access ordered, so iteration starts with the least recently used session
+    private final Map<String, AbstractSession> inMemory =
+            new LinkedHashMap<String, AbstractSession>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+
+    /**
+     * Constructor.
+     * @param maxSessions the most sessions held in memory.
+     * @param passivationDir the directory evicted sessions are written to, or null to invalidate them.
+     * @param registry the registry to record the sessions in.
+     */
+    BoundedSessionManager(final int maxSessions, final File passivationDir, final MetricRegistry registry) {
+        this.maxSessions = maxSessions;
+        this.passivate = passivationDir != null;
+        this.created = registry.counter(CREATED, "Sessions created");
+        this.evicted = registry.counter(EVICTED, "Sessions evicted to stay within the session limit",
+                                        "action", passivate ? "passivated" : "invalidated");
+
+        registry.gauge(SESSIONS, "Sessions held in memory", this::getSessionsInMemory);
+
+        if(passivate) {
+            setStoreDirectory(passivationDir);
+        }
+    }
+
+    @Override
+    protected void addSession(final AbstractSession session) {
+        super.addSession(session);
+
+        created.inc();
+        hold(session);
+    }
+
+    @Override
+    public HttpCookie access(final HttpSession session, final boolean secure) {
+        // a passivated session that was read back in is in memory again, and may push out another
+        if(session instanceof AbstractSession) {
+            hold((AbstractSession)session);
+        }
+
+        return super.access(session, secure);
+    }
+
+    @Override
+    protected boolean removeSession(final String clusterId) {
+        synchronized(inMemory) {
+            inMemory.remove(clusterId);
+        }
+
+        return super.removeSession(clusterId);
+    }
+
+    /**
+     * Marks a session as the most recently used one in memory, and evicts the least recently used others to stay within
+     * the limit.
+     */
+    private void hold(final AbstractSession session) {
+        final List<AbstractSession> victims = new ArrayList<AbstractSession>();
+
+        synchronized(inMemory) {
+            inMemory.put(session.getClusterId(), session);
+
+            final Iterator<AbstractSession> it = inMemory.values().iterator();
+
+            while(inMemory.size() > maxSessions && it.hasNext()) {
+                final AbstractSession eldest = it.next();
+
+                if(eldest != session) {
+                    victims.add(eldest);
+                    it.remove();
+                }
+            }
+        }
+
+        // invalidating calls the session listeners, so it's done outside the lock
+        for(final AbstractSession victim:victims) {
+            evict(victim);
+        }
+    }
+
+    private void evict(final AbstractSession session) {
+        evicted.inc();
+
+        //CHECKSTYLE:OFF idle() declares Exception, and a session that can't be evicted must not fail the request
+        try {
+            if(passivate && session instanceof HashedSession) {
+                ((HashedSession)session).idle();
+            } else {
+                session.invalidate();
+            }
+        } catch (final Exception e) {
+            LOG.warn("Unable to evict session {}: {}", session.getClusterId(), e.getMessage());
+        }
+        //CHECKSTYLE:ON
+    }
+
+    /**
+     * Gets the number of sessions held in memory, not counting passivated ones.
+     * @return the number of sessions in memory.
+     */
+    int getSessionsInMemory() {
+        synchronized(inMemory) {
+            return inMemory.size();
+        }
+    }
+}
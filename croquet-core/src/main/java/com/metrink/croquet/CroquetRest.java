@@ -3,6 +3,7 @@ package com.metrink.croquet;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -32,11 +33,24 @@ import com.google.inject.persist.PersistFilter;
 import com.google.inject.servlet.GuiceFilter;
 import com.google.inject.servlet.ServletModule;
 import com.google.inject.util.Providers;
+import com.metrink.croquet.hibernate.AsyncQueryService;
 import com.metrink.croquet.hibernate.DataSourceHibernateModule;
+import com.metrink.croquet.hibernate.HibernateStatisticsExporter;
 import com.metrink.croquet.hibernate.PersistanceUnitHibernateModule;
+import com.metrink.croquet.hibernate.QueryDeadlineFilter;
 import com.metrink.croquet.hibernate.QueryRunnerModule;
 import com.metrink.croquet.inject.CroquetRestModule;
+import com.metrink.croquet.jmx.CroquetMBeans;
+import com.metrink.croquet.metrics.PrometheusServlet;
+import com.metrink.croquet.metrics.PrometheusSnapshot;
+import com.metrink.croquet.metrics.RequestMetricsFilter;
+import com.metrink.croquet.metrics.RouteMetricsEventListener;
+import com.metrink.croquet.metrics.SlowRequestFilter;
+import com.metrink.croquet.metrics.StandardMetrics;
 import com.metrink.croquet.modules.ManagedModule;
+import com.metrink.croquet.tracing.TracedManagedModule;
+import com.metrink.croquet.tracing.Tracer;
+import com.metrink.croquet.tracing.TracingFilter;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -112,6 +126,22 @@ public class CroquetRest<T extends RestSettings> {
             }
         });
 
+        // asynchronous queries run on their own executor which is shutdown after Jetty stops,
+        // and need the QueryRunner that's only bound when the YAML file configures the database
+        if(!settings.getDatabaseSettings().getNotUsed() && settings.getDatabaseSettings().getPersistenceUnit() == null) {
+            managedModules.add(AsyncQueryService.class);
+        }
+
+        // Hibernate's statistics are exported to the metrics
+        if(!settings.getDatabaseSettings().getNotUsed() && settings.getMetricsSettings().getEnabled()) {
+            managedModules.add(HibernateStatisticsExporter.class);
+        }
+
+        // the metrics endpoint serves a snapshot rendered in the background
+        if(settings.getMetricsSettings().getEndpoint() != null) {
+            managedModules.add(PrometheusSnapshot.class);
+        }
+
         // make sure we have at least one package
         if(settings.getProviderPackages().isEmpty()) {
             throw new RuntimeException("No provider packages specified");
@@ -131,6 +161,16 @@ public class CroquetRest<T extends RestSettings> {
 
                 params.put(ServerProperties.PROVIDER_PACKAGES, sb.toString());
 
+                // match requests to resource methods for the request metrics
+                if(settings.getMetricsSettings().getEnabled()) {
+                    params.put(ServerProperties.PROVIDER_CLASSNAMES, RouteMetricsEventListener.class.getName());
+                }
+
+                // served ahead of Jersey, which handles everything else
+                if(settings.getMetricsSettings().getEndpoint() != null) {
+                    serve(settings.getMetricsSettings().getEndpoint()).with(PrometheusServlet.class);
+                }
+
                 bind(ServletContainer.class).in(Singleton.class);
                 serve("/*").with(ServletContainer.class, params);
             }
@@ -170,9 +210,11 @@ public class CroquetRest<T extends RestSettings> {
     protected List<ManagedModule> createAndStartModules() {
         final List<ManagedModule> managedModuleInstances = new ArrayList<>();
 
-        // create and start each managed module
+        // create and start each managed module, tracing its start and stop when tracing is enabled
         for(final Class<? extends ManagedModule> module:managedModules) {
-            final ManagedModule mm = injector.getInstance(module);
+            final ManagedModule mm = settings.getTracingSettings().getEnabled()
+                    ? new TracedManagedModule(injector.getInstance(Tracer.class), injector.getInstance(module))
+                    : injector.getInstance(module);
             managedModuleInstances.add(mm);
             mm.start();
         }
@@ -254,6 +296,19 @@ public class CroquetRest<T extends RestSettings> {
         // create and start the modules
         final List<ManagedModule> managedModuleInstances = createAndStartModules();
 
+        // expose the application, its pools and modules over JMX
+        final CroquetMBeans mbeans = new CroquetMBeans(settings.getPort());
+
+        if(settings.getJmxEnabled()) {
+            final Map<String, ManagedModule> modules = new LinkedHashMap<String, ManagedModule>();
+
+            for(int i = 0; i < managedModuleInstances.size(); ++i) {
+                modules.put(managedModules.get(i).getName(), managedModuleInstances.get(i));
+            }
+
+            mbeans.register(injector, jettyServer, this::getStatus, modules);
+        }
+
         // install the shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread() {
 
@@ -274,6 +329,8 @@ public class CroquetRest<T extends RestSettings> {
                     module.stop();
                 }
 
+                mbeans.unregister();
+
                 status = CroquetStatus.STOPPED;
 
                 LOG.info("Croquet has stopped");
@@ -337,8 +394,28 @@ public class CroquetRest<T extends RestSettings> {
         // prevent the JSESSIONID from getting set via a URL argument
         sch.setInitParameter("org.eclipse.jetty.servlet.SessionIdPathParameterName", "none");
 
+        // time every request, so this filter goes first
+        if(settings.getMetricsSettings().getEnabled()) {
+            sch.addFilter(new FilterHolder(getInjector().getInstance(RequestMetricsFilter.class)), "/*", DISPATCHER_TYPES);
+            StandardMetrics.register(getInjector(), server);
+        }
+
+        // record the timeline of each request, logging the slow ones
+        if(settings.getMetricsSettings().getSlowRequestThreshold() > 0) {
+            sch.addFilter(new FilterHolder(getInjector().getInstance(SlowRequestFilter.class)), "/*", DISPATCHER_TYPES);
+        }
+
+        // open a span for each request, continuing the caller's trace
+        if(settings.getTracingSettings().getEnabled()) {
+            sch.addFilter(new FilterHolder(getInjector().getInstance(TracingFilter.class)), "/*", DISPATCHER_TYPES);
+        }
+
         // if we're using a database, then install the filter
         if(!settings.getDatabaseSettings().getNotUsed()) {
+            // set the query deadline before the unit of work starts
+            final FilterHolder deadlineFilter = new FilterHolder(getInjector().getInstance(QueryDeadlineFilter.class));
+            sch.addFilter(deadlineFilter, "/*", DISPATCHER_TYPES);
+
             // setup a FilterHolder for the Guice Persistence
             final FilterHolder persistFilter = new FilterHolder(getInjector().getInstance(PersistFilter.class));
 
@@ -16,6 +16,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.metrink.croquet.LoggingSettings.LogFile;
 import com.metrink.croquet.logging.CroquetLoggingFactory;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.tracing.SpanExporter;
 
 /**
  * Class used to build the immutable Croquet instance.
@@ -198,6 +200,38 @@ public class CroquetRestBuilder<T extends RestSettings> {
         return this;
     }
 
+    /**
+     * Adds an endpoint serving all of Croquet's metrics in Prometheus' text format.
+     *
+     * The endpoint isn't authenticated, so only add it when the application's port isn't public.
+     * @param path the path
+     * @return the {@link CroquetRestBuilder}.
+     */
+    public CroquetRestBuilder<T> addMetricsEndpoint(final String path) {
+        settings.getMetricsSettings().setEndpoint(path);
+        return this;
+    }
+
+    /**
+     * Sets the {@link MetricRegistry} implementation that Croquet's metrics are recorded in.
+     * @param registryClass the registry class, bound as a singleton.
+     * @return the {@link CroquetRestBuilder}.
+     */
+    public CroquetRestBuilder<T> setMetricRegistry(final Class<? extends MetricRegistry> registryClass) {
+        settings.getMetricsSettings().setRegistryClass(registryClass);
+        return this;
+    }
+
+    /**
+     * Sets the {@link SpanExporter} implementation that traced spans are sent to.
+     * @param exporterClass the exporter class, bound as a singleton.
+     * @return the {@link CroquetRestBuilder}.
+     */
+    public CroquetRestBuilder<T> setSpanExporter(final Class<? extends SpanExporter> exporterClass) {
+        settings.getTracingSettings().setExporterClass(exporterClass);
+        return this;
+    }
+
     /**
      * Sets the name of the PID file to drop on Linux.
      *
@@ -1,8 +1,11 @@
 package com.metrink.croquet;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.servlet.DispatcherType;
@@ -12,6 +15,8 @@ import org.apache.wicket.protocol.http.WicketFilter;
 import org.apache.wicket.protocol.ws.jetty9.Jetty9WebSocketFilter;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.session.JDBCSessionIdManager;
+import org.eclipse.jetty.server.session.JDBCSessionManager;
 import org.eclipse.jetty.servlet.DefaultServlet;
 import org.eclipse.jetty.servlet.FilterHolder;
 import org.eclipse.jetty.servlet.ServletContextHandler;
@@ -28,11 +33,24 @@ import com.google.inject.Provider;
 import com.google.inject.name.Names;
 import com.google.inject.persist.PersistFilter;
 import com.google.inject.util.Providers;
+import com.metrink.croquet.hibernate.AsyncQueryService;
 import com.metrink.croquet.hibernate.DataSourceHibernateModule;
+import com.metrink.croquet.hibernate.HibernateStatisticsExporter;
 import com.metrink.croquet.hibernate.PersistanceUnitHibernateModule;
+import com.metrink.croquet.hibernate.QueryDeadlineFilter;
 import com.metrink.croquet.hibernate.QueryRunnerModule;
 import com.metrink.croquet.inject.CroquetWicketModule;
+import com.metrink.croquet.jmx.CroquetMBeans;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.metrics.PrometheusSnapshot;
+import com.metrink.croquet.metrics.RequestMetricsFilter;
+import com.metrink.croquet.metrics.SlowRequestFilter;
+import com.metrink.croquet.metrics.StandardMetrics;
 import com.metrink.croquet.modules.ManagedModule;
+import com.metrink.croquet.tracing.TracedManagedModule;
+import com.metrink.croquet.tracing.Tracer;
+import com.metrink.croquet.tracing.TracingFilter;
+import com.metrink.croquet.wicket.JdbcPageCleaner;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -107,6 +125,36 @@ public class CroquetWicket<T extends WicketSettings> {
                                   .toProvider(getPUNameProvider());
             }
         });
+
+        // asynchronous queries run on their own executor which is shutdown after Jetty stops,
+        // and need the QueryRunner that's only bound when the YAML file configures the database
+        if(!settings.getDatabaseSettings().getNotUsed() && settings.getDatabaseSettings().getPersistenceUnit() == null) {
+            managedModules.add(AsyncQueryService.class);
+        }
+
+        // Hibernate's statistics are exported to the metrics
+        if(!settings.getDatabaseSettings().getNotUsed() && settings.getMetricsSettings().getEnabled()) {
+            managedModules.add(HibernateStatisticsExporter.class);
+        }
+
+        // the metrics endpoint serves a snapshot rendered in the background
+        if(settings.getMetricsSettings().getEndpoint() != null) {
+            managedModules.add(PrometheusSnapshot.class);
+        }
+
+        // pages stored in the database are removed once they expire
+        if(settings.getJdbcSessionStore()) {
+            if(settings.getDatabaseSettings().getNotUsed() || settings.getDatabaseSettings().getPersistenceUnit() != null) {
+                throw new IllegalStateException("jdbc_session_store requires the database to be configured in the YAML file");
+            }
+
+            // a page waiting to be written would only be found on this node, and a failed write wouldn't fail its request
+            if(settings.getAsyncPageStore()) {
+                throw new IllegalStateException("async_page_store can't be used with jdbc_session_store");
+            }
+
+            managedModules.add(JdbcPageCleaner.class);
+        }
     }
 
     /**
@@ -142,9 +190,11 @@ public class CroquetWicket<T extends WicketSettings> {
     protected List<ManagedModule> createAndStartModules() {
         final List<ManagedModule> managedModuleInstances = new ArrayList<>();
 
-        // create and start each managed module
+        // create and start each managed module, tracing its start and stop when tracing is enabled
         for(final Class<? extends ManagedModule> module:managedModules) {
-            final ManagedModule mm = injector.getInstance(module);
+            final ManagedModule mm = settings.getTracingSettings().getEnabled()
+                    ? new TracedManagedModule(injector.getInstance(Tracer.class), injector.getInstance(module))
+                    : injector.getInstance(module);
             managedModuleInstances.add(mm);
             mm.start();
         }
@@ -226,6 +276,19 @@ public class CroquetWicket<T extends WicketSettings> {
         // create and start the modules
         final List<ManagedModule> managedModuleInstances = createAndStartModules();
 
+        // expose the application, its pools and modules over JMX
+        final CroquetMBeans mbeans = new CroquetMBeans(settings.getPort());
+
+        if(settings.getJmxEnabled()) {
+            final Map<String, ManagedModule> modules = new LinkedHashMap<String, ManagedModule>();
+
+            for(int i = 0; i < managedModuleInstances.size(); ++i) {
+                modules.put(managedModules.get(i).getName(), managedModuleInstances.get(i));
+            }
+
+            mbeans.register(injector, jettyServer, this::getStatus, modules);
+        }
+
         // install the shutdown hook
         Runtime.getRuntime().addShutdownHook(new Thread() {
 
@@ -246,6 +309,8 @@ public class CroquetWicket<T extends WicketSettings> {
                     module.stop();
                 }
 
+                mbeans.unregister();
+
                 status = CroquetStatus.STOPPED;
 
                 LOG.info("Croquet has stopped");
@@ -308,11 +373,50 @@ public class CroquetWicket<T extends WicketSettings> {
         // prevent the JSESSIONID from getting set via a URL argument
         sch.setInitParameter("org.eclipse.jetty.servlet.SessionIdPathParameterName", "none");
 
+        // keep sessions in the database, so any node can serve any request,
+        // or bound the sessions held in memory, evicting the least recently used
+        if(settings.getJdbcSessionStore()) {
+            configureJdbcSessions(server);
+        } else if(settings.getMaxSessions() > 0) {
+            final String passivationDir = settings.getSessionPassivationDir();
+
+            sch.getSessionHandler().setSessionManager(
+                    new BoundedSessionManager(settings.getMaxSessions(),
+                                              passivationDir == null ? null : new File(passivationDir),
+                                              injector.getInstance(MetricRegistry.class)));
+        }
+
         // add the font mime type by default
         sch.getMimeTypes().addMimeMapping("woff", "application/x-font-woff");
 
+        // time every request, so this filter goes first
+        if(settings.getMetricsSettings().getEnabled()) {
+            sch.addFilter(new FilterHolder(injector.getInstance(RequestMetricsFilter.class)), "/*", DISPATCHER_TYPES);
+            StandardMetrics.register(injector, server);
+        }
+
+        // record the timeline of each request, logging the slow ones
+        if(settings.getMetricsSettings().getSlowRequestThreshold() > 0) {
+            sch.addFilter(new FilterHolder(injector.getInstance(SlowRequestFilter.class)), "/*", DISPATCHER_TYPES);
+        }
+
+        // open a span for each request, continuing the caller's trace
+        if(settings.getTracingSettings().getEnabled()) {
+            sch.addFilter(new FilterHolder(injector.getInstance(TracingFilter.class)), "/*", DISPATCHER_TYPES);
+        }
+
+        // keep health checks and resources from creating sessions
+        if(settings.getLazySessions()) {
+            final SessionlessFilter filter = new SessionlessFilter(settings, injector.getInstance(MetricRegistry.class));
+            sch.addFilter(new FilterHolder(filter), "/*", DISPATCHER_TYPES);
+        }
+
         // if we're using a database, then install the filter
         if(!settings.getDatabaseSettings().getNotUsed()) {
+            // set the query deadline before the unit of work starts
+            final FilterHolder deadlineFilter = new FilterHolder(injector.getInstance(QueryDeadlineFilter.class));
+            sch.addFilter(deadlineFilter, "/*", DISPATCHER_TYPES);
+
             // setup a FilterHolder for the Guice Persistence
             final FilterHolder persistFilter = new FilterHolder(injector.getInstance(PersistFilter.class));
 
@@ -344,4 +448,24 @@ public class CroquetWicket<T extends WicketSettings> {
 
         return server;
     }
+
+    /**
+     * Stores the HTTP sessions in the database with Jetty's {@link JDBCSessionManager}, which creates its tables.
+     * @param server the server to share the session ids of.
+     */
+    private void configureJdbcSessions(final Server server) {
+        final JDBCSessionIdManager sessionIdManager = new JDBCSessionIdManager(server);
+
+        sessionIdManager.setDatasource(injector.getInstance(DataSourceFactory.class).getDataSource());
+        server.setSessionIdManager(sessionIdManager);
+
+        final JDBCSessionManager sessionManager = new JDBCSessionManager();
+
+        sessionManager.setSessionIdManager(sessionIdManager);
+
+        // load the session on every request, the previous one may have been served by another node
+        sessionManager.setSaveInterval(0);
+
+        sch.getSessionHandler().setSessionManager(sessionManager);
+    }
 }
@@ -9,6 +9,7 @@ import javax.persistence.Entity;
 import org.apache.wicket.authroles.authentication.AbstractAuthenticatedWebSession;
 import org.apache.wicket.markup.html.WebPage;
 import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.serialize.ISerializer;
 import org.hibernate.dialect.Dialect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,7 +20,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.metrink.croquet.LoggingSettings.LogFile;
 import com.metrink.croquet.logging.CroquetLoggingFactory;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.metrics.PrometheusResource;
+import com.metrink.croquet.tracing.SpanExporter;
 import com.metrink.croquet.wicket.CroquetApplication;
+import com.metrink.croquet.wicket.PageCodec;
 
 /**
  * Class used to build the immutable Croquet instance.
@@ -227,6 +232,19 @@ public class CroquetWicketBuilder<T extends WicketSettings> {
         return this;
     }
 
+    /**
+     * Adds an endpoint serving all of Croquet's metrics in Prometheus' text format.
+     *
+     * The endpoint isn't authenticated, so only add it when the application's port isn't public.
+     * @param path the path
+     * @return the {@link CroquetWicketBuilder}.
+     */
+    public CroquetWicketBuilder<T> addMetricsEndpoint(final String path) {
+        settings.getMetricsSettings().setEndpoint(path);
+        settings.addResourceMount(path, PrometheusResource.class);
+        return this;
+    }
+
     /**
      * Adds a {@link IResource} to the list of resources.
      * @param path the location to mount the page.
@@ -276,6 +294,50 @@ public class CroquetWicketBuilder<T extends WicketSettings> {
         return this;
     }
 
+    /**
+     * Sets the {@link MetricRegistry} implementation that Croquet's metrics are recorded in.
+     * @param registryClass the registry class, bound as a singleton.
+     * @return the {@link CroquetWicketBuilder}.
+     */
+    public CroquetWicketBuilder<T> setMetricRegistry(final Class<? extends MetricRegistry> registryClass) {
+        settings.getMetricsSettings().setRegistryClass(registryClass);
+        return this;
+    }
+
+    /**
+     * Sets the {@link ISerializer} pages are stored with, such as
+     * {@link com.metrink.croquet.wicket.KryoSerializer}. The class must have a public constructor taking the application
+     * key, as Wicket's serializers do.
+     * @param serializerClass the serializer class.
+     * @return the {@link CroquetWicketBuilder}.
+     */
+    public CroquetWicketBuilder<T> setPageSerializer(final Class<? extends ISerializer> serializerClass) {
+        settings.setPageSerializerClass(serializerClass);
+        return this;
+    }
+
+    /**
+     * Compresses stored pages with the given {@link PageCodec}, instead of the default
+     * {@link com.metrink.croquet.wicket.DeflatePageCodec}. The class must have a public no-arg constructor.
+     * @param codecClass the codec class.
+     * @return the {@link CroquetWicketBuilder}.
+     */
+    public CroquetWicketBuilder<T> setPageCodec(final Class<? extends PageCodec> codecClass) {
+        settings.setPageCodecClass(codecClass);
+        settings.setPageCompression(true);
+        return this;
+    }
+
+    /**
+     * Sets the {@link SpanExporter} implementation that traced spans are sent to.
+     * @param exporterClass the exporter class, bound as a singleton.
+     * @return the {@link CroquetWicketBuilder}.
+     */
+    public CroquetWicketBuilder<T> setSpanExporter(final Class<? extends SpanExporter> exporterClass) {
+        settings.getTracingSettings().setExporterClass(exporterClass);
+        return this;
+    }
+
     /**
      * Sets the name of the PID file to drop on Linux.
      *
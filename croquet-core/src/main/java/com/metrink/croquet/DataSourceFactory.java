@@ -6,6 +6,8 @@ import org.apache.tomcat.jdbc.pool.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.metrink.croquet.hibernate.CroquetStatementInterceptor;
+
 /**
  * A {@link Serializable} {@link DataSource} factory class.
  *
@@ -56,6 +58,9 @@ public class DataSourceFactory implements Serializable {
 
             // a catch-all for any other properties that are needed
             dataSource.setDbProperties(dbSettings.getProperties());
+
+            // notify StatementListeners about every statement executed through the pool
+            dataSource.setJdbcInterceptors(CroquetStatementInterceptor.class.getName());
         }
 
         return dataSource;
@@ -76,6 +76,63 @@ public class DatabaseSettings implements Serializable {
     @JsonProperty("zeroDateTimeBehavior")
     private String zeroDateTimeBehavior = "convertToNull";
 
+    /*
+     * Below are the settings for the AsyncQueryService
+     */
+    //CHECKSTYLE:OFF magic values
+    @JsonProperty("async_threads")
+    private Integer asyncThreads = 10;
+
+    @JsonProperty("async_queue_size")
+    private Integer asyncQueueSize = 1000;
+
+    /*
+     * Below are the settings for the BatchWriter
+     */
+    @JsonProperty("batch_size")
+    private Integer batchSize = 500;
+
+    @JsonProperty("batch_flush_interval")
+    private Long batchFlushInterval = 1000L;
+
+    /*
+     * Below are the settings for the per-request SQL statement budget
+     */
+    @JsonProperty("statement_budget")
+    private Integer statementBudget = 100;
+
+    @JsonProperty("duplicate_statement_threshold")
+    private Integer duplicateStatementThreshold = 10;
+
+    /*
+     * Below are the settings for ReadOnlyQueries
+     */
+    @JsonProperty("scan_fetch_size")
+    private Integer scanFetchSize = 1000;
+
+    /*
+     * Below are the settings for Hibernate statistics
+     */
+    @JsonProperty("hibernate_statistics")
+    private Boolean hibernateStatistics = Boolean.TRUE;
+
+    @JsonProperty("slow_query_count")
+    private Integer slowQueryCount = 10;
+    //CHECKSTYLE:ON
+
+    // null "inherits" from development (or not) mode
+    @JsonProperty("statement_budget_fail")
+    private Boolean statementBudgetFail;
+
+    /*
+     * Below are the settings for request deadlines
+     */
+    @JsonProperty("query_deadline")
+    private Long queryDeadline = 0L;
+
+    @JsonProperty("query_deadline_header")
+    private String queryDeadlineHeader = "X-Request-Timeout";
+
     private final List<Class<? extends Serializable>> entities = new ArrayList<>();
 
     private final Properties properties = new Properties();
@@ -289,4 +346,151 @@ public class DatabaseSettings implements Serializable {
     void setZeroDateTimeBehavior(final String zeroDateTimeBehavior) {
         this.zeroDateTimeBehavior = zeroDateTimeBehavior;
     }
+
+    /**
+     * Gets the number of threads used to run asynchronous queries.
+     * This is capped by the max active connections of the pool.
+     * @return the number of threads used to run asynchronous queries, defaults to 10.
+     */
+    public int getAsyncThreads() {
+        return Math.min(asyncThreads, maxActive);
+    }
+
+    void setAsyncThreads(final Integer asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+
+    /**
+     * Gets the number of asynchronous queries that can be queued before new ones are rejected.
+     * @return the number of asynchronous queries that can be queued, defaults to 1000.
+     */
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    void setAsyncQueueSize(final Integer asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    /**
+     * Gets the number of pending rows that causes a {@code BatchWriter} to flush.
+     * @return the number of pending rows that triggers a flush, defaults to 500.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    void setBatchSize(final Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets the time, in milliseconds, a row can be pending in a {@code BatchWriter} before the next row added flushes it.
+     * @return the flush interval in milliseconds, defaults to 1000.
+     */
+    public long getBatchFlushInterval() {
+        return batchFlushInterval;
+    }
+
+    void setBatchFlushInterval(final Long batchFlushInterval) {
+        this.batchFlushInterval = batchFlushInterval;
+    }
+
+    /**
+     * Gets the maximum number of SQL statements a single unit of work (request) should execute.
+     * @return the statement budget, defaults to 100.
+     */
+    public int getStatementBudget() {
+        return statementBudget;
+    }
+
+    void setStatementBudget(final Integer statementBudget) {
+        this.statementBudget = statementBudget;
+    }
+
+    /**
+     * Gets the threshold for N+1 queries: the same SQL executed this many times or more in a unit of work is reported.
+     * @return the duplicate statement threshold, defaults to 10.
+     */
+    public int getDuplicateStatementThreshold() {
+        return duplicateStatementThreshold;
+    }
+
+    void setDuplicateStatementThreshold(final Integer duplicateStatementThreshold) {
+        this.duplicateStatementThreshold = duplicateStatementThreshold;
+    }
+
+    /**
+     * Should exceeding the statement budget fail the statement instead of only being logged?
+     * Defaults to follow dev vs deploy.
+     * @param development true if running in development mode.
+     * @return true if exceeding the statement budget should throw.
+     */
+    public boolean getStatementBudgetFail(final boolean development) {
+        return statementBudgetFail != null ? statementBudgetFail : development;
+    }
+
+    void setStatementBudgetFail(final Boolean statementBudgetFail) {
+        this.statementBudgetFail = statementBudgetFail;
+    }
+
+    /**
+     * Gets the time, in ms, a request may spend executing SQL before its statements are timed out and cancelled.
+     * @return the query deadline, defaults to 0 which means no deadline.
+     */
+    public long getQueryDeadline() {
+        return queryDeadline;
+    }
+
+    void setQueryDeadline(final Long queryDeadline) {
+        this.queryDeadline = queryDeadline;
+    }
+
+    /**
+     * Gets the name of the request header a client can use to shorten the query deadline, in ms.
+     * @return the header name, defaults to X-Request-Timeout; null to ignore the header.
+     */
+    public String getQueryDeadlineHeader() {
+        return queryDeadlineHeader;
+    }
+
+    void setQueryDeadlineHeader(final String queryDeadlineHeader) {
+        this.queryDeadlineHeader = queryDeadlineHeader;
+    }
+
+    /**
+     * Gets the number of rows fetched from the database at a time when scanning with ReadOnlyQueries.
+     * @return the scan fetch size, defaults to 1000.
+     */
+    public int getScanFetchSize() {
+        return scanFetchSize;
+    }
+
+    void setScanFetchSize(final Integer scanFetchSize) {
+        this.scanFetchSize = scanFetchSize;
+    }
+
+    /**
+     * Should Hibernate collect statistics? Independent of the log level.
+     * @return true if Hibernate should collect statistics, defaults to true.
+     */
+    public boolean getHibernateStatistics() {
+        return hibernateStatistics;
+    }
+
+    void setHibernateStatistics(final Boolean hibernateStatistics) {
+        this.hibernateStatistics = hibernateStatistics;
+    }
+
+    /**
+     * Gets the number of slowest queries whose statistics are exported to the metrics.
+     * @return the slow query count, defaults to 10.
+     */
+    public int getSlowQueryCount() {
+        return slowQueryCount;
+    }
+
+    void setSlowQueryCount(final Integer slowQueryCount) {
+        this.slowQueryCount = slowQueryCount;
+    }
 }
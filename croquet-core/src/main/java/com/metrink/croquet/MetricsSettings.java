@@ -0,0 +1,120 @@
+package com.metrink.croquet;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * Metrics settings.
+ */
+public class MetricsSettings implements Serializable {
+    private static final long serialVersionUID = 4710386217458291856L;
+
+    private static final long DEFAULT_REFRESH_INTERVAL = 5000;
+    private static final int DEFAULT_SLOW_REQUEST_MAX_EVENTS = 500;
+
+    @JsonProperty("enabled")
+    private Boolean enabled = Boolean.TRUE;
+
+    @JsonProperty("refresh_interval")
+    private Long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+    @JsonProperty("resource_accounting")
+    private Boolean resourceAccounting = Boolean.FALSE;
+
+    @JsonProperty("slow_request_threshold")
+    private Long slowRequestThreshold = 0L;
+
+    @JsonProperty("slow_request_max_events")
+    private Integer slowRequestMaxEvents = DEFAULT_SLOW_REQUEST_MAX_EVENTS;
+
+    private String endpoint;
+
+    private Class<? extends MetricRegistry> registryClass = DefaultMetricRegistry.class;
+
+    /**
+     * Are request metrics recorded?
+     * @return true if request metrics are recorded, defaults to true.
+     */
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the {@link MetricRegistry} implementation bound in Guice.
+     * @return the registry class, defaults to {@link DefaultMetricRegistry}.
+     */
+    public Class<? extends MetricRegistry> getRegistryClass() {
+        return registryClass;
+    }
+
+    void setRegistryClass(final Class<? extends MetricRegistry> registryClass) {
+        this.registryClass = registryClass;
+    }
+
+    /**
+     * Gets the time, in ms, between renderings of the metrics served by the metrics endpoint.
+     * @return the refresh interval, defaults to 5000.
+     */
+    public long getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    void setRefreshInterval(final Long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Are the CPU time and allocations of each request thread recorded?
+     * @return true if resources are accounted per request, defaults to false.
+     */
+    public boolean getResourceAccounting() {
+        return resourceAccounting;
+    }
+
+    void setResourceAccounting(final Boolean resourceAccounting) {
+        this.resourceAccounting = resourceAccounting;
+    }
+
+    /**
+     * Gets the time, in ms, after which a request's timeline is logged as a slow request.
+     * @return the threshold, defaults to 0 (timelines are not recorded).
+     */
+    public long getSlowRequestThreshold() {
+        return slowRequestThreshold;
+    }
+
+    void setSlowRequestThreshold(final Long slowRequestThreshold) {
+        this.slowRequestThreshold = slowRequestThreshold;
+    }
+
+    /**
+     * Gets the maximum number of events kept in a slow request's timeline.
+     * @return the maximum number of events, defaults to 500.
+     */
+    public int getSlowRequestMaxEvents() {
+        return slowRequestMaxEvents;
+    }
+
+    void setSlowRequestMaxEvents(final Integer slowRequestMaxEvents) {
+        this.slowRequestMaxEvents = slowRequestMaxEvents;
+    }
+
+    /**
+     * Gets the path the metrics are served from in Prometheus' format.
+     * @return the path, or null if the endpoint has not been added.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    void setEndpoint(final String endpoint) {
+        this.endpoint = endpoint;
+    }
+}
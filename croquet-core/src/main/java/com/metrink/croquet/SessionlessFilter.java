@@ -0,0 +1,124 @@
+package com.metrink.croquet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpSession;
+
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * Servlet filter that keeps requests to sessionless paths from creating an HTTP session.
+ *
+ * Health checks, mounted resources, Wicket's package resources and the sessionless_paths never need a session, but
+ * anything that asks for one, a Wicket component or another filter, would have Jetty create it and set its cookie. On
+ * these paths a request for a new session gets the existing session, or none, and is counted instead.
+ */
+class SessionlessFilter implements Filter {
+    static final String BLOCKED = "croquet_sessions_blocked_total";
+
+    private static final String SEPARATOR = "/";
+    private static final String PACKAGE_RESOURCES = "/wicket/resource/";
+
+    private final List<String> paths = new ArrayList<String>();
+    private final Counter blocked;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the resource mounts and sessionless paths.
+     * @param registry the registry to count the sessions that weren't created in.
+     */
+    SessionlessFilter(final WicketSettings settings, final MetricRegistry registry) {
+        this.blocked = registry.counter(BLOCKED, "Sessions not created because the request was to a sessionless path");
+
+        paths.add(PACKAGE_RESOURCES);
+
+        for(final String path:settings.getResourceMountClasses().keySet()) {
+            paths.add(normalize(path));
+        }
+
+        for(final String path:settings.getSessionlessPaths()) {
+            paths.add(normalize(path));
+        }
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        if(request instanceof HttpServletRequest && isSessionless((HttpServletRequest)request)) {
+            chain.doFilter(new SessionlessRequest((HttpServletRequest)request), response);
+        } else {
+            chain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private boolean isSessionless(final HttpServletRequest request) {
+        final String uri = request.getRequestURI();
+
+        for(final String path:paths) {
+            // the path itself, or anything below it
+            if(uri.startsWith(path)
+                    && (path.endsWith(SEPARATOR) || uri.length() == path.length() || uri.startsWith(SEPARATOR, path.length()))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Makes a path absolute, and drops its trailing separator so the path itself matches as well as what's below it.
+     */
+    private static String normalize(final String path) {
+        final String absolute = path.startsWith(SEPARATOR) ? path : SEPARATOR + path;
+
+        return absolute.length() > 1 && absolute.endsWith(SEPARATOR)
+                ? absolute.substring(0, absolute.length() - 1)
+                : absolute;
+    }
+
+    /**
+     * A request that can use an existing session, but never creates one.
+     */
+    private final class SessionlessRequest extends HttpServletRequestWrapper {
+
+        SessionlessRequest(final HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(final boolean create) {
+            final HttpSession session = super.getSession(false);
+
+            if(session == null && create) {
+                blocked.inc();
+            }
+
+            return session;
+        }
+    }
+}
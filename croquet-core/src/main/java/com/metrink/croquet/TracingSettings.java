@@ -0,0 +1,73 @@
+package com.metrink.croquet;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.metrink.croquet.tracing.FileSpanExporter;
+import com.metrink.croquet.tracing.SpanExporter;
+
+/**
+ * Tracing settings.
+ */
+public class TracingSettings implements Serializable {
+    private static final long serialVersionUID = -3145297712032385694L;
+
+    @JsonProperty("enabled")
+    private Boolean enabled = Boolean.FALSE;
+
+    @JsonProperty("sample_ratio")
+    private Double sampleRatio = 1.0;
+
+    @JsonProperty("file")
+    private String file = "./croquet-spans.json";
+
+    private Class<? extends SpanExporter> exporterClass = FileSpanExporter.class;
+
+    /**
+     * Are requests traced?
+     * @return true if requests are traced, defaults to false.
+     */
+    public boolean getEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(final Boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Gets the fraction of new traces that are recorded.
+     * @return the sample ratio between 0 and 1, defaults to 1.
+     */
+    public double getSampleRatio() {
+        return sampleRatio;
+    }
+
+    void setSampleRatio(final Double sampleRatio) {
+        this.sampleRatio = sampleRatio;
+    }
+
+    /**
+     * Gets the file the {@link FileSpanExporter} appends spans to.
+     * @return the file name, defaults to ./croquet-spans.json.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    void setFile(final String file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the {@link SpanExporter} implementation bound in Guice.
+     * @return the exporter class, defaults to {@link FileSpanExporter}.
+     */
+    public Class<? extends SpanExporter> getExporterClass() {
+        return exporterClass;
+    }
+
+    void setExporterClass(final Class<? extends SpanExporter> exporterClass) {
+        this.exporterClass = exporterClass;
+    }
+}
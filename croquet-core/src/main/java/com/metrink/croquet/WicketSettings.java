@@ -5,6 +5,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.wicket.authroles.authentication.AbstractAuthenticatedWebSession;
 import org.apache.wicket.markup.html.WebPage;
@@ -14,11 +15,14 @@ import org.apache.wicket.request.resource.CssResourceReference;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.UrlResourceReference;
+import org.apache.wicket.serialize.ISerializer;
 import org.apache.wicket.settings.IRequestCycleSettings.RenderStrategy;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.metrink.croquet.wicket.CroquetApplication;
 import com.metrink.croquet.wicket.CroquetApplication.UnauthenticatedWebSession;
+import com.metrink.croquet.wicket.DeflatePageCodec;
+import com.metrink.croquet.wicket.PageCodec;
 
 /**
  * Base Settings class. Overriding this is not required, but it is recommended.
@@ -28,6 +32,14 @@ import com.metrink.croquet.wicket.CroquetApplication.UnauthenticatedWebSession;
 public class WicketSettings extends AbstractSettings {
     private static final long serialVersionUID = -4071324712275262138L;
 
+    private static final int DEFAULT_PAGE_STORE_FILE_MB = 256;
+    private static final int DEFAULT_PAGE_COMPRESSION_THRESHOLD = 1024;
+    private static final long DEFAULT_JDBC_PAGE_TTL = TimeUnit.DAYS.toMillis(1);
+    private static final long DEFAULT_JDBC_PAGE_CLEANUP_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    private static final long DEFAULT_JDBC_PAGE_WRITE_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+    private static final int DEFAULT_SESSION_SIZE_ESTIMATE = 16 * 1024;
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
     private Class<? extends WebApplication> application = CroquetApplication.class;
 
     private Class<? extends WebPage> homePage;
@@ -44,6 +56,10 @@ public class WicketSettings extends AbstractSettings {
 
     private Class<?> resourcesRootClass;
 
+    private Class<? extends ISerializer> pageSerializerClass;
+
+    private Class<? extends PageCodec> pageCodecClass = DeflatePageCodec.class;
+
     @JsonProperty("css_resources")
     private List<String> cssResources = new ArrayList<String>();
 
@@ -63,9 +79,65 @@ public class WicketSettings extends AbstractSettings {
     @JsonProperty("stateless_checker")
     private Boolean statelessChecker;
 
+    @JsonProperty("report_stateful_pages")
+    private Boolean reportStatefulPages = Boolean.FALSE;
+
     @JsonProperty("wicket_debug_toolbar")
     private Boolean wicketDebugToolbar;
 
+    @JsonProperty("page_store_memory_mb")
+    private Integer pageStoreMemoryMb = 0;
+
+    @JsonProperty("page_store_file_mb")
+    private Integer pageStoreFileMb = DEFAULT_PAGE_STORE_FILE_MB;
+
+    @JsonProperty("async_page_store")
+    private Boolean asyncPageStore = Boolean.FALSE;
+
+    @JsonProperty("page_size_sample_rate")
+    private Double pageSizeSampleRate = 0.0;
+
+    @JsonProperty("page_size_budget")
+    private Long pageSizeBudget = 0L;
+
+    @JsonProperty("page_compression")
+    private Boolean pageCompression = Boolean.FALSE;
+
+    @JsonProperty("page_compression_threshold")
+    private Integer pageCompressionThreshold = DEFAULT_PAGE_COMPRESSION_THRESHOLD;
+
+    @JsonProperty("jdbc_session_store")
+    private Boolean jdbcSessionStore = Boolean.FALSE;
+
+    @JsonProperty("jdbc_page_ttl")
+    private Long jdbcPageTtl = DEFAULT_JDBC_PAGE_TTL;
+
+    @JsonProperty("jdbc_page_cleanup_interval")
+    private Long jdbcPageCleanupInterval = DEFAULT_JDBC_PAGE_CLEANUP_INTERVAL;
+
+    @JsonProperty("jdbc_page_write_timeout")
+    private Long jdbcPageWriteTimeout = DEFAULT_JDBC_PAGE_WRITE_TIMEOUT;
+
+    @JsonProperty("max_sessions")
+    private Integer maxSessions = 0;
+
+    @JsonProperty("session_memory_mb")
+    private Integer sessionMemoryMb = 0;
+
+    @JsonProperty("session_size_estimate")
+    private Integer sessionSizeEstimate = DEFAULT_SESSION_SIZE_ESTIMATE;
+
+    @JsonProperty("session_passivation_dir")
+    private String sessionPassivationDir;
+
+    @JsonProperty("lazy_sessions")
+    private Boolean lazySessions = Boolean.FALSE;
+
+    @JsonProperty("sessionless_paths")
+    private List<String> sessionlessPaths = new ArrayList<String>();
+
+    @JsonProperty("warm_markup")
+    private Boolean warmMarkup = Boolean.FALSE;
 
     @Override
     protected void init() {
@@ -89,6 +161,30 @@ public class WicketSettings extends AbstractSettings {
         this.application = application;
     }
 
+    /**
+     * Gets the {@link ISerializer} pages are stored with.
+     * @return the serializer class, or null for Wicket's default Java serialization.
+     */
+    public Class<? extends ISerializer> getPageSerializerClass() {
+        return pageSerializerClass;
+    }
+
+    void setPageSerializerClass(final Class<? extends ISerializer> pageSerializerClass) {
+        this.pageSerializerClass = pageSerializerClass;
+    }
+
+    /**
+     * Gets the {@link PageCodec} stored pages are compressed with, when page compression is enabled.
+     * @return the codec class, defaults to {@link DeflatePageCodec}.
+     */
+    public Class<? extends PageCodec> getPageCodecClass() {
+        return pageCodecClass;
+    }
+
+    void setPageCodecClass(final Class<? extends PageCodec> pageCodecClass) {
+        this.pageCodecClass = pageCodecClass;
+    }
+
     /**
      * Gets the {@link AbstractAuthenticatedWebSession} for this application.
      * Defaults to {@link UnauthenticatedWebSession}.
@@ -271,6 +367,14 @@ public class WicketSettings extends AbstractSettings {
         }
     }
 
+    /**
+     * Are mounted pages that render stateful counted, and the components that made them stateful logged?
+     * @return true if stateful pages are reported, defaults to false.
+     */
+    public boolean getReportStatefulPages() {
+        return reportStatefulPages;
+    }
+
     /**
      * Should Croquet enable the wicket debug toolbar? Defaults to follow dev vs deploy.
      *
@@ -286,6 +390,146 @@ public class WicketSettings extends AbstractSettings {
         }
     }
 
+    /**
+     * Gets the megabytes of direct memory the most recent serialized pages are kept in, by the
+     * {@link com.metrink.croquet.wicket.OffHeapDataStore}.
+     * @return the memory in MB, defaults to 0 (pages are stored by Wicket's disk store).
+     */
+    public int getPageStoreMemoryMb() {
+        return pageStoreMemoryMb;
+    }
+
+    /**
+     * Gets the size of the memory-mapped file older serialized pages are moved to when the page store's memory is full.
+     * @return the file size in MB, defaults to 256 (0 drops pages that no longer fit in memory).
+     */
+    public int getPageStoreFileMb() {
+        return pageStoreFileMb;
+    }
+
+    /**
+     * Gets if pages are serialized and stored on a background thread, after the response has been sent.
+     * @return true to store pages in the background, defaults to false.
+     */
+    public boolean getAsyncPageStore() {
+        return asyncPageStore;
+    }
+
+    /**
+     * Gets the fraction of stored pages whose serialized size is sampled into the metrics.
+     * @return the sample rate between 0 and 1, defaults to 0 (pages are not sampled).
+     */
+    public double getPageSizeSampleRate() {
+        return pageSizeSampleRate;
+    }
+
+    /**
+     * Gets the serialized size, in bytes, above which a sampled page's largest fields are logged.
+     * @return the budget, defaults to 0 (no budget).
+     */
+    public long getPageSizeBudget() {
+        return pageSizeBudget;
+    }
+
+    /**
+     * Are serialized pages compressed before they are stored?
+     * @return true if pages are compressed, defaults to false.
+     */
+    public boolean getPageCompression() {
+        return pageCompression;
+    }
+
+    void setPageCompression(final Boolean pageCompression) {
+        this.pageCompression = pageCompression;
+    }
+
+    /**
+     * Gets the serialized size, in bytes, below which pages are stored uncompressed.
+     * @return the threshold, defaults to 1024.
+     */
+    public int getPageCompressionThreshold() {
+        return pageCompressionThreshold;
+    }
+
+    /**
+     * Gets if sessions and pages are stored in the database, so any node can serve any request.
+     * @return true if sessions and pages are stored in the database, defaults to false.
+     */
+    public boolean getJdbcSessionStore() {
+        return jdbcSessionStore;
+    }
+
+    /**
+     * Gets the time, in milliseconds, after its last store that a page is removed from the database.
+     * @return the page time to live in milliseconds, defaults to 1 day.
+     */
+    public long getJdbcPageTtl() {
+        return jdbcPageTtl;
+    }
+
+    /**
+     * Gets how often, in milliseconds, expired pages are removed from the database.
+     * @return the cleanup interval in milliseconds, defaults to 5 minutes.
+     */
+    public long getJdbcPageCleanupInterval() {
+        return jdbcPageCleanupInterval;
+    }
+
+    /**
+     * Gets how long, in milliseconds, a request waits for its page to be written to the database before failing.
+     * @return the write timeout in milliseconds, defaults to 30 seconds.
+     */
+    public long getJdbcPageWriteTimeout() {
+        return jdbcPageWriteTimeout;
+    }
+
+    /**
+     * Gets the most sessions held in memory, the lower of max_sessions and the number of sessions of
+     * session_size_estimate bytes that fit in session_memory_mb.
+     * @return the most sessions held in memory, defaults to 0 for no limit.
+     */
+    public int getMaxSessions() {
+        if(sessionMemoryMb <= 0) {
+            return maxSessions;
+        }
+
+        final int fit = (int)Math.max(1, Math.min(Integer.MAX_VALUE, sessionMemoryMb * BYTES_PER_MB / sessionSizeEstimate));
+
+        return maxSessions > 0 ? Math.min(maxSessions, fit) : fit;
+    }
+
+    /**
+     * Gets the directory sessions evicted to stay within the session limit are written to.
+     * @return the passivation directory, defaults to null to invalidate evicted sessions.
+     */
+    public String getSessionPassivationDir() {
+        return sessionPassivationDir;
+    }
+
+    /**
+     * Gets if sessions are only created for stateful pages and signed in users, never on sessionless paths.
+     * @return true if sessions are created lazily, defaults to false.
+     */
+    public boolean getLazySessions() {
+        return lazySessions;
+    }
+
+    /**
+     * Gets the paths, in addition to the health checks and mounted resources, that never create a session.
+     * @return the sessionless paths, defaults to none.
+     */
+    public List<String> getSessionlessPaths() {
+        return Collections.unmodifiableList(sessionlessPaths);
+    }
+
+    /**
+     * Gets if the markup of the mounted pages is loaded when the application starts, instead of on first render.
+     * @return true if markup is loaded on start, defaults to false.
+     */
+    public boolean getWarmMarkup() {
+        return warmMarkup;
+    }
+
     /**
      * Get the Wicket rendering strategy.
      * @return the rendering strategy
@@ -0,0 +1,301 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.google.inject.persist.UnitOfWork;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+import com.metrink.croquet.metrics.RequestTimeline;
+import com.metrink.croquet.modules.ManagedModule;
+import com.metrink.croquet.tracing.Span;
+import com.metrink.croquet.tracing.Tracer;
+import com.sop4j.dbutils.QueryRunner;
+
+/**
+ * Runs {@link EntityManager} and {@link QueryRunner} work on a dedicated, bounded executor.
+ *
+ * Each piece of work is run inside its own {@link UnitOfWork} on one of the executor's threads, so it gets a fresh
+ * {@link EntityManager} that is closed once the work completes. This allows a request to fan out several independent
+ * queries and combine the resulting {@link CompletableFuture}s. Entities returned from the work are detached.
+ *
+ * The executor is sized by the async_threads setting (capped at the pool's maxActive) so asynchronous work can never
+ * starve the connection pool. When the queue is full the returned future is completed exceptionally with a
+ * {@link RejectedExecutionException} instead of running the work on the calling thread.
+ */
+@Singleton
+public class AsyncQueryService implements ManagedModule {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncQueryService.class);
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final DatabaseSettings dbSettings;
+    private final UnitOfWork unitOfWork;
+    private final Provider<EntityManager> entityManagerProvider;
+    private final Provider<QueryRunner> queryRunnerProvider;
+
+    private volatile ThreadPoolExecutor executor;
+
+    /**
+     * Constructs the {@link AsyncQueryService}.
+     * @param settings the settings used to size the executor.
+     * @param unitOfWork the {@link UnitOfWork} started and ended around each piece of work.
+     * @param entityManagerProvider a provider of {@link EntityManager}s.
+     * @param queryRunnerProvider a provider of {@link QueryRunner}s.
+     */
+    @Inject
+    public AsyncQueryService(final AbstractSettings settings,
+                             final UnitOfWork unitOfWork,
+                             final Provider<EntityManager> entityManagerProvider,
+                             final Provider<QueryRunner> queryRunnerProvider) {
+        this.dbSettings = settings.getDatabaseSettings();
+        this.unitOfWork = unitOfWork;
+        this.entityManagerProvider = entityManagerProvider;
+        this.queryRunnerProvider = queryRunnerProvider;
+    }
+
+    /**
+     * Nothing to do here, the executor is created the first time work is submitted.
+     */
+    @Override
+    public void start() {
+        LOG.debug("AsyncQueryService configured with {} threads", dbSettings.getAsyncThreads());
+    }
+
+    /**
+     * Stops accepting new work and waits for running work to complete. Work submitted afterwards, once the module is
+     * restarted, runs on a new executor.
+     */
+    @Override
+    public void stop() {
+        final ThreadPoolExecutor exec;
+
+        synchronized(this) {
+            exec = executor;
+            executor = null;
+        }
+
+        if(exec == null) {
+            return;
+        }
+
+        exec.shutdown();
+
+        try {
+            if(!exec.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Asynchronous queries did not finish in {}s, interrupting them", SHUTDOWN_WAIT_SECONDS);
+                exec.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            exec.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs the work with an {@link EntityManager} on the executor.
+     *
+     * Any transaction the work leaves active is rolled back if the work throws. The future is completed exceptionally with
+     * whatever the work, or starting its unit of work, throws.
+     * @param work the work to run.
+     * @return a future that completes with the result of the work.
+     * @param <T> the type of the result.
+     */
+    public <T> CompletableFuture<T> withEntityManager(final JpaWork<T> work) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        submit(future, new Runnable() {
+            @Override
+            public void run() {
+                EntityManager entityManager = null;
+
+                try {
+                    entityManager = entityManagerProvider.get();
+
+                    future.complete(work.execute(entityManager));
+                //CHECKSTYLE:OFF the future must see every failure
+                } catch (final Throwable t) {
+                //CHECKSTYLE:ON
+                    rollback(entityManager, t);
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Runs the work with a {@link QueryRunner} on the executor.
+     *
+     * An {@link SQLException} thrown by the work is the cause of the future's {@link java.util.concurrent.ExecutionException}.
+     * @param work the work to run.
+     * @return a future that completes with the result of the work.
+     * @param <T> the type of the result.
+     */
+    public <T> CompletableFuture<T> withQueryRunner(final QueryRunnerWork<T> work) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+
+        submit(future, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    future.complete(work.execute(queryRunnerProvider.get()));
+                //CHECKSTYLE:OFF the future must see every failure
+                } catch (final Throwable t) {
+                //CHECKSTYLE:ON
+                    future.completeExceptionally(t);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Submits the task wrapped in a {@link UnitOfWork}, failing the future if the executor rejects it.
+     */
+    private void submit(final CompletableFuture<?> future, final Runnable task) {
+        // the caller's request deadline still applies to the work it hands off, and it belongs on its timeline and trace
+        final Long deadline = QueryDeadline.get();
+        final RequestTimeline timeline = RequestTimeline.get();
+        final Span parent = Tracer.currentSpan();
+
+        try {
+            getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    Span span = null;
+
+                    try {
+                        QueryDeadline.restore(deadline);
+                        RequestTimeline.restore(timeline);
+
+                        span = parent == null ? null : parent.startChild("async query", Span.Kind.INTERNAL);
+
+                        unitOfWork.begin();
+
+                        try {
+                            task.run();
+                        } finally {
+                            unitOfWork.end();
+                        }
+                    //CHECKSTYLE:OFF the future must see every failure, a no-op if the task already completed it
+                    } catch (final Throwable t) {
+                    //CHECKSTYLE:ON
+                        future.completeExceptionally(t);
+                    } finally {
+                        QueryDeadline.clear();
+                        RequestTimeline.restore(null);
+
+                        if(span != null) {
+                            span.end();
+                        }
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            LOG.warn("Rejected asynchronous query: {}", e.getMessage());
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Rolls back any transaction the work left active, keeping a failure to do so with the work's failure.
+     */
+    private static void rollback(final EntityManager entityManager, final Throwable cause) {
+        if(entityManager == null) {
+            return;
+        }
+
+        //CHECKSTYLE:OFF the future must see the work's failure, not the rollback's
+        try {
+            final EntityTransaction tx = entityManager.getTransaction();
+
+            if(tx.isActive()) {
+                tx.rollback();
+            }
+        } catch (final Throwable t) {
+            cause.addSuppressed(t);
+        }
+        //CHECKSTYLE:ON
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if(executor == null) {
+            synchronized(this) {
+                if(executor == null) {
+                    final int threads = dbSettings.getAsyncThreads();
+                    final ThreadPoolExecutor exec = new ThreadPoolExecutor(threads,
+                                                                           threads,
+                                                                           KEEP_ALIVE_SECONDS,
+                                                                           TimeUnit.SECONDS,
+                                                                           new ArrayBlockingQueue<Runnable>(
+                                                                                   dbSettings.getAsyncQueueSize()),
+                                                                           new AsyncQueryThreadFactory());
+
+                    exec.allowCoreThreadTimeOut(true);
+                    executor = exec;
+                }
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Work to run with an {@link EntityManager}.
+     * @param <T> the type of the result.
+     */
+    public interface JpaWork<T> {
+        /**
+         * Runs the work.
+         * @param entityManager the {@link EntityManager} for this piece of work.
+         * @return the result.
+         */
+        T execute(EntityManager entityManager);
+    }
+
+    /**
+     * Work to run with a {@link QueryRunner}.
+     * @param <T> the type of the result.
+     */
+    public interface QueryRunnerWork<T> {
+        /**
+         * Runs the work.
+         * @param queryRunner the {@link QueryRunner} for this piece of work.
+         * @return the result.
+         * @throws SQLException if the query fails.
+         */
+        T execute(QueryRunner queryRunner) throws SQLException;
+    }
+
+    /**
+     * Creates named daemon threads so a stuck query cannot hold the JVM open.
+     */
+    private static class AsyncQueryThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "croquet-async-query-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.JDBCException;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.DataSourceFactory;
+
+/**
+ * Accumulates parameter sets per SQL statement and writes them with JDBC's {@code executeBatch}.
+ *
+ * The pending rows are flushed when either the batch size or the flush interval is reached, when {@link #flush()} is
+ * called, or when the writer is closed. The flush interval is only checked by {@link #add}, there is no timer, so rows
+ * added before a pause stay pending until the next call. Statements are executed in the order in which each SQL string
+ * was first added, so add parent rows before child rows.
+ *
+ * A writer created with an {@link EntityManager} that has an active transaction writes through that transaction's
+ * connection and leaves committing to the caller. Otherwise each flush borrows a connection from the pool and commits
+ * the batch itself.
+ *
+ * Instances are NOT thread-safe, create one per request (or thread) through the {@link BatchWriterFactory}.
+ */
+public class BatchWriter implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(BatchWriter.class);
+
+    private final DataSourceFactory dataSourceFactory;
+    private final EntityManager entityManager;
+    private final int batchSize;
+    private final long flushInterval;
+
+    private final Map<String, List<Object[]>> pending = new LinkedHashMap<String, List<Object[]>>();
+    private int pendingCount;
+    private long oldestPending;
+
+    /**
+     * Constructs a {@link BatchWriter}.
+     * @param dataSourceFactory the factory for the pool to borrow connections from.
+     * @param entityManager the {@link EntityManager} whose transaction to join, or null.
+     * @param batchSize the number of pending rows that triggers a flush.
+     * @param flushInterval the time, in milliseconds, after which the next add flushes the pending rows.
+     */
+    BatchWriter(final DataSourceFactory dataSourceFactory,
+                final EntityManager entityManager,
+                final int batchSize,
+                final long flushInterval) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Adds a set of parameters for the SQL statement, flushing if a threshold has been reached.
+     * @param sql the SQL statement.
+     * @param params the parameters for the statement.
+     * @throws SQLException if a flush was triggered and failed.
+     */
+    public void add(final String sql, final Object... params) throws SQLException {
+        List<Object[]> rows = pending.get(sql);
+
+        if(rows == null) {
+            rows = new ArrayList<Object[]>();
+            pending.put(sql, rows);
+        }
+
+        if(pendingCount == 0) {
+            oldestPending = System.currentTimeMillis();
+        }
+
+        rows.add(params.clone());
+        pendingCount++;
+
+        if(pendingCount >= batchSize || System.currentTimeMillis() - oldestPending >= flushInterval) {
+            flush();
+        }
+    }
+
+    /**
+     * Gets the number of rows waiting to be written.
+     * @return the number of pending rows.
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Writes all the pending rows.
+     * @throws SQLException if writing the rows fails, the pending rows are discarded.
+     */
+    public void flush() throws SQLException {
+        if(pendingCount == 0) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final int count = pendingCount;
+
+        try {
+            if(entityManager != null && entityManager.getTransaction().isActive()) {
+                flushInTransaction();
+            } else {
+                flushWithPoolConnection();
+            }
+        } finally {
+            pending.clear();
+            pendingCount = 0;
+        }
+
+        LOG.debug("Flushed {} rows in {}ms", count, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Flushes any pending rows.
+     * @throws SQLException if writing the rows fails.
+     */
+    @Override
+    public void close() throws SQLException {
+        flush();
+    }
+
+    private void flushInTransaction() throws SQLException {
+        try {
+            entityManager.unwrap(Session.class).doWork(new Work() {
+                @Override
+                public void execute(final Connection connection) throws SQLException {
+                    executeBatches(connection);
+                }
+            });
+        } catch (final JDBCException e) {
+            throw e.getSQLException();
+        }
+    }
+
+    private void flushWithPoolConnection() throws SQLException {
+        final Connection connection = dataSourceFactory.getDataSource().getConnection();
+
+        try {
+            final boolean autoCommit = connection.getAutoCommit();
+
+            boolean committed = false;
+
+            connection.setAutoCommit(false);
+
+            try {
+                executeBatches(connection);
+                connection.commit();
+                committed = true;
+            } finally {
+                if(!committed) {
+                    rollback(connection);
+                }
+
+                connection.setAutoCommit(autoCommit);
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void rollback(final Connection connection) {
+        try {
+            connection.rollback();
+        } catch (final SQLException e) {
+            LOG.error("Error rolling back batch: {}", e.getMessage());
+        }
+    }
+
+    private void executeBatches(final Connection connection) throws SQLException {
+        for(final Map.Entry<String, List<Object[]>> entry:pending.entrySet()) {
+            try (final PreparedStatement statement = connection.prepareStatement(entry.getKey())) {
+                ParameterMetaData pmd = null;
+
+                for(final Object[] params:entry.getValue()) {
+                    for(int i = 0; i < params.length; ++i) {
+                        if(params[i] != null) {
+                            statement.setObject(i + 1, params[i]);
+                        } else {
+                            if(pmd == null) {
+                                pmd = statement.getParameterMetaData();
+                            }
+
+                            statement.setNull(i + 1, getParameterType(pmd, i + 1));
+                        }
+                    }
+
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Same fallback as {@link com.sop4j.dbutils.QueryRunner}: some drivers cannot describe parameters.
+     */
+    private static int getParameterType(final ParameterMetaData pmd, final int index) {
+        try {
+            return pmd.getParameterType(index);
+        } catch (final SQLException e) {
+            return Types.VARCHAR;
+        }
+    }
+}
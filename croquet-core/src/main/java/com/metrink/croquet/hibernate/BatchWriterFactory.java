@@ -0,0 +1,47 @@
+package com.metrink.croquet.hibernate;
+
+import javax.persistence.EntityManager;
+
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.DatabaseSettings;
+
+/**
+ * Factory for {@link BatchWriter}s configured with the batch_size and batch_flush_interval settings.
+ *
+ * Only available when the database is configured through the YAML file.
+ */
+public class BatchWriterFactory {
+
+    private final DataSourceFactory dataSourceFactory;
+    private final DatabaseSettings dbSettings;
+
+    /**
+     * Constructor.
+     * @param dataSourceFactory a factory to create {@link javax.sql.DataSource}s.
+     * @param dbSettings the database settings.
+     */
+    BatchWriterFactory(final DataSourceFactory dataSourceFactory, final DatabaseSettings dbSettings) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.dbSettings = dbSettings;
+    }
+
+    /**
+     * Creates a {@link BatchWriter} that borrows a connection from the pool and commits on each flush.
+     * @return a new {@link BatchWriter}.
+     */
+    public BatchWriter create() {
+        return create(null);
+    }
+
+    /**
+     * Creates a {@link BatchWriter} that writes through the {@link EntityManager}'s transaction when it is active.
+     * @param entityManager the {@link EntityManager} whose transaction to join.
+     * @return a new {@link BatchWriter}.
+     */
+    public BatchWriter create(final EntityManager entityManager) {
+        return new BatchWriter(dataSourceFactory,
+                               entityManager,
+                               dbSettings.getBatchSize(),
+                               dbSettings.getBatchFlushInterval());
+    }
+}
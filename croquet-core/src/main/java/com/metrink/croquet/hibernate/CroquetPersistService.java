@@ -25,6 +25,7 @@ import com.google.inject.name.Named;
 import com.google.inject.persist.PersistService;
 import com.google.inject.persist.UnitOfWork;
 import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.metrics.RequestTimeline;
 
 /**
  * A PersistService, UnitOfWork, and Provider<EntityManager> implementation that configures Hibernate.
@@ -43,6 +44,10 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
     private final String persistenceUnitName;
     private final ConnectionProvider connectionProvider;
     private final ThreadLocal<EntityManager> entityManager = new ThreadLocal<EntityManager>();
+    private final StatementBudget statementBudget;
+    private final DeadlineStatementListener deadlineListener = new DeadlineStatementListener();
+    private final TimelineStatementListener timelineListener = new TimelineStatementListener();
+    private final TracingStatementListener tracingListener = new TracingStatementListener();
     private volatile EntityManagerFactory entityManagerFactory;
 
     /**
@@ -57,6 +62,7 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
         this.settings = settings;
         this.persistenceUnitName = persistenceUnitName;
         this.connectionProvider = connectionProvider;
+        this.statementBudget = new StatementBudget(settings);
     }
 
     public String getPersistenceUnitName() {
@@ -103,12 +109,17 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
         configuration.setProperty("jadira.usertype.autoRegisterUserTypes", TRUE_STRING);
         configuration.setProperty(AvailableSettings.DIALECT, settings.getDatabaseSettings().getDialectClass());
 
-        // turn on and off features based upon log level
-        if(LOG.isDebugEnabled()) {
+        // statistics are cheap enough to leave on in production, they're exported to the metrics
+        if(settings.getDatabaseSettings().getHibernateStatistics()) {
             configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, TRUE_STRING);
-            configuration.setProperty(AvailableSettings.SHOW_SQL, TRUE_STRING);
         } else {
             configuration.setProperty(AvailableSettings.GENERATE_STATISTICS, FALSE_STRING);
+        }
+
+        // turn on and off SQL logging based upon log level
+        if(LOG.isDebugEnabled()) {
+            configuration.setProperty(AvailableSettings.SHOW_SQL, TRUE_STRING);
+        } else {
             configuration.setProperty(AvailableSettings.SHOW_SQL, FALSE_STRING);
         }
 
@@ -132,6 +143,12 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
                                                                  serviceRegistry,
                                                                  persistenceUnitName);
 
+        // count the statements executed in each unit of work, time out those that run past the request deadline,
+        // and put them on the request's timeline and trace
+        CroquetStatementInterceptor.addListener(statementBudget);
+        CroquetStatementInterceptor.addListener(deadlineListener);
+        CroquetStatementInterceptor.addListener(timelineListener);
+        CroquetStatementInterceptor.addListener(tracingListener);
     }
 
     /*
@@ -144,6 +161,12 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
             throw new IllegalStateException("Persistence service was already shut down.");
         }
 
+        CroquetStatementInterceptor.removeListener(statementBudget);
+        CroquetStatementInterceptor.removeListener(deadlineListener);
+        CroquetStatementInterceptor.removeListener(timelineListener);
+        CroquetStatementInterceptor.removeListener(tracingListener);
+        deadlineListener.shutdown();
+
         entityManagerFactory.close();
     }
 
@@ -159,6 +182,8 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
         }
 
         entityManager.set(EntityManagerProxyFactory.createProxy((HibernateEntityManagerFactory)entityManagerFactory));
+        statementBudget.begin();
+        RequestTimeline.mark("unit_of_work_begin");
     }
 
     /*
@@ -183,6 +208,8 @@ class CroquetPersistService implements Provider<EntityManager>, UnitOfWork, Pers
 
         em.close();
         entityManager.remove();
+        statementBudget.end();
+        RequestTimeline.mark("unit_of_work_end");
     }
 
     @Override
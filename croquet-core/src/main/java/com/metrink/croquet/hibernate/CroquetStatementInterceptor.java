@@ -0,0 +1,152 @@
+package com.metrink.croquet.hibernate;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.tomcat.jdbc.pool.interceptor.AbstractCreateStatementInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Tomcat JDBC pool interceptor that notifies {@link StatementListener}s around every statement execution.
+ *
+ * Because the interceptor sits on the pool, it sees the statements issued by Hibernate and by the {@link
+ * com.sop4j.dbutils.QueryRunner} alike. The pool creates the interceptor by class name, so listeners are registered
+ * statically.
+ */
+public class CroquetStatementInterceptor extends AbstractCreateStatementInterceptor {
+    @SuppressWarnings("unused")
+    private static final Logger LOG = LoggerFactory.getLogger(CroquetStatementInterceptor.class);
+
+    private static final CopyOnWriteArrayList<StatementListener> LISTENERS =
+            new CopyOnWriteArrayList<StatementListener>();
+
+    /**
+     * Adds a listener, if it is not already registered.
+     * @param listener the listener to add.
+     */
+    public static void addListener(final StatementListener listener) {
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a listener.
+     * @param listener the listener to remove.
+     */
+    public static void removeListener(final StatementListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    @Override
+    public Object createStatement(final Object proxy,
+                                  final Method method,
+                                  final Object[] args,
+                                  final Object statement,
+                                  final long time) {
+        final String name = method.getName();
+        final Class<?> type;
+        String sql = null;
+
+        if(PREPARE_CALL.equals(name)) {
+            type = CallableStatement.class;
+            sql = (String)args[0];
+        } else if(PREPARE_STATEMENT.equals(name)) {
+            type = PreparedStatement.class;
+            sql = (String)args[0];
+        } else {
+            type = Statement.class;
+        }
+
+        return Proxy.newProxyInstance(CroquetStatementInterceptor.class.getClassLoader(),
+                                      new Class[] { type },
+                                      new StatementHandler((Statement)statement, sql));
+    }
+
+    @Override
+    public void closeInvoked() {
+        // nothing is held per connection
+    }
+
+    /**
+     * Wraps a statement calling the listeners around each execute method.
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement delegate;
+        private final String preparedSql;
+        private String batchSql;
+
+        public StatementHandler(final Statement delegate, final String preparedSql) {
+            this.delegate = delegate;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(final Object proxy,
+                             final Method method,
+                             final Object[] args)
+                                     // CHECKSTYLE:OFF
+                                     throws Throwable {
+                                     // CHECKSTYLE:ON
+            final String name = method.getName();
+
+            if(!name.startsWith(EXECUTE)) {
+                // remember the first SQL added to a plain statement's batch
+                if("addBatch".equals(name) && args != null && batchSql == null) {
+                    batchSql = (String)args[0];
+                }
+
+                return invokeDelegate(method, args);
+            }
+
+            final String sql;
+
+            if(args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String)args[0];
+            } else {
+                sql = preparedSql != null ? preparedSql : batchSql;
+            }
+
+            final long start = System.nanoTime();
+            boolean success = false;
+
+            // listeners are called inside the try so every one of them sees afterExecute, even if another throws
+            try {
+                for(final StatementListener listener:LISTENERS) {
+                    listener.beforeExecute(delegate, sql);
+                }
+
+                final Object result = invokeDelegate(method, args);
+                success = true;
+                return result;
+            } finally {
+                final long elapsed = System.nanoTime() - start;
+
+                for(final StatementListener listener:LISTENERS) {
+                    listener.afterExecute(delegate, sql, elapsed, success);
+                }
+
+                if(EXECUTE_BATCH.equals(name)) {
+                    batchSql = null;
+                }
+            }
+        }
+
+        private Object invokeDelegate(final Method method,
+                                      final Object[] args)
+                                              // CHECKSTYLE:OFF
+                                              throws Throwable {
+                                              // CHECKSTYLE:ON
+            try {
+                return method.invoke(delegate, args);
+            } catch (final InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies the current {@link QueryDeadline} to every statement executed through Croquet's pool.
+ *
+ * The statement's query timeout is set to the time remaining (rounded up to whole seconds as JDBC requires), and the
+ * statement is cancelled from a timer thread if it is still running when the deadline passes, so a request whose
+ * client has gone away does not keep holding a pooled connection. Statements issued after the deadline fail
+ * immediately with a {@link SQLTimeoutException}.
+ */
+class DeadlineStatementListener implements StatementListener {
+    private static final Logger LOG = LoggerFactory.getLogger(DeadlineStatementListener.class);
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private final ThreadLocal<ScheduledFuture<?>> pendingCancel = new ThreadLocal<ScheduledFuture<?>>();
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * Constructor.
+     */
+    DeadlineStatementListener() {
+        timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "croquet-query-deadline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // cancelled timers are the common case, don't let them pile up in the queue
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Stops the timer thread.
+     */
+    void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @Override
+    public void beforeExecute(final Statement statement, final String sql) throws SQLException {
+        if(QueryDeadline.get() == null) {
+            return;
+        }
+
+        final long remaining = QueryDeadline.remainingMillis();
+
+        if(remaining <= 0) {
+            throw new SQLTimeoutException("Request deadline passed before executing: " + sql);
+        }
+
+        final int seconds = (int)Math.min(Integer.MAX_VALUE, (remaining + MILLIS_PER_SECOND - 1) / MILLIS_PER_SECOND);
+        final int current = statement.getQueryTimeout();
+
+        // never lengthen a timeout that was set explicitly
+        if(current == 0 || current > seconds) {
+            statement.setQueryTimeout(seconds);
+        }
+
+        pendingCancel.set(timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    LOG.warn("Cancelling statement that ran past the request deadline: {}", sql);
+                    statement.cancel();
+                } catch (final SQLException e) {
+                    LOG.debug("Error cancelling statement: {}", e.getMessage());
+                }
+            }
+        }, remaining, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void afterExecute(final Statement statement, final String sql, final long elapsedNanos, final boolean success) {
+        final ScheduledFuture<?> cancel = pendingCancel.get();
+
+        if(cancel != null) {
+            cancel.cancel(false);
+            pendingCancel.remove();
+        }
+    }
+}
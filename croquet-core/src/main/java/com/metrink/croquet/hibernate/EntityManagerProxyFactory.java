@@ -65,6 +65,7 @@ class EntityManagerProxyFactory {
 
         private static final Logger LOG = LoggerFactory.getLogger(EntityManagerInterceptor.class);
         private static final long serialVersionUID = 1L;
+        private static final String QUERY_TIMEOUT_HINT = "javax.persistence.query.timeout";
         private final HibernateEntityManagerFactory factory;
 
         private transient EntityManager entityManager;
@@ -105,6 +106,11 @@ class EntityManagerProxyFactory {
 
             if(entityManager == null || !entityManager.isOpen()) {
                 entityManager = factory.createEntityManager();
+
+                // JPA queries get the time remaining as their timeout hint, statements are also limited by the pool
+                if(QueryDeadline.get() != null) {
+                    entityManager.setProperty(QUERY_TIMEOUT_HINT, Math.max(1, QueryDeadline.remainingMillis()));
+                }
             }
 
             return proxy.invoke(entityManager, args);
@@ -0,0 +1,234 @@
+package com.metrink.croquet.hibernate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Exports Hibernate's {@link Statistics} to the {@link MetricRegistry}.
+ *
+ * Hibernate's running totals are exported as counters, and cache hit ratios and query times as gauges, all read from
+ * Hibernate when the metrics are rendered. Every refresh_interval the slowest queries (by maximum execution time) are
+ * found and exported with the query as a label, and the series of queries that are no longer among the slowest are
+ * removed, so there are at most slow_query_count queries exported.
+ */
+@Singleton
+public class HibernateStatisticsExporter implements ManagedModule {
+    static final String SLOW_QUERY_EXECUTIONS = "hibernate_slow_query_executions_total";
+    static final String SLOW_QUERY_MAX = "hibernate_slow_query_max_seconds";
+    static final String SLOW_QUERY_AVG = "hibernate_slow_query_avg_seconds";
+    static final int MAX_QUERY_LABEL = 200;
+
+    private static final Logger LOG = LoggerFactory.getLogger(HibernateStatisticsExporter.class);
+    private static final String[] SLOW_QUERY_METRICS = { SLOW_QUERY_EXECUTIONS, SLOW_QUERY_MAX, SLOW_QUERY_AVG };
+    private static final String ENTITIES = "hibernate_entities_total";
+    private static final String COLLECTIONS = "hibernate_collections_total";
+    private static final String OP = "op";
+    private static final String QUERY = "query";
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private final MetricRegistry registry;
+    private final Provider<EntityManagerFactory> entityManagerFactoryProvider;
+    private final long refreshInterval;
+    private final int slowQueryCount;
+    // the label of each exported query, only used on the executor's thread
+    private final Map<String, String> exportedQueries = new HashMap<String, String>();
+
+    private volatile Statistics statistics;
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the refresh interval and number of slow queries.
+     * @param registry the registry to export to.
+     * @param entityManagerFactoryProvider a provider of the {@link EntityManagerFactory}.
+     */
+    @Inject
+    public HibernateStatisticsExporter(final AbstractSettings settings,
+                                       final MetricRegistry registry,
+                                       final Provider<EntityManagerFactory> entityManagerFactoryProvider) {
+        this.registry = registry;
+        this.entityManagerFactoryProvider = entityManagerFactoryProvider;
+        this.refreshInterval = settings.getMetricsSettings().getRefreshInterval();
+        this.slowQueryCount = settings.getDatabaseSettings().getSlowQueryCount();
+    }
+
+    /**
+     * Registers the counters and gauges and starts looking for slow queries.
+     */
+    @Override
+    public synchronized void start() {
+        registry.counter("hibernate_sessions_opened_total", "Sessions opened", () -> get().getSessionOpenCount());
+        registry.counter("hibernate_transactions_total", "Transactions completed", () -> get().getTransactionCount());
+        registry.counter("hibernate_flushes_total", "Session flushes", () -> get().getFlushCount());
+        registry.counter("hibernate_statements_prepared_total", "JDBC statements prepared",
+                         () -> get().getPrepareStatementCount());
+        registry.counter("hibernate_optimistic_failures_total", "Optimistic lock failures",
+                         () -> get().getOptimisticFailureCount());
+        registry.counter("hibernate_queries_executed_total", "HQL and SQL queries executed",
+                         () -> get().getQueryExecutionCount());
+        registry.gauge("hibernate_query_max_seconds", "Time taken by the slowest query",
+                       () -> get().getQueryExecutionMaxTime() / MILLIS_PER_SECOND);
+
+        registry.counter(ENTITIES, "Entity operations", () -> get().getEntityLoadCount(), OP, "load");
+        registry.counter(ENTITIES, "Entity operations", () -> get().getEntityFetchCount(), OP, "fetch");
+        registry.counter(ENTITIES, "Entity operations", () -> get().getEntityInsertCount(), OP, "insert");
+        registry.counter(ENTITIES, "Entity operations", () -> get().getEntityUpdateCount(), OP, "update");
+        registry.counter(ENTITIES, "Entity operations", () -> get().getEntityDeleteCount(), OP, "delete");
+        registry.counter(COLLECTIONS, "Collection operations", () -> get().getCollectionLoadCount(), OP, "load");
+        registry.counter(COLLECTIONS, "Collection operations", () -> get().getCollectionFetchCount(), OP, "fetch");
+
+        registry.gauge("hibernate_cache_hit_ratio", "Cache hits divided by lookups",
+                       () -> ratio(get().getSecondLevelCacheHitCount(), get().getSecondLevelCacheMissCount()),
+                       "cache", "second_level");
+        registry.gauge("hibernate_cache_hit_ratio", "Cache hits divided by lookups",
+                       () -> ratio(get().getQueryCacheHitCount(), get().getQueryCacheMissCount()),
+                       "cache", "query");
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "croquet-hibernate-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::exportSlowQueries, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops looking for slow queries.
+     */
+    @Override
+    public synchronized void stop() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Gets Hibernate's {@link Statistics}, once the {@link EntityManagerFactory} has been started.
+     */
+    private Statistics get() {
+        if(statistics == null) {
+            final EntityManagerFactory factory = entityManagerFactoryProvider.get();
+
+            if(!(factory instanceof HibernateEntityManagerFactory)) {
+                throw new IllegalStateException("Hibernate has not been started");
+            }
+
+            statistics = ((HibernateEntityManagerFactory)factory).getSessionFactory().getStatistics();
+        }
+
+        return statistics;
+    }
+
+    private static double ratio(final long hits, final long misses) {
+        return hits + misses == 0 ? Double.NaN : (double)hits / (hits + misses);
+    }
+
+    /**
+     * Exports the slowest queries, and removes the series of the queries that are no longer among them.
+     */
+    void exportSlowQueries() {
+        final Statistics stats;
+
+        try {
+            stats = get();
+        } catch (final IllegalStateException e) {
+            return;
+        }
+
+        if(!stats.isStatisticsEnabled()) {
+            return;
+        }
+
+        // copy the times first, they change while we sort
+        final Map<String, Long> maxTimes = new HashMap<String, Long>();
+
+        for(final String query:stats.getQueries()) {
+            maxTimes.put(query, stats.getQueryStatistics(query).getExecutionMaxTime());
+        }
+
+        final List<String> queries = new ArrayList<String>(maxTimes.keySet());
+
+        Collections.sort(queries, (a, b) -> Long.compare(maxTimes.get(b), maxTimes.get(a)));
+
+        final Set<String> slowest = new HashSet<String>(queries.subList(0, Math.min(slowQueryCount, queries.size())));
+
+        for(final Iterator<Map.Entry<String, String>> it = exportedQueries.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<String, String> exported = it.next();
+
+            if(!slowest.contains(exported.getKey())) {
+                LOG.debug("No longer a slow query: {}", exported.getKey());
+
+                for(final String name:SLOW_QUERY_METRICS) {
+                    registry.remove(new MetricName(name, QUERY, exported.getValue()));
+                }
+
+                it.remove();
+            }
+        }
+
+        for(final String query:slowest) {
+            if(!exportedQueries.containsKey(query)) {
+                LOG.debug("Slow query, max {}ms: {}", maxTimes.get(query), query);
+
+                final String label = label(query);
+
+                exportedQueries.put(query, label);
+                export(label, stats.getQueryStatistics(query));
+            }
+        }
+    }
+
+    /**
+     * Gets the label of a query: its text with the whitespace collapsed, cut to {@value #MAX_QUERY_LABEL} characters.
+     * Labels that aren't the query's exact text end with a hash of it, so two queries never share a series.
+     */
+    static String label(final String query) {
+        final String label = query.replaceAll("\\s+", " ").trim();
+
+        if(label.equals(query) && label.length() <= MAX_QUERY_LABEL) {
+            return label;
+        }
+
+        final String hash = String.format(" #%08x", query.hashCode());
+
+        return label.length() + hash.length() > MAX_QUERY_LABEL
+                ? label.substring(0, MAX_QUERY_LABEL - hash.length()) + hash
+                : label + hash;
+    }
+
+    private void export(final String label, final QueryStatistics queryStats) {
+        registry.counter(SLOW_QUERY_EXECUTIONS, "Executions of one of the slowest queries",
+                         () -> queryStats.getExecutionCount(), QUERY, label);
+        registry.gauge(SLOW_QUERY_MAX, "Maximum execution time of one of the slowest queries",
+                       () -> queryStats.getExecutionMaxTime() / MILLIS_PER_SECOND, QUERY, label);
+        registry.gauge(SLOW_QUERY_AVG, "Average execution time of one of the slowest queries",
+                       () -> queryStats.getExecutionAvgTime() / MILLIS_PER_SECOND, QUERY, label);
+    }
+}
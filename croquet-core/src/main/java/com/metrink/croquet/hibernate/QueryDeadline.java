@@ -0,0 +1,66 @@
+package com.metrink.croquet.hibernate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the deadline of the current thread's request.
+ *
+ * Statements executed through Croquet's pool while a deadline is set get a query timeout of the time remaining, and
+ * are cancelled when the deadline passes. The deadline is set by the {@link QueryDeadlineFilter} and carried over to
+ * work submitted to the {@link AsyncQueryService}.
+ */
+public final class QueryDeadline {
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<Long>();
+
+    private QueryDeadline() { }
+
+    /**
+     * Sets the deadline for the current thread to the given amount of time from now.
+     * @param timeout the time from now.
+     * @param unit the unit of the timeout.
+     */
+    public static void set(final long timeout, final TimeUnit unit) {
+        DEADLINE.set(System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Clears the deadline for the current thread.
+     */
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * Gets the deadline, in {@link System#nanoTime()} units, for the current thread.
+     * @return the deadline, or null if there is none.
+     */
+    public static Long get() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * Sets the deadline, in {@link System#nanoTime()} units, for the current thread.
+     * @param deadline the deadline, or null to clear it.
+     */
+    static void restore(final Long deadline) {
+        if(deadline == null) {
+            DEADLINE.remove();
+        } else {
+            DEADLINE.set(deadline);
+        }
+    }
+
+    /**
+     * Gets the milliseconds remaining until the current thread's deadline.
+     * @return the milliseconds remaining (zero or negative once passed), or {@link Long#MAX_VALUE} if there is none.
+     */
+    public static long remainingMillis() {
+        final Long deadline = DEADLINE.get();
+
+        if(deadline == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+    }
+}
@@ -0,0 +1,98 @@
+package com.metrink.croquet.hibernate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+
+/**
+ * Servlet filter that sets the {@link QueryDeadline} for each request.
+ *
+ * The deadline is the smaller of the query_deadline setting and the value, in milliseconds, of the
+ * query_deadline_header request header. A client can only shorten the configured deadline, never extend it.
+ */
+@Singleton
+public class QueryDeadlineFilter implements Filter {
+    private static final Logger LOG = LoggerFactory.getLogger(QueryDeadlineFilter.class);
+
+    private final long configuredDeadline;
+    private final String header;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the deadline.
+     */
+    @Inject
+    public QueryDeadlineFilter(final AbstractSettings settings) {
+        final DatabaseSettings dbSettings = settings.getDatabaseSettings();
+
+        this.configuredDeadline = dbSettings.getQueryDeadline();
+        this.header = dbSettings.getQueryDeadlineHeader();
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        final long deadline = getDeadline(request);
+
+        if(deadline <= 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        QueryDeadline.set(deadline, TimeUnit.MILLISECONDS);
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryDeadline.clear();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private long getDeadline(final ServletRequest request) {
+        final String value = header == null || !(request instanceof HttpServletRequest)
+                ? null
+                : ((HttpServletRequest)request).getHeader(header);
+
+        if(value == null) {
+            return configuredDeadline;
+        }
+
+        try {
+            final long requested = Long.parseLong(value.trim());
+
+            // zero or negative means the client has already given up
+            if(requested <= 0) {
+                return 1;
+            }
+
+            return configuredDeadline > 0 ? Math.min(configuredDeadline, requested) : requested;
+        } catch (final NumberFormatException e) {
+            LOG.debug("Ignoring invalid {} header: {}", header, value);
+            return configuredDeadline;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.metrink.croquet.hibernate;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
 import com.metrink.croquet.DataSourceFactory;
 import com.sop4j.dbutils.QueryRunner;
 
 /**
- * Guice module for binding QueryRunner provider.
+ * Guice module for binding the DataSourceFactory, and QueryRunner and BatchWriterFactory providers.
  */
 public class QueryRunnerModule extends AbstractModule {
     //private static final Logger LOG = LoggerFactory.getLogger(QueryRunnerModule.class);
@@ -23,6 +25,7 @@ public class QueryRunnerModule extends AbstractModule {
 
     @Override
     protected void configure() {
+        bind(DataSourceFactory.class).toInstance(dataSourceFactory);
     }
 
     /**
@@ -33,4 +36,15 @@ public class QueryRunnerModule extends AbstractModule {
     public QueryRunner queryRunnerProvider() {
         return QueryRunnerProxyFactory.createProxy(dataSourceFactory);
     }
+
+    /**
+     * Provider for {@link BatchWriterFactory}.
+     * @param settings the settings containing the batch thresholds.
+     * @return the {@link BatchWriterFactory}.
+     */
+    @Provides
+    @Singleton
+    public BatchWriterFactory batchWriterFactoryProvider(final AbstractSettings settings) {
+        return new BatchWriterFactory(dataSourceFactory, settings.getDatabaseSettings());
+    }
 }
@@ -0,0 +1,124 @@
+package com.metrink.croquet.hibernate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.jpa.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+
+/**
+ * Runs queries whose results are only read, such as those backing reports, without the cost of dirty checking.
+ *
+ * {@link #list(TypedQuery)} loads entities into the request's {@link javax.persistence.EntityManager} as read-only,
+ * so Hibernate keeps no snapshot of their state and skips them when flushing. Lazy associations still work.
+ *
+ * {@link #scan(Class, String, Map, Visitor)} streams entities from a {@link StatelessSession}: nothing is kept in a
+ * persistence context, so memory use is independent of the number of rows. The entities are detached as soon as
+ * they are loaded and lazy associations cannot be initialized, so fetch what is needed with a join fetch.
+ */
+@Singleton
+public class ReadOnlyQueries {
+    private static final Logger LOG = LoggerFactory.getLogger(ReadOnlyQueries.class);
+
+    private final Provider<EntityManagerFactory> entityManagerFactoryProvider;
+    private final int fetchSize;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the scan fetch size.
+     * @param entityManagerFactoryProvider a provider of the {@link EntityManagerFactory}.
+     */
+    @Inject
+    public ReadOnlyQueries(final AbstractSettings settings,
+                           final Provider<EntityManagerFactory> entityManagerFactoryProvider) {
+        this.entityManagerFactoryProvider = entityManagerFactoryProvider;
+        this.fetchSize = settings.getDatabaseSettings().getScanFetchSize();
+    }
+
+    /**
+     * Gets the results of a query, loading the entities as read-only.
+     *
+     * Changes made to the returned entities are not written to the database.
+     * @param query the query to run.
+     * @return the entities.
+     * @param <T> the type of entity.
+     */
+    public <T> List<T> list(final TypedQuery<T> query) {
+        return query.setHint(QueryHints.HINT_READONLY, Boolean.TRUE).getResultList();
+    }
+
+    /**
+     * Streams the results of an HQL query to the visitor from a {@link StatelessSession}.
+     * @param type the type of entity returned by the query.
+     * @param hql the query.
+     * @param parameters the query's named parameters, may be null.
+     * @param visitor the visitor called for each entity.
+     * @return the number of entities visited.
+     * @param <T> the type of entity.
+     */
+    public <T> long scan(final Class<T> type,
+                         final String hql,
+                         final Map<String, ?> parameters,
+                         final Visitor<? super T> visitor) {
+        final HibernateEntityManagerFactory factory = (HibernateEntityManagerFactory)entityManagerFactoryProvider.get();
+        final StatelessSession session = factory.getSessionFactory().openStatelessSession();
+        long count = 0;
+
+        try {
+            final Query query = session.createQuery(hql)
+                                       .setReadOnly(true)
+                                       .setFetchSize(fetchSize)
+                                       .setProperties(parameters == null ? Collections.emptyMap() : parameters);
+
+            final ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+
+            try {
+                while(results.next()) {
+                    count++;
+
+                    if(!visitor.visit(type.cast(results.get(0)))) {
+                        break;
+                    }
+                }
+            } finally {
+                results.close();
+            }
+        } finally {
+            session.close();
+        }
+
+        LOG.trace("Scanned {} {} entities", count, type.getSimpleName());
+
+        return count;
+    }
+
+    /**
+     * Called with each entity loaded by {@link ReadOnlyQueries#scan(Class, String, Map, Visitor)}.
+     *
+     * @param <T> the type of entity.
+     */
+    public interface Visitor<T> {
+
+        /**
+         * Visits an entity.
+         * @param entity the entity.
+         * @return true to continue scanning, false to stop.
+         */
+        boolean visit(T entity);
+    }
+}
@@ -0,0 +1,106 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+
+/**
+ * Counts the SQL statements executed during each unit of work and reports requests over budget.
+ *
+ * Counting starts in {@link CroquetPersistService#begin()} and is reported in {@link CroquetPersistService#end()}.
+ * Executing the same SQL duplicate_statement_threshold times or more is reported as a likely N+1 query. When
+ * statement_budget_fail is set (the default in development mode) the statement that exceeds the budget throws.
+ */
+class StatementBudget implements StatementListener {
+    private static final Logger LOG = LoggerFactory.getLogger(StatementBudget.class);
+
+    private final ThreadLocal<Counts> counts = new ThreadLocal<Counts>();
+    private final int budget;
+    private final int duplicateThreshold;
+    private final boolean failOverBudget;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the budget.
+     */
+    StatementBudget(final AbstractSettings settings) {
+        final DatabaseSettings dbSettings = settings.getDatabaseSettings();
+
+        this.budget = dbSettings.getStatementBudget();
+        this.duplicateThreshold = dbSettings.getDuplicateStatementThreshold();
+        this.failOverBudget = dbSettings.getStatementBudgetFail(settings.getDevelopment());
+    }
+
+    /**
+     * Starts counting statements for this thread.
+     */
+    void begin() {
+        counts.set(new Counts());
+    }
+
+    /**
+     * Stops counting statements for this thread, reporting if the budget was exceeded or duplicates were found.
+     */
+    void end() {
+        final Counts current = counts.get();
+
+        if(current == null) {
+            return;
+        }
+
+        counts.remove();
+
+        if(current.total > budget) {
+            LOG.warn("Unit of work executed {} SQL statements, the budget is {}", current.total, budget);
+        }
+
+        for(final Map.Entry<String, Integer> entry:current.perStatement.entrySet()) {
+            if(entry.getValue() >= duplicateThreshold) {
+                LOG.warn("Possible N+1 query, executed {} times in one unit of work: {}",
+                        entry.getValue(),
+                        entry.getKey());
+            }
+        }
+
+        LOG.trace("Unit of work executed {} SQL statements", current.total);
+    }
+
+    @Override
+    public void beforeExecute(final Statement statement, final String sql) {
+        final Counts current = counts.get();
+
+        if(current == null) {
+            return;
+        }
+
+        current.total++;
+
+        if(sql != null) {
+            final Integer count = current.perStatement.get(sql);
+            current.perStatement.put(sql, count == null ? 1 : count + 1);
+        }
+
+        if(failOverBudget && current.total > budget) {
+            throw new IllegalStateException("SQL statement budget of " + budget + " exceeded executing: " + sql);
+        }
+    }
+
+    @Override
+    public void afterExecute(final Statement statement, final String sql, final long elapsedNanos, final boolean success) {
+        // counted before execution
+    }
+
+    /**
+     * The counts for a single unit of work.
+     */
+    private static class Counts {
+        private final Map<String, Integer> perStatement = new HashMap<String, Integer>();
+        private int total;
+    }
+}
@@ -0,0 +1,30 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Listener that is notified around every statement executed through a connection from Croquet's pool.
+ *
+ * Listeners are called on the thread executing the statement, so per-request state is usually kept in a
+ * {@link ThreadLocal}. Register listeners with {@link CroquetStatementInterceptor#addListener(StatementListener)}.
+ */
+public interface StatementListener {
+
+    /**
+     * Called before the statement is executed.
+     * @param statement the statement about to be executed.
+     * @param sql the SQL being executed, or null if it is unknown.
+     * @throws SQLException to prevent the statement from being executed.
+     */
+    void beforeExecute(Statement statement, String sql) throws SQLException;
+
+    /**
+     * Called after the statement is executed, even when execution failed.
+     * @param statement the statement that was executed.
+     * @param sql the SQL that was executed, or null if it is unknown.
+     * @param elapsedNanos how long the execution took in nanoseconds.
+     * @param success true if the statement executed without throwing.
+     */
+    void afterExecute(Statement statement, String sql, long elapsedNanos, boolean success);
+}
@@ -0,0 +1,21 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.Statement;
+
+import com.metrink.croquet.metrics.RequestTimeline;
+
+/**
+ * Records every statement, with its SQL and execution time, on the current {@link RequestTimeline}.
+ */
+class TimelineStatementListener implements StatementListener {
+
+    @Override
+    public void beforeExecute(final Statement statement, final String sql) {
+        // the time is recorded afterwards
+    }
+
+    @Override
+    public void afterExecute(final Statement statement, final String sql, final long elapsedNanos, final boolean success) {
+        RequestTimeline.recordDuration(success ? "sql" : "sql_failed", sql, elapsedNanos);
+    }
+}
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import com.metrink.croquet.tracing.Span;
+import com.metrink.croquet.tracing.Tracer;
 
 /**
  * A ConnectionProvider that uses Tomcat's JDBC Connection Pool under the hood.
@@ -52,9 +54,16 @@ class TomcatJDBCConnectionProvider implements ConnectionProvider, Configurable {
 
     @Override
     public Connection getConnection() throws SQLException {
+        // time spent waiting on the pool shows up in the trace
+        final Span span = Tracer.startClientSpan("db.connection");
+
         try {
             return ds.getConnection();
         } finally {
+            if(span != null) {
+                span.end();
+            }
+
             LOG.debug("Getting Connection: active: {} of {}, idle: {} of {}",
                     ds.getNumActive(),
                     ds.getMaxActive(),
@@ -0,0 +1,49 @@
+package com.metrink.croquet.hibernate;
+
+import java.sql.Statement;
+
+import com.metrink.croquet.tracing.Span;
+import com.metrink.croquet.tracing.Tracer;
+
+/**
+ * Records every statement executed while a trace is active as a client {@link Span} of the current span.
+ */
+class TracingStatementListener implements StatementListener {
+    private static final int MAX_STATEMENT_LENGTH = 1000;
+
+    private final ThreadLocal<Span> span = new ThreadLocal<Span>();
+
+    @Override
+    public void beforeExecute(final Statement statement, final String sql) {
+        final Span child = Tracer.startClientSpan("sql");
+
+        if(child == null) {
+            return;
+        }
+
+        if(sql != null) {
+            final String statementText = sql.length() > MAX_STATEMENT_LENGTH ? sql.substring(0, MAX_STATEMENT_LENGTH) : sql;
+
+            child.setAttribute("db.statement", statementText);
+        }
+
+        span.set(child);
+    }
+
+    @Override
+    public void afterExecute(final Statement statement, final String sql, final long elapsedNanos, final boolean success) {
+        final Span child = span.get();
+
+        if(child == null) {
+            return;
+        }
+
+        span.remove();
+
+        if(!success) {
+            child.setAttribute("error", true);
+        }
+
+        child.end();
+    }
+}
@@ -1,8 +1,11 @@
 package com.metrink.croquet.inject;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.metrink.croquet.AbstractSettings;
 import com.metrink.croquet.RestSettings;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.tracing.TracingModule;
 
 /**
  * Croquet's Guice module that configures most of the dependencies.
@@ -28,7 +31,13 @@ public class CroquetRestModule<T extends RestSettings> extends AbstractModule {
         // bind the settings classes
         bind(AbstractSettings.class).toInstance(settings);
         bind(clazz).toInstance(settings);
+
+        // bind the metrics registry
+        bind(MetricRegistry.class).to(settings.getMetricsSettings().getRegistryClass()).in(Singleton.class);
         bind(RestSettings.class).toInstance(settings);
+
+        // bind the span exporter and trace @Traced methods
+        install(new TracingModule(settings.getTracingSettings()));
     }
 
 }
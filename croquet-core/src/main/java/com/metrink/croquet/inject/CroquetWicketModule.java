@@ -4,8 +4,11 @@ import org.apache.wicket.IPageFactory;
 import org.apache.wicket.protocol.http.WebApplication;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.metrink.croquet.AbstractSettings;
 import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.metrics.MetricRegistry;
+import com.metrink.croquet.tracing.TracingModule;
 import com.metrink.croquet.wicket.GuicePageFactory;
 
 /**
@@ -33,6 +36,12 @@ public class CroquetWicketModule<T extends WicketSettings> extends AbstractModul
         bind(AbstractSettings.class).toInstance(settings);
         bind(clazz).toInstance(settings);
 
+        // bind the metrics registry
+        bind(MetricRegistry.class).to(settings.getMetricsSettings().getRegistryClass()).in(Singleton.class);
+
+        // bind the span exporter and trace @Traced methods
+        install(new TracingModule(settings.getTracingSettings()));
+
         // bind the Wicket application
         bind(WebApplication.class).to(settings.getWebApplicationClass());
 
@@ -0,0 +1,80 @@
+package com.metrink.croquet.jmx;
+
+/**
+ * The Tomcat JDBC connection pool, whose size can be changed while it runs.
+ */
+public interface ConnectionPoolMXBean {
+
+    /**
+     * Gets the number of connections in use.
+     * @return the number of active connections.
+     */
+    int getActive();
+
+    /**
+     * Gets the number of connections waiting in the pool.
+     * @return the number of idle connections.
+     */
+    int getIdle();
+
+    /**
+     * Gets the number of threads waiting for a connection.
+     * @return the number of waiting threads.
+     */
+    int getWaitCount();
+
+    /**
+     * Gets the number of connections the pool opens at most.
+     * @return the maximum number of connections.
+     */
+    int getMaxActive();
+
+    /**
+     * Sets the number of connections the pool opens at most. Lowering it does not close connections in use, the pool
+     * shrinks as they are returned.
+     * @param maxActive the maximum number of connections, at least 1.
+     */
+    void setMaxActive(int maxActive);
+
+    /**
+     * Gets the number of idle connections kept in the pool at most.
+     * @return the maximum number of idle connections.
+     */
+    int getMaxIdle();
+
+    /**
+     * Sets the number of idle connections kept in the pool at most.
+     * @param maxIdle the maximum number of idle connections.
+     */
+    void setMaxIdle(int maxIdle);
+
+    /**
+     * Gets the number of idle connections kept in the pool at least.
+     * @return the minimum number of idle connections.
+     */
+    int getMinIdle();
+
+    /**
+     * Sets the number of idle connections kept in the pool at least.
+     * @param minIdle the minimum number of idle connections.
+     */
+    void setMinIdle(int minIdle);
+
+    /**
+     * Gets the time a thread waits for a connection before failing.
+     * @return the maximum wait in milliseconds.
+     */
+    int getMaxWait();
+
+    /**
+     * Sets the time a thread waits for a connection before failing.
+     * @param maxWait the maximum wait in milliseconds.
+     */
+    void setMaxWait(int maxWait);
+
+    /**
+     * Closes every idle connection now and every active connection when it is returned, so the pool reconnects with
+     * fresh connections, after a database fail over for example.
+     */
+    void purge();
+}
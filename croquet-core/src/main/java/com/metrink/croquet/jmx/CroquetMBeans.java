@@ -0,0 +1,113 @@
+package com.metrink.croquet.jmx;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.persistence.EntityManagerFactory;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.CroquetStatus;
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Registers MXBeans for everything Croquet has configured in the platform {@link MBeanServer}, so a running instance
+ * can be inspected and tuned with JConsole, VisualVM or any other JMX client.
+ *
+ * Each bean is named com.metrink.croquet:type=&lt;type&gt;,port=&lt;port&gt;, so several applications can run in one JVM.
+ * Registration failures are logged and never stop the application from starting.
+ */
+public class CroquetMBeans {
+    /**
+     * The domain of the beans' names.
+     */
+    public static final String DOMAIN = "com.metrink.croquet";
+
+    private static final Logger LOG = LoggerFactory.getLogger(CroquetMBeans.class);
+
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final List<ObjectName> names = new ArrayList<ObjectName>();
+    private final int port;
+
+    /**
+     * Constructor.
+     * @param port the port the application is bound to, used to name the beans.
+     */
+    public CroquetMBeans(final int port) {
+        this.port = port;
+    }
+
+    /**
+     * Registers the beans.
+     * @param injector the injector, used to find the settings, connection pool and Hibernate.
+     * @param server the Jetty server.
+     * @param status the status of the application.
+     * @param modules the started managed modules, by class name.
+     */
+    public synchronized void register(final Injector injector,
+                                      final Server server,
+                                      final Supplier<CroquetStatus> status,
+                                      final Map<String, ManagedModule> modules) {
+        register("Croquet", new CroquetRuntime(injector.getInstance(AbstractSettings.class), status));
+        register("Loggers", new LogbackLoggers());
+        register("ManagedModules", new ManagedModules(modules));
+
+        if(server.getThreadPool() instanceof QueuedThreadPool) {
+            register("ThreadPool", new JettyThreadPool((QueuedThreadPool)server.getThreadPool()));
+        }
+
+        // only bound when the database is configured through the YAML file
+        if(injector.getExistingBinding(Key.get(DataSource.class)) != null) {
+            register("ConnectionPool", new TomcatConnectionPool(injector.getInstance(DataSource.class)));
+        }
+
+        if(injector.getExistingBinding(Key.get(EntityManagerFactory.class)) != null) {
+            register("Hibernate", new HibernateRuntime(injector.getProvider(EntityManagerFactory.class)));
+        }
+    }
+
+    /**
+     * Unregisters the beans.
+     */
+    public synchronized void unregister() {
+        for(final ObjectName name:names) {
+            try {
+                mbeanServer.unregisterMBean(name);
+            } catch (final InstanceNotFoundException e) {
+                LOG.debug("{} was already unregistered", name);
+            } catch (final JMException e) {
+                LOG.warn("Error unregistering {}: {}", name, e.getMessage());
+            }
+        }
+
+        names.clear();
+    }
+
+    private void register(final String type, final Object bean) {
+        try {
+            final ObjectName name = new ObjectName(DOMAIN + ":type=" + type + ",port=" + port);
+
+            mbeanServer.registerMBean(bean, name);
+            names.add(name);
+        } catch (final InstanceAlreadyExistsException e) {
+            LOG.warn("An MBean of type {} is already registered for port {}", type, port);
+        } catch (final JMException e) {
+            LOG.warn("Error registering the {} MBean: {}", type, e.getMessage());
+        }
+    }
+}
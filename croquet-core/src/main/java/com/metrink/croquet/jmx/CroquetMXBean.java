@@ -0,0 +1,31 @@
+package com.metrink.croquet.jmx;
+
+/**
+ * The state of a running Croquet application.
+ */
+public interface CroquetMXBean {
+
+    /**
+     * Gets the status of the application.
+     * @return one of STARTING, RUNNING, STOPPING or STOPPED.
+     */
+    String getStatus();
+
+    /**
+     * Gets the port Jetty is bound to.
+     * @return the port.
+     */
+    int getPort();
+
+    /**
+     * Is the application in development mode?
+     * @return true if in development mode.
+     */
+    boolean getDevelopment();
+
+    /**
+     * Gets the time the application has been running for.
+     * @return the uptime in milliseconds.
+     */
+    long getUptime();
+}
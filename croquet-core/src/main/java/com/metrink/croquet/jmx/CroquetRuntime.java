@@ -0,0 +1,40 @@
+package com.metrink.croquet.jmx;
+
+import java.util.function.Supplier;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.CroquetStatus;
+
+/**
+ * Exposes the status of the application, which is otherwise only available in-process.
+ */
+class CroquetRuntime implements CroquetMXBean {
+    private final AbstractSettings settings;
+    private final Supplier<CroquetStatus> status;
+    private final long startTime = System.currentTimeMillis();
+
+    CroquetRuntime(final AbstractSettings settings, final Supplier<CroquetStatus> status) {
+        this.settings = settings;
+        this.status = status;
+    }
+
+    @Override
+    public String getStatus() {
+        return status.get().name();
+    }
+
+    @Override
+    public int getPort() {
+        return settings.getPort();
+    }
+
+    @Override
+    public boolean getDevelopment() {
+        return settings.getDevelopment();
+    }
+
+    @Override
+    public long getUptime() {
+        return System.currentTimeMillis() - startTime;
+    }
+}
@@ -0,0 +1,89 @@
+package com.metrink.croquet.jmx;
+
+/**
+ * Hibernate's statistics and caches.
+ */
+public interface HibernateMXBean {
+
+    /**
+     * Are statistics collected?
+     * @return true if statistics are collected.
+     */
+    boolean getStatisticsEnabled();
+
+    /**
+     * Turns the collection of statistics on or off.
+     * @param enabled true to collect statistics.
+     */
+    void setStatisticsEnabled(boolean enabled);
+
+    /**
+     * Gets the number of sessions opened.
+     * @return the number of sessions.
+     */
+    long getSessionOpenCount();
+
+    /**
+     * Gets the number of transactions completed.
+     * @return the number of transactions.
+     */
+    long getTransactionCount();
+
+    /**
+     * Gets the number of HQL and SQL queries executed.
+     * @return the number of queries.
+     */
+    long getQueryExecutionCount();
+
+    /**
+     * Gets the time taken by the slowest query.
+     * @return the time in milliseconds.
+     */
+    long getQueryExecutionMaxTime();
+
+    /**
+     * Gets the slowest query.
+     * @return the query, or null if none has run.
+     */
+    String getQueryExecutionMaxTimeQuery();
+
+    /**
+     * Gets the number of entities loaded.
+     * @return the number of entities.
+     */
+    long getEntityLoadCount();
+
+    /**
+     * Gets the number of second level cache lookups that found an entry.
+     * @return the number of hits.
+     */
+    long getSecondLevelCacheHitCount();
+
+    /**
+     * Gets the number of second level cache lookups that did not find an entry.
+     * @return the number of misses.
+     */
+    long getSecondLevelCacheMissCount();
+
+    /**
+     * Gets the number of query cache lookups that found an entry.
+     * @return the number of hits.
+     */
+    long getQueryCacheHitCount();
+
+    /**
+     * Gets the number of query cache lookups that did not find an entry.
+     * @return the number of misses.
+     */
+    long getQueryCacheMissCount();
+
+    /**
+     * Resets the statistics to zero.
+     */
+    void clearStatistics();
+
+    /**
+     * Evicts every entity, collection and query from the second level and query caches.
+     */
+    void evictCaches();
+}
@@ -0,0 +1,114 @@
+package com.metrink.croquet.jmx;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Provider;
+
+/**
+ * Exposes Hibernate's {@link Statistics} and caches.
+ */
+class HibernateRuntime implements HibernateMXBean {
+    private static final Logger LOG = LoggerFactory.getLogger(HibernateRuntime.class);
+
+    private final Provider<EntityManagerFactory> entityManagerFactoryProvider;
+
+    HibernateRuntime(final Provider<EntityManagerFactory> entityManagerFactoryProvider) {
+        this.entityManagerFactoryProvider = entityManagerFactoryProvider;
+    }
+
+    /**
+     * Gets the {@link SessionFactory} each time, as the {@link EntityManagerFactory} is only created once the unit of
+     * work has started.
+     */
+    private SessionFactory getSessionFactory() {
+        final EntityManagerFactory factory = entityManagerFactoryProvider.get();
+
+        if(!(factory instanceof HibernateEntityManagerFactory)) {
+            throw new IllegalStateException("Hibernate has not been started");
+        }
+
+        return ((HibernateEntityManagerFactory)factory).getSessionFactory();
+    }
+
+    private Statistics get() {
+        return getSessionFactory().getStatistics();
+    }
+
+    @Override
+    public boolean getStatisticsEnabled() {
+        return get().isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(final boolean enabled) {
+        LOG.info("{} Hibernate statistics", enabled ? "Enabling" : "Disabling");
+        get().setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public long getSessionOpenCount() {
+        return get().getSessionOpenCount();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return get().getTransactionCount();
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return get().getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return get().getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQuery() {
+        return get().getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return get().getEntityLoadCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return get().getSecondLevelCacheHitCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return get().getSecondLevelCacheMissCount();
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return get().getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return get().getQueryCacheMissCount();
+    }
+
+    @Override
+    public void clearStatistics() {
+        get().clear();
+    }
+
+    @Override
+    public void evictCaches() {
+        LOG.info("Evicting Hibernate's caches");
+        getSessionFactory().getCache().evictAllRegions();
+    }
+}
@@ -0,0 +1,67 @@
+package com.metrink.croquet.jmx;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+/**
+ * Exposes Jetty's {@link QueuedThreadPool}.
+ */
+class JettyThreadPool implements ThreadPoolMXBean {
+    private final QueuedThreadPool pool;
+
+    JettyThreadPool(final QueuedThreadPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public int getThreads() {
+        return pool.getThreads();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return pool.getIdleThreads();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return pool.getQueueSize();
+    }
+
+    @Override
+    public int getMinThreads() {
+        return pool.getMinThreads();
+    }
+
+    @Override
+    public void setMinThreads(final int minThreads) {
+        if(minThreads < 1 || minThreads > pool.getMaxThreads()) {
+            throw new IllegalArgumentException("The minimum threads must be between 1 and " + pool.getMaxThreads());
+        }
+
+        pool.setMinThreads(minThreads);
+    }
+
+    @Override
+    public int getMaxThreads() {
+        return pool.getMaxThreads();
+    }
+
+    @Override
+    public void setMaxThreads(final int maxThreads) {
+        if(maxThreads < pool.getMinThreads()) {
+            throw new IllegalArgumentException("The maximum threads must be at least " + pool.getMinThreads());
+        }
+
+        pool.setMaxThreads(maxThreads);
+    }
+
+    @Override
+    public int getIdleTimeout() {
+        return pool.getIdleTimeout();
+    }
+
+    @Override
+    public void setIdleTimeout(final int idleTimeout) {
+        pool.setIdleTimeout(idleTimeout);
+    }
+}
@@ -0,0 +1,67 @@
+package com.metrink.croquet.jmx;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+
+/**
+ * Exposes the levels of Logback's loggers, as configured by {@link com.metrink.croquet.logging.CroquetLoggingFactory}.
+ */
+class LogbackLoggers implements LoggersMXBean {
+    private static final org.slf4j.Logger LOG = LoggerFactory.getLogger(LogbackLoggers.class);
+
+    private final LoggerContext context;
+
+    LogbackLoggers() {
+        this.context = ((Logger)LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).getLoggerContext();
+    }
+
+    @Override
+    public String getRootLevel() {
+        return context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).getLevel().toString();
+    }
+
+    @Override
+    public void setRootLevel(final String level) {
+        if(level == null) {
+            throw new IllegalArgumentException("The root logger must have a level");
+        }
+
+        setLevel(org.slf4j.Logger.ROOT_LOGGER_NAME, level);
+    }
+
+    @Override
+    public Map<String, String> getLevels() {
+        final Map<String, String> ret = new TreeMap<String, String>();
+
+        for(final Logger logger:context.getLoggerList()) {
+            if(logger.getLevel() != null) {
+                ret.put(logger.getName(), logger.getLevel().toString());
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public String getEffectiveLevel(final String name) {
+        return context.getLogger(name).getEffectiveLevel().toString();
+    }
+
+    @Override
+    public void setLevel(final String name, final String level) {
+        final Level parsed = level == null || level.isEmpty() ? null : Level.toLevel(level, null);
+
+        if(parsed == null && level != null && !level.isEmpty()) {
+            throw new IllegalArgumentException("Unknown level " + level);
+        }
+
+        LOG.info("Setting the level of {} to {}", name, parsed);
+        context.getLogger(name).setLevel(parsed);
+    }
+}
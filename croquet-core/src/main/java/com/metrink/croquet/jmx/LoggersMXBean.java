@@ -0,0 +1,41 @@
+package com.metrink.croquet.jmx;
+
+import java.util.Map;
+
+/**
+ * The levels of Logback's loggers, which can be changed while the application runs.
+ */
+public interface LoggersMXBean {
+
+    /**
+     * Gets the level of the root logger.
+     * @return the level.
+     */
+    String getRootLevel();
+
+    /**
+     * Sets the level of the root logger.
+     * @param level the level, such as INFO or DEBUG.
+     */
+    void setRootLevel(String level);
+
+    /**
+     * Gets the loggers that have a level of their own.
+     * @return the level of each logger, by name.
+     */
+    Map<String, String> getLevels();
+
+    /**
+     * Gets the level a logger logs at, which is inherited from its parent unless it has one of its own.
+     * @param name the name of the logger.
+     * @return the level.
+     */
+    String getEffectiveLevel(String name);
+
+    /**
+     * Sets the level of a logger.
+     * @param name the name of the logger.
+     * @param level the level, such as INFO or DEBUG, or null to inherit it from the logger's parent.
+     */
+    void setLevel(String name, String level);
+}
@@ -0,0 +1,44 @@
+package com.metrink.croquet.jmx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Exposes the started {@link ManagedModule}s.
+ *
+ * Modules are only restarted, never left stopped, as the application stops every module when it shuts down.
+ */
+class ManagedModules implements ManagedModulesMXBean {
+    private static final Logger LOG = LoggerFactory.getLogger(ManagedModules.class);
+
+    private final Map<String, ManagedModule> modules;
+
+    ManagedModules(final Map<String, ManagedModule> modules) {
+        this.modules = modules;
+    }
+
+    @Override
+    public List<String> getModules() {
+        return new ArrayList<String>(modules.keySet());
+    }
+
+    @Override
+    public synchronized void restart(final String name) {
+        final ManagedModule module = modules.get(name);
+
+        if(module == null) {
+            throw new IllegalArgumentException("No managed module named " + name);
+        }
+
+        LOG.info("Restarting {}", name);
+
+        module.stop();
+        module.start();
+    }
+}
@@ -0,0 +1,21 @@
+package com.metrink.croquet.jmx;
+
+import java.util.List;
+
+/**
+ * The {@link com.metrink.croquet.modules.ManagedModule}s of the application, which can be restarted while it runs.
+ */
+public interface ManagedModulesMXBean {
+
+    /**
+     * Gets the modules, in the order they were started.
+     * @return the class name of each module.
+     */
+    List<String> getModules();
+
+    /**
+     * Stops a module and starts it again, so it picks up changes such as a new log level or a database that moved.
+     * @param name the class name of the module.
+     */
+    void restart(String name);
+}
@@ -0,0 +1,62 @@
+package com.metrink.croquet.jmx;
+
+/**
+ * Jetty's request thread pool, whose limits can be changed while it runs.
+ */
+public interface ThreadPoolMXBean {
+
+    /**
+     * Gets the number of threads in the pool.
+     * @return the number of threads.
+     */
+    int getThreads();
+
+    /**
+     * Gets the number of threads waiting for a job.
+     * @return the number of idle threads.
+     */
+    int getIdleThreads();
+
+    /**
+     * Gets the number of jobs waiting for a thread.
+     * @return the queue size.
+     */
+    int getQueueSize();
+
+    /**
+     * Gets the number of threads the pool keeps when idle.
+     * @return the minimum number of threads.
+     */
+    int getMinThreads();
+
+    /**
+     * Sets the number of threads the pool keeps when idle.
+     * @param minThreads the minimum number of threads, no larger than the maximum.
+     */
+    void setMinThreads(int minThreads);
+
+    /**
+     * Gets the number of threads the pool grows to.
+     * @return the maximum number of threads.
+     */
+    int getMaxThreads();
+
+    /**
+     * Sets the number of threads the pool grows to. Lowering it does not stop busy threads, the pool shrinks as they
+     * become idle.
+     * @param maxThreads the maximum number of threads, no smaller than the minimum.
+     */
+    void setMaxThreads(int maxThreads);
+
+    /**
+     * Gets the time an idle thread above the minimum waits before it stops.
+     * @return the idle timeout in milliseconds.
+     */
+    int getIdleTimeout();
+
+    /**
+     * Sets the time an idle thread above the minimum waits before it stops.
+     * @param idleTimeout the idle timeout in milliseconds.
+     */
+    void setIdleTimeout(int idleTimeout);
+}
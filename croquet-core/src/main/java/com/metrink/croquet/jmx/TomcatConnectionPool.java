@@ -0,0 +1,90 @@
+package com.metrink.croquet.jmx;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the Tomcat JDBC {@link DataSource}.
+ *
+ * The pool reads its limits each time a connection is borrowed or returned, so changes take effect immediately. With
+ * fair_queue turned off the idle queue is sized by the initial max_active, and the pool cannot grow beyond it.
+ */
+class TomcatConnectionPool implements ConnectionPoolMXBean {
+    private static final Logger LOG = LoggerFactory.getLogger(TomcatConnectionPool.class);
+
+    private final DataSource dataSource;
+
+    TomcatConnectionPool(final DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public int getActive() {
+        return dataSource.getActive();
+    }
+
+    @Override
+    public int getIdle() {
+        return dataSource.getIdle();
+    }
+
+    @Override
+    public int getWaitCount() {
+        return dataSource.getWaitCount();
+    }
+
+    @Override
+    public int getMaxActive() {
+        return dataSource.getMaxActive();
+    }
+
+    @Override
+    public void setMaxActive(final int maxActive) {
+        if(maxActive < 1) {
+            throw new IllegalArgumentException("The maximum connections must be at least 1");
+        }
+
+        LOG.info("Changing the maximum connections from {} to {}", dataSource.getMaxActive(), maxActive);
+        dataSource.setMaxActive(maxActive);
+    }
+
+    @Override
+    public int getMaxIdle() {
+        return dataSource.getMaxIdle();
+    }
+
+    @Override
+    public void setMaxIdle(final int maxIdle) {
+        LOG.info("Changing the maximum idle connections from {} to {}", dataSource.getMaxIdle(), maxIdle);
+        dataSource.setMaxIdle(maxIdle);
+    }
+
+    @Override
+    public int getMinIdle() {
+        return dataSource.getMinIdle();
+    }
+
+    @Override
+    public void setMinIdle(final int minIdle) {
+        LOG.info("Changing the minimum idle connections from {} to {}", dataSource.getMinIdle(), minIdle);
+        dataSource.setMinIdle(minIdle);
+    }
+
+    @Override
+    public int getMaxWait() {
+        return dataSource.getMaxWait();
+    }
+
+    @Override
+    public void setMaxWait(final int maxWait) {
+        dataSource.setMaxWait(maxWait);
+    }
+
+    @Override
+    public void purge() {
+        LOG.info("Purging the connection pool");
+        dataSource.purge();
+        dataSource.purgeOnReturn();
+    }
+}
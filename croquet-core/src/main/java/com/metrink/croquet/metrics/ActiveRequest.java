@@ -0,0 +1,101 @@
+package com.metrink.croquet.metrics;
+
+import javax.servlet.ServletRequest;
+
+/**
+ * A request being timed by the {@link RequestMetricsFilter}, stored as a request attribute.
+ *
+ * The route a request is recorded under is not known until Wicket or Jersey has matched it, so they call
+ * {@link #setRoute(String)} once they have. Requests that are never matched are recorded under "unmatched".
+ */
+public final class ActiveRequest {
+    /**
+     * The name of the request attribute holding the {@link ActiveRequest}.
+     */
+    public static final String ATTRIBUTE = ActiveRequest.class.getName();
+
+    private final RequestMetricsFilter filter;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+    private volatile RouteMetrics route;
+
+    /**
+     * Constructor.
+     * @param filter the filter timing the request.
+     * @param startNanos the start of the request, in {@link System#nanoTime()} units.
+     * @param accounting true to record the CPU time and allocations of the request thread.
+     */
+    ActiveRequest(final RequestMetricsFilter filter, final long startNanos, final boolean accounting) {
+        this.filter = filter;
+        this.startNanos = startNanos;
+        this.startCpuNanos = accounting ? ThreadResources.cpuNanos() : -1;
+        this.startAllocatedBytes = accounting ? ThreadResources.allocatedBytes() : -1;
+    }
+
+    /**
+     * Gets the {@link ActiveRequest} for a request.
+     * @param request the servlet request.
+     * @return the active request, or null if the request is not being timed.
+     */
+    public static ActiveRequest get(final ServletRequest request) {
+        final Object active = request.getAttribute(ATTRIBUTE);
+
+        return active instanceof ActiveRequest ? (ActiveRequest)active : null;
+    }
+
+    /**
+     * Sets the route the request is recorded under, if it has not been set already.
+     * @param routeName the route, such as a mount path or resource template.
+     */
+    public void setRoute(final String routeName) {
+        if(route != null) {
+            return;
+        }
+
+        route = filter.getRouteMetrics(routeName);
+        route.getInFlight().enter();
+    }
+
+    /**
+     * Gets the route the request is recorded under.
+     * @return the route, or null if the request has not been matched yet.
+     */
+    public String getRoute() {
+        final RouteMetrics current = route;
+
+        return current == null ? null : current.getRoute();
+    }
+
+    /**
+     * Gets the time the request started.
+     * @return the start of the request, in {@link System#nanoTime()} units.
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets the CPU time the request thread has used since the request started.
+     *
+     * Must be called on the request thread; work handed to other threads is not included.
+     * @return the CPU time in nanoseconds, or -1 if resource accounting is off.
+     */
+    public long getCpuNanos() {
+        return startCpuNanos < 0 ? -1 : ThreadResources.cpuNanos() - startCpuNanos;
+    }
+
+    /**
+     * Gets the bytes the request thread has allocated since the request started.
+     *
+     * Must be called on the request thread; work handed to other threads is not included.
+     * @return the bytes allocated, or -1 if resource accounting is off.
+     */
+    public long getAllocatedBytes() {
+        return startAllocatedBytes < 0 ? -1 : ThreadResources.allocatedBytes() - startAllocatedBytes;
+    }
+
+    RouteMetrics getRouteMetrics() {
+        return route;
+    }
+}
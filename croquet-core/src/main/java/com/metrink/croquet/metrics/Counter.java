@@ -0,0 +1,60 @@
+package com.metrink.croquet.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count.
+ *
+ * Backed by a {@link LongAdder} so that request threads incrementing the same counter do not contend. A counter can
+ * count in a finer unit than the one it is exported in, such as microseconds of a total exported in seconds.
+ */
+public class Counter {
+    private final LongAdder count = new LongAdder();
+    private final double scale;
+
+    /**
+     * Constructor for a counter exported as it is counted.
+     */
+    public Counter() {
+        this(1);
+    }
+
+    /**
+     * Constructor.
+     * @param scale the exported value of one unit counted, such as 0.000001 to count microseconds and export seconds.
+     */
+    public Counter(final double scale) {
+        this.scale = scale;
+    }
+
+    /**
+     * Increments the count by one.
+     */
+    public void inc() {
+        count.increment();
+    }
+
+    /**
+     * Increments the count.
+     * @param amount the amount to add, must not be negative.
+     */
+    public void add(final long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current count.
+     * @return the count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the current count in the unit it is exported in.
+     * @return the count multiplied by the scale.
+     */
+    public double getValue() {
+        return getCount() * scale;
+    }
+}
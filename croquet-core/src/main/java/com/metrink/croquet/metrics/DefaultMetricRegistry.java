@@ -0,0 +1,128 @@
+package com.metrink.croquet.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import com.google.inject.Singleton;
+
+/**
+ * The default, in-memory {@link MetricRegistry}.
+ */
+@Singleton
+public class DefaultMetricRegistry implements MetricRegistry {
+    private final ConcurrentMap<MetricName, Counter> counters = new ConcurrentHashMap<MetricName, Counter>();
+    private final ConcurrentMap<MetricName, LatencyHistogram> histograms =
+            new ConcurrentHashMap<MetricName, LatencyHistogram>();
+    private final ConcurrentMap<MetricName, Gauge> gauges = new ConcurrentHashMap<MetricName, Gauge>();
+    private final ConcurrentMap<String, String> help = new ConcurrentHashMap<String, String>();
+
+    @Override
+    public Counter counter(final String name, final String description, final String... labels) {
+        return counter(name, description, 1, labels);
+    }
+
+    @Override
+    public Counter counter(final String name, final String description, final double scale, final String... labels) {
+        help.putIfAbsent(name, description);
+        return counters.computeIfAbsent(new MetricName(name, labels), k -> new Counter(scale));
+    }
+
+    @Override
+    public void counter(final String name, final String description, final LongSupplier count, final String... labels) {
+        counter(name, description, count, 1, labels);
+    }
+
+    @Override
+    public void counter(final String name,
+                        final String description,
+                        final LongSupplier count,
+                        final double scale,
+                        final String... labels) {
+        help.putIfAbsent(name, description);
+        counters.put(new MetricName(name, labels), new CallbackCounter(count, scale));
+    }
+
+    @Override
+    public LatencyHistogram histogram(final String name, final String description, final String... labels) {
+        help.putIfAbsent(name, description);
+        return histograms.computeIfAbsent(new MetricName(name, labels), k -> new LatencyHistogram());
+    }
+
+    @Override
+    public InFlightGauge inFlight(final String name, final String description, final String... labels) {
+        help.putIfAbsent(name, description);
+
+        final Gauge gauge = gauges.computeIfAbsent(new MetricName(name, labels), k -> new InFlightGauge());
+
+        if(!(gauge instanceof InFlightGauge)) {
+            throw new IllegalArgumentException("A different type of gauge is already registered as " + name);
+        }
+
+        return (InFlightGauge)gauge;
+    }
+
+    @Override
+    public void gauge(final String name, final String description, final Gauge gauge, final String... labels) {
+        help.putIfAbsent(name, description);
+        gauges.put(new MetricName(name, labels), gauge);
+    }
+
+    @Override
+    public void remove(final MetricName name) {
+        counters.remove(name);
+        histograms.remove(name);
+        gauges.remove(name);
+    }
+
+    @Override
+    public Map<MetricName, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    @Override
+    public Map<MetricName, LatencyHistogram> getHistograms() {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    @Override
+    public Map<MetricName, Gauge> getGauges() {
+        return Collections.unmodifiableMap(gauges);
+    }
+
+    @Override
+    public String getHelp(final String name) {
+        return help.get(name);
+    }
+
+    /**
+     * A {@link Counter} whose count is kept elsewhere.
+     */
+    private static final class CallbackCounter extends Counter {
+        private static final String READ_ONLY = "The count is kept elsewhere";
+
+        private final LongSupplier count;
+
+        CallbackCounter(final LongSupplier count, final double scale) {
+            super(scale);
+            this.count = count;
+        }
+
+        @Override
+        public void inc() {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public void add(final long amount) {
+            throw new UnsupportedOperationException(READ_ONLY);
+        }
+
+        @Override
+        public long getCount() {
+            return count.getAsLong();
+        }
+    }
+}
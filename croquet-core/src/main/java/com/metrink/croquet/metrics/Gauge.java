@@ -0,0 +1,13 @@
+package com.metrink.croquet.metrics;
+
+/**
+ * A value that is read when the metrics are exported, such as the size of a pool.
+ */
+public interface Gauge {
+
+    /**
+     * Gets the current value.
+     * @return the value.
+     */
+    double getValue();
+}
@@ -0,0 +1,29 @@
+package com.metrink.croquet.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Gauge} counting the operations currently in progress.
+ */
+public class InFlightGauge implements Gauge {
+    private final LongAdder inFlight = new LongAdder();
+
+    /**
+     * Records the start of an operation.
+     */
+    public void enter() {
+        inFlight.increment();
+    }
+
+    /**
+     * Records the end of an operation.
+     */
+    public void exit() {
+        inFlight.decrement();
+    }
+
+    @Override
+    public double getValue() {
+        return inFlight.sum();
+    }
+}
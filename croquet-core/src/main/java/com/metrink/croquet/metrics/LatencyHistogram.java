@@ -0,0 +1,142 @@
+package com.metrink.croquet.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A histogram of durations with microsecond resolution, backed by an HdrHistogram {@link Recorder}.
+ *
+ * Recording is wait-free, so request threads never block on each other or on an export. Durations are tracked up to
+ * one hour with two significant digits (1% error), which keeps each histogram to a few tens of kilobytes.
+ *
+ * The distribution covers the last ten minutes, kept in five buckets of two minutes each, so a change in latency moves
+ * the quantiles as quickly on a process that has run for days as on one that just started. The count and sum cover
+ * every duration recorded.
+ */
+public class LatencyHistogram {
+    static final long WINDOW = TimeUnit.MINUTES.toMillis(10);
+    static final int BUCKETS = 5;
+
+    private static final long HIGHEST_TRACKABLE = TimeUnit.HOURS.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 2;
+    private static final long BUCKET_LENGTH = WINDOW / BUCKETS;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+    private final LongSupplier clock;
+    private final Histogram[] buckets = new Histogram[BUCKETS];
+    private final long[] bucketPeriods = new long[BUCKETS];
+    private Histogram interval;
+    private long count;
+    private double sum;
+
+    /**
+     * Constructor.
+     */
+    public LatencyHistogram() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     * @param clock supplies the current time in milliseconds.
+     */
+    LatencyHistogram(final LongSupplier clock) {
+        this.clock = clock;
+
+        for(int i = 0; i < BUCKETS; ++i) {
+            buckets[i] = new Histogram(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+            bucketPeriods[i] = -1;
+        }
+    }
+
+    /**
+     * Records a duration.
+     * @param duration the duration.
+     * @param unit the unit of the duration.
+     */
+    public void record(final long duration, final TimeUnit unit) {
+        recorder.recordValue(Math.max(0, Math.min(HIGHEST_TRACKABLE, unit.toMicros(duration))));
+    }
+
+    /**
+     * Gets the durations recorded in the last ten minutes, and the count and sum of every duration recorded so far.
+     * @return a snapshot of the histogram.
+     */
+    public synchronized Snapshot getSnapshot() {
+        final long period = clock.getAsLong() / BUCKET_LENGTH;
+        final int index = (int)(period % BUCKETS);
+
+        interval = recorder.getIntervalHistogram(interval);
+
+        if(interval.getTotalCount() > 0) {
+            count += interval.getTotalCount();
+            sum += interval.getMean() * interval.getTotalCount();
+        }
+
+        // the bucket last held a period that has left the window
+        if(bucketPeriods[index] != period) {
+            buckets[index].reset();
+            bucketPeriods[index] = period;
+        }
+
+        buckets[index].add(interval);
+
+        final Histogram recent = new Histogram(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+
+        for(int i = 0; i < BUCKETS; ++i) {
+            if(period - bucketPeriods[i] < BUCKETS) {
+                recent.add(buckets[i]);
+            }
+        }
+
+        return new Snapshot(recent, count, sum);
+    }
+
+    /**
+     * The durations of a {@link LatencyHistogram} at one point in time, in microseconds.
+     */
+    public static final class Snapshot {
+        private final Histogram recent;
+        private final long count;
+        private final double sum;
+
+        /**
+         * Constructor.
+         * @param recent the durations recorded in the window.
+         * @param count the number of durations recorded.
+         * @param sum the sum of the durations recorded, in microseconds.
+         */
+        Snapshot(final Histogram recent, final long count, final double sum) {
+            this.recent = recent;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        /**
+         * Gets the durations recorded in the last ten minutes, to compute quantiles from.
+         * @return the recent durations.
+         */
+        public Histogram getRecent() {
+            return recent;
+        }
+
+        /**
+         * Gets the number of durations recorded since the histogram was created.
+         * @return the count.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the durations recorded since the histogram was created, accurate to the histogram's precision.
+         * @return the sum in microseconds.
+         */
+        public double getSum() {
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.metrink.croquet.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The name and labels identifying a metric, for example croquet_http_responses_total{route="/people",status="200"}.
+ */
+public final class MetricName {
+    private final String name;
+    private final Map<String, String> labels;
+
+    /**
+     * Constructor.
+     * @param name the name of the metric.
+     * @param labels alternating label names and values.
+     */
+    public MetricName(final String name, final String... labels) {
+        if(labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name and value pairs: " + name);
+        }
+
+        final Map<String, String> map = new LinkedHashMap<String, String>();
+
+        for(int i = 0; i < labels.length; i += 2) {
+            map.put(labels[i], labels[i + 1]);
+        }
+
+        this.name = name;
+        this.labels = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Gets the name of the metric.
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the labels of the metric, in the order they were given.
+     * @return the labels.
+     */
+    public Map<String, String> getLabels() {
+        return labels;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if(this == obj) {
+            return true;
+        }
+
+        if(!(obj instanceof MetricName)) {
+            return false;
+        }
+
+        final MetricName other = (MetricName)obj;
+
+        return name.equals(other.name) && labels.equals(other.labels);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, labels);
+    }
+
+    @Override
+    public String toString() {
+        return labels.isEmpty() ? name : name + labels;
+    }
+}
@@ -0,0 +1,112 @@
+package com.metrink.croquet.metrics;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * The registry of all of Croquet's metrics.
+ *
+ * Metrics are created the first time they are requested and the same instance is returned after that, so callers
+ * should look a metric up once and keep it. The implementation is chosen with setMetricRegistry on the builder; the
+ * default is {@link DefaultMetricRegistry}. Label names and values are passed as alternating arguments.
+ */
+public interface MetricRegistry {
+
+    /**
+     * Gets or creates a {@link Counter}.
+     * @param name the name of the counter.
+     * @param help a description of the counter.
+     * @param labels alternating label names and values.
+     * @return the counter.
+     */
+    Counter counter(String name, String help, String... labels);
+
+    /**
+     * Gets or creates a {@link Counter} that counts in a finer unit than it is exported in.
+     * @param name the name of the counter.
+     * @param help a description of the counter.
+     * @param scale the exported value of one unit counted.
+     * @param labels alternating label names and values.
+     * @return the counter.
+     */
+    Counter counter(String name, String help, double scale, String... labels);
+
+    /**
+     * Registers a counter whose count is read when the metrics are exported, such as a running total kept by a library,
+     * replacing any counter already registered with the same name and labels.
+     * @param name the name of the counter.
+     * @param help a description of the counter.
+     * @param count supplies the count, which must not decrease.
+     * @param labels alternating label names and values.
+     */
+    void counter(String name, String help, LongSupplier count, String... labels);
+
+    /**
+     * Registers a counter whose count is read when the metrics are exported, in a finer unit than it is exported in,
+     * replacing any counter already registered with the same name and labels.
+     * @param name the name of the counter.
+     * @param help a description of the counter.
+     * @param count supplies the count, which must not decrease.
+     * @param scale the exported value of one unit counted, such as 0.001 for a total kept in milliseconds.
+     * @param labels alternating label names and values.
+     */
+    void counter(String name, String help, LongSupplier count, double scale, String... labels);
+
+    /**
+     * Gets or creates a {@link LatencyHistogram}.
+     * @param name the name of the histogram.
+     * @param help a description of the histogram.
+     * @param labels alternating label names and values.
+     * @return the histogram.
+     */
+    LatencyHistogram histogram(String name, String help, String... labels);
+
+    /**
+     * Gets or creates an {@link InFlightGauge}.
+     * @param name the name of the gauge.
+     * @param help a description of the gauge.
+     * @param labels alternating label names and values.
+     * @return the gauge.
+     */
+    InFlightGauge inFlight(String name, String help, String... labels);
+
+    /**
+     * Registers a {@link Gauge}, replacing any gauge already registered with the same name and labels.
+     * @param name the name of the gauge.
+     * @param help a description of the gauge.
+     * @param gauge the gauge.
+     * @param labels alternating label names and values.
+     */
+    void gauge(String name, String help, Gauge gauge, String... labels);
+
+    /**
+     * Removes a metric of any type, so it is no longer exported.
+     * @param name the name and labels of the metric.
+     */
+    void remove(MetricName name);
+
+    /**
+     * Gets all of the counters.
+     * @return the counters by name.
+     */
+    Map<MetricName, Counter> getCounters();
+
+    /**
+     * Gets all of the histograms.
+     * @return the histograms by name.
+     */
+    Map<MetricName, LatencyHistogram> getHistograms();
+
+    /**
+     * Gets all of the gauges, including the {@link InFlightGauge}s.
+     * @return the gauges by name.
+     */
+    Map<MetricName, Gauge> getGauges();
+
+    /**
+     * Gets the description of a metric.
+     * @param name the name of the metric.
+     * @return the description, or null if there is no metric with that name.
+     */
+    String getHelp(String name);
+}
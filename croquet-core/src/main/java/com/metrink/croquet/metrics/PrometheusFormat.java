@@ -0,0 +1,165 @@
+package com.metrink.croquet.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders a {@link MetricRegistry} in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Histograms are rendered as summaries in seconds, with quantiles over their recent durations and a sum and count of
+ * all of them.
+ */
+final class PrometheusFormat {
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusFormat.class);
+    private static final double MICROS_PER_SECOND = 1000000.0;
+    private static final double[] QUANTILES = { 0.5, 0.75, 0.9, 0.95, 0.99, 0.999 };
+    private static final double PERCENT = 100.0;
+
+    private PrometheusFormat() { }
+
+    /**
+     * Renders every metric in the registry.
+     * @param registry the registry.
+     * @return the metrics in Prometheus' text format.
+     */
+    static String render(final MetricRegistry registry) {
+        final StringBuilder sb = new StringBuilder();
+
+        // metrics with the same name must be grouped together under one TYPE line
+        for(final Map.Entry<String, Map<MetricName, Counter>> family:byName(registry.getCounters()).entrySet()) {
+            header(sb, registry, family.getKey(), "counter");
+
+            for(final Map.Entry<MetricName, Counter> counter:family.getValue().entrySet()) {
+                final double count;
+
+                try {
+                    count = counter.getValue().getValue();
+                //CHECKSTYLE:OFF a counter read from a library that isn't started must not break the whole scrape
+                } catch (final RuntimeException e) {
+                //CHECKSTYLE:ON
+                    LOG.debug("Skipping counter {}: {}", counter.getKey(), e.getMessage());
+                    continue;
+                }
+
+                sample(sb, counter.getKey().getName(), counter.getKey().getLabels(), null, count);
+            }
+        }
+
+        for(final Map.Entry<String, Map<MetricName, Gauge>> family:byName(registry.getGauges()).entrySet()) {
+            header(sb, registry, family.getKey(), "gauge");
+
+            for(final Map.Entry<MetricName, Gauge> gauge:family.getValue().entrySet()) {
+                final double value;
+
+                try {
+                    value = gauge.getValue().getValue();
+                //CHECKSTYLE:OFF a broken gauge must not break the whole scrape
+                } catch (final RuntimeException e) {
+                //CHECKSTYLE:ON
+                    LOG.debug("Skipping gauge {}: {}", gauge.getKey(), e.getMessage());
+                    continue;
+                }
+
+                sample(sb, gauge.getKey().getName(), gauge.getKey().getLabels(), null, value);
+            }
+        }
+
+        for(final Map.Entry<String, Map<MetricName, LatencyHistogram>> family:byName(registry.getHistograms()).entrySet()) {
+            header(sb, registry, family.getKey(), "summary");
+
+            for(final Map.Entry<MetricName, LatencyHistogram> entry:family.getValue().entrySet()) {
+                summary(sb, entry.getKey(), entry.getValue().getSnapshot());
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static <M> Map<String, Map<MetricName, M>> byName(final Map<MetricName, M> metrics) {
+        final Map<String, Map<MetricName, M>> families = new TreeMap<String, Map<MetricName, M>>();
+
+        for(final Map.Entry<MetricName, M> metric:metrics.entrySet()) {
+            families.computeIfAbsent(metric.getKey().getName(), k -> new LinkedHashMap<MetricName, M>())
+                    .put(metric.getKey(), metric.getValue());
+        }
+
+        return families;
+    }
+
+    private static void header(final StringBuilder sb, final MetricRegistry registry, final String name, final String type) {
+        final String help = registry.getHelp(name);
+
+        if(help != null) {
+            sb.append("# HELP ").append(name).append(' ').append(help.replace("\\", "\\\\").replace("\n", "\\n"));
+            sb.append('\n');
+        }
+
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void summary(final StringBuilder sb, final MetricName name, final LatencyHistogram.Snapshot snapshot) {
+        for(final double quantile:QUANTILES) {
+            sample(sb,
+                   name.getName(),
+                   name.getLabels(),
+                   String.valueOf(quantile),
+                   snapshot.getRecent().getValueAtPercentile(quantile * PERCENT) / MICROS_PER_SECOND);
+        }
+
+        sample(sb, name.getName() + "_sum", name.getLabels(), null, snapshot.getSum() / MICROS_PER_SECOND);
+        sample(sb, name.getName() + "_count", name.getLabels(), null, snapshot.getCount());
+    }
+
+    private static void sample(final StringBuilder sb,
+                               final String name,
+                               final Map<String, String> labels,
+                               final String quantile,
+                               final double value) {
+        sb.append(name);
+
+        if(!labels.isEmpty() || quantile != null) {
+            boolean first = true;
+
+            sb.append('{');
+
+            for(final Map.Entry<String, String> label:labels.entrySet()) {
+                if(!first) {
+                    sb.append(',');
+                }
+
+                sb.append(label.getKey()).append("=\"").append(escape(label.getValue())).append('"');
+                first = false;
+            }
+
+            if(quantile != null) {
+                sb.append(first ? "" : ",").append("quantile=\"").append(quantile).append('"');
+            }
+
+            sb.append('}');
+        }
+
+        sb.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(final double value) {
+        if(Double.isNaN(value)) {
+            return "NaN";
+        } else if(Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        } else if(value == Math.rint(value) && Math.abs(value) < Long.MAX_VALUE) {
+            return String.valueOf((long)value);
+        }
+
+        return String.valueOf(value);
+    }
+}
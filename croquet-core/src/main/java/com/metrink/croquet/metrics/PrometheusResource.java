@@ -0,0 +1,50 @@
+package com.metrink.croquet.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.wicket.protocol.http.WebApplication;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.util.time.Duration;
+
+import com.google.inject.Injector;
+
+/**
+ * Wicket resource serving the metrics in Prometheus' format, mounted with addMetricsEndpoint on the builder.
+ *
+ * Resources are not created by Guice, so the {@link PrometheusSnapshot} is found through the injector Croquet stores
+ * in the servlet context.
+ */
+public class PrometheusResource extends AbstractResource {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected ResourceResponse newResourceResponse(final Attributes attributes) {
+        final ResourceResponse response = new ResourceResponse();
+        final Object injector = WebApplication.get().getServletContext().getAttribute("guice-injector");
+
+        response.setCacheDuration(Duration.NONE);
+
+        if(!(injector instanceof Injector)) {
+            response.setError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return response;
+        }
+
+        final byte[] body = ((Injector)injector).getInstance(PrometheusSnapshot.class)
+                                                .getText()
+                                                .getBytes(StandardCharsets.UTF_8);
+
+        response.setContentType(PrometheusFormat.CONTENT_TYPE);
+        response.setContentLength(body.length);
+        response.setWriteCallback(new WriteCallback() {
+            @Override
+            public void writeData(final Attributes attributes) throws IOException {
+                attributes.getResponse().write(body);
+            }
+        });
+
+        return response;
+    }
+}
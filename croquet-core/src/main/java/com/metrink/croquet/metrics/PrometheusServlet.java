@@ -0,0 +1,42 @@
+package com.metrink.croquet.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Servlet serving the metrics in Prometheus' format, mounted with addMetricsEndpoint on the REST builder.
+ */
+@Singleton
+public class PrometheusServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private final transient PrometheusSnapshot snapshot;
+
+    /**
+     * Constructor.
+     * @param snapshot the snapshot to serve.
+     */
+    @Inject
+    public PrometheusServlet(final PrometheusSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    protected void doGet(final HttpServletRequest request,
+                         final HttpServletResponse response) throws ServletException, IOException {
+        final byte[] body = snapshot.getText().getBytes(StandardCharsets.UTF_8);
+
+        response.setContentType(PrometheusFormat.CONTENT_TYPE);
+        response.setContentLength(body.length);
+        response.setHeader("Cache-Control", "no-cache");
+        response.getOutputStream().write(body);
+    }
+}
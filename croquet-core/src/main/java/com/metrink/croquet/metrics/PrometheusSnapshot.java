@@ -0,0 +1,86 @@
+package com.metrink.croquet.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Renders the {@link MetricRegistry} in Prometheus' format on a background thread.
+ *
+ * Scrapes are served from the last rendering, so they never take histogram snapshots or read MXBeans on a request
+ * thread, and scraping more often than refresh_interval costs nothing. Started when a metrics endpoint is added.
+ */
+@Singleton
+public class PrometheusSnapshot implements ManagedModule {
+    private static final Logger LOG = LoggerFactory.getLogger(PrometheusSnapshot.class);
+
+    private final MetricRegistry registry;
+    private final long refreshInterval;
+
+    private volatile String text = "";
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the refresh interval.
+     * @param registry the registry to render.
+     */
+    @Inject
+    public PrometheusSnapshot(final AbstractSettings settings, final MetricRegistry registry) {
+        this.registry = registry;
+        this.refreshInterval = settings.getMetricsSettings().getRefreshInterval();
+    }
+
+    /**
+     * Renders the metrics and starts refreshing them every refresh_interval.
+     */
+    @Override
+    public synchronized void start() {
+        refresh();
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "croquet-metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing the metrics.
+     */
+    @Override
+    public synchronized void stop() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Gets the last rendering of the metrics.
+     * @return the metrics in Prometheus' text format.
+     */
+    public String getText() {
+        return text;
+    }
+
+    private void refresh() {
+        try {
+            text = PrometheusFormat.render(registry);
+        //CHECKSTYLE:OFF an exception would cancel the scheduled refresh
+        } catch (final RuntimeException e) {
+        //CHECKSTYLE:ON
+            LOG.error("Error rendering metrics: {}", e.getMessage(), e);
+        }
+    }
+}
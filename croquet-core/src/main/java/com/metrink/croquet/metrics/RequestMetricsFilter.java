@@ -0,0 +1,115 @@
+package com.metrink.croquet.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+
+/**
+ * Servlet filter that records the latency, status code and concurrency of every request by route.
+ *
+ * Installed ahead of every other filter, so the recorded time includes opening the unit of work. When
+ * resource_accounting is on, the CPU time used and bytes allocated by the request thread are counted by route too.
+ */
+@Singleton
+public class RequestMetricsFilter implements Filter {
+    static final String UNMATCHED_ROUTE = "unmatched";
+
+    private final MetricRegistry registry;
+    private final InFlightGauge activeRequests;
+    private final boolean accounting;
+    private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<String, RouteMetrics>();
+
+    /**
+     * Constructor.
+     * @param settings the settings that turn on resource accounting.
+     * @param registry the registry to record the metrics in.
+     */
+    @Inject
+    public RequestMetricsFilter(final AbstractSettings settings, final MetricRegistry registry) {
+        this.registry = registry;
+        this.activeRequests = registry.inFlight("croquet_http_active_requests", "Requests currently being handled");
+        this.accounting = settings.getMetricsSettings().getResourceAccounting() && ThreadResources.enable();
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        // forwards and includes are part of the request that is already being timed
+        if(ActiveRequest.get(request) != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final ActiveRequest active = new ActiveRequest(this, System.nanoTime(), accounting);
+        boolean success = false;
+
+        request.setAttribute(ActiveRequest.ATTRIBUTE, active);
+        activeRequests.enter();
+
+        try {
+            chain.doFilter(request, response);
+            success = true;
+        } finally {
+            activeRequests.exit();
+            record(active, response, success);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Gets the metrics for a route, creating them the first time the route is seen.
+     * @param route the route.
+     * @return the metrics for the route.
+     */
+    RouteMetrics getRouteMetrics(final String route) {
+        return routes.computeIfAbsent(route, k -> new RouteMetrics(registry, k, accounting));
+    }
+
+    private void record(final ActiveRequest active, final ServletResponse response, final boolean success) {
+        final long elapsed = System.nanoTime() - active.getStartNanos();
+        final RouteMetrics matched = active.getRouteMetrics();
+        final RouteMetrics route = matched != null ? matched : getRouteMetrics(UNMATCHED_ROUTE);
+        final int status;
+
+        if(!success) {
+            status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } else if(response instanceof HttpServletResponse) {
+            status = ((HttpServletResponse)response).getStatus();
+        } else {
+            status = HttpServletResponse.SC_OK;
+        }
+
+        if(matched != null) {
+            matched.getInFlight().exit();
+        }
+
+        route.getLatency().record(elapsed, TimeUnit.NANOSECONDS);
+        route.getResponses(status).inc();
+
+        if(accounting) {
+            route.getCpu().add(TimeUnit.NANOSECONDS.toMicros(active.getCpuNanos()));
+            route.getAllocated().add(active.getAllocatedBytes());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.metrink.croquet.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timeline of the current thread's request, used to explain where the time went in slow requests.
+ *
+ * The {@link SlowRequestFilter} starts a timeline for each request. Croquet marks the phases of the request on it:
+ * opening the unit of work, constructing pages, every SQL statement, rendering, storing the page and committing the
+ * response. Applications can add their own events with {@link #mark(String, String)} and
+ * {@link #record(String, String, long)}. When no timeline is active these methods do nothing.
+ *
+ * A timeline keeps at most slow_request_max_events events, but the totals for each kind of event are always complete.
+ */
+public final class RequestTimeline {
+    private static final ThreadLocal<RequestTimeline> CURRENT = new ThreadLocal<RequestTimeline>();
+
+    private final long startNanos;
+    private final int maxEvents;
+    private final List<Event> events = new ArrayList<Event>();
+    private final Map<String, Total> totals = new LinkedHashMap<String, Total>();
+    private int dropped;
+    private boolean finished;
+
+    private RequestTimeline(final long startNanos, final int maxEvents) {
+        this.startNanos = startNanos;
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Starts a timeline for the current thread.
+     * @param startNanos the start of the request, in {@link System#nanoTime()} units.
+     * @param maxEvents the maximum number of events kept.
+     * @return the timeline.
+     */
+    static RequestTimeline start(final long startNanos, final int maxEvents) {
+        final RequestTimeline timeline = new RequestTimeline(startNanos, maxEvents);
+
+        CURRENT.set(timeline);
+
+        return timeline;
+    }
+
+    /**
+     * Gets the timeline of the current thread, to carry it over to work handed to another thread.
+     * @return the timeline, or null if there is none.
+     */
+    public static RequestTimeline get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Sets the timeline of the current thread.
+     * @param timeline the timeline, or null to clear it.
+     */
+    public static void restore(final RequestTimeline timeline) {
+        if(timeline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(timeline);
+        }
+    }
+
+    /**
+     * Is a timeline being recorded for the current thread?
+     * @return true if events are being recorded.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Marks a point in the current request.
+     * @param name the name of the event.
+     */
+    public static void mark(final String name) {
+        mark(name, null);
+    }
+
+    /**
+     * Marks a point in the current request.
+     * @param name the name of the event.
+     * @param detail a description of the event, may be null.
+     */
+    public static void mark(final String name, final String detail) {
+        final RequestTimeline timeline = CURRENT.get();
+
+        if(timeline != null) {
+            timeline.add(name, detail, System.nanoTime(), -1);
+        }
+    }
+
+    /**
+     * Records something that started at the given time and has just finished.
+     * @param name the name of the event.
+     * @param detail a description of the event, may be null.
+     * @param startNanos when it started, in {@link System#nanoTime()} units.
+     */
+    public static void record(final String name, final String detail, final long startNanos) {
+        final RequestTimeline timeline = CURRENT.get();
+
+        if(timeline != null) {
+            timeline.add(name, detail, startNanos, System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Records something that took the given time and has just finished.
+     * @param name the name of the event.
+     * @param detail a description of the event, may be null.
+     * @param durationNanos how long it took, in nanoseconds.
+     */
+    public static void recordDuration(final String name, final String detail, final long durationNanos) {
+        final RequestTimeline timeline = CURRENT.get();
+
+        if(timeline != null) {
+            timeline.add(name, detail, System.nanoTime() - durationNanos, durationNanos);
+        }
+    }
+
+    /**
+     * Stops recording, clearing the timeline from the current thread.
+     *
+     * Work carried over to other threads may still hold the timeline, anything it records afterwards is ignored.
+     */
+    synchronized void finish() {
+        finished = true;
+        CURRENT.remove();
+    }
+
+    /**
+     * Gets the start of the request.
+     * @return the start, in {@link System#nanoTime()} units.
+     */
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Gets a copy of the events, in the order they were recorded.
+     * @return the events.
+     */
+    synchronized List<Event> getEvents() {
+        return new ArrayList<Event>(events);
+    }
+
+    /**
+     * Gets a copy of the count and total duration of each kind of event.
+     * @return the totals by event name.
+     */
+    synchronized Map<String, Total> getTotals() {
+        final Map<String, Total> copy = new LinkedHashMap<String, Total>();
+
+        for(final Map.Entry<String, Total> total:totals.entrySet()) {
+            copy.put(total.getKey(), new Total(total.getValue().count, total.getValue().nanos));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Gets the number of events that were not kept because the timeline was full.
+     * @return the number of events dropped.
+     */
+    synchronized int getDropped() {
+        return dropped;
+    }
+
+    // synchronized because work handed to the AsyncQueryService records on the same timeline
+    private synchronized void add(final String name, final String detail, final long at, final long durationNanos) {
+        if(finished) {
+            return;
+        }
+
+        final Total total = totals.computeIfAbsent(name, k -> new Total(0, 0));
+
+        total.count++;
+        total.nanos += Math.max(durationNanos, 0);
+
+        if(events.size() < maxEvents) {
+            events.add(new Event(name, detail, at - startNanos, durationNanos));
+        } else {
+            dropped++;
+        }
+    }
+
+    /**
+     * An event on the timeline.
+     */
+    static final class Event {
+        private final String name;
+        private final String detail;
+        private final long offsetNanos;
+        private final long durationNanos;
+
+        Event(final String name, final String detail, final long offsetNanos, final long durationNanos) {
+            this.name = name;
+            this.detail = detail;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getDetail() {
+            return detail;
+        }
+
+        long getOffsetMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(offsetNanos);
+        }
+
+        /**
+         * Gets the duration in microseconds, or a negative number for a point in time.
+         */
+        long getDurationMicros() {
+            return durationNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(durationNanos);
+        }
+    }
+
+    /**
+     * The number and total duration of one kind of event.
+     */
+    static final class Total {
+        private int count;
+        private long nanos;
+
+        Total(final int count, final long nanos) {
+            this.count = count;
+            this.nanos = nanos;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        long getMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
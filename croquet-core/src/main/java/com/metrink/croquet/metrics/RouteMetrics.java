@@ -0,0 +1,84 @@
+package com.metrink.croquet.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The metrics recorded for a single route.
+ */
+class RouteMetrics {
+    static final String LATENCY = "croquet_http_request_duration_seconds";
+    static final String RESPONSES = "croquet_http_responses_total";
+    static final String IN_FLIGHT = "croquet_http_requests_in_flight";
+    static final String CPU = "croquet_http_request_cpu_seconds_total";
+    static final String ALLOCATED = "croquet_http_request_allocated_bytes_total";
+
+    private static final double MICROS_PER_SECOND = 1000000.0;
+
+    private final MetricRegistry registry;
+    private final String route;
+    private final LatencyHistogram latency;
+    private final InFlightGauge inFlight;
+    private final Counter cpu;
+    private final Counter allocated;
+    private final ConcurrentMap<Integer, Counter> responses = new ConcurrentHashMap<Integer, Counter>();
+
+    /**
+     * Constructor.
+     * @param registry the registry to create the metrics in.
+     * @param route the route.
+     * @param accounting true to create the CPU time and allocation counters.
+     */
+    RouteMetrics(final MetricRegistry registry, final String route, final boolean accounting) {
+        this.registry = registry;
+        this.route = route;
+        this.latency = registry.histogram(LATENCY, "Time taken to handle requests", "route", route);
+        this.inFlight = registry.inFlight(IN_FLIGHT, "Requests currently being handled", "route", route);
+        this.cpu = accounting
+                ? registry.counter(CPU, "CPU time used by request threads", 1 / MICROS_PER_SECOND, "route", route)
+                : null;
+        this.allocated = accounting
+                ? registry.counter(ALLOCATED, "Bytes allocated by request threads", "route", route)
+                : null;
+    }
+
+    String getRoute() {
+        return route;
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    InFlightGauge getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the counter of CPU time used. It counts microseconds and is exported in seconds.
+     * @return the counter, or null if resource accounting is off.
+     */
+    Counter getCpu() {
+        return cpu;
+    }
+
+    /**
+     * Gets the counter of bytes allocated.
+     * @return the counter, or null if resource accounting is off.
+     */
+    Counter getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Gets the counter of responses with the given status code.
+     * @param status the HTTP status code.
+     * @return the counter.
+     */
+    Counter getResponses(final int status) {
+        return responses.computeIfAbsent(status, k -> registry.counter(RESPONSES,
+                                                                       "Responses sent by route and status code",
+                                                                       "route", route,
+                                                                       "status", String.valueOf(status)));
+    }
+}
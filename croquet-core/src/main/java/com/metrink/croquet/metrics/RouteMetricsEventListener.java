@@ -0,0 +1,67 @@
+package com.metrink.croquet.metrics;
+
+import java.util.List;
+
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.glassfish.jersey.uri.UriTemplate;
+
+/**
+ * Jersey listener that sets the route of each {@link ActiveRequest} to the HTTP method and path template of the
+ * matched resource method, for example "GET /people/{id}".
+ *
+ * Jersey's request properties are backed by the servlet request's attributes, which is where the
+ * {@link RequestMetricsFilter} stores the {@link ActiveRequest}. The start and end of the resource method are also marked
+ * on the {@link RequestTimeline}.
+ */
+public class RouteMetricsEventListener implements ApplicationEventListener {
+    private static final RequestEventListener REQUEST_LISTENER = new RequestEventListener() {
+        @Override
+        public void onEvent(final RequestEvent event) {
+            if(event.getType() == RequestEvent.Type.RESOURCE_METHOD_FINISHED) {
+                RequestTimeline.mark("resource_method_finish");
+                return;
+            }
+
+            if(event.getType() != RequestEvent.Type.RESOURCE_METHOD_START) {
+                return;
+            }
+
+            RequestTimeline.mark("resource_method_start");
+
+            final Object active = event.getContainerRequest().getProperty(ActiveRequest.ATTRIBUTE);
+
+            if(active instanceof ActiveRequest) {
+                ((ActiveRequest)active).setRoute(event.getContainerRequest().getMethod() + " "
+                                                 + getPath(event.getUriInfo().getMatchedTemplates()));
+            }
+        }
+    };
+
+    @Override
+    public void onEvent(final ApplicationEvent event) {
+        // nothing to record for the application
+    }
+
+    @Override
+    public RequestEventListener onRequest(final RequestEvent requestEvent) {
+        return REQUEST_LISTENER;
+    }
+
+    /**
+     * Joins the matched templates, which Jersey lists from the resource method back to the root resource.
+     */
+    private static String getPath(final List<UriTemplate> templates) {
+        final StringBuilder path = new StringBuilder();
+
+        for(int i = templates.size() - 1; i >= 0; --i) {
+            path.append('/').append(templates.get(i).getTemplate());
+        }
+
+        final String joined = path.toString().replaceAll("/+", "/");
+
+        return joined.length() > 1 && joined.endsWith("/") ? joined.substring(0, joined.length() - 1) : joined;
+    }
+}
@@ -0,0 +1,214 @@
+package com.metrink.croquet.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.MetricsSettings;
+
+/**
+ * Servlet filter that records a {@link RequestTimeline} for each request and logs it, as a single line of JSON, when
+ * the request takes longer than slow_request_threshold milliseconds.
+ *
+ * Nothing is logged for fast requests, so the cost for them is collecting the events in a list.
+ */
+@Singleton
+public class SlowRequestFilter implements Filter {
+    private static final Logger LOG = LoggerFactory.getLogger(SlowRequestFilter.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long thresholdNanos;
+    private final int maxEvents;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the threshold.
+     */
+    @Inject
+    public SlowRequestFilter(final AbstractSettings settings) {
+        final MetricsSettings metricsSettings = settings.getMetricsSettings();
+
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(metricsSettings.getSlowRequestThreshold());
+        this.maxEvents = metricsSettings.getSlowRequestMaxEvents();
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        // forwards and includes are part of the request that is already being recorded
+        if(RequestTimeline.isActive() || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final RequestTimeline timeline = RequestTimeline.start(System.nanoTime(), maxEvents);
+        boolean success = false;
+
+        RequestTimeline.mark("filter");
+
+        try {
+            chain.doFilter(request, new TimelineResponse((HttpServletResponse)response));
+            success = true;
+        } finally {
+            timeline.finish();
+
+            final long elapsed = System.nanoTime() - timeline.getStartNanos();
+
+            if(elapsed >= thresholdNanos) {
+                log(request, (HttpServletResponse)response, success, timeline, elapsed);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private void log(final ServletRequest request,
+                     final HttpServletResponse response,
+                     final boolean success,
+                     final RequestTimeline timeline,
+                     final long elapsed) {
+        final Map<String, Object> record = new LinkedHashMap<String, Object>();
+        final ActiveRequest active = ActiveRequest.get(request);
+
+        if(request instanceof HttpServletRequest) {
+            record.put("method", ((HttpServletRequest)request).getMethod());
+            record.put("uri", ((HttpServletRequest)request).getRequestURI());
+        }
+
+        if(active != null && active.getRoute() != null) {
+            record.put("route", active.getRoute());
+        }
+
+        record.put("status", success ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        record.put("duration_us", TimeUnit.NANOSECONDS.toMicros(elapsed));
+
+        if(active != null && active.getCpuNanos() >= 0) {
+            record.put("cpu_us", TimeUnit.NANOSECONDS.toMicros(active.getCpuNanos()));
+            record.put("allocated_bytes", active.getAllocatedBytes());
+        }
+
+        final Map<String, Object> totals = new LinkedHashMap<String, Object>();
+
+        for(final Map.Entry<String, RequestTimeline.Total> total:timeline.getTotals().entrySet()) {
+            final Map<String, Object> entry = new LinkedHashMap<String, Object>();
+
+            entry.put("count", total.getValue().getCount());
+            entry.put("us", total.getValue().getMicros());
+            totals.put(total.getKey(), entry);
+        }
+
+        record.put("totals", totals);
+
+        final List<Map<String, Object>> events = new ArrayList<Map<String, Object>>();
+
+        for(final RequestTimeline.Event event:timeline.getEvents()) {
+            final Map<String, Object> entry = new LinkedHashMap<String, Object>();
+
+            entry.put("at_us", event.getOffsetMicros());
+            entry.put("event", event.getName());
+
+            if(event.getDurationMicros() >= 0) {
+                entry.put("us", event.getDurationMicros());
+            }
+
+            if(event.getDetail() != null) {
+                entry.put("detail", event.getDetail());
+            }
+
+            events.add(entry);
+        }
+
+        record.put("events", events);
+        record.put("dropped_events", timeline.getDropped());
+
+        try {
+            LOG.warn("Slow request: {}", mapper.writeValueAsString(record));
+        } catch (final JsonProcessingException e) {
+            LOG.error("Error writing slow request record: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the response being committed, the first time the body is written or the response is flushed.
+     */
+    private static class TimelineResponse extends HttpServletResponseWrapper {
+        private boolean committed;
+
+        public TimelineResponse(final HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            markCommit();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            markCommit();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            markCommit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(final int sc, final String msg) throws IOException {
+            markCommit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(final int sc) throws IOException {
+            markCommit();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(final String location) throws IOException {
+            markCommit();
+            super.sendRedirect(location);
+        }
+
+        private void markCommit() {
+            if(!committed) {
+                committed = true;
+                RequestTimeline.mark("response_commit");
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.metrink.croquet.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.ThreadMXBean;
+
+import org.apache.tomcat.jdbc.pool.DataSource;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import com.google.inject.Injector;
+import com.google.inject.Key;
+
+/**
+ * Registers metrics for the JVM, Jetty's thread pool and the JDBC connection pool.
+ */
+public final class StandardMetrics {
+    private static final double MILLIS_PER_SECOND = 1000.0;
+
+    private StandardMetrics() { }
+
+    /**
+     * Registers the metrics for everything Croquet has configured.
+     * @param injector the injector, used to find the connection pool if there is one.
+     * @param server the Jetty server.
+     */
+    public static void register(final Injector injector, final Server server) {
+        final MetricRegistry registry = injector.getInstance(MetricRegistry.class);
+
+        registerJvm(registry);
+
+        if(server.getThreadPool() instanceof QueuedThreadPool) {
+            registerJetty(registry, (QueuedThreadPool)server.getThreadPool());
+        }
+
+        // only bound when the database is configured through the YAML file
+        if(injector.getExistingBinding(Key.get(DataSource.class)) != null) {
+            registerConnectionPool(registry, injector.getInstance(DataSource.class));
+        }
+    }
+
+    /**
+     * Registers gauges for the JVM's memory, threads and classes, and counters for its garbage collectors.
+     * @param registry the registry to add the metrics to.
+     */
+    public static void registerJvm(final MetricRegistry registry) {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        registry.gauge("jvm_memory_bytes_used", "Used bytes of a memory area",
+                       () -> memory.getHeapMemoryUsage().getUsed(), "area", "heap");
+        registry.gauge("jvm_memory_bytes_used", "Used bytes of a memory area",
+                       () -> memory.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        registry.gauge("jvm_memory_bytes_committed", "Committed bytes of a memory area",
+                       () -> memory.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        registry.gauge("jvm_memory_bytes_committed", "Committed bytes of a memory area",
+                       () -> memory.getNonHeapMemoryUsage().getCommitted(), "area", "nonheap");
+        registry.gauge("jvm_memory_bytes_max", "Maximum bytes of a memory area",
+                       () -> memory.getHeapMemoryUsage().getMax(), "area", "heap");
+
+        for(final MemoryPoolMXBean pool:ManagementFactory.getMemoryPoolMXBeans()) {
+            registry.gauge("jvm_memory_pool_bytes_used", "Used bytes of a memory pool",
+                           () -> pool.getUsage().getUsed(), "pool", pool.getName());
+        }
+
+        for(final GarbageCollectorMXBean gc:ManagementFactory.getGarbageCollectorMXBeans()) {
+            registry.counter("jvm_gc_collections_total", "Collections run by a garbage collector",
+                             () -> gc.getCollectionCount(), "gc", gc.getName());
+            registry.counter("jvm_gc_collection_seconds_total", "Time spent in a garbage collector",
+                             () -> gc.getCollectionTime(), 1 / MILLIS_PER_SECOND, "gc", gc.getName());
+        }
+
+        registry.gauge("jvm_threads_current", "Current number of threads", () -> threads.getThreadCount());
+        registry.gauge("jvm_threads_daemon", "Current number of daemon threads", () -> threads.getDaemonThreadCount());
+        registry.gauge("jvm_classes_loaded", "Currently loaded classes",
+                       () -> ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+    }
+
+    /**
+     * Registers gauges for Jetty's thread pool.
+     * @param registry the registry to add the gauges to.
+     * @param pool Jetty's thread pool.
+     */
+    public static void registerJetty(final MetricRegistry registry, final QueuedThreadPool pool) {
+        registry.gauge("jetty_threads", "Threads in Jetty's pool", () -> pool.getThreads());
+        registry.gauge("jetty_threads_idle", "Idle threads in Jetty's pool", () -> pool.getIdleThreads());
+        registry.gauge("jetty_threads_max", "Maximum threads in Jetty's pool", () -> pool.getMaxThreads());
+        registry.gauge("jetty_queued_jobs", "Jobs waiting for a thread in Jetty's pool", () -> pool.getQueueSize());
+    }
+
+    /**
+     * Registers gauges for the JDBC connection pool.
+     * @param registry the registry to add the gauges to.
+     * @param dataSource the pool.
+     */
+    public static void registerConnectionPool(final MetricRegistry registry, final DataSource dataSource) {
+        registry.gauge("jdbc_connections_active", "Connections in use", () -> dataSource.getActive());
+        registry.gauge("jdbc_connections_idle", "Idle connections in the pool", () -> dataSource.getIdle());
+        registry.gauge("jdbc_connections_max", "Maximum connections in the pool", () -> dataSource.getMaxActive());
+        registry.gauge("jdbc_connections_waiting", "Threads waiting for a connection", () -> dataSource.getWaitCount());
+    }
+}
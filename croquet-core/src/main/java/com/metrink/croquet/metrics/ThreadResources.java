@@ -0,0 +1,59 @@
+package com.metrink.croquet.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the CPU time used and bytes allocated by the current thread, so each request can be charged for them.
+ *
+ * Allocation counting relies on the HotSpot extension of {@link ThreadMXBean}; both counters are cheap enough to read
+ * twice per request.
+ */
+final class ThreadResources {
+    private static final Logger LOG = LoggerFactory.getLogger(ThreadResources.class);
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private ThreadResources() { }
+
+    /**
+     * Turns on per-thread CPU time and allocation counting.
+     * @return true if the JVM supports both.
+     */
+    static boolean enable() {
+        if(!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+            LOG.warn("Per-thread allocation counting is not supported by this JVM, request accounting is disabled");
+            return false;
+        }
+
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)THREADS;
+
+        if(!threads.isThreadAllocatedMemorySupported() || !threads.isCurrentThreadCpuTimeSupported()) {
+            LOG.warn("Per-thread CPU time or allocation counting is not supported by this JVM, request accounting is disabled");
+            return false;
+        }
+
+        threads.setThreadAllocatedMemoryEnabled(true);
+        threads.setThreadCpuTimeEnabled(true);
+
+        return true;
+    }
+
+    /**
+     * Gets the CPU time used by the current thread.
+     * @return the CPU time in nanoseconds.
+     */
+    static long cpuNanos() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread.
+     * @return the total bytes allocated since the thread started.
+     */
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
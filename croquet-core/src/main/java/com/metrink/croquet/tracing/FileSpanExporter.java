@@ -0,0 +1,75 @@
+package com.metrink.croquet.tracing;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+
+/**
+ * Appends each span, as a line of JSON, to the file set by the tracing file setting.
+ *
+ * Meant for local development and tests: every span is written and flushed on the thread that ended it.
+ */
+@Singleton
+public class FileSpanExporter implements SpanExporter {
+    private static final Logger LOG = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String file;
+    private Writer writer;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the file name.
+     */
+    @Inject
+    public FileSpanExporter(final AbstractSettings settings) {
+        this.file = settings.getTracingSettings().getFile();
+    }
+
+    @Override
+    public void export(final Span span) {
+        final Map<String, Object> record = new LinkedHashMap<String, Object>();
+
+        record.put("trace_id", span.getContext().getTraceId());
+        record.put("span_id", span.getContext().getSpanId());
+        record.put("parent_span_id", span.getParentSpanId());
+        record.put("name", span.getName());
+        record.put("kind", span.getKind().name());
+        record.put("start_ms", span.getStartMillis());
+        record.put("duration_us", TimeUnit.NANOSECONDS.toMicros(span.getDurationNanos()));
+        record.put("attributes", span.getAttributes());
+
+        if(span.getError() != null) {
+            record.put("error", span.getError());
+        }
+
+        try {
+            write(mapper.writeValueAsString(record));
+        } catch (final IOException e) {
+            LOG.warn("Error writing span to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private synchronized void write(final String line) throws IOException {
+        if(writer == null) {
+            writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+        }
+
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+    }
+}
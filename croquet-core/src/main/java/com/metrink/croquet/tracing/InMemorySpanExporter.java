@@ -0,0 +1,75 @@
+package com.metrink.croquet.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the most recently ended spans in memory, for tests and for inspecting traces in development.
+ */
+@Singleton
+public class InMemorySpanExporter implements SpanExporter {
+    private static final int DEFAULT_CAPACITY = 10000;
+
+    private final Deque<Span> spans = new ArrayDeque<Span>();
+    private final int capacity;
+
+    /**
+     * Constructor that keeps the last 10,000 spans.
+     */
+    public InMemorySpanExporter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     * @param capacity the number of spans to keep.
+     */
+    public InMemorySpanExporter(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void export(final Span span) {
+        if(spans.size() == capacity) {
+            spans.removeFirst();
+        }
+
+        spans.addLast(span);
+    }
+
+    /**
+     * Gets the spans, in the order they ended.
+     * @return a copy of the spans.
+     */
+    public synchronized List<Span> getSpans() {
+        return new ArrayList<Span>(spans);
+    }
+
+    /**
+     * Gets the spans of one trace, in the order they ended.
+     * @param traceId the trace id.
+     * @return the spans in the trace.
+     */
+    public synchronized List<Span> getTrace(final String traceId) {
+        final List<Span> trace = new ArrayList<Span>();
+
+        for(final Span span:spans) {
+            if(span.getContext().getTraceId().equals(traceId)) {
+                trace.add(span);
+            }
+        }
+
+        return trace;
+    }
+
+    /**
+     * Removes all the spans.
+     */
+    public synchronized void clear() {
+        spans.clear();
+    }
+}
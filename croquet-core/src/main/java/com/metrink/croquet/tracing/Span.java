@@ -0,0 +1,206 @@
+package com.metrink.croquet.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation within a trace.
+ *
+ * Starting a span makes it the current span of the thread, so spans started while it is open become its children.
+ * Ending it restores the span that was current before. Spans are meant to be used with try-with-resources:
+ * <pre>
+ * try(final Span span = tracer.startSpan("load report")) {
+ *     span.setAttribute("rows", rows.size());
+ * }
+ * </pre>
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * The role of a span in a trace.
+     */
+    public enum Kind {
+        /**
+         * Handling a request from another service.
+         */
+        SERVER,
+
+        /**
+         * A request to another service or the database.
+         */
+        CLIENT,
+
+        /**
+         * Work within this service.
+         */
+        INTERNAL
+    }
+
+    private final Tracer tracer;
+    private final TraceContext context;
+    private final String parentSpanId;
+    private final Kind kind;
+    private final Span previous;
+    private final long startMillis;
+    private final long startNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+    private volatile String name;
+    private volatile String error;
+    private volatile long durationNanos = -1;
+
+    Span(final Tracer tracer,
+         final TraceContext context,
+         final String parentSpanId,
+         final String name,
+         final Kind kind,
+         final Span previous) {
+        this.tracer = tracer;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.previous = previous;
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a child of this span, which becomes the current span of the calling thread.
+     * @param childName the name of the child span.
+     * @param childKind the kind of the child span.
+     * @return the child span.
+     */
+    public Span startChild(final String childName, final Kind childKind) {
+        return tracer.startChild(this, childName, childKind);
+    }
+
+    /**
+     * Gets the context to propagate to other services, see {@link TraceContext#toTraceparent()}.
+     * @return the context of this span.
+     */
+    public TraceContext getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the id of the parent span.
+     * @return the parent's span id, or null for the root of a trace.
+     */
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    /**
+     * Gets the name of the span.
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Renames the span, for when a better name is only known once the work is under way.
+     * @param name the new name.
+     */
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the kind of span.
+     * @return the kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Sets an attribute describing the work done in the span.
+     * @param key the attribute's name.
+     * @param value the attribute's value, a string, number or boolean.
+     * @return this span.
+     */
+    public Span setAttribute(final String key, final Object value) {
+        synchronized(attributes) {
+            attributes.put(key, value);
+        }
+
+        return this;
+    }
+
+    /**
+     * Gets a copy of the attributes.
+     * @return the attributes, in the order they were first set.
+     */
+    public Map<String, Object> getAttributes() {
+        synchronized(attributes) {
+            return new LinkedHashMap<String, Object>(attributes);
+        }
+    }
+
+    /**
+     * Marks the span as failed.
+     * @param throwable the cause of the failure.
+     */
+    public void setError(final Throwable throwable) {
+        this.error = throwable.getClass().getName() + (throwable.getMessage() == null ? "" : ": " + throwable.getMessage());
+    }
+
+    /**
+     * Gets the reason the span failed.
+     * @return the error, or null if the span succeeded.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets the time the span started.
+     * @return the start time, in milliseconds since the epoch.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Gets the duration of the span.
+     * @return the duration in nanoseconds, or -1 if the span has not ended.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * Ends the span, exporting it if the trace is sampled. Ending a span more than once has no effect.
+     */
+    public void end() {
+        synchronized(attributes) {
+            if(durationNanos >= 0) {
+                return;
+            }
+
+            durationNanos = System.nanoTime() - startNanos;
+        }
+
+        tracer.end(this);
+    }
+
+    /**
+     * Ends the span.
+     */
+    @Override
+    public void close() {
+        end();
+    }
+
+    Tracer getTracer() {
+        return tracer;
+    }
+
+    /**
+     * Gets the span that was current on the thread when this one started.
+     */
+    Span getPrevious() {
+        return previous;
+    }
+}
@@ -0,0 +1,16 @@
+package com.metrink.croquet.tracing;
+
+/**
+ * Receives sampled {@link Span}s as they end.
+ *
+ * Spans are exported on the thread that ended them, so implementations that send spans elsewhere should queue them
+ * rather than block. The implementation is set with setSpanExporter() on the builder.
+ */
+public interface SpanExporter {
+
+    /**
+     * Exports an ended span.
+     * @param span the span.
+     */
+    void export(Span span);
+}
@@ -0,0 +1,158 @@
+package com.metrink.croquet.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * The identity of a span as carried between services in the W3C Trace Context headers.
+ *
+ * @see <a href="https://www.w3.org/TR/trace-context/">Trace Context</a>
+ */
+public final class TraceContext {
+    /**
+     * The header carrying the trace id, parent span id and sampling flag.
+     */
+    public static final String TRACEPARENT = "traceparent";
+
+    /**
+     * The header carrying vendor specific trace state, passed along unchanged.
+     */
+    public static final String TRACESTATE = "tracestate";
+
+    private static final Pattern TRACEPARENT_PATTERN = Pattern.compile("[0-9a-f]{2}-[0-9a-f]{32}-[0-9a-f]{16}-[0-9a-f]{2}(-.*)?");
+    private static final String VERSION = "00";
+    private static final String INVALID_VERSION = "ff";
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+    private static final int TRACE_ID_START = 3;
+    private static final int SPAN_ID_START = 36;
+    private static final int FLAGS_START = 53;
+    private static final int SAMPLED_FLAG = 0x01;
+    private static final int HEX = 16;
+    private static final int ID_LENGTH = 16;
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+    private final String traceState;
+
+    /**
+     * Constructor.
+     * @param traceId the 32 character hex trace id.
+     * @param spanId the 16 character hex span id.
+     * @param sampled true if the trace is being recorded.
+     * @param traceState the tracestate header to pass along, may be null.
+     */
+    public TraceContext(final String traceId, final String spanId, final boolean sampled, final String traceState) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+        this.traceState = traceState;
+    }
+
+    /**
+     * Parses the trace context headers.
+     * @param traceparent the traceparent header, may be null.
+     * @param traceState the tracestate header, may be null.
+     * @return the context, or null if the traceparent header is missing or invalid.
+     */
+    public static TraceContext parse(final String traceparent, final String traceState) {
+        if(traceparent == null) {
+            return null;
+        }
+
+        final String value = traceparent.trim();
+
+        if(!TRACEPARENT_PATTERN.matcher(value).matches()) {
+            return null;
+        }
+
+        final String version = value.substring(0, 2);
+        final String traceId = value.substring(TRACE_ID_START, TRACE_ID_START + ID_LENGTH * 2);
+        final String spanId = value.substring(SPAN_ID_START, SPAN_ID_START + ID_LENGTH);
+        final int flags = Integer.parseInt(value.substring(FLAGS_START, FLAGS_START + 2), HEX);
+
+        // version 00 has exactly four fields, later versions may add more
+        if(INVALID_VERSION.equals(version)
+                || (VERSION.equals(version) && value.length() != FLAGS_START + 2)
+                || INVALID_TRACE_ID.equals(traceId)
+                || INVALID_SPAN_ID.equals(spanId)) {
+            return null;
+        }
+
+        return new TraceContext(traceId, spanId, (flags & SAMPLED_FLAG) != 0, traceState);
+    }
+
+    /**
+     * Gets the trace id.
+     * @return the 32 character hex trace id.
+     */
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Gets the span id.
+     * @return the 16 character hex span id.
+     */
+    public String getSpanId() {
+        return spanId;
+    }
+
+    /**
+     * Is the trace being recorded?
+     * @return true if spans in this trace are exported.
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * Gets the vendor specific trace state.
+     * @return the tracestate header, or null if there is none.
+     */
+    public String getTraceState() {
+        return traceState;
+    }
+
+    /**
+     * Formats the context as a traceparent header.
+     * @return the traceparent header value.
+     */
+    public String toTraceparent() {
+        return VERSION + "-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    @Override
+    public String toString() {
+        return toTraceparent();
+    }
+
+    /**
+     * Creates a random trace id.
+     * @return a 32 character hex trace id.
+     */
+    static String newTraceId() {
+        return toHex(ThreadLocalRandom.current().nextLong()) + newSpanId();
+    }
+
+    /**
+     * Creates a random span id.
+     * @return a 16 character hex span id.
+     */
+    static String newSpanId() {
+        long id = 0;
+
+        while(id == 0) {
+            id = ThreadLocalRandom.current().nextLong();
+        }
+
+        return toHex(id);
+    }
+
+    private static String toHex(final long value) {
+        final String hex = Long.toHexString(value);
+
+        return INVALID_SPAN_ID.substring(hex.length()) + hex;
+    }
+}
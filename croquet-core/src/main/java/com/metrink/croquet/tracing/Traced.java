@@ -0,0 +1,22 @@
+package com.metrink.croquet.tracing;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Traces each call to a method of an object created by Guice in its own {@link Span}.
+ *
+ * Guice can only intercept methods that are not private, static or final, on objects it constructs.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Traced {
+
+    /**
+     * The name of the span.
+     * @return the name, or empty to use the class and method name.
+     */
+    String value() default "";
+}
@@ -0,0 +1,45 @@
+package com.metrink.croquet.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import com.google.inject.Provider;
+
+/**
+ * Wraps calls to methods annotated with {@link Traced} in a {@link Span}.
+ */
+class TracedInterceptor implements MethodInterceptor {
+    private final Provider<Tracer> tracerProvider;
+
+    /**
+     * Constructor.
+     * @param tracerProvider a provider of the tracer.
+     */
+    TracedInterceptor(final Provider<Tracer> tracerProvider) {
+        this.tracerProvider = tracerProvider;
+    }
+
+    @Override
+    public Object invoke(final MethodInvocation invocation)
+            // CHECKSTYLE:OFF
+            throws Throwable {
+            // CHECKSTYLE:ON
+        final Traced traced = invocation.getMethod().getAnnotation(Traced.class);
+        final String name = traced.value().isEmpty()
+                ? invocation.getMethod().getDeclaringClass().getSimpleName() + "." + invocation.getMethod().getName()
+                : traced.value();
+
+        final Span span = tracerProvider.get().startSpan(name);
+
+        try {
+            return invocation.proceed();
+        // CHECKSTYLE:OFF recorded on the span and rethrown
+        } catch (final Throwable t) {
+        // CHECKSTYLE:ON
+            span.setError(t);
+            throw t;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.metrink.croquet.tracing;
+
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Traces the start and stop of a {@link ManagedModule}, each as the root of its own trace.
+ *
+ * Spans the module starts from its own threads can be made part of the same trace by wrapping their tasks with
+ * {@link Tracer#wrap(Runnable)} while starting.
+ */
+public class TracedManagedModule implements ManagedModule {
+    private final Tracer tracer;
+    private final ManagedModule module;
+
+    /**
+     * Constructor.
+     * @param tracer the tracer used to start the spans.
+     * @param module the module to trace.
+     */
+    public TracedManagedModule(final Tracer tracer, final ManagedModule module) {
+        this.tracer = tracer;
+        this.module = module;
+    }
+
+    @Override
+    public void start() {
+        try(final Span span = tracer.startSpan("start " + module.getClass().getSimpleName())) {
+            module.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        try(final Span span = tracer.startSpan("stop " + module.getClass().getSimpleName())) {
+            module.stop();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.metrink.croquet.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.AbstractSettings;
+
+/**
+ * Starts {@link Span}s and hands them to the {@link SpanExporter} when they end.
+ *
+ * The current span is kept per thread. Root spans are sampled with probability sample_ratio, unless they continue a
+ * trace from another service, in which case that service's sampling decision is kept. Spans in traces that are not
+ * sampled still propagate their context but are never exported.
+ */
+@Singleton
+public class Tracer {
+    private static final Logger LOG = LoggerFactory.getLogger(Tracer.class);
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<Span>();
+
+    private final SpanExporter exporter;
+    private final double sampleRatio;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the sample ratio.
+     * @param exporter the exporter ended spans are sent to.
+     */
+    @Inject
+    public Tracer(final AbstractSettings settings, final SpanExporter exporter) {
+        this.exporter = exporter;
+        this.sampleRatio = settings.getTracingSettings().getSampleRatio();
+    }
+
+    /**
+     * Gets the current span of the calling thread.
+     * @return the span, or null if there is none.
+     */
+    public static Span currentSpan() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts a client span as a child of the calling thread's current span, without making it the current span.
+     *
+     * Used for calls to other services and the database, which have no children and may not end on the thread that
+     * started them.
+     * @param name the name of the span.
+     * @return the client span, or null if the thread has no current span.
+     */
+    public static Span startClientSpan(final String name) {
+        final Span current = CURRENT.get();
+
+        if(current == null) {
+            return null;
+        }
+
+        return current.getTracer().start(childContext(current), current.getContext().getSpanId(), name, Span.Kind.CLIENT, false);
+    }
+
+    /**
+     * Wraps a task so it runs with the calling thread's current span as its current span, so spans it starts on
+     * another thread are part of the same trace.
+     * @param task the task to wrap.
+     * @return the wrapped task.
+     */
+    public static Runnable wrap(final Runnable task) {
+        final Span parent = CURRENT.get();
+
+        if(parent == null) {
+            return task;
+        }
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                final Span previous = CURRENT.get();
+
+                CURRENT.set(parent);
+
+                try {
+                    task.run();
+                } finally {
+                    restore(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * Starts a span as a child of the current span, or as the root of a new trace if there is none.
+     * @param name the name of the span.
+     * @return the span.
+     */
+    public Span startSpan(final String name) {
+        final Span current = CURRENT.get();
+
+        if(current != null) {
+            return startChild(current, name, Span.Kind.INTERNAL);
+        }
+
+        return startSpan(name, Span.Kind.INTERNAL, null);
+    }
+
+    /**
+     * Starts a span that continues a trace from another service, or starts a new trace.
+     * @param name the name of the span.
+     * @param kind the kind of span.
+     * @param remoteParent the context received from the calling service, or null to start a new trace.
+     * @return the span.
+     */
+    public Span startSpan(final String name, final Span.Kind kind, final TraceContext remoteParent) {
+        final TraceContext context;
+
+        if(remoteParent == null) {
+            context = new TraceContext(TraceContext.newTraceId(),
+                                       TraceContext.newSpanId(),
+                                       ThreadLocalRandom.current().nextDouble() < sampleRatio,
+                                       null);
+        } else {
+            context = new TraceContext(remoteParent.getTraceId(),
+                                       TraceContext.newSpanId(),
+                                       remoteParent.isSampled(),
+                                       remoteParent.getTraceState());
+        }
+
+        return start(context, remoteParent == null ? null : remoteParent.getSpanId(), name, kind, true);
+    }
+
+    /**
+     * Starts a child of the given span on the calling thread.
+     */
+    Span startChild(final Span parent, final String name, final Span.Kind kind) {
+        return start(childContext(parent), parent.getContext().getSpanId(), name, kind, true);
+    }
+
+    /**
+     * Restores the previous span of the calling thread and exports the span if it is sampled.
+     */
+    void end(final Span span) {
+        // spans ended out of order leave the current span alone
+        if(CURRENT.get() == span) {
+            restore(span.getPrevious());
+        }
+
+        if(!span.getContext().isSampled()) {
+            return;
+        }
+
+        try {
+            exporter.export(span);
+        //CHECKSTYLE:OFF an exporter must never fail the traced work
+        } catch (final RuntimeException e) {
+        //CHECKSTYLE:ON
+            LOG.warn("Error exporting span {}: {}", span.getName(), e.getMessage());
+        }
+    }
+
+    private Span start(final TraceContext context,
+                       final String parentSpanId,
+                       final String name,
+                       final Span.Kind kind,
+                       final boolean makeCurrent) {
+        final Span span = new Span(this, context, parentSpanId, name, kind, makeCurrent ? CURRENT.get() : null);
+
+        if(makeCurrent) {
+            CURRENT.set(span);
+        }
+
+        return span;
+    }
+
+    private static TraceContext childContext(final Span parent) {
+        final TraceContext parentContext = parent.getContext();
+
+        return new TraceContext(parentContext.getTraceId(),
+                                TraceContext.newSpanId(),
+                                parentContext.isSampled(),
+                                parentContext.getTraceState());
+    }
+
+    private static void restore(final Span span) {
+        if(span == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(span);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.metrink.croquet.tracing;
+
+import java.io.IOException;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+
+/**
+ * JAX-RS client filter that opens a client {@link Span} for each outgoing request and sends the trace context headers,
+ * so the service being called continues the current trace.
+ *
+ * Register it with the client: <code>ClientBuilder.newClient().register(TracingClientFilter.class)</code>. Requests
+ * made outside of a span are sent unchanged.
+ */
+public class TracingClientFilter implements ClientRequestFilter, ClientResponseFilter {
+    private static final String SPAN_PROPERTY = TracingClientFilter.class.getName();
+
+    @Override
+    public void filter(final ClientRequestContext request) throws IOException {
+        final Span span = Tracer.startClientSpan("HTTP " + request.getMethod());
+
+        if(span == null) {
+            return;
+        }
+
+        span.setAttribute("http.method", request.getMethod());
+        span.setAttribute("http.url", request.getUri().toString());
+
+        request.getHeaders().putSingle(TraceContext.TRACEPARENT, span.getContext().toTraceparent());
+
+        if(span.getContext().getTraceState() != null) {
+            request.getHeaders().putSingle(TraceContext.TRACESTATE, span.getContext().getTraceState());
+        }
+
+        request.setProperty(SPAN_PROPERTY, span);
+    }
+
+    @Override
+    public void filter(final ClientRequestContext request, final ClientResponseContext response) throws IOException {
+        final Object span = request.getProperty(SPAN_PROPERTY);
+
+        if(span instanceof Span) {
+            ((Span)span).setAttribute("http.status_code", response.getStatus());
+            ((Span)span).end();
+        }
+    }
+}
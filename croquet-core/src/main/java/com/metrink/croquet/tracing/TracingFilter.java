@@ -0,0 +1,94 @@
+package com.metrink.croquet.tracing;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.metrics.ActiveRequest;
+
+/**
+ * Servlet filter that opens a server {@link Span} for each request, continuing the caller's trace when the request
+ * carries a traceparent header.
+ *
+ * The span is named after the route the request metrics recorded it under, such as a Wicket mount path or a Jersey
+ * resource template, falling back to the HTTP method.
+ */
+@Singleton
+public class TracingFilter implements Filter {
+    /**
+     * The name of the request attribute holding the request's server {@link Span}.
+     */
+    public static final String SPAN_ATTRIBUTE = TracingFilter.class.getName();
+
+    private final Tracer tracer;
+
+    /**
+     * Constructor.
+     * @param tracer the tracer used to start the spans.
+     */
+    @Inject
+    public TracingFilter(final Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void init(final FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(final ServletRequest request,
+                         final ServletResponse response,
+                         final FilterChain chain) throws IOException, ServletException {
+        // forwards and includes are part of the request that is already being traced
+        if(request.getAttribute(SPAN_ATTRIBUTE) != null || !(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final HttpServletRequest httpRequest = (HttpServletRequest)request;
+        final TraceContext remoteParent = TraceContext.parse(httpRequest.getHeader(TraceContext.TRACEPARENT),
+                                                             httpRequest.getHeader(TraceContext.TRACESTATE));
+        final Span span = tracer.startSpan("HTTP " + httpRequest.getMethod(), Span.Kind.SERVER, remoteParent);
+
+        span.setAttribute("http.method", httpRequest.getMethod());
+        span.setAttribute("http.target", httpRequest.getRequestURI());
+        request.setAttribute(SPAN_ATTRIBUTE, span);
+
+        try {
+            chain.doFilter(request, response);
+        } catch (final IOException | ServletException e) {
+            span.setError(e);
+            throw e;
+        //CHECKSTYLE:OFF recorded on the span and rethrown
+        } catch (final RuntimeException e) {
+        //CHECKSTYLE:ON
+            span.setError(e);
+            throw e;
+        } finally {
+            final ActiveRequest active = ActiveRequest.get(request);
+
+            if(active != null && active.getRoute() != null) {
+                span.setName(httpRequest.getMethod() + " " + active.getRoute());
+            }
+
+            if(response instanceof HttpServletResponse) {
+                span.setAttribute("http.status_code", ((HttpServletResponse)response).getStatus());
+            }
+
+            span.end();
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
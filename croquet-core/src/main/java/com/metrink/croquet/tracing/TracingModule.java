@@ -0,0 +1,32 @@
+package com.metrink.croquet.tracing;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+import com.google.inject.matcher.Matchers;
+import com.metrink.croquet.TracingSettings;
+
+/**
+ * Binds the {@link SpanExporter} and, when tracing is enabled, intercepts methods annotated with {@link Traced}.
+ */
+public class TracingModule extends AbstractModule {
+    private final TracingSettings settings;
+
+    /**
+     * Constructor.
+     * @param settings the tracing settings.
+     */
+    public TracingModule(final TracingSettings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    protected void configure() {
+        bind(SpanExporter.class).to(settings.getExporterClass()).in(Singleton.class);
+
+        if(settings.getEnabled()) {
+            bindInterceptor(Matchers.any(),
+                            Matchers.annotatedWith(Traced.class),
+                            new TracedInterceptor(getProvider(Tracer.class)));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.metrink.croquet.wicket;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.IPageStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An {@link IPageStore} that serializes and stores pages on a background thread, so neither delays the response.
+ *
+ * Pages waiting to be written are kept by session and page id, and a page stored again before it was written replaces
+ * the waiting version instead of being written twice, which collapses the versions an AJAX heavy page stores in quick
+ * succession. Until a page has been written, getPage returns the waiting instance.
+ *
+ * The queue of pages to write is bounded. When it is full the request stores its page itself, and any version stored
+ * while it does, so a writer that falls behind slows the requests producing pages instead of letting waiting pages
+ * pile up on the heap.
+ *
+ * A page is written after its request has released it, so a later request may change it while it is being serialized.
+ * That request stores the page again when it ends, replacing whatever was written. Before a session is serialized its
+ * waiting pages are written, so they can be found once it is restored.
+ */
+class AsynchronousPageStore implements IPageStore {
+    private static final Logger LOG = LoggerFactory.getLogger(AsynchronousPageStore.class);
+
+    private static final PageKey STOP = new PageKey("", 0);
+
+    private final IPageStore delegate;
+    private final Application application;
+    private final BlockingQueue<PageKey> queue;
+    private final ConcurrentMap<PageKey, IManageablePage> pending = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Thread writer;
+    private volatile boolean stopped;
+
+    /**
+     * Constructor.
+     * @param delegate the store pages are written to.
+     * @param application the application, made current on the writer thread for the serializer.
+     * @param capacity the most pages waiting to be written.
+     */
+    AsynchronousPageStore(final IPageStore delegate, final Application application, final int capacity) {
+        this.delegate = delegate;
+        this.application = application;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        writer = new Thread(this::writeQueued, "croquet-page-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void storePage(final String sessionId, final IManageablePage page) {
+        if(stopped) {
+            delegate.storePage(sessionId, page);
+            return;
+        }
+
+        final PageKey key = new PageKey(sessionId, page.getPageId());
+
+        // an earlier version is still waiting, the writer will pick up this one instead
+        if(pending.put(key, page) != null) {
+            return;
+        }
+
+        if(!queue.offer(key)) {
+            LOG.debug("Page writer queue is full, storing page {} of {} on the request thread", key.pageId, sessionId);
+
+            // another request may have replaced the page meanwhile, expecting it to be written with this one
+            write(key);
+        }
+    }
+
+    @Override
+    public IManageablePage getPage(final String sessionId, final int pageId) {
+        final IManageablePage page = pending.get(new PageKey(sessionId, pageId));
+
+        return page != null ? page : delegate.getPage(sessionId, pageId);
+    }
+
+    @Override
+    public void removePage(final String sessionId, final int pageId) {
+        synchronized(writeLock) {
+            pending.remove(new PageKey(sessionId, pageId));
+            delegate.removePage(sessionId, pageId);
+        }
+    }
+
+    @Override
+    public void unbind(final String sessionId) {
+        // waits for a page of the session being written, so it isn't stored again after the session is gone
+        synchronized(writeLock) {
+            pending.keySet().removeIf(key -> key.sessionId.equals(sessionId));
+            delegate.unbind(sessionId);
+        }
+    }
+
+    /**
+     * Writes the session's waiting pages, then has the delegate prepare the page. Unless the delegate is replicated, only
+     * the page's id is serialized with the session, and the page is read back from the delegate when it is restored.
+     */
+    @Override
+    public Serializable prepareForSerialization(final String sessionId, final Object page) {
+        synchronized(writeLock) {
+            for(final Map.Entry<PageKey, IManageablePage> entry:pending.entrySet()) {
+                if(entry.getKey().sessionId.equals(sessionId)) {
+                    store(entry.getKey(), entry.getValue());
+                    pending.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        return delegate.prepareForSerialization(sessionId, page);
+    }
+
+    @Override
+    public Object restoreAfterSerialization(final Serializable serializable) {
+        return delegate.restoreAfterSerialization(serializable);
+    }
+
+    @Override
+    public IManageablePage convertToPage(final Object page) {
+        return delegate.convertToPage(page);
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+
+        try {
+            // the writer finishes the pages queued before it
+            queue.put(STOP);
+            writer.join();
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted waiting for {} pages to be written", pending.size());
+            Thread.currentThread().interrupt();
+        }
+
+        delegate.destroy();
+    }
+
+    private void writeQueued() {
+        ThreadContext.setApplication(application);
+
+        try {
+            for(PageKey key = queue.take(); key != STOP; key = queue.take()) {
+                write(key);
+            }
+        } catch (final InterruptedException e) {
+            LOG.warn("Page writer interrupted with {} pages waiting", pending.size());
+        } finally {
+            ThreadContext.detach();
+        }
+    }
+
+    /**
+     * Writes the latest version of a page, and again if a newer one replaced it while it was written. Called by the
+     * writer, and by a request whose page didn't fit in the queue.
+     */
+    private void write(final PageKey key) {
+        while(true) {
+            final IManageablePage page;
+
+            synchronized(writeLock) {
+                page = pending.get(key);
+
+                // removed, or already written by the request thread
+                if(page == null) {
+                    return;
+                }
+
+                store(key, page);
+            }
+
+            if(pending.remove(key, page)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stores a page in the delegate, logging a failure. Called holding the write lock.
+     */
+    private void store(final PageKey key, final IManageablePage page) {
+        //CHECKSTYLE:OFF a page that fails to serialize must not stop the writer
+        try {
+            delegate.storePage(key.sessionId, page);
+        } catch (final RuntimeException e) {
+            LOG.error("Unable to store page {} of {}: {}", key.pageId, key.sessionId, e.getMessage(), e);
+        }
+        //CHECKSTYLE:ON
+    }
+
+    /**
+     * Identifies a page within the application.
+     */
+    private static final class PageKey {
+        private final String sessionId;
+        private final int pageId;
+
+        PageKey(final String sessionId, final int pageId) {
+            this.sessionId = sessionId;
+            this.pageId = pageId;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(!(obj instanceof PageKey)) {
+                return false;
+            }
+
+            final PageKey other = (PageKey)obj;
+
+            return pageId == other.pageId && sessionId.equals(other.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sessionId, pageId);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.metrink.croquet.wicket;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.pageStore.IDataStore;
+
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.LatencyHistogram;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * An {@link IDataStore} that compresses serialized pages with a {@link PageCodec} before storing them.
+ *
+ * Pages smaller than the threshold, and pages that don't compress, are stored as they are. A compressed page starts
+ * with a marker byte that neither Java serialization nor {@link KryoSerializer} start with, followed by its
+ * uncompressed length, so pages stored before compression was enabled are still read.
+ *
+ * When the store it wraps can be asynchronous, so can this one, and pages are compressed on Wicket's background thread.
+ */
+class CompressingDataStore implements IDataStore {
+    static final String UNCOMPRESSED_BYTES = "croquet_page_uncompressed_bytes_total";
+    static final String STORED_BYTES = "croquet_page_stored_bytes_total";
+    static final String SKIPPED = "croquet_page_compression_skipped_total";
+    static final String DURATION = "croquet_page_compression_duration_seconds";
+
+    private static final byte COMPRESSED = (byte)0xCE;
+    private static final int HEADER_SIZE = 1 + Integer.BYTES;
+    private static final String OPERATION_LABEL = "operation";
+    private static final String REASON_LABEL = "reason";
+
+    private final IDataStore delegate;
+    private final PageCodec codec;
+    private final int threshold;
+    private final Counter uncompressedBytes;
+    private final Counter storedBytes;
+    private final Counter skippedSmall;
+    private final Counter skippedIncompressible;
+    private final LatencyHistogram compressDuration;
+    private final LatencyHistogram decompressDuration;
+
+    /**
+     * Constructor.
+     * @param delegate the store the pages are written to.
+     * @param codec the codec to compress pages with.
+     * @param threshold the size in bytes below which pages are stored uncompressed.
+     * @param registry the registry to record the compression ratio and time in.
+     */
+    CompressingDataStore(final IDataStore delegate, final PageCodec codec, final int threshold, final MetricRegistry registry) {
+        this.delegate = delegate;
+        this.codec = codec;
+        this.threshold = threshold;
+        this.uncompressedBytes = registry.counter(UNCOMPRESSED_BYTES, "Bytes of serialized pages before compression");
+        this.storedBytes = registry.counter(STORED_BYTES, "Bytes of serialized pages stored, after compression");
+        this.skippedSmall = registry.counter(SKIPPED, "Pages stored uncompressed", REASON_LABEL, "small");
+        this.skippedIncompressible = registry.counter(SKIPPED, "Pages stored uncompressed", REASON_LABEL, "incompressible");
+        this.compressDuration = registry.histogram(DURATION, "Time spent compressing and decompressing pages",
+                                                   OPERATION_LABEL, "compress");
+        this.decompressDuration = registry.histogram(DURATION, "Time spent compressing and decompressing pages",
+                                                     OPERATION_LABEL, "decompress");
+    }
+
+    @Override
+    public byte[] getData(final String sessionId, final int id) {
+        final byte[] data = delegate.getData(sessionId, id);
+
+        if(data == null || data.length < HEADER_SIZE || data[0] != COMPRESSED) {
+            return data;
+        }
+
+        final long start = System.nanoTime();
+
+        try {
+            final int uncompressedLength = ByteBuffer.wrap(data, 1, Integer.BYTES).getInt();
+
+            return codec.decompress(data, HEADER_SIZE, data.length - HEADER_SIZE, uncompressedLength);
+        } finally {
+            decompressDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void storeData(final String sessionId, final int id, final byte[] data) {
+        final byte[] stored = compress(data);
+
+        uncompressedBytes.add(data.length);
+        storedBytes.add(stored.length);
+
+        delegate.storeData(sessionId, id, stored);
+    }
+
+    private byte[] compress(final byte[] data) {
+        if(data.length < threshold) {
+            skippedSmall.inc();
+            return data;
+        }
+
+        final long start = System.nanoTime();
+        final byte[] compressed;
+
+        try {
+            compressed = codec.compress(data);
+        } finally {
+            compressDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if(compressed == null || compressed.length + HEADER_SIZE >= data.length) {
+            skippedIncompressible.inc();
+            return data;
+        }
+
+        return ByteBuffer.allocate(compressed.length + HEADER_SIZE)
+                         .put(COMPRESSED)
+                         .putInt(data.length)
+                         .put(compressed)
+                         .array();
+    }
+
+    @Override
+    public void removeData(final String sessionId, final int id) {
+        delegate.removeData(sessionId, id);
+    }
+
+    @Override
+    public void removeData(final String sessionId) {
+        delegate.removeData(sessionId);
+    }
+
+    @Override
+    public void destroy() {
+        delegate.destroy();
+    }
+
+    @Override
+    public boolean isReplicated() {
+        return delegate.isReplicated();
+    }
+
+    @Override
+    public boolean canBeAsynchronous() {
+        return delegate.canBeAsynchronous();
+    }
+}
@@ -37,11 +37,15 @@ import org.apache.wicket.request.resource.JavaScriptResourceReference;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.request.resource.UrlResourceReference;
 import org.apache.wicket.resource.loader.InitializerStringResourceLoader;
+import org.apache.wicket.serialize.ISerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.inject.Inject;
+import com.metrink.croquet.DataSourceFactory;
 import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.hibernate.BatchWriterFactory;
+import com.metrink.croquet.metrics.MetricRegistry;
 
 /**
  * An AuthenticatedWebApplication class that implements sane defaults.
@@ -57,6 +61,13 @@ public class CroquetApplication extends AuthenticatedWebApplication {
     private final IPageFactory pageFactory;
     private final WicketSettings wicketSettings;
 
+    // field injection keeps the constructor, and so every subclass's constructor, unchanged
+    @Inject private MetricRegistry metricRegistry;
+
+    // only bound when the database is configured in the YAML file
+    @Inject(optional = true) private DataSourceFactory dataSourceFactory;
+    @Inject(optional = true) private BatchWriterFactory batchWriterFactory;
+
     /**
      * Constructs the CroquetApplication.
      *
@@ -92,6 +103,16 @@ public class CroquetApplication extends AuthenticatedWebApplication {
             this.getComponentPostOnBeforeRenderListeners().add(new StatelessChecker());
         }
 
+        // report the mounted pages that end up in the page store, and why
+        if(wicketSettings.getReportStatefulPages()) {
+            this.getComponentOnAfterRenderListeners().add(new StatefulPageReporter(wicketSettings, metricRegistry));
+        }
+
+        // count the sessions bound by each page, as the ones to make stateless
+        if(wicketSettings.getLazySessions()) {
+            this.getSessionStore().registerBindListener(new SessionBindCounter(wicketSettings, metricRegistry));
+        }
+
         // set the render strategy for the application
         this.getRequestCycleSettings().setRenderStrategy(wicketSettings.getRenderStrategy());
 
@@ -123,6 +144,39 @@ public class CroquetApplication extends AuthenticatedWebApplication {
             });
         }
 
+        // record request metrics under the mount path of the page or resource
+        if(wicketSettings.getMetricsSettings().getEnabled()) {
+            this.getRequestCycleListeners().add(new RouteMetricsListener(wicketSettings));
+        }
+
+        // put the phases of each request on its timeline for the slow request log
+        if(wicketSettings.getMetricsSettings().getSlowRequestThreshold() > 0) {
+            final TimelineListener timelineListener = new TimelineListener();
+
+            this.getRequestCycleListeners().add(timelineListener);
+            this.getComponentPreOnBeforeRenderListeners().add(timelineListener);
+            this.getComponentOnAfterRenderListeners().add(timelineListener);
+        }
+
+        // store pages with the configured serializer instead of Java serialization
+        if(wicketSettings.getPageSerializerClass() != null) {
+            this.getFrameworkSettings().setSerializer(newPageSerializer(wicketSettings.getPageSerializerClass()));
+        }
+
+        // sample the size of stored pages into the metrics
+        if(wicketSettings.getPageSizeSampleRate() > 0 && wicketSettings.getMetricsSettings().getEnabled()) {
+            this.getFrameworkSettings().setSerializer(new PageSizeSampler(this.getFrameworkSettings().getSerializer(),
+                                                                          metricRegistry,
+                                                                          wicketSettings.getPageSizeSampleRate(),
+                                                                          wicketSettings.getPageSizeBudget()));
+        }
+
+        this.setPageManagerProvider(new CroquetPageManagerProvider(this,
+                                                                   wicketSettings,
+                                                                   metricRegistry,
+                                                                   dataSourceFactory,
+                                                                   batchWriterFactory));
+
         // set the exception page if we're in deployment and it's set
         if(!wicketSettings.getDevelopment() && wicketSettings.getExceptionPage() != null) {
             this.getRequestCycleListeners().add(new AbstractRequestCycleListener() {
@@ -134,6 +188,11 @@ public class CroquetApplication extends AuthenticatedWebApplication {
             });
         }
 
+        // load the markup of the mounted pages before the first request needs it
+        if(wicketSettings.getWarmMarkup()) {
+            getApplicationListeners().add(new MarkupWarmer(wicketSettings));
+        }
+
         // should we strip wicket tags?
         getMarkupSettings().setStripWicketTags(wicketSettings.getStripWicketTags());
 
@@ -181,6 +240,14 @@ public class CroquetApplication extends AuthenticatedWebApplication {
         LOG.debug("Done calling CroquetApplication.init()");
     }
 
+    private ISerializer newPageSerializer(final Class<? extends ISerializer> serializerClass) {
+        try {
+            return serializerClass.getConstructor(String.class).newInstance(getApplicationKey());
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create the page serializer " + serializerClass.getName(), e);
+        }
+    }
+
     @Override
     public RuntimeConfigurationType getConfigurationType() {
          return wicketSettings.getDevelopment() ? RuntimeConfigurationType.DEVELOPMENT : RuntimeConfigurationType.DEPLOYMENT;
@@ -0,0 +1,177 @@
+package com.metrink.croquet.wicket;
+
+import java.io.File;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.DefaultPageManagerProvider;
+import org.apache.wicket.pageStore.DefaultPageStore;
+import org.apache.wicket.pageStore.IDataStore;
+import org.apache.wicket.pageStore.IPageStore;
+import org.apache.wicket.settings.IStoreSettings;
+
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.hibernate.BatchWriterFactory;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * Creates the page store for a {@link CroquetApplication}.
+ *
+ * When slow requests are being logged, pages are stored through a {@link TimelinePageStore} so the time spent
+ * serializing them shows up on the request's timeline. When page_store_memory_mb is set, pages are stored in an
+ * {@link OffHeapDataStore} instead of Wicket's disk store, and when async_page_store is set they are serialized and
+ * stored by an {@link AsynchronousPageStore}, which takes the place of Wicket's asynchronous disk writes. When
+ * page_compression is set, pages are compressed by a {@link CompressingDataStore} before they are stored. When
+ * jdbc_session_store is set, pages are stored in the database by a {@link JdbcDataStore}, and none are cached on the
+ * heap as another node may have stored a newer version.
+ */
+class CroquetPageManagerProvider extends DefaultPageManagerProvider {
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final Application application;
+    private final WicketSettings wicketSettings;
+    private final MetricRegistry metricRegistry;
+    private final DataSourceFactory dataSourceFactory;
+    private final BatchWriterFactory batchWriterFactory;
+
+    /**
+     * Constructor.
+     * @param application the application.
+     * @param wicketSettings the settings for the application.
+     * @param metricRegistry the registry page compression is recorded in.
+     * @param dataSourceFactory the factory for the pool pages are read through, or null without a database.
+     * @param batchWriterFactory the factory for the writers pages are stored with, or null without a database.
+     */
+    CroquetPageManagerProvider(final Application application,
+                               final WicketSettings wicketSettings,
+                               final MetricRegistry metricRegistry,
+                               final DataSourceFactory dataSourceFactory,
+                               final BatchWriterFactory batchWriterFactory) {
+        super(application);
+
+        this.application = application;
+        this.wicketSettings = wicketSettings;
+        this.metricRegistry = metricRegistry;
+        this.dataSourceFactory = dataSourceFactory;
+        this.batchWriterFactory = batchWriterFactory;
+    }
+
+    @Override
+    protected IDataStore newDataStore() {
+        final IDataStore dataStore;
+
+        if(wicketSettings.getJdbcSessionStore()) {
+            dataStore = new JdbcDataStore(dataSourceFactory,
+                                          batchWriterFactory,
+                                          wicketSettings.getDatabaseSettings().getBatchSize(),
+                                          wicketSettings.getJdbcPageWriteTimeout(),
+                                          metricRegistry);
+        } else if(wicketSettings.getPageStoreMemoryMb() > 0) {
+            dataStore = newOffHeapDataStore();
+        } else {
+            dataStore = super.newDataStore();
+        }
+
+        final IDataStore store = wicketSettings.getPageCompression()
+                ? new CompressingDataStore(dataStore,
+                                           newPageCodec(wicketSettings.getPageCodecClass()),
+                                           wicketSettings.getPageCompressionThreshold(),
+                                           metricRegistry)
+                : dataStore;
+
+        // the AsynchronousPageStore already writes on its own thread, so Wicket mustn't queue the pages a second time
+        if(wicketSettings.getAsyncPageStore() && store.canBeAsynchronous()) {
+            return new SynchronousDataStore(store);
+        }
+
+        return store;
+    }
+
+    private IDataStore newOffHeapDataStore() {
+        final IStoreSettings storeSettings = application.getStoreSettings();
+        final File file = wicketSettings.getPageStoreFileMb() > 0
+                ? new File(storeSettings.getFileStoreFolder(), application.getName() + "-pages.dat")
+                : null;
+
+        return new OffHeapDataStore(wicketSettings.getPageStoreMemoryMb() * BYTES_PER_MB,
+                                    file,
+                                    wicketSettings.getPageStoreFileMb() * BYTES_PER_MB,
+                                    storeSettings.getMaxSizePerSession().bytes(),
+                                    Runtime.getRuntime().availableProcessors());
+    }
+
+    private static PageCodec newPageCodec(final Class<? extends PageCodec> codecClass) {
+        try {
+            return codecClass.getConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Unable to create the page codec " + codecClass.getName(), e);
+        }
+    }
+
+    @Override
+    protected IPageStore newPageStore(final IDataStore dataStore) {
+        // reading a page back from the off-heap store is a memory copy, so there's no need for another copy on the heap,
+        // and a copy cached on this node could be older than the one another node stored in the database
+        final int cacheSize = wicketSettings.getPageStoreMemoryMb() > 0 || wicketSettings.getJdbcSessionStore()
+                ? 0
+                : application.getStoreSettings().getInmemoryCacheSize();
+
+        final IPageStore pageStore = wicketSettings.getMetricsSettings().getSlowRequestThreshold() > 0
+                ? new TimelinePageStore(application.getFrameworkSettings().getSerializer(), dataStore, cacheSize)
+                : new DefaultPageStore(application.getFrameworkSettings().getSerializer(), dataStore, cacheSize);
+
+        if(wicketSettings.getAsyncPageStore()) {
+            return new AsynchronousPageStore(pageStore,
+                                             application,
+                                             application.getStoreSettings().getAsynchronousQueueCapacity());
+        }
+
+        return pageStore;
+    }
+
+    /**
+     * Keeps Wicket from wrapping a data store in an {@link org.apache.wicket.pageStore.AsynchronousDataStore}.
+     */
+    private static final class SynchronousDataStore implements IDataStore {
+        private final IDataStore delegate;
+
+        SynchronousDataStore(final IDataStore delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] getData(final String sessionId, final int id) {
+            return delegate.getData(sessionId, id);
+        }
+
+        @Override
+        public void removeData(final String sessionId, final int id) {
+            delegate.removeData(sessionId, id);
+        }
+
+        @Override
+        public void removeData(final String sessionId) {
+            delegate.removeData(sessionId);
+        }
+
+        @Override
+        public void storeData(final String sessionId, final int id, final byte[] data) {
+            delegate.storeData(sessionId, id, data);
+        }
+
+        @Override
+        public void destroy() {
+            delegate.destroy();
+        }
+
+        @Override
+        public boolean isReplicated() {
+            return delegate.isReplicated();
+        }
+
+        @Override
+        public boolean canBeAsynchronous() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.metrink.croquet.wicket;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.wicket.WicketRuntimeException;
+
+/**
+ * A {@link PageCodec} using the JDK's {@link Deflater} at its fastest level.
+ *
+ * Serialized pages repeat class descriptors and field names throughout, so even the fastest level typically shrinks
+ * them several times. Each thread keeps its own deflater and inflater, so their native buffers are allocated once.
+ */
+public class DeflatePageCodec implements PageCodec {
+    private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED));
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    @Override
+    public byte[] compress(final byte[] data) {
+        final Deflater deflater = deflaters.get();
+        final byte[] buffer = new byte[data.length];
+        int length = 0;
+
+        deflater.reset();
+        deflater.setInput(data);
+        deflater.finish();
+
+        // stop once the output is as large as the input, storing it uncompressed is cheaper
+        while(!deflater.finished() && length < buffer.length) {
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+
+        return deflater.finished() ? Arrays.copyOf(buffer, length) : null;
+    }
+
+    @Override
+    public byte[] decompress(final byte[] data, final int offset, final int length, final int uncompressedLength) {
+        final Inflater inflater = inflaters.get();
+        final byte[] ret = new byte[uncompressedLength];
+        int read = 0;
+
+        inflater.reset();
+        inflater.setInput(data, offset, length);
+
+        try {
+            while(read < ret.length && !inflater.finished()) {
+                final int inflated = inflater.inflate(ret, read, ret.length - read);
+
+                if(inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+
+                read += inflated;
+            }
+        } catch (final DataFormatException e) {
+            throw new WicketRuntimeException("Unable to decompress page: " + e.getMessage(), e);
+        }
+
+        if(read != uncompressedLength) {
+            throw new WicketRuntimeException("Decompressed page is " + read + " bytes, expected " + uncompressedLength);
+        }
+
+        return ret;
+    }
+}
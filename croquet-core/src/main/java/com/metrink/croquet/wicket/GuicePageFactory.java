@@ -22,6 +22,7 @@ import com.google.inject.Injector;
 import com.google.inject.Singleton;
 import com.google.inject.assistedinject.Assisted;
 import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.metrics.RequestTimeline;
 
 /**
  * An implementation of an {@link IPageFactory} that uses Guice to create the page instances.
@@ -35,6 +36,7 @@ import com.metrink.croquet.WicketSettings;
 @Singleton
 public class GuicePageFactory implements IPageFactory {
     public static final Logger LOG = LoggerFactory.getLogger(GuicePageFactory.class);
+    private static final String PAGE_CONSTRUCT_EVENT = "page_construct";
 
     private final Injector injector;
     private final WicketSettings wicketSettings;
@@ -59,6 +61,8 @@ public class GuicePageFactory implements IPageFactory {
             throw new RestartResponseAtInterceptPageException(wicketSettings.getLoginPageClass());
         }
 
+        final long start = System.nanoTime();
+
         try {
             final C pageInstance = injector.createChildInjector(new AbstractModule() {
 
@@ -74,6 +78,8 @@ public class GuicePageFactory implements IPageFactory {
             LOG.debug("Could not create page {} through Guice, trying manually: {}", pageClass, e.getMessage());
 
             return createOrThrow(pageClass, null);
+        } finally {
+            RequestTimeline.record(PAGE_CONSTRUCT_EVENT, pageClass.getName(), start);
         }
     }
 
@@ -81,6 +87,8 @@ public class GuicePageFactory implements IPageFactory {
     public <C extends IRequestablePage> C newPage(final Class<C> pageClass, final PageParameters parameters) {
         LOG.debug("Creating new {} page with parameters: {}", pageClass.getName(), parameters);
 
+        final long start = System.nanoTime();
+
         try {
             final C pageInstance = injector.createChildInjector(new AbstractModule() {
 
@@ -96,6 +104,8 @@ public class GuicePageFactory implements IPageFactory {
             LOG.debug("Could not create page {} through Guice, trying manually: {}", pageClass, e.getMessage());
 
             return createOrThrow(pageClass, parameters);
+        } finally {
+            RequestTimeline.record(PAGE_CONSTRUCT_EVENT, pageClass.getName(), start);
         }
 }
 
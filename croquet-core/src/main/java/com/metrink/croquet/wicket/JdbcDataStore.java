@@ -0,0 +1,311 @@
+package com.metrink.croquet.wicket;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.pageStore.IDataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.hibernate.BatchWriter;
+import com.metrink.croquet.hibernate.BatchWriterFactory;
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * An {@link IDataStore} that keeps serialized pages in the database, so every node behind a load balancer can read
+ * the pages of any session.
+ *
+ * Pages stored by concurrent requests are written together: a single writer thread takes every page waiting, writes
+ * them with a {@link BatchWriter} and then releases the requests that stored them. A request doesn't finish until its
+ * page is written, so the next request of the session finds it whichever node it is sent to. When the batch fails, the
+ * write takes longer than jdbc_page_write_timeout, or the writer has stopped, storing the page throws.
+ *
+ * Pages are kept in the croquet_pages table, and removed by the {@link JdbcPageCleaner} once they haven't been stored
+ * for jdbc_page_ttl.
+ */
+class JdbcDataStore implements IDataStore {
+    static final String PAGES_STORED = "croquet_jdbc_pages_stored_total";
+    static final String BATCHES = "croquet_jdbc_page_batches_total";
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcDataStore.class);
+
+    private static final String SELECT =
+            "SELECT data FROM " + JdbcPageCleaner.TABLE + " WHERE session_id = ? AND page_id = ?";
+    private static final String INSERT =
+            "INSERT INTO " + JdbcPageCleaner.TABLE + " (session_id, page_id, data, stored) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_PAGE =
+            "DELETE FROM " + JdbcPageCleaner.TABLE + " WHERE session_id = ? AND page_id = ?";
+    private static final String DELETE_SESSION =
+            "DELETE FROM " + JdbcPageCleaner.TABLE + " WHERE session_id = ?";
+
+    private static final PendingPage STOP = new PendingPage("", 0, null);
+
+    private final DataSourceFactory dataSourceFactory;
+    private final BatchWriterFactory batchWriterFactory;
+    private final int batchSize;
+    private final long writeTimeout;
+    private final BlockingQueue<PendingPage> queue = new LinkedBlockingQueue<>();
+    private final Counter pagesStored;
+    private final Counter batches;
+    private final Thread writer;
+    private volatile boolean stopped;
+    private volatile boolean writerStopped;
+
+    /**
+     * Constructor.
+     * @param dataSourceFactory the factory for the pool pages are read and removed through.
+     * @param batchWriterFactory the factory for the writers pages are stored with.
+     * @param batchSize the most pages written in one batch.
+     * @param writeTimeout the milliseconds a request waits for its page to be written.
+     * @param registry the registry to count the pages and batches written in.
+     */
+    JdbcDataStore(final DataSourceFactory dataSourceFactory,
+                  final BatchWriterFactory batchWriterFactory,
+                  final int batchSize,
+                  final long writeTimeout,
+                  final MetricRegistry registry) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.batchWriterFactory = batchWriterFactory;
+        this.batchSize = batchSize;
+        this.writeTimeout = writeTimeout;
+        this.pagesStored = registry.counter(PAGES_STORED, "Pages written to the database");
+        this.batches = registry.counter(BATCHES, "Batches of pages written to the database");
+
+        writer = new Thread(this::writeQueued, "croquet-jdbc-page-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public byte[] getData(final String sessionId, final int id) {
+        try (final Connection connection = dataSourceFactory.getDataSource().getConnection();
+             final PreparedStatement statement = connection.prepareStatement(SELECT)) {
+            statement.setString(1, sessionId);
+            statement.setInt(2, id);
+
+            try (final ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getBytes(1) : null;
+            }
+        } catch (final SQLException e) {
+            LOG.error("Unable to read page {} of {}: {}", id, sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void storeData(final String sessionId, final int id, final byte[] data) {
+        final PendingPage page = new PendingPage(sessionId, id, data);
+
+        if(stopped) {
+            write(Collections.singletonList(page));
+            page.checkWritten();
+            return;
+        }
+
+        if(writerStopped) {
+            throw new WicketRuntimeException("The page writer has stopped, page " + id + " of " + sessionId
+                                             + " was not stored");
+        }
+
+        try {
+            queue.put(page);
+
+            if(!page.written.await(writeTimeout, TimeUnit.MILLISECONDS)) {
+                throw new WicketRuntimeException("Page " + id + " of " + sessionId + " was not written within "
+                                                 + writeTimeout + "ms");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WicketRuntimeException("Interrupted waiting for page " + id + " of " + sessionId + " to be written", e);
+        }
+
+        page.checkWritten();
+    }
+
+    @Override
+    public void removeData(final String sessionId, final int id) {
+        execute(DELETE_PAGE, sessionId, id);
+    }
+
+    @Override
+    public void removeData(final String sessionId) {
+        execute(DELETE_SESSION, sessionId);
+    }
+
+    private void execute(final String sql, final Object... params) {
+        try (final Connection connection = dataSourceFactory.getDataSource().getConnection();
+             final PreparedStatement statement = connection.prepareStatement(sql)) {
+            for(int i = 0; i < params.length; ++i) {
+                statement.setObject(i + 1, params[i]);
+            }
+
+            statement.executeUpdate();
+        } catch (final SQLException e) {
+            // whatever is left behind is removed once it expires
+            LOG.error("Unable to remove pages of {}: {}", params[0], e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        stopped = true;
+
+        try {
+            // the writer finishes the pages queued before it
+            queue.put(STOP);
+            writer.join();
+        } catch (final InterruptedException e) {
+            LOG.warn("Interrupted waiting for {} pages to be written", queue.size());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pages are in the database, so they don't need to be kept in the HTTP session as well.
+     * @return true.
+     */
+    @Override
+    public boolean isReplicated() {
+        return true;
+    }
+
+    /**
+     * Storing is already batched on the writer thread, and must finish before the request does.
+     * @return false.
+     */
+    @Override
+    public boolean canBeAsynchronous() {
+        return false;
+    }
+
+    private void writeQueued() {
+        final List<PendingPage> pages = new ArrayList<PendingPage>();
+
+        try {
+            while(true) {
+                pages.add(queue.take());
+                queue.drainTo(pages, batchSize - 1);
+
+                final boolean stop = pages.remove(STOP);
+
+                write(pages);
+                pages.clear();
+
+                if(stop) {
+                    return;
+                }
+            }
+        } catch (final InterruptedException e) {
+            LOG.warn("Page writer interrupted with {} pages waiting", queue.size());
+        } finally {
+            // new pages are refused, the ones already queued are written here rather than left waiting
+            writerStopped = true;
+            queue.drainTo(pages);
+            pages.remove(STOP);
+            write(pages);
+        }
+    }
+
+    /**
+     * Writes a batch of pages, only the last version of each, and releases the requests waiting on them with the
+     * failure, if any.
+     */
+    private void write(final List<PendingPage> pages) {
+        if(pages.isEmpty()) {
+            return;
+        }
+
+        final Map<PendingPage, PendingPage> latest = new LinkedHashMap<PendingPage, PendingPage>();
+
+        for(final PendingPage page:pages) {
+            latest.remove(page);
+            latest.put(page, page);
+        }
+
+        final long now = System.currentTimeMillis();
+        Throwable failure = null;
+
+        //CHECKSTYLE:OFF a batch that fails, even with an Error, must not stop the writer or leave requests waiting
+        try {
+            final BatchWriter batch = batchWriterFactory.create();
+
+            for(final PendingPage page:latest.values()) {
+                batch.add(DELETE_PAGE, page.sessionId, page.pageId);
+                batch.add(INSERT, page.sessionId, page.pageId, page.data, now);
+            }
+
+            batch.flush();
+
+            pagesStored.add(latest.size());
+            batches.inc();
+        } catch (final Throwable t) {
+            LOG.error("Unable to write {} pages: {}", latest.size(), t.getMessage(), t);
+            failure = t;
+        } finally {
+            for(final PendingPage page:pages) {
+                page.failure = failure;
+                page.written.countDown();
+            }
+        }
+        //CHECKSTYLE:ON
+    }
+
+    /**
+     * A serialized page waiting to be written, equal to the other versions of the same page.
+     */
+    private static final class PendingPage {
+        private final String sessionId;
+        private final int pageId;
+        private final byte[] data;
+        private final CountDownLatch written = new CountDownLatch(1);
+        // set before written is counted down, which makes it visible to the waiting request
+        private Throwable failure;
+
+        PendingPage(final String sessionId, final int pageId, final byte[] data) {
+            this.sessionId = sessionId;
+            this.pageId = pageId;
+            this.data = data;
+        }
+
+        /**
+         * Throws the failure of the batch the page was written in, on the thread that stored it.
+         */
+        void checkWritten() {
+            if(failure != null) {
+                throw new WicketRuntimeException("Unable to write page " + pageId + " of " + sessionId + ": "
+                                                 + failure.getMessage(), failure);
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if(!(obj instanceof PendingPage)) {
+                return false;
+            }
+
+            final PendingPage other = (PendingPage)obj;
+
+            return pageId == other.pageId && sessionId.equals(other.sessionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sessionId, pageId);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.metrink.croquet.wicket;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.modules.ManagedModule;
+
+/**
+ * Removes the pages stored in the database that haven't been stored again for jdbc_page_ttl.
+ *
+ * Wicket removes the pages of a session when it is invalidated, but not when it expires on a node that has stopped or
+ * never held it in memory, so every node runs this to remove what is left behind. Started when jdbc_session_store is
+ * set.
+ */
+@Singleton
+public class JdbcPageCleaner implements ManagedModule {
+    static final String TABLE = "croquet_pages";
+
+    private static final Logger LOG = LoggerFactory.getLogger(JdbcPageCleaner.class);
+
+    private static final String DELETE_EXPIRED = "DELETE FROM " + TABLE + " WHERE stored < ?";
+
+    private final DataSourceFactory dataSourceFactory;
+    private final long ttl;
+    private final long cleanupInterval;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param settings the settings containing the page time to live and cleanup interval.
+     * @param dataSourceFactory the factory for the pool to remove pages through.
+     */
+    @Inject
+    public JdbcPageCleaner(final WicketSettings settings, final DataSourceFactory dataSourceFactory) {
+        this.dataSourceFactory = dataSourceFactory;
+        this.ttl = settings.getJdbcPageTtl();
+        this.cleanupInterval = settings.getJdbcPageCleanupInterval();
+    }
+
+    /**
+     * Starts removing expired pages every jdbc_page_cleanup_interval.
+     */
+    @Override
+    public synchronized void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "croquet-jdbc-page-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        executor.scheduleWithFixedDelay(this::removeExpired, cleanupInterval, cleanupInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops removing expired pages.
+     */
+    @Override
+    public synchronized void stop() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void removeExpired() {
+        try (final Connection connection = dataSourceFactory.getDataSource().getConnection();
+             final PreparedStatement statement = connection.prepareStatement(DELETE_EXPIRED)) {
+            statement.setLong(1, System.currentTimeMillis() - ttl);
+
+            LOG.debug("Removed {} expired pages", statement.executeUpdate());
+        } catch (final SQLException e) {
+            // an exception would cancel the scheduled cleanup
+            LOG.error("Error removing expired pages: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.metrink.croquet.wicket;
+
+import java.io.Externalizable;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.serialize.java.JavaSerializer;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.util.DefaultClassResolver;
+import com.esotericsoftware.kryo.util.MapReferenceResolver;
+
+/**
+ * An {@link ISerializer} that stores pages with Kryo instead of Java serialization, which is faster and produces
+ * smaller pages.
+ *
+ * Croquet's {@link javax.persistence.EntityManager} and {@link com.sop4j.dbutils.QueryRunner} proxies, and the proxies
+ * wicket-guice injects, are cglib classes generated at runtime that only become serializable through writeReplace and
+ * readResolve. Kryo knows neither, so this serializer follows Java's rules: an object whose class has a writeReplace
+ * method is replaced before it is written, once per graph, and an object whose class has a readResolve method is
+ * resolved after it is read. Classes that customise Java serialization with writeObject, readObject or
+ * {@link Externalizable}, and collections Kryo cannot rebuild, are written with Java serialization inside the Kryo
+ * stream.
+ *
+ * Synthetic fields are written, as Java serialization writes them, so anonymous classes such as a page's links keep
+ * their outer page and the variables they captured.
+ *
+ * Objects that are not {@link Serializable} are refused, as Java serialization would refuse them. Should Kryo fail on a
+ * page, the page is written with Wicket's {@link JavaSerializer} instead, and a warning is logged once for its class.
+ * The first byte of the data records which serializer wrote it.
+ */
+public class KryoSerializer implements ISerializer {
+    private static final Logger LOG = LoggerFactory.getLogger(KryoSerializer.class);
+
+    private static final byte KRYO_FORMAT = 1;
+    private static final byte JAVA_FORMAT = 2;
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final Map<Class<?>, Optional<Method>> WRITE_REPLACE = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Optional<Method>> READ_RESOLVE = new ConcurrentHashMap<>();
+
+    private final JavaSerializer javaSerializer;
+    private final Set<String> fallbackClasses = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<CroquetKryo> kryos = ThreadLocal.withInitial(CroquetKryo::new);
+    private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(() -> new Output(BUFFER_SIZE, -1));
+
+    /**
+     * Constructor.
+     * @param applicationKey the key of the application, used by the Java serialization fallback.
+     */
+    public KryoSerializer(final String applicationKey) {
+        this.javaSerializer = new JavaSerializer(applicationKey);
+    }
+
+    @Override
+    public byte[] serialize(final Object object) {
+        final CroquetKryo kryo = kryos.get();
+        final Output output = outputs.get();
+
+        try {
+            output.clear();
+            output.writeByte(KRYO_FORMAT);
+            kryo.writeClassAndObject(output, object);
+
+            return output.toBytes();
+        } catch (final KryoException e) {
+            if(fallbackClasses.add(object.getClass().getName())) {
+                LOG.warn("Unable to serialize {} with Kryo, falling back to Java serialization: {}",
+                         object.getClass().getName(), e.getMessage());
+            }
+
+            return serializeWithJava(object);
+        } finally {
+            kryo.clearReplacements();
+
+            // don't keep the buffer of an unusually large page for the life of the thread
+            if(output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+                outputs.remove();
+            }
+        }
+    }
+
+    @Override
+    public Object deserialize(final byte[] data) {
+        if(data.length > 0 && data[0] == JAVA_FORMAT) {
+            final byte[] javaData = new byte[data.length - 1];
+
+            System.arraycopy(data, 1, javaData, 0, javaData.length);
+
+            return javaSerializer.deserialize(javaData);
+        }
+
+        final CroquetKryo kryo = kryos.get();
+
+        kryo.setClassLoader(getClassLoader());
+
+        return kryo.readClassAndObject(new Input(data, 1, data.length - 1));
+    }
+
+    private byte[] serializeWithJava(final Object object) {
+        final byte[] javaData = javaSerializer.serialize(object);
+
+        if(javaData == null) {
+            return null;
+        }
+
+        final byte[] ret = new byte[javaData.length + 1];
+
+        ret[0] = JAVA_FORMAT;
+        System.arraycopy(javaData, 0, ret, 1, javaData.length);
+
+        return ret;
+    }
+
+    /**
+     * Gets the class loader of the application, so classes are found the same way Wicket finds them.
+     */
+    private static ClassLoader getClassLoader() {
+        if(Application.exists()) {
+            return Application.get().getApplicationSettings().getClassResolver().getClassLoader();
+        }
+
+        return Thread.currentThread().getContextClassLoader();
+    }
+
+    /**
+     * Finds a writeReplace or readResolve method the way Java serialization does, in the class or a superclass.
+     */
+    private static Optional<Method> findMethod(final Class<?> type, final String name) {
+        if(!Serializable.class.isAssignableFrom(type)) {
+            return Optional.empty();
+        }
+
+        for(Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                final Method method = current.getDeclaredMethod(name);
+
+                // a private method in a superclass doesn't apply to its subclasses
+                if(current != type && Modifier.isPrivate(method.getModifiers())) {
+                    return Optional.empty();
+                }
+
+                method.setAccessible(true);
+
+                return Optional.of(method);
+            } catch (final NoSuchMethodException e) {
+                // keep looking in the superclass
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static boolean declaresMethod(final Class<?> type, final String name, final Class<?>... parameterTypes) {
+        for(Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (final NoSuchMethodException e) {
+                // keep looking in the superclass
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean hasNoArgConstructor(final Class<?> type) {
+        try {
+            type.getConstructor();
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Object invoke(final Method method, final Object object) {
+        try {
+            return method.invoke(object);
+        } catch (final IllegalAccessException e) {
+            throw new KryoException("Unable to call " + method, e);
+        } catch (final InvocationTargetException e) {
+            throw new KryoException("Error calling " + method, e.getCause());
+        }
+    }
+
+    /**
+     * Kryo's Java serialization, named apart from Wicket's {@link JavaSerializer}.
+     */
+    private static class JavaFallbackSerializer extends com.esotericsoftware.kryo.serializers.JavaSerializer {
+    }
+
+    /**
+     * Keeps the objects read so far, so a resolved object replaces the one read in later references to it.
+     */
+    private static class ResolvingReferenceResolver extends MapReferenceResolver {
+
+        @SuppressWarnings("unchecked")
+        void replaceReadObject(final Object read, final Object resolved) {
+            // the object was read moments ago, so it is near the end
+            for(int i = readObjects.size() - 1; i >= 0; --i) {
+                if(readObjects.get(i) == read) {
+                    readObjects.set(i, resolved);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Kryo configured to follow Java serialization's writeReplace and readResolve, with references so the cycles
+     * between components and their parents are kept.
+     */
+    private static class CroquetKryo extends Kryo {
+        private final ResolvingReferenceResolver referenceResolver;
+        private final Map<Object, Object> replacements = new IdentityHashMap<Object, Object>();
+
+        CroquetKryo() {
+            this(new ResolvingReferenceResolver());
+        }
+
+        private CroquetKryo(final ResolvingReferenceResolver referenceResolver) {
+            super(new DefaultClassResolver(), referenceResolver);
+
+            this.referenceResolver = referenceResolver;
+
+            setRegistrationRequired(false);
+            setReferences(true);
+
+            // use a no-arg constructor when there is one, like Java does for the first non-serializable superclass
+            setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        }
+
+        void clearReplacements() {
+            replacements.clear();
+        }
+
+        @Override
+        public void writeClassAndObject(final Output output, final Object object) {
+            super.writeClassAndObject(output, replace(object));
+        }
+
+        @Override
+        public Object readClassAndObject(final Input input) {
+            final Object object = super.readClassAndObject(input);
+
+            if(object == null || getSerializer(object.getClass()) instanceof JavaFallbackSerializer) {
+                return object; // Java serialization has already resolved it
+            }
+
+            final Optional<Method> readResolve = READ_RESOLVE.computeIfAbsent(object.getClass(),
+                                                                              c -> findMethod(c, "readResolve"));
+
+            if(!readResolve.isPresent()) {
+                return object;
+            }
+
+            final Object resolved = invoke(readResolve.get(), object);
+
+            referenceResolver.replaceReadObject(object, resolved);
+
+            return resolved;
+        }
+
+        /**
+         * Replaces an object through its writeReplace method, returning the same replacement for every reference.
+         */
+        private Object replace(final Object object) {
+            if(object == null) {
+                return null;
+            }
+
+            final Optional<Method> writeReplace = WRITE_REPLACE.computeIfAbsent(object.getClass(),
+                                                                                c -> findMethod(c, "writeReplace"));
+
+            if(!writeReplace.isPresent()) {
+                return object;
+            }
+
+            return replacements.computeIfAbsent(object, o -> invoke(writeReplace.get(), o));
+        }
+
+        @Override
+        @SuppressWarnings("rawtypes")
+        public Serializer getDefaultSerializer(final Class type) {
+            final Serializer serializer = super.getDefaultSerializer(type);
+
+            if(Externalizable.class.isAssignableFrom(type)) {
+                return new JavaFallbackSerializer();
+            }
+
+            // Java serialization would refuse the object, so Kryo refuses it too and the fallback reports it
+            if(serializer instanceof FieldSerializer && !Serializable.class.isAssignableFrom(type)) {
+                throw new KryoException(type.getName() + " is not Serializable");
+            }
+
+            // Kryo's field serializer would skip the class's own writeObject and readObject
+            if(serializer instanceof FieldSerializer
+                    && (declaresMethod(type, "writeObject", ObjectOutputStream.class)
+                        || declaresMethod(type, "readObject", ObjectInputStream.class))) {
+                return new JavaFallbackSerializer();
+            }
+
+            // Kryo rebuilds collections and maps through a no-arg constructor and add or put, which wrappers such as
+            // Arrays.asList and Collections.unmodifiableList don't support
+            if((Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type))
+                    && !(serializer instanceof FieldSerializer)
+                    && !hasNoArgConstructor(type)) {
+                return new JavaFallbackSerializer();
+            }
+
+            // an anonymous or inner class's outer instance and captured variables are synthetic fields, which Kryo skips
+            if(serializer instanceof FieldSerializer) {
+                ((FieldSerializer<?>)serializer).setIgnoreSyntheticFields(false);
+            }
+
+            return serializer;
+        }
+    }
+}
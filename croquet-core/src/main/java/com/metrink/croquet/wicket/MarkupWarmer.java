@@ -0,0 +1,157 @@
+package com.metrink.croquet.wicket;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
+import org.apache.wicket.Page;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.markup.MarkupFactory;
+import org.apache.wicket.markup.MarkupType;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.WicketSettings;
+
+/**
+ * Loads the markup of the mounted pages into Wicket's markup cache when the application starts.
+ *
+ * Wicket reads and parses a page's markup, and the markup it extends, the first time the page renders, so the first
+ * requests after a deploy wait on the class path and the parser. Pages are loaded on one thread per processor, before
+ * Jetty accepts requests, for the JVM's default locale. Markup for other locales, and of panels, which can only be
+ * found by constructing the pages, is still loaded on first use.
+ */
+class MarkupWarmer implements IApplicationListener {
+    private static final Logger LOG = LoggerFactory.getLogger(MarkupWarmer.class);
+
+    private final WicketSettings wicketSettings;
+
+    /**
+     * Constructor.
+     * @param wicketSettings the settings containing the page mounts.
+     */
+    MarkupWarmer(final WicketSettings wicketSettings) {
+        this.wicketSettings = wicketSettings;
+    }
+
+    @Override
+    public void onAfterInitialized(final Application application) {
+        final Set<Class<? extends Page>> pages = new LinkedHashSet<Class<? extends Page>>();
+
+        pages.add(wicketSettings.getHomePageClass());
+        pages.add(wicketSettings.getLoginPageClass());
+        pages.add(wicketSettings.getExceptionPage());
+        pages.addAll(wicketSettings.getPageMountClasses().values());
+        pages.remove(null);
+
+        final long start = System.currentTimeMillis();
+        final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            final Thread thread = new Thread(runnable, "croquet-markup-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final List<Future<?>> loads = new ArrayList<Future<?>>();
+
+        try {
+            for(final Class<? extends Page> page:pages) {
+                loads.add(executor.submit(() -> load(application, page)));
+            }
+
+            for(final Future<?> load:loads) {
+                try {
+                    load.get();
+                } catch (final ExecutionException e) {
+                    // the page fails on its first request instead, as it always has
+                    LOG.warn("Unable to load markup: {}", e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info("Loaded the markup of {} pages in {}ms", pages.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public void onBeforeDestroyed(final Application application) {
+    }
+
+    /**
+     * Loads the markup of a page, as it would be for a request without a session.
+     */
+    private static void load(final Application application, final Class<? extends Page> page) {
+        ThreadContext.setApplication(application);
+
+        try {
+            // the markup is cached by locale and style, which are read from the session
+            ThreadContext.setSession(application.newSession(new WarmupRequest(), null));
+
+            MarkupFactory.get().getMarkup(new WarmupContainer(), page, false);
+        } finally {
+            ThreadContext.detach();
+        }
+    }
+
+    /**
+     * Stands in for the page, which can't be constructed outside of a request.
+     */
+    private static final class WarmupContainer extends WebMarkupContainer {
+        private static final long serialVersionUID = 1L;
+
+        WarmupContainer() {
+            super("warmup");
+        }
+
+        @Override
+        public MarkupType getMarkupType() {
+            return MarkupType.HTML_MARKUP_TYPE;
+        }
+    }
+
+    /**
+     * The request the session is created from, in the JVM's default locale.
+     */
+    private static final class WarmupRequest extends Request {
+        private final Url url = Url.parse("");
+
+        @Override
+        public Url getUrl() {
+            return url;
+        }
+
+        @Override
+        public Url getClientUrl() {
+            return url;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.getDefault();
+        }
+
+        @Override
+        public Charset getCharset() {
+            return StandardCharsets.UTF_8;
+        }
+
+        @Override
+        public Object getContainerRequest() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.metrink.croquet.wicket;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.pageStore.IDataStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.wicket.PageRing.Entry;
+
+/**
+ * An {@link IDataStore} that keeps serialized pages outside the Java heap, in place of Wicket's DiskDataStore.
+ *
+ * The most recently stored pages are kept in direct memory, and as it fills up the oldest pages are moved to a
+ * memory-mapped file, from which they are eventually dropped. Neither holds pages on the heap, so a large number of
+ * sessions adds no GC pressure, and storing a page never waits on disk I/O: the operating system writes the mapped
+ * file back in the background. The store is split into segments by session, each with its own lock, memory and share
+ * of the file, so requests in different sessions rarely contend.
+ *
+ * Like the DiskDataStore, each session's pages are limited in total size, and the oldest pages of a session are
+ * dropped first to stay within it. The file is deleted when the store is destroyed, pages do not survive a restart.
+ */
+public class OffHeapDataStore implements IDataStore {
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapDataStore.class);
+
+    private final Segment[] segments;
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+
+    /**
+     * Constructor.
+     * @param memoryBytes the bytes of direct memory to keep pages in.
+     * @param file the file to map, or null to drop pages once they no longer fit in memory.
+     * @param fileBytes the size of the file.
+     * @param maxBytesPerSession the most bytes of pages kept for one session.
+     * @param segmentCount the number of independently locked segments.
+     */
+    public OffHeapDataStore(final long memoryBytes,
+                            final File file,
+                            final long fileBytes,
+                            final long maxBytesPerSession,
+                            final int segmentCount) {
+        this.segments = new Segment[segmentCount];
+        this.file = file;
+
+        final int memoryPerSegment = (int)Math.min(Integer.MAX_VALUE, memoryBytes / segmentCount);
+        final int filePerSegment = (int)Math.min(Integer.MAX_VALUE, fileBytes / segmentCount);
+
+        try {
+            if(file != null) {
+                Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            }
+
+            randomAccessFile = file == null ? null : new RandomAccessFile(file, "rw");
+
+            for(int i = 0; i < segmentCount; ++i) {
+                final PageRing fileRing = randomAccessFile == null
+                        ? null
+                        : new PageRing(randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                                                                         (long)i * filePerSegment,
+                                                                         filePerSegment));
+
+                segments[i] = new Segment(new PageRing(ByteBuffer.allocateDirect(memoryPerSegment)),
+                                          fileRing,
+                                          maxBytesPerSession);
+            }
+        } catch (final IOException e) {
+            throw new WicketRuntimeException("Unable to map the page store file " + file, e);
+        }
+
+        LOG.info("Storing pages in {}MB of direct memory and {}",
+                 memoryBytes / (1024 * 1024),
+                 file == null ? "no file" : fileBytes / (1024 * 1024) + "MB mapped from " + file);
+    }
+
+    private Segment segment(final String sessionId) {
+        return segments[(sessionId.hashCode() & Integer.MAX_VALUE) % segments.length];
+    }
+
+    @Override
+    public byte[] getData(final String sessionId, final int id) {
+        return segment(sessionId).get(sessionId, id);
+    }
+
+    @Override
+    public void removeData(final String sessionId, final int id) {
+        segment(sessionId).remove(sessionId, id);
+    }
+
+    @Override
+    public void removeData(final String sessionId) {
+        segment(sessionId).remove(sessionId);
+    }
+
+    @Override
+    public void storeData(final String sessionId, final int id, final byte[] data) {
+        segment(sessionId).store(sessionId, id, data);
+    }
+
+    @Override
+    public void destroy() {
+        for(final Segment segment:segments) {
+            segment.clear();
+        }
+
+        if(randomAccessFile != null) {
+            try {
+                randomAccessFile.close();
+                Files.deleteIfExists(file.toPath());
+            } catch (final IOException e) {
+                LOG.warn("Unable to delete the page store file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean isReplicated() {
+        return false;
+    }
+
+    /**
+     * Storing a page is a copy into memory, so handing it to a background thread would cost more than it saves.
+     * @return false.
+     */
+    @Override
+    public boolean canBeAsynchronous() {
+        return false;
+    }
+
+    /**
+     * The pages of one session, oldest first.
+     */
+    private static class SessionPages {
+        private final Map<Integer, Entry> pages = new LinkedHashMap<Integer, Entry>();
+        private long bytes;
+    }
+
+    /**
+     * A share of the store with its own lock, memory ring, file ring and index.
+     */
+    private static class Segment {
+        private final PageRing memory;
+        private final PageRing file;
+        private final long maxBytesPerSession;
+        private final Map<String, SessionPages> sessions = new HashMap<String, SessionPages>();
+
+        Segment(final PageRing memory, final PageRing file, final long maxBytesPerSession) {
+            this.memory = memory;
+            this.file = file;
+            this.maxBytesPerSession = maxBytesPerSession;
+        }
+
+        synchronized byte[] get(final String sessionId, final int id) {
+            final SessionPages session = sessions.get(sessionId);
+            final Entry entry = session == null ? null : session.pages.get(id);
+
+            return entry == null ? null : entry.getRing().read(entry);
+        }
+
+        synchronized void store(final String sessionId, final int id, final byte[] data) {
+            remove(sessionId, id);
+            trim(sessionId, data.length);
+
+            Entry entry = memory.write(sessionId, id, ByteBuffer.wrap(data), this::spill);
+
+            // too large for memory, it may still fit in the file
+            if(entry == null && file != null) {
+                entry = file.write(sessionId, id, ByteBuffer.wrap(data), this::drop);
+            }
+
+            if(entry == null) {
+                LOG.warn("Page {} of {} bytes is too large to store", id, data.length);
+                return;
+            }
+
+            add(entry);
+        }
+
+        synchronized void remove(final String sessionId, final int id) {
+            final SessionPages session = sessions.get(sessionId);
+            final Entry entry = session == null ? null : session.pages.remove(id);
+
+            if(entry != null) {
+                entry.remove();
+                session.bytes -= entry.getLength();
+
+                if(session.pages.isEmpty()) {
+                    sessions.remove(sessionId);
+                }
+            }
+        }
+
+        synchronized void remove(final String sessionId) {
+            final SessionPages session = sessions.remove(sessionId);
+
+            if(session != null) {
+                for(final Entry entry:session.pages.values()) {
+                    entry.remove();
+                }
+            }
+        }
+
+        synchronized void clear() {
+            sessions.clear();
+            memory.clear();
+
+            if(file != null) {
+                file.clear();
+            }
+        }
+
+        /**
+         * Drops the oldest pages of a session until a page of the given size fits within its limit.
+         */
+        private void trim(final String sessionId, final int length) {
+            final SessionPages session = sessions.get(sessionId);
+
+            if(session == null) {
+                return;
+            }
+
+            final Iterator<Entry> oldest = session.pages.values().iterator();
+
+            while(session.bytes + length > maxBytesPerSession && oldest.hasNext()) {
+                final Entry entry = oldest.next();
+
+                oldest.remove();
+                entry.remove();
+                session.bytes -= entry.getLength();
+            }
+        }
+
+        private void add(final Entry entry) {
+            SessionPages session = sessions.get(entry.getSessionId());
+
+            if(session == null) {
+                session = new SessionPages();
+                sessions.put(entry.getSessionId(), session);
+            }
+
+            session.pages.put(entry.getPageId(), entry);
+            session.bytes += entry.getLength();
+        }
+
+        /**
+         * Moves a page that is about to be overwritten in memory to the file, or drops it when there is no file.
+         */
+        private void spill(final Entry entry) {
+            final Entry spilled = file == null
+                    ? null
+                    : file.write(entry.getSessionId(), entry.getPageId(), memory.slice(entry), this::drop);
+
+            if(spilled == null) {
+                drop(entry);
+                return;
+            }
+
+            // replacing the entry keeps the page's place among the session's pages, oldest first
+            sessions.get(entry.getSessionId()).pages.put(entry.getPageId(), spilled);
+        }
+
+        /**
+         * Forgets a page that is about to be overwritten.
+         */
+        private void drop(final Entry entry) {
+            final SessionPages session = sessions.get(entry.getSessionId());
+
+            if(session != null && session.pages.get(entry.getPageId()) == entry) {
+                session.pages.remove(entry.getPageId());
+                session.bytes -= entry.getLength();
+
+                if(session.pages.isEmpty()) {
+                    sessions.remove(entry.getSessionId());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.metrink.croquet.wicket;
+
+/**
+ * Compresses serialized pages before they are stored, chosen with setPageCodec on the builder.
+ *
+ * Implementations must be thread safe and have a public no-arg constructor.
+ */
+public interface PageCodec {
+
+    /**
+     * Compresses a serialized page.
+     * @param data the serialized page.
+     * @return the compressed page, or null if it does not compress to less than its size.
+     */
+    byte[] compress(byte[] data);
+
+    /**
+     * Decompresses a page compressed by {@link #compress(byte[])}.
+     * @param data the buffer holding the compressed page.
+     * @param offset the offset of the compressed page in the buffer.
+     * @param length the length of the compressed page.
+     * @param uncompressedLength the length of the page before it was compressed.
+     * @return the serialized page.
+     */
+    byte[] decompress(byte[] data, int offset, int length, int uncompressedLength);
+}
@@ -0,0 +1,163 @@
+package com.metrink.croquet.wicket;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * A circular log of serialized pages in a {@link ByteBuffer}, either direct memory or a memory-mapped file.
+ *
+ * Pages are appended at the write position, and when the buffer is full the oldest pages are overwritten, so space is
+ * never fragmented and needs no compaction. Removed pages are only marked as such, their space is reclaimed when the
+ * write position comes around to them. Not thread safe, {@link OffHeapDataStore} locks around it.
+ */
+class PageRing {
+    private final ByteBuffer buffer;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<Entry>();
+    private int writePosition;
+
+    /**
+     * Constructor.
+     * @param buffer the buffer to store pages in, its whole capacity is used.
+     */
+    PageRing(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Gets the number of bytes the ring can hold.
+     * @return the capacity.
+     */
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Writes a page, overwriting the oldest pages if needed.
+     * @param sessionId the session the page belongs to.
+     * @param pageId the id of the page.
+     * @param data the serialized page, read from its position to its limit.
+     * @param evicted called with each page that is still live before it is overwritten, while its data can be read.
+     * @return the entry of the page, or null if it is larger than the ring.
+     */
+    Entry write(final String sessionId, final int pageId, final ByteBuffer data, final Consumer<Entry> evicted) {
+        final int length = data.remaining();
+
+        if(length > buffer.capacity()) {
+            return null;
+        }
+
+        // the end of the buffer is too short, so evict everything after the write position and start over at 0
+        if(writePosition + length > buffer.capacity()) {
+            while(!entries.isEmpty() && entries.peekFirst().offset >= writePosition) {
+                evict(evicted);
+            }
+
+            writePosition = 0;
+        }
+
+        while(!entries.isEmpty()
+                && entries.peekFirst().offset >= writePosition
+                && entries.peekFirst().offset < writePosition + length) {
+            evict(evicted);
+        }
+
+        final ByteBuffer target = buffer.duplicate();
+
+        target.position(writePosition);
+        target.put(data);
+
+        final Entry entry = new Entry(this, sessionId, pageId, writePosition, length);
+
+        entries.addLast(entry);
+        writePosition += length;
+
+        return entry;
+    }
+
+    private void evict(final Consumer<Entry> evicted) {
+        final Entry entry = entries.pollFirst();
+
+        if(entry.live) {
+            evicted.accept(entry);
+        }
+    }
+
+    /**
+     * Gets a view of a page's data, valid until the page is overwritten.
+     * @param entry the page.
+     * @return a buffer positioned at the page's data and limited to its length.
+     */
+    ByteBuffer slice(final Entry entry) {
+        final ByteBuffer view = buffer.duplicate();
+
+        view.limit(entry.offset + entry.length);
+        view.position(entry.offset);
+
+        return view;
+    }
+
+    /**
+     * Copies a page's data onto the heap.
+     * @param entry the page.
+     * @return the serialized page.
+     */
+    byte[] read(final Entry entry) {
+        final byte[] ret = new byte[entry.length];
+
+        slice(entry).get(ret);
+
+        return ret;
+    }
+
+    /**
+     * Forgets every page, without clearing the buffer.
+     */
+    void clear() {
+        entries.clear();
+        writePosition = 0;
+    }
+
+    /**
+     * A page stored in a ring.
+     */
+    static final class Entry {
+        private final PageRing ring;
+        private final String sessionId;
+        private final int pageId;
+        private final int offset;
+        private final int length;
+        private boolean live = true;
+
+        private Entry(final PageRing ring, final String sessionId, final int pageId, final int offset, final int length) {
+            this.ring = ring;
+            this.sessionId = sessionId;
+            this.pageId = pageId;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        PageRing getRing() {
+            return ring;
+        }
+
+        String getSessionId() {
+            return sessionId;
+        }
+
+        int getPageId() {
+            return pageId;
+        }
+
+        int getLength() {
+            return length;
+        }
+
+        /**
+         * Marks the page as removed, so it is not passed to the eviction callback.
+         */
+        void remove() {
+            live = false;
+        }
+    }
+}
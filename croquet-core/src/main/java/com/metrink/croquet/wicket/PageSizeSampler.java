@@ -0,0 +1,272 @@
+package com.metrink.croquet.wicket;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.Page;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * An {@link ISerializer} that samples the serialized size of pages and records it in the {@link MetricRegistry}.
+ *
+ * A sampled page's size is recorded under its class, and the fields of every component on it are serialized one at a
+ * time, without the components they refer to, to find what the page's size is made of. The total for each child of the
+ * page is recorded under its id, so a component that grows shows up in the metrics. When a page is larger than the
+ * budget, its largest fields are logged, the first time and whenever its class grows past the largest size logged so
+ * far. Objects shared between fields are counted in each of them.
+ */
+class PageSizeSampler implements ISerializer {
+    static final String SAMPLES = "croquet_page_samples_total";
+    static final String BYTES = "croquet_page_serialized_bytes_total";
+    static final String MAX_BYTES = "croquet_page_serialized_bytes_max";
+    static final String COMPONENT_BYTES = "croquet_page_component_serialized_bytes";
+    static final String OVER_BUDGET = "croquet_page_over_budget_total";
+
+    private static final Logger LOG = LoggerFactory.getLogger(PageSizeSampler.class);
+
+    private static final String PAGE_LABEL = "page";
+    private static final String PAGE_FIELDS = "(page)";
+    private static final int LARGEST_LOGGED = 10;
+
+    private final ISerializer delegate;
+    private final MetricRegistry registry;
+    private final double sampleRate;
+    private final long budget;
+    private final Map<Class<?>, PageSizes> pageSizes = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param delegate the serializer that serializes the pages.
+     * @param registry the registry to record the sizes in.
+     * @param sampleRate the fraction of pages sampled, between 0 and 1.
+     * @param budget the size in bytes above which a page's largest fields are logged, or 0 for no budget.
+     */
+    PageSizeSampler(final ISerializer delegate, final MetricRegistry registry, final double sampleRate, final long budget) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.sampleRate = sampleRate;
+        this.budget = budget;
+    }
+
+    @Override
+    public byte[] serialize(final Object object) {
+        final byte[] data = delegate.serialize(object);
+
+        if(data != null && object instanceof Page && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            sample((Page)object, data.length);
+        }
+
+        return data;
+    }
+
+    @Override
+    public Object deserialize(final byte[] data) {
+        return delegate.deserialize(data);
+    }
+
+    private void sample(final Page page, final int size) {
+        final PageSizes sizes = pageSizes.computeIfAbsent(page.getClass(), PageSizes::new);
+        final List<FieldSize> fields = measureFields(page);
+
+        sizes.record(size, fields);
+
+        if(budget > 0 && size > budget) {
+            sizes.overBudget.inc();
+
+            if(sizes.logged.getAndAccumulate(size, Math::max) < size) {
+                logLargest(page, size, fields);
+            }
+        }
+    }
+
+    private void logLargest(final Page page, final int size, final List<FieldSize> fields) {
+        fields.sort(Comparator.comparingLong((FieldSize f) -> f.bytes).reversed());
+
+        final StringBuilder sb = new StringBuilder();
+
+        for(final FieldSize field:fields.subList(0, Math.min(LARGEST_LOGGED, fields.size()))) {
+            sb.append(System.lineSeparator()).append("    ").append(field);
+        }
+
+        LOG.warn("{} serialized to {} bytes, over the budget of {} bytes. Largest fields:{}",
+                 page.getClass().getName(), size, budget, sb);
+    }
+
+    /**
+     * Serializes the fields of the page and each of its components on their own.
+     */
+    private static List<FieldSize> measureFields(final Page page) {
+        final List<FieldSize> ret = new ArrayList<FieldSize>();
+
+        measureFields(page, ret);
+
+        page.visitChildren(new IVisitor<Component, Void>() {
+            @Override
+            public void component(final Component component, final IVisit<Void> visit) {
+                measureFields(component, ret);
+            }
+        });
+
+        return ret;
+    }
+
+    private static void measureFields(final Component component, final List<FieldSize> sizes) {
+        for(Class<?> type = component.getClass(); type != null; type = type.getSuperclass()) {
+            for(final Field field:type.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                    continue;
+                }
+
+                try {
+                    field.setAccessible(true);
+
+                    final Object value = field.get(component);
+
+                    // other components are measured on their own
+                    if(value != null && !(value instanceof Component) && !field.getType().isPrimitive()) {
+                        sizes.add(new FieldSize(component, field, value, sizeOf(value)));
+                    }
+                } catch (final IllegalAccessException | IOException e) {
+                    LOG.debug("Unable to measure {}.{}: {}", type.getName(), field.getName(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(final Object value) throws IOException {
+        final CountingOutputStream counter = new CountingOutputStream();
+
+        try (final ObjectOutputStream out = new ComponentSkippingOutputStream(counter)) {
+            out.writeObject(value);
+        }
+
+        return counter.count;
+    }
+
+    /**
+     * The sizes recorded for one page class.
+     */
+    private final class PageSizes {
+        private final String pageName;
+        private final Counter samples;
+        private final Counter bytes;
+        private final Counter overBudget;
+        private final AtomicLong max = new AtomicLong();
+        private final AtomicLong logged = new AtomicLong();
+        private final Map<String, AtomicLong> components = new ConcurrentHashMap<>();
+
+        PageSizes(final Class<?> pageClass) {
+            this.pageName = pageClass.getName();
+            this.samples = registry.counter(SAMPLES, "Pages whose serialized size was sampled", PAGE_LABEL, pageName);
+            this.bytes = registry.counter(BYTES, "Serialized bytes of the sampled pages", PAGE_LABEL, pageName);
+            this.overBudget = registry.counter(OVER_BUDGET, "Sampled pages larger than the budget", PAGE_LABEL, pageName);
+
+            registry.gauge(MAX_BYTES, "Largest serialized size of a sampled page", max::get, PAGE_LABEL, pageName);
+        }
+
+        void record(final int size, final List<FieldSize> fields) {
+            samples.inc();
+            bytes.add(size);
+            max.accumulateAndGet(size, Math::max);
+
+            // fields of nested components count toward the child of the page they are in
+            final Map<String, Long> totals = new HashMap<String, Long>();
+
+            for(final FieldSize field:fields) {
+                totals.merge(field.topLevelId, field.bytes, Long::sum);
+            }
+
+            for(final Map.Entry<String, Long> total:totals.entrySet()) {
+                components.computeIfAbsent(total.getKey(), this::newComponentGauge).set(total.getValue());
+            }
+        }
+
+        private AtomicLong newComponentGauge(final String id) {
+            final AtomicLong ret = new AtomicLong();
+
+            registry.gauge(COMPONENT_BYTES, "Serialized bytes of the fields of a child of a page, when last sampled",
+                           ret::get, PAGE_LABEL, pageName, "component", id);
+
+            return ret;
+        }
+    }
+
+    /**
+     * The serialized size of one field of a component.
+     */
+    private static final class FieldSize {
+        private final String path;
+        private final String topLevelId;
+        private final String field;
+        private final String valueClass;
+        private final long bytes;
+
+        FieldSize(final Component component, final Field field, final Object value, final long bytes) {
+            final String relativePath = component.getPageRelativePath();
+            final int separator = relativePath.indexOf(Component.PATH_SEPARATOR);
+
+            this.path = relativePath.isEmpty() ? PAGE_FIELDS : relativePath;
+            this.topLevelId = separator < 0 ? path : relativePath.substring(0, separator);
+            this.field = field.getDeclaringClass().getSimpleName() + "." + field.getName();
+            this.valueClass = value.getClass().getName();
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return bytes + " bytes in " + path + " " + field + " (" + valueClass + ")";
+        }
+    }
+
+    /**
+     * Writes components as null, so a field is measured without the component tree it can reach.
+     */
+    private static final class ComponentSkippingOutputStream extends ObjectOutputStream {
+
+        ComponentSkippingOutputStream(final OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(final Object obj) {
+            return obj instanceof Component ? null : obj;
+        }
+    }
+
+    /**
+     * Counts the bytes written to it, discarding them.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(final int b) {
+            ++count;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.metrink.croquet.wicket;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.handler.resource.ResourceReferenceRequestHandler;
+
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.metrics.ActiveRequest;
+
+/**
+ * Sets the route of each {@link ActiveRequest} from the handler Wicket resolved for it.
+ *
+ * Requests for mounted pages, and AJAX requests to components on them, are recorded under the page's mount path.
+ * Pages that are not mounted are recorded under their class name, mounted resources under their mount path, and all
+ * other resources under "resource".
+ */
+class RouteMetricsListener extends AbstractRequestCycleListener {
+    private static final String RESOURCE_ROUTE = "resource";
+
+    private final Map<Class<?>, String> pageRoutes = new HashMap<Class<?>, String>();
+    private final WicketSettings wicketSettings;
+
+    /**
+     * Constructor.
+     * @param wicketSettings the settings containing the page and resource mounts.
+     */
+    RouteMetricsListener(final WicketSettings wicketSettings) {
+        this.wicketSettings = wicketSettings;
+
+        for(final Map.Entry<String, Class<? extends WebPage>> page:wicketSettings.getPageMountClasses().entrySet()) {
+            pageRoutes.put(page.getValue(), page.getKey());
+        }
+    }
+
+    @Override
+    public void onRequestHandlerResolved(final RequestCycle cycle, final IRequestHandler handler) {
+        final Object containerRequest = cycle.getRequest().getContainerRequest();
+
+        if(!(containerRequest instanceof ServletRequest)) {
+            return;
+        }
+
+        final ActiveRequest active = ActiveRequest.get((ServletRequest)containerRequest);
+
+        if(active == null) {
+            return;
+        }
+
+        if(handler instanceof IPageClassRequestHandler) {
+            final Class<?> pageClass = ((IPageClassRequestHandler)handler).getPageClass();
+            final String route = pageRoutes.get(pageClass);
+
+            active.setRoute(route != null ? route : pageClass.getName());
+        } else if(handler instanceof ResourceReferenceRequestHandler) {
+            // mounted resources are given a reference named after their mount path
+            final String name = ((ResourceReferenceRequestHandler)handler).getResourceReference().getName();
+
+            active.setRoute(wicketSettings.getResourceMountClasses().containsKey(name) ? name : RESOURCE_ROUTE);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.metrink.croquet.wicket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Session;
+import org.apache.wicket.core.request.handler.IPageClassRequestHandler;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.session.ISessionStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * Counts the sessions bound, under the mount path of the page whose request bound them.
+ *
+ * Wicket binds a session when a page renders stateful or a user signs in, so the pages counted here are the ones to
+ * make stateless to keep anonymous traffic sessionless. The {@link StatefulPageReporter} logs what makes them stateful.
+ */
+class SessionBindCounter implements ISessionStore.BindListener {
+    static final String BOUND = "croquet_sessions_bound_total";
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionBindCounter.class);
+
+    private static final String OTHER = "other";
+
+    private final Map<Class<?>, String> mountedPages = new HashMap<Class<?>, String>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final MetricRegistry registry;
+
+    /**
+     * Constructor.
+     * @param wicketSettings the settings containing the page mounts.
+     * @param registry the registry to count bound sessions in.
+     */
+    SessionBindCounter(final WicketSettings wicketSettings, final MetricRegistry registry) {
+        this.registry = registry;
+
+        for(final Map.Entry<String, Class<? extends WebPage>> page:wicketSettings.getPageMountClasses().entrySet()) {
+            mountedPages.put(page.getValue(), page.getKey());
+        }
+    }
+
+    @Override
+    public void bindingSession(final Request request, final Session newSession) {
+        final RequestCycle cycle = RequestCycle.get();
+        final IRequestHandler handler = cycle == null ? null : cycle.getActiveRequestHandler();
+        final Class<?> pageClass = handler instanceof IPageClassRequestHandler
+                ? ((IPageClassRequestHandler)handler).getPageClass()
+                : null;
+        final String mount = pageClass == null ? OTHER : mountedPages.getOrDefault(pageClass, OTHER);
+
+        LOG.debug("Binding a session for {}", pageClass == null ? request.getUrl() : pageClass.getName());
+
+        counters.computeIfAbsent(mount,
+                                 m -> registry.counter(BOUND, "Sessions bound, by the mounted page that bound them",
+                                                       "page", m))
+                .inc();
+    }
+}
@@ -0,0 +1,140 @@
+package com.metrink.croquet.wicket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.Page;
+import org.apache.wicket.application.IComponentOnAfterRenderListener;
+import org.apache.wicket.behavior.Behavior;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.OrderByLink;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.markup.html.form.Form;
+import org.apache.wicket.markup.html.link.Link;
+import org.apache.wicket.markup.html.navigation.paging.PagingNavigationIncrementLink;
+import org.apache.wicket.markup.html.navigation.paging.PagingNavigationLink;
+import org.apache.wicket.util.visit.IVisit;
+import org.apache.wicket.util.visit.IVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.metrics.Counter;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+/**
+ * Reports the mounted pages that render stateful, and the components and behaviors that made them so.
+ *
+ * A stateful page is serialized into the page store at the end of every request, where a stateless page is simply
+ * created again. Each stateful render of a mounted page is counted under its mount path, and the first time a page
+ * class renders stateful the reasons are logged, with the stateless alternative where there is one. Unlike Wicket's
+ * {@link org.apache.wicket.devutils.stateless.StatelessChecker}, it only looks at pages after they have rendered,
+ * needs no annotations and never fails a request, so it can run in production.
+ */
+class StatefulPageReporter implements IComponentOnAfterRenderListener {
+    static final String STATEFUL_RENDERS = "croquet_stateful_page_renders_total";
+
+    private static final Logger LOG = LoggerFactory.getLogger(StatefulPageReporter.class);
+
+    private final Map<Class<?>, String> mountedPages = new HashMap<Class<?>, String>();
+    private final Map<Class<?>, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<Class<?>> reported = ConcurrentHashMap.newKeySet();
+    private final MetricRegistry registry;
+
+    /**
+     * Constructor.
+     * @param wicketSettings the settings containing the page mounts.
+     * @param registry the registry to count stateful renders in.
+     */
+    StatefulPageReporter(final WicketSettings wicketSettings, final MetricRegistry registry) {
+        this.registry = registry;
+
+        for(final Map.Entry<String, Class<? extends WebPage>> page:wicketSettings.getPageMountClasses().entrySet()) {
+            mountedPages.put(page.getValue(), page.getKey());
+        }
+    }
+
+    @Override
+    public void onAfterRender(final Component component) {
+        if(!(component instanceof Page)) {
+            return;
+        }
+
+        final Page page = (Page)component;
+        final String mount = mountedPages.get(page.getClass());
+
+        if(mount == null || page.isPageStateless()) {
+            return;
+        }
+
+        counters.computeIfAbsent(page.getClass(),
+                                 c -> registry.counter(STATEFUL_RENDERS, "Renders of mounted pages that were stateful",
+                                                       "page", mount))
+                .inc();
+
+        if(reported.add(page.getClass())) {
+            final StringBuilder sb = new StringBuilder();
+
+            for(final String reason:findReasons(page)) {
+                sb.append(System.lineSeparator()).append("    ").append(reason);
+            }
+
+            LOG.warn("Mounted page {} at {} is stateful:{}", page.getClass().getName(), mount, sb);
+        }
+    }
+
+    /**
+     * Finds the components and behaviors on a page that are not stateless.
+     */
+    private static List<String> findReasons(final Page page) {
+        final List<String> ret = new ArrayList<String>();
+
+        if(!page.isBookmarkable()) {
+            ret.add("the page was created by the application instead of requested through its mount");
+        }
+
+        addReasons(page, ret);
+
+        page.visitChildren(new IVisitor<Component, Void>() {
+            @Override
+            public void component(final Component child, final IVisit<Void> visit) {
+                addReasons(child, ret);
+            }
+        });
+
+        return ret;
+    }
+
+    private static void addReasons(final Component component, final List<String> reasons) {
+        final String path = component instanceof Page ? "(page)" : component.getPageRelativePath();
+
+        if(!component.getStatelessHint()) {
+            reasons.add(path + " " + component.getClass().getName() + alternative(component));
+        }
+
+        for(final Behavior behavior:component.getBehaviors()) {
+            if(!behavior.getStatelessHint(component)) {
+                reasons.add(path + " behavior " + behavior.getClass().getName());
+            }
+        }
+    }
+
+    private static String alternative(final Component component) {
+        // the paging and sorting links of a data table
+        if(component instanceof PagingNavigationLink
+                || component instanceof PagingNavigationIncrementLink
+                || component instanceof OrderByLink) {
+            return ", use a StatelessDataTable";
+        } else if(component instanceof Form) {
+            return ", use a StatelessForm";
+        } else if(component instanceof Link) {
+            return ", use a StatelessLink or BookmarkablePageLink";
+        }
+
+        return "";
+    }
+}
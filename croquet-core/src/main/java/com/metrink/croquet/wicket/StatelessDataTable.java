@@ -0,0 +1,179 @@
+package com.metrink.croquet.wicket;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.DataTable;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.ISortableDataProvider;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NoRecordsToolbar;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.apache.wicket.util.string.StringValue;
+
+/**
+ * A {@link DataTable} whose paging and sorting links are bookmarkable, so it leaves its page stateless.
+ *
+ * Wicket's paging navigator and sortable headers use links that call back into the page instance, which makes the
+ * page stateful and has it serialized into the page store on every request. This table instead keeps its current page
+ * and sort order in the page's query parameters, named after the table's id, and its links request the page again
+ * with them changed. Only the properties of sortable columns are accepted as the sort parameter.
+ *
+ * The page is created again for every request, so the data provider is queried for every page of the table, just as
+ * it is when the table is first rendered.
+ *
+ * @param <T> the type of the rows.
+ */
+public class StatelessDataTable<T> extends DataTable<T, String> {
+    private static final long serialVersionUID = 4296153860412584530L;
+
+    private static final String ASCENDING = "asc";
+    private static final String DESCENDING = "desc";
+
+    private final ISortableDataProvider<T, String> dataProvider;
+
+    /**
+     * Constructor.
+     * @param id the component id.
+     * @param columns the columns of the table.
+     * @param dataProvider the provider of the rows, sorted by the property of the column the user sorted by.
+     * @param rowsPerPage the number of rows on each page of the table.
+     */
+    public StatelessDataTable(final String id,
+                              final List<? extends IColumn<T, String>> columns,
+                              final ISortableDataProvider<T, String> dataProvider,
+                              final long rowsPerPage) {
+        super(id, columns, dataProvider, rowsPerPage);
+
+        this.dataProvider = dataProvider;
+
+        addTopToolbar(new StatelessHeadersToolbar<T>(this));
+        addBottomToolbar(new StatelessNavigationToolbar(this));
+        addBottomToolbar(new NoRecordsToolbar(this));
+    }
+
+    @Override
+    protected void onInitialize() {
+        super.onInitialize();
+
+        final PageParameters params = getCurrentParameters();
+        final String sort = params.get(getSortParameter()).toOptionalString();
+
+        // anything else would reach the data provider's query straight from the URL
+        if(sort != null && getSortProperties().contains(sort)) {
+            final boolean descending = DESCENDING.equals(params.get(getOrderParameter()).toOptionalString());
+
+            dataProvider.getSortState().setPropertySortOrder(sort, descending ? SortOrder.DESCENDING : SortOrder.ASCENDING);
+        }
+
+        final long page = params.get(getPageParameter()).toLong(0);
+
+        setCurrentPage(Math.max(0, Math.min(page, getPageCount() - 1)));
+    }
+
+    /**
+     * Gets the name of the query parameter holding the table's current page.
+     * @return the parameter name.
+     */
+    public String getPageParameter() {
+        return getId() + "-page";
+    }
+
+    /**
+     * Gets the name of the query parameter holding the property the table is sorted by.
+     * @return the parameter name.
+     */
+    public String getSortParameter() {
+        return getId() + "-sort";
+    }
+
+    /**
+     * Gets the name of the query parameter holding the order the table is sorted in, asc or desc.
+     * @return the parameter name.
+     */
+    public String getOrderParameter() {
+        return getId() + "-order";
+    }
+
+    /**
+     * Creates a link to the page showing the given page of the table, sorted as it is now.
+     * @param id the component id.
+     * @param page the page of the table, starting at 0.
+     * @return the link.
+     */
+    BookmarkablePageLink<Void> newPageLink(final String id, final long page) {
+        final PageParameters params = getCurrentParameters();
+
+        if(page > 0) {
+            params.set(getPageParameter(), page);
+        } else {
+            params.remove(getPageParameter());
+        }
+
+        return new BookmarkablePageLink<Void>(id, getPage().getPageClass(), params);
+    }
+
+    /**
+     * Creates a link to the page showing the table sorted by a property, ascending unless it already is.
+     * @param id the component id.
+     * @param property the sort property.
+     * @return the link.
+     */
+    BookmarkablePageLink<Void> newSortLink(final String id, final String property) {
+        final PageParameters params = getCurrentParameters();
+        final boolean ascending = dataProvider.getSortState().getPropertySortOrder(property) == SortOrder.ASCENDING;
+
+        params.remove(getPageParameter());
+        params.set(getSortParameter(), property);
+        params.set(getOrderParameter(), ascending ? DESCENDING : ASCENDING);
+
+        return new BookmarkablePageLink<Void>(id, getPage().getPageClass(), params);
+    }
+
+    /**
+     * Gets the sort order of a property.
+     * @param property the sort property.
+     * @return the order, {@link SortOrder#NONE} if the table isn't sorted by it.
+     */
+    SortOrder getSortOrder(final String property) {
+        return dataProvider.getSortState().getPropertySortOrder(property);
+    }
+
+    private Set<String> getSortProperties() {
+        final Set<String> ret = new HashSet<String>();
+
+        for(final IColumn<T, String> column:getColumns()) {
+            if(column.isSortable()) {
+                ret.add(column.getSortProperty());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the parameters of the current request of the page.
+     *
+     * Croquet's page factory doesn't copy the query parameters into the page's parameters, so they are read from the
+     * request. Wicket's own parameter naming a page instance or listener has no value, and is left out.
+     */
+    private PageParameters getCurrentParameters() {
+        final PageParameters ret = new PageParameters(getPage().getPageParameters());
+        final IRequestParameters query = getRequest().getQueryParameters();
+
+        for(final String name:query.getParameterNames()) {
+            ret.remove(name);
+
+            for(final StringValue value:query.getParameterValues(name)) {
+                if(!value.isEmpty()) {
+                    ret.add(name, value.toString());
+                }
+            }
+        }
+
+        return ret;
+    }
+}
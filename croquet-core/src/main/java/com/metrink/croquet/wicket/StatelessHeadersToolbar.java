@@ -0,0 +1,70 @@
+package com.metrink.croquet.wicket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.AbstractToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.IColumn;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+
+/**
+ * The column headers of a {@link StatelessDataTable}, with a link to sort by each sortable column.
+ *
+ * The header cells get the same CSS classes as those of Wicket's sortable headers, so existing styles apply.
+ *
+ * @param <T> the type of the rows.
+ */
+class StatelessHeadersToolbar<T> extends AbstractToolbar {
+    private static final long serialVersionUID = 7193626542270457046L;
+
+    private static final String SORT_LINK = "sortLink";
+
+    /**
+     * Constructor.
+     * @param table the table the toolbar is the header of.
+     */
+    StatelessHeadersToolbar(final StatelessDataTable<T> table) {
+        super(table);
+
+        final List<IColumn<T, String>> columns = new ArrayList<IColumn<T, String>>(table.getColumns());
+
+        add(new ListView<IColumn<T, String>>("headers", columns) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void populateItem(final ListItem<IColumn<T, String>> item) {
+                final IColumn<T, String> column = item.getModelObject();
+                final BookmarkablePageLink<Void> link;
+
+                if(column.isSortable()) {
+                    link = table.newSortLink(SORT_LINK, column.getSortProperty());
+                    item.add(AttributeModifier.append("class", cssClass(table.getSortOrder(column.getSortProperty()))));
+                } else {
+                    // a disabled link renders as plain text
+                    link = table.newPageLink(SORT_LINK, table.getCurrentPage());
+                    link.setEnabled(false);
+                    link.setBeforeDisabledLink("");
+                    link.setAfterDisabledLink("");
+                }
+
+                link.add(column.getHeader("label"));
+                item.add(link);
+            }
+        });
+    }
+
+    private static String cssClass(final SortOrder order) {
+        switch(order) {
+        case ASCENDING:
+            return "wicket_orderUp";
+        case DESCENDING:
+            return "wicket_orderDown";
+        default:
+            return "wicket_orderNone";
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.metrink.croquet.wicket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.wicket.AttributeModifier;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.AbstractToolbar;
+import org.apache.wicket.extensions.markup.html.repeater.data.table.NavigatorLabel;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.basic.Label;
+import org.apache.wicket.markup.html.link.BookmarkablePageLink;
+import org.apache.wicket.markup.html.list.ListItem;
+import org.apache.wicket.markup.html.list.ListView;
+import org.apache.wicket.model.AbstractReadOnlyModel;
+
+/**
+ * The paging links of a {@link StatelessDataTable}: first, previous, a window of page numbers, next and last.
+ */
+class StatelessNavigationToolbar extends AbstractToolbar {
+    private static final long serialVersionUID = -2386815471958066153L;
+
+    private static final int PAGES_SHOWN = 10;
+
+    private final StatelessDataTable<?> table;
+    private final WebMarkupContainer span = new WebMarkupContainer("span");
+
+    /**
+     * Constructor.
+     * @param table the table the toolbar pages through.
+     */
+    StatelessNavigationToolbar(final StatelessDataTable<?> table) {
+        super(table);
+
+        this.table = table;
+
+        add(span);
+
+        span.add(AttributeModifier.replace("colspan", new AbstractReadOnlyModel<String>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public String getObject() {
+                return String.valueOf(table.getColumns().size());
+            }
+        }));
+
+        span.add(new NavigatorLabel("navigatorLabel", table));
+    }
+
+    @Override
+    protected void onInitialize() {
+        super.onInitialize();
+
+        // the table has read its current page by now
+        final long current = table.getCurrentPage();
+        final long last = Math.max(0, table.getPageCount() - 1);
+
+        span.add(table.newPageLink("first", 0).setEnabled(current > 0));
+        span.add(table.newPageLink("prev", Math.max(0, current - 1)).setEnabled(current > 0));
+        span.add(table.newPageLink("next", Math.min(last, current + 1)).setEnabled(current < last));
+        span.add(table.newPageLink("last", last).setEnabled(current < last));
+
+        // a window of page numbers around the current page
+        final long first = Math.max(0, Math.min(current - PAGES_SHOWN / 2, last + 1 - PAGES_SHOWN));
+        final List<Long> pages = new ArrayList<Long>();
+
+        for(long page = first; page <= last && pages.size() < PAGES_SHOWN; ++page) {
+            pages.add(page);
+        }
+
+        span.add(new ListView<Long>("pages", pages) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void populateItem(final ListItem<Long> item) {
+                final long page = item.getModelObject();
+                final BookmarkablePageLink<Void> link = table.newPageLink("pageLink", page);
+
+                link.add(new Label("pageNumber", String.valueOf(page + 1)));
+                link.setEnabled(page != current);
+                item.add(link);
+            }
+        });
+    }
+
+    @Override
+    protected void onConfigure() {
+        super.onConfigure();
+
+        setVisible(table.getPageCount() > 1);
+    }
+}
@@ -0,0 +1,79 @@
+package com.metrink.croquet.wicket;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.Page;
+import org.apache.wicket.application.IComponentOnAfterRenderListener;
+import org.apache.wicket.application.IComponentOnBeforeRenderListener;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.cycle.AbstractRequestCycleListener;
+import org.apache.wicket.request.cycle.RequestCycle;
+
+import com.metrink.croquet.metrics.RequestTimeline;
+
+/**
+ * Marks the phases of a Wicket request on the {@link RequestTimeline}: resolving the handler, executing it, and
+ * rendering the page.
+ */
+class TimelineListener extends AbstractRequestCycleListener
+        implements IComponentOnBeforeRenderListener, IComponentOnAfterRenderListener {
+    private static final MetaDataKey<Long> HANDLER_START = new MetaDataKey<Long>() {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private static final MetaDataKey<Long> RENDER_START = new MetaDataKey<Long>() {
+        private static final long serialVersionUID = 1L;
+    };
+
+    @Override
+    public void onBeginRequest(final RequestCycle cycle) {
+        RequestTimeline.mark("wicket_begin");
+    }
+
+    @Override
+    public void onRequestHandlerResolved(final RequestCycle cycle, final IRequestHandler handler) {
+        if(RequestTimeline.isActive()) {
+            cycle.setMetaData(HANDLER_START, System.nanoTime());
+        }
+    }
+
+    @Override
+    public void onRequestHandlerExecuted(final RequestCycle cycle, final IRequestHandler handler) {
+        final Long start = cycle.getMetaData(HANDLER_START);
+
+        // a handler can schedule another, time each of them
+        if(start != null) {
+            cycle.setMetaData(HANDLER_START, null);
+            RequestTimeline.record("handler", handler.getClass().getSimpleName(), start);
+        }
+    }
+
+    @Override
+    public void onDetach(final RequestCycle cycle) {
+        RequestTimeline.mark("wicket_detach");
+    }
+
+    // called before the page and its components are prepared for rendering
+    @Override
+    public void onBeforeRender(final Component component) {
+        if(component instanceof Page && RequestTimeline.isActive()) {
+            RequestCycle.get().setMetaData(RENDER_START, System.nanoTime());
+        }
+    }
+
+    // called after the page has rendered
+    @Override
+    public void onAfterRender(final Component component) {
+        if(!(component instanceof Page)) {
+            return;
+        }
+
+        final RequestCycle cycle = RequestCycle.get();
+        final Long start = cycle.getMetaData(RENDER_START);
+
+        if(start != null) {
+            cycle.setMetaData(RENDER_START, null);
+            RequestTimeline.record("render", component.getClass().getName(), start);
+        }
+    }
+}
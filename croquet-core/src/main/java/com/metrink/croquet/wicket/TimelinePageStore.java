@@ -0,0 +1,36 @@
+package com.metrink.croquet.wicket;
+
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.DefaultPageStore;
+import org.apache.wicket.pageStore.IDataStore;
+import org.apache.wicket.serialize.ISerializer;
+
+import com.metrink.croquet.metrics.RequestTimeline;
+
+/**
+ * A {@link DefaultPageStore} that records the time taken to serialize and store each page on the
+ * {@link RequestTimeline}.
+ */
+class TimelinePageStore extends DefaultPageStore {
+
+    /**
+     * Constructor.
+     * @param pageSerializer the serializer used to convert pages to bytes.
+     * @param dataStore the store the serialized pages are written to.
+     * @param cacheSize the number of serialized pages kept in memory.
+     */
+    TimelinePageStore(final ISerializer pageSerializer, final IDataStore dataStore, final int cacheSize) {
+        super(pageSerializer, dataStore, cacheSize);
+    }
+
+    @Override
+    public void storePage(final String sessionId, final IManageablePage page) {
+        final long start = System.nanoTime();
+
+        try {
+            super.storePage(sessionId, page);
+        } finally {
+            RequestTimeline.record("page_store", page.getClass().getName(), start);
+        }
+    }
+}
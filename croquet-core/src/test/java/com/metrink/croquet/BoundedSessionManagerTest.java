@@ -0,0 +1,130 @@
+package com.metrink.croquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.eclipse.jetty.server.session.AbstractSession;
+import org.eclipse.jetty.server.session.HashedSession;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class BoundedSessionManagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private final BoundedSessionManager manager = new BoundedSessionManager(2, null, registry);
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        final AbstractSession first = session(AbstractSession.class, "first");
+        final AbstractSession second = session(AbstractSession.class, "second");
+        final AbstractSession third = session(AbstractSession.class, "third");
+
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.addSession(third);
+
+        verify(first).invalidate();
+        verify(second, never()).invalidate();
+        verify(third, never()).invalidate();
+        assertEquals(2, manager.getSessionsInMemory());
+        assertEquals(3, count(BoundedSessionManager.CREATED));
+        assertEquals(1, count(BoundedSessionManager.EVICTED, "action", "invalidated"));
+        assertEquals(2.0, registry.getGauges().get(new MetricName(BoundedSessionManager.SESSIONS)).getValue(), 0);
+    }
+
+    @Test
+    public void testAccessMakesRecent() {
+        final AbstractSession first = session(AbstractSession.class, "first");
+        final AbstractSession second = session(AbstractSession.class, "second");
+
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.access(first, false);
+        manager.addSession(session(AbstractSession.class, "third"));
+
+        verify(first, never()).invalidate();
+        verify(second).invalidate();
+    }
+
+    @Test
+    public void testSessionReadBackEvicts() {
+        final AbstractSession first = session(AbstractSession.class, "first");
+        final AbstractSession second = session(AbstractSession.class, "second");
+
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.addSession(session(AbstractSession.class, "third"));
+
+        // the evicted session's user comes back, which pushes out the least recently used
+        manager.access(first, false);
+
+        verify(second).invalidate();
+        assertEquals(2, manager.getSessionsInMemory());
+        assertEquals(2, count(BoundedSessionManager.EVICTED, "action", "invalidated"));
+    }
+
+    @Test
+    public void testRemovedSessionsFreeTheirPlace() {
+        final AbstractSession first = session(AbstractSession.class, "first");
+        final AbstractSession second = session(AbstractSession.class, "second");
+
+        manager.addSession(first);
+        manager.addSession(second);
+        manager.removeSession("first");
+        manager.addSession(session(AbstractSession.class, "third"));
+
+        verify(second, never()).invalidate();
+        assertEquals(2, manager.getSessionsInMemory());
+        assertEquals(0, count(BoundedSessionManager.EVICTED, "action", "invalidated"));
+    }
+
+    @Test
+    public void testPassivated() throws Exception {
+        final BoundedSessionManager passivating = new BoundedSessionManager(1, folder.newFolder(), registry);
+        final HashedSession first = session(HashedSession.class, "first");
+
+        passivating.addSession(first);
+        passivating.addSession(session(HashedSession.class, "second"));
+
+        verify(first).idle();
+        verify(first, never()).invalidate();
+        assertEquals(1, count(BoundedSessionManager.EVICTED, "action", "passivated"));
+    }
+
+    @Test
+    public void testFailedEvictionIgnored() {
+        final AbstractSession first = session(AbstractSession.class, "first");
+
+        doThrow(new IllegalStateException("already invalid")).when(first).invalidate();
+
+        manager.addSession(first);
+        manager.addSession(session(AbstractSession.class, "second"));
+        manager.addSession(session(AbstractSession.class, "third"));
+
+        assertEquals(2, manager.getSessionsInMemory());
+    }
+
+    private long count(final String name, final String... labels) {
+        return registry.getCounters().get(new MetricName(name, labels)).getCount();
+    }
+
+    private static <S extends AbstractSession> S session(final Class<S> type, final String id) {
+        final S session = mock(type);
+
+        when(session.getClusterId()).thenReturn(id);
+        when(session.getSession()).thenReturn(session);
+
+        return session;
+    }
+}
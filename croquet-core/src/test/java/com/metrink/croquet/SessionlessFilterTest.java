@@ -0,0 +1,125 @@
+package com.metrink.croquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+import org.apache.wicket.request.resource.IResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class SessionlessFilterTest {
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private SessionlessFilter filter;
+
+    @Before
+    public void setUp() {
+        final WicketSettings settings = mock(WicketSettings.class);
+        final Map<String, Class<? extends IResource>> resources = new HashMap<String, Class<? extends IResource>>();
+
+        resources.put("/health", IResource.class);
+        resources.put("images/", IResource.class);
+
+        when(settings.getResourceMountClasses()).thenReturn(resources);
+        when(settings.getSessionlessPaths()).thenReturn(Arrays.asList("/api"));
+
+        filter = new SessionlessFilter(settings, registry);
+    }
+
+    @Test
+    public void testSessionlessPaths() throws Exception {
+        assertNull(request("/health").getSession());
+        assertNull(request("/health/db").getSession(true));
+        assertNull(request("/images").getSession());
+        assertNull(request("/images/logo.png").getSession());
+        assertNull(request("/api/people").getSession());
+        assertNull(request("/wicket/resource/org.apache.wicket.Application/style.css").getSession());
+
+        assertEquals(6, blocked());
+    }
+
+    @Test
+    public void testOtherPathsCreateSessions() throws Exception {
+        // a mount is a path segment, not a prefix of the URI
+        assertSessionCreated("/healthz");
+        assertSessionCreated("/apis");
+        assertSessionCreated("/people");
+        assertSessionCreated("/");
+
+        assertEquals(0, blocked());
+    }
+
+    @Test
+    public void testExistingSessionUsed() throws Exception {
+        final HttpSession session = mock(HttpSession.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        when(request.getRequestURI()).thenReturn("/health");
+        when(request.getSession(false)).thenReturn(session);
+
+        assertSame(session, filter(request).getSession());
+        assertEquals(0, blocked());
+    }
+
+    @Test
+    public void testNotCreatingIsNotCounted() throws Exception {
+        assertNull(request("/health").getSession(false));
+
+        assertEquals(0, blocked());
+    }
+
+    private void assertSessionCreated(final String uri) throws Exception {
+        final HttpSession session = mock(HttpSession.class);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        when(request.getRequestURI()).thenReturn(uri);
+        when(request.getSession()).thenReturn(session);
+
+        assertSame(session, filter(request).getSession());
+    }
+
+    private HttpServletRequest request(final String uri) throws Exception {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+
+        when(request.getRequestURI()).thenReturn(uri);
+
+        return filter(request);
+    }
+
+    /**
+     * Runs the request through the filter, and returns the request the rest of the chain sees.
+     */
+    private HttpServletRequest filter(final HttpServletRequest request) throws Exception {
+        final FilterChain chain = mock(FilterChain.class);
+        final ArgumentCaptor<ServletRequest> captor = ArgumentCaptor.forClass(ServletRequest.class);
+
+        filter.doFilter(request, mock(ServletResponse.class), chain);
+
+        verify(chain).doFilter(captor.capture(), any(ServletResponse.class));
+
+        return (HttpServletRequest)captor.getValue();
+    }
+
+    private long blocked() {
+        return registry.getCounters().get(new MetricName(SessionlessFilter.BLOCKED)).getCount();
+    }
+}
@@ -0,0 +1,186 @@
+package com.metrink.croquet.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Provider;
+import com.google.inject.persist.UnitOfWork;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+import com.sop4j.dbutils.QueryRunner;
+
+public class AsyncQueryServiceTest {
+    private UnitOfWork unitOfWork;
+    private Provider<EntityManager> entityManagerProvider;
+    private Provider<QueryRunner> queryRunnerProvider;
+    private EntityManager entityManager;
+    private EntityTransaction transaction;
+    private AsyncQueryService service;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final DatabaseSettings dbSettings = mock(DatabaseSettings.class);
+
+        when(settings.getDatabaseSettings()).thenReturn(dbSettings);
+        when(dbSettings.getAsyncThreads()).thenReturn(1);
+        when(dbSettings.getAsyncQueueSize()).thenReturn(10);
+
+        unitOfWork = mock(UnitOfWork.class);
+        entityManagerProvider = mock(Provider.class);
+        queryRunnerProvider = mock(Provider.class);
+        entityManager = mock(EntityManager.class);
+        transaction = mock(EntityTransaction.class);
+
+        when(entityManagerProvider.get()).thenReturn(entityManager);
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        when(queryRunnerProvider.get()).thenReturn(mock(QueryRunner.class));
+
+        service = new AsyncQueryService(settings, unitOfWork, entityManagerProvider, queryRunnerProvider);
+        service.start();
+    }
+
+    @After
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    public void testResult() throws Exception {
+        assertEquals("done", get(service.withEntityManager(em -> "done")));
+        assertEquals("done", get(service.withQueryRunner(qr -> "done")));
+
+        verify(unitOfWork, times(2)).begin();
+        verify(unitOfWork, times(2)).end();
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        assertEquals("done", get(service.withEntityManager(em -> "done")));
+
+        // as a JMX restart does
+        service.stop();
+        service.start();
+
+        assertEquals("done", get(service.withEntityManager(em -> "done")));
+    }
+
+    @Test
+    public void testSqlExceptionIsTheCause() throws Exception {
+        final SQLException exception = new SQLException("bad query");
+
+        assertSame(exception, failure(service.withQueryRunner(qr -> {
+            throw exception;
+        })));
+    }
+
+    @Test
+    public void testErrorCompletesTheFuture() throws Exception {
+        final AssertionError error = new AssertionError("boom");
+
+        assertSame(error, failure(service.withEntityManager(em -> {
+            throw error;
+        })));
+        assertSame(error, failure(service.withQueryRunner(qr -> {
+            throw error;
+        })));
+    }
+
+    @Test
+    public void testEntityManagerProviderFails() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("no entity manager");
+
+        when(entityManagerProvider.get()).thenThrow(exception);
+
+        assertSame(exception, failure(service.withEntityManager(em -> "done")));
+    }
+
+    @Test
+    public void testUnitOfWorkFailsToBegin() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("already begun");
+
+        doThrow(exception).when(unitOfWork).begin();
+
+        assertSame(exception, failure(service.withEntityManager(em -> "done")));
+        assertSame(exception, failure(service.withQueryRunner(qr -> "done")));
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("failed");
+
+        when(transaction.isActive()).thenReturn(true);
+
+        assertSame(exception, failure(service.withEntityManager(em -> {
+            throw exception;
+        })));
+
+        verify(transaction).rollback();
+    }
+
+    @Test
+    public void testRollbackFails() throws Exception {
+        final IllegalStateException exception = new IllegalStateException("failed");
+        final IllegalStateException rollback = new IllegalStateException("connection closed");
+
+        when(transaction.isActive()).thenReturn(true);
+        doThrow(rollback).when(transaction).rollback();
+
+        final Throwable cause = failure(service.withEntityManager(em -> {
+            throw exception;
+        }));
+
+        assertSame(exception, cause);
+        assertSame(rollback, cause.getSuppressed()[0]);
+    }
+
+    @Test
+    public void testDeadlinePropagates() throws Exception {
+        QueryDeadline.set(1, TimeUnit.MINUTES);
+
+        try {
+            assertEquals(QueryDeadline.get(), get(service.withQueryRunner(qr -> QueryDeadline.get())));
+        } finally {
+            QueryDeadline.clear();
+        }
+
+        // the executor's thread doesn't keep it for the next piece of work
+        assertNull(get(service.withQueryRunner(qr -> QueryDeadline.get())));
+    }
+
+    private static <T> T get(final CompletableFuture<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static Throwable failure(final CompletableFuture<?> future) throws InterruptedException, TimeoutException {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        }
+
+        fail("The future completed normally");
+        return null;
+    }
+}
@@ -0,0 +1,222 @@
+package com.metrink.croquet.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.sql.DataSource;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.metrink.croquet.DataSourceFactory;
+
+public class BatchWriterTest {
+    private static final String INSERT_COMPANY = "INSERT INTO companies (name) VALUES (?)";
+    private static final String INSERT_PERSON = "INSERT INTO people (name, company) VALUES (?, ?)";
+
+    private DataSourceFactory dataSourceFactory;
+    private Connection connection;
+    private PreparedStatement companies;
+    private PreparedStatement people;
+
+    @Before
+    public void setUp() throws SQLException {
+        final DataSource dataSource = mock(DataSource.class);
+
+        dataSourceFactory = mock(DataSourceFactory.class);
+        connection = mock(Connection.class);
+        companies = mock(PreparedStatement.class);
+        people = mock(PreparedStatement.class);
+
+        when(dataSourceFactory.getDataSource()).thenReturn(dataSource);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(INSERT_COMPANY)).thenReturn(companies);
+        when(connection.prepareStatement(INSERT_PERSON)).thenReturn(people);
+    }
+
+    @Test
+    public void testBatchSize() throws SQLException {
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, 3, Long.MAX_VALUE);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+        writer.add(INSERT_COMPANY, "Croquet");
+
+        assertEquals(2, writer.getPendingCount());
+        verify(dataSourceFactory, never()).getDataSource();
+
+        writer.add(INSERT_COMPANY, "Wicket");
+
+        assertEquals(0, writer.getPendingCount());
+        verify(companies, times(3)).addBatch();
+        verify(companies).executeBatch();
+        verify(connection).commit();
+        verify(connection).close();
+    }
+
+    @Test
+    public void testFlushInterval() throws SQLException {
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, 0);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+
+        assertEquals(0, writer.getPendingCount());
+        verify(companies).executeBatch();
+    }
+
+    @Test
+    public void testFlushIntervalOnlyCheckedOnAdd() throws Exception {
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, 50);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+        Thread.sleep(100);
+
+        assertEquals(1, writer.getPendingCount());
+        verify(dataSourceFactory, never()).getDataSource();
+
+        writer.add(INSERT_COMPANY, "Croquet");
+
+        assertEquals(0, writer.getPendingCount());
+        verify(companies, times(2)).addBatch();
+    }
+
+    @Test
+    public void testStatementsInOrderOfFirstAdd() throws SQLException {
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+        writer.add(INSERT_PERSON, "Bill", "Metrink");
+        writer.add(INSERT_COMPANY, "Croquet");
+        writer.close();
+
+        final InOrder order = inOrder(companies, people, connection);
+
+        order.verify(companies).setObject(1, "Metrink");
+        order.verify(companies).setObject(1, "Croquet");
+        order.verify(companies).executeBatch();
+        order.verify(people).setObject(1, "Bill");
+        order.verify(people).setObject(2, "Metrink");
+        order.verify(people).executeBatch();
+        order.verify(connection).commit();
+    }
+
+    @Test
+    public void testParamsCopied() throws SQLException {
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE);
+        final Object[] params = { "Metrink" };
+
+        writer.add(INSERT_COMPANY, params);
+        params[0] = "Croquet";
+        writer.flush();
+
+        verify(companies).setObject(1, "Metrink");
+    }
+
+    @Test
+    public void testNullParameter() throws SQLException {
+        final ParameterMetaData pmd = mock(ParameterMetaData.class);
+
+        when(people.getParameterMetaData()).thenReturn(pmd);
+        when(pmd.getParameterType(2)).thenReturn(Types.INTEGER);
+
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.add(INSERT_PERSON, "Bill", null);
+        writer.flush();
+
+        verify(people).setNull(2, Types.INTEGER);
+    }
+
+    @Test
+    public void testNullParameterWithoutMetaData() throws SQLException {
+        final ParameterMetaData pmd = mock(ParameterMetaData.class);
+
+        when(people.getParameterMetaData()).thenReturn(pmd);
+        when(pmd.getParameterType(2)).thenThrow(new SQLException("not supported"));
+
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.add(INSERT_PERSON, "Bill", null);
+        writer.flush();
+
+        verify(people).setNull(2, Types.VARCHAR);
+    }
+
+    @Test
+    public void testFailedFlush() throws SQLException {
+        final SQLException exception = new SQLException("duplicate key");
+
+        when(companies.executeBatch()).thenThrow(exception);
+
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+
+        try {
+            writer.flush();
+            fail("The flush should have failed");
+        } catch (final SQLException e) {
+            assertSame(exception, e);
+        }
+
+        // the rows are discarded, and the connection is returned as it was borrowed
+        assertEquals(0, writer.getPendingCount());
+        verify(connection, never()).commit();
+        verify(connection).rollback();
+        verify(connection).setAutoCommit(true);
+        verify(connection).close();
+    }
+
+    @Test
+    public void testEmptyFlush() throws SQLException {
+        new BatchWriter(dataSourceFactory, null, Integer.MAX_VALUE, Long.MAX_VALUE).close();
+
+        verify(dataSourceFactory, never()).getDataSource();
+    }
+
+    @Test
+    public void testJoinsActiveTransaction() throws SQLException {
+        final EntityManager entityManager = mock(EntityManager.class);
+        final EntityTransaction transaction = mock(EntityTransaction.class);
+        final Session session = mock(Session.class);
+
+        when(entityManager.getTransaction()).thenReturn(transaction);
+        when(transaction.isActive()).thenReturn(true);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            ((Work)invocation.getArguments()[0]).execute(connection);
+            return null;
+        }).when(session).doWork(any(Work.class));
+
+        final BatchWriter writer = new BatchWriter(dataSourceFactory, entityManager, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+        writer.add(INSERT_COMPANY, "Metrink");
+        writer.close();
+
+        // the transaction's owner commits, and keeps its connection
+        verify(companies).executeBatch();
+        verify(dataSourceFactory, never()).getDataSource();
+        verify(connection, never()).commit();
+        verify(connection, never()).close();
+    }
+}
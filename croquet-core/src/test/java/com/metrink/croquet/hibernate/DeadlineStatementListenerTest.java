@@ -0,0 +1,104 @@
+package com.metrink.croquet.hibernate;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeadlineStatementListenerTest {
+    private static final String SQL = "SELECT * FROM people";
+
+    private DeadlineStatementListener listener;
+    private Statement statement;
+
+    @Before
+    public void setUp() {
+        listener = new DeadlineStatementListener();
+        statement = mock(Statement.class);
+    }
+
+    @After
+    public void tearDown() {
+        QueryDeadline.clear();
+        listener.shutdown();
+    }
+
+    @Test
+    public void testNoDeadline() throws SQLException {
+        listener.beforeExecute(statement, SQL);
+        listener.afterExecute(statement, SQL, 0, true);
+
+        verifyZeroInteractions(statement);
+    }
+
+    @Test
+    public void testTimeoutRoundedUp() throws SQLException {
+        QueryDeadline.set(1500, TimeUnit.MILLISECONDS);
+
+        listener.beforeExecute(statement, SQL);
+        listener.afterExecute(statement, SQL, 0, true);
+
+        verify(statement).setQueryTimeout(2);
+    }
+
+    @Test
+    public void testShorterTimeoutKept() throws SQLException {
+        QueryDeadline.set(1, TimeUnit.MINUTES);
+        when(statement.getQueryTimeout()).thenReturn(5);
+
+        listener.beforeExecute(statement, SQL);
+        listener.afterExecute(statement, SQL, 0, true);
+
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    public void testLongerTimeoutShortened() throws SQLException {
+        QueryDeadline.set(3, TimeUnit.SECONDS);
+        when(statement.getQueryTimeout()).thenReturn(60);
+
+        listener.beforeExecute(statement, SQL);
+        listener.afterExecute(statement, SQL, 0, true);
+
+        verify(statement).setQueryTimeout(3);
+    }
+
+    @Test(expected = SQLTimeoutException.class)
+    public void testDeadlinePassed() throws SQLException {
+        QueryDeadline.set(-1, TimeUnit.MILLISECONDS);
+
+        listener.beforeExecute(statement, SQL);
+    }
+
+    @Test
+    public void testCancelledAtDeadline() throws SQLException {
+        QueryDeadline.set(50, TimeUnit.MILLISECONDS);
+
+        listener.beforeExecute(statement, SQL);
+
+        verify(statement, timeout(5000)).cancel();
+    }
+
+    @Test
+    public void testNotCancelledOnceExecuted() throws SQLException {
+        QueryDeadline.set(50, TimeUnit.MILLISECONDS);
+
+        listener.beforeExecute(statement, SQL);
+        listener.afterExecute(statement, SQL, 0, true);
+
+        verify(statement, after(200).never()).cancel();
+    }
+}
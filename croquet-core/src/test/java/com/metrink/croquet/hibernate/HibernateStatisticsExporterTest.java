@@ -0,0 +1,189 @@
+package com.metrink.croquet.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.Provider;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+import com.metrink.croquet.MetricsSettings;
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class HibernateStatisticsExporterTest {
+    private static final String QUERY = "query";
+
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private final Map<String, QueryStatistics> queries = new HashMap<String, QueryStatistics>();
+    private Provider<EntityManagerFactory> provider;
+    private Statistics statistics;
+    private HibernateStatisticsExporter exporter;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final MetricsSettings metricsSettings = mock(MetricsSettings.class);
+        final DatabaseSettings dbSettings = mock(DatabaseSettings.class);
+        final HibernateEntityManagerFactory factory = mock(HibernateEntityManagerFactory.class);
+        final SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+
+        when(settings.getMetricsSettings()).thenReturn(metricsSettings);
+        when(settings.getDatabaseSettings()).thenReturn(dbSettings);
+        when(metricsSettings.getRefreshInterval()).thenReturn(Long.MAX_VALUE);
+        when(dbSettings.getSlowQueryCount()).thenReturn(2);
+
+        provider = mock(Provider.class);
+        statistics = mock(Statistics.class);
+
+        when(provider.get()).thenReturn(factory);
+        when(factory.getSessionFactory()).thenReturn(sessionFactory);
+        when(sessionFactory.getStatistics()).thenReturn(statistics);
+        when(statistics.isStatisticsEnabled()).thenReturn(true);
+        when(statistics.getQueries()).thenAnswer(invocation -> queries.keySet().toArray(new String[0]));
+        when(statistics.getQueryStatistics(anyString()))
+            .thenAnswer(invocation -> queries.get(invocation.getArguments()[0]));
+
+        exporter = new HibernateStatisticsExporter(settings, registry, provider);
+    }
+
+    @After
+    public void tearDown() {
+        exporter.stop();
+    }
+
+    @Test
+    public void testTotalsAreCounters() {
+        when(statistics.getSessionOpenCount()).thenReturn(5L);
+        when(statistics.getEntityInsertCount()).thenReturn(3L);
+
+        exporter.start();
+
+        assertEquals(5, registry.getCounters().get(new MetricName("hibernate_sessions_opened_total")).getCount());
+        assertEquals(3, registry.getCounters().get(new MetricName("hibernate_entities_total", "op", "insert")).getCount());
+        assertFalse(registry.getGauges().containsKey(new MetricName("hibernate_sessions_opened")));
+
+        // Hibernate's own totals, read when the metrics are rendered
+        when(statistics.getSessionOpenCount()).thenReturn(6L);
+
+        assertEquals(6, registry.getCounters().get(new MetricName("hibernate_sessions_opened_total")).getCount());
+    }
+
+    @Test
+    public void testSlowestQueries() {
+        query("from Person", 10);
+        query("from Company", 30);
+        query("from Person p where p.id = ?", 20);
+
+        exporter.exportSlowQueries();
+
+        assertEquals(set("from Company", "from Person p where p.id = ?"), exported());
+        assertEquals(7, registry.getCounters().get(new MetricName(HibernateStatisticsExporter.SLOW_QUERY_EXECUTIONS,
+                                                                  QUERY, "from Company")).getCount());
+        assertEquals(0.03, registry.getGauges().get(new MetricName(HibernateStatisticsExporter.SLOW_QUERY_MAX,
+                                                                   QUERY, "from Company")).getValue(), 0.0001);
+    }
+
+    @Test
+    public void testQueriesLeavingTheSlowestAreRemoved() {
+        query("from Person", 10);
+        query("from Company", 30);
+        query("from Person p where p.id = ?", 20);
+
+        exporter.exportSlowQueries();
+
+        query("from Person", 40);
+
+        exporter.exportSlowQueries();
+
+        assertEquals(set("from Company", "from Person"), exported());
+        assertFalse(registry.getGauges().containsKey(new MetricName(HibernateStatisticsExporter.SLOW_QUERY_AVG,
+                                                                    QUERY, "from Person p where p.id = ?")));
+        assertFalse(registry.getCounters().containsKey(new MetricName(HibernateStatisticsExporter.SLOW_QUERY_EXECUTIONS,
+                                                                      QUERY, "from Person p where p.id = ?")));
+    }
+
+    @Test
+    public void testNotStarted() {
+        when(provider.get()).thenReturn(mock(EntityManagerFactory.class));
+
+        exporter.exportSlowQueries();
+
+        assertTrue(exported().isEmpty());
+    }
+
+    @Test
+    public void testLabel() {
+        assertEquals("from Person", HibernateStatisticsExporter.label("from Person"));
+        assertTrue(HibernateStatisticsExporter.label("from Person\n  where id = ?").startsWith("from Person where id = ? #"));
+    }
+
+    @Test
+    public void testTruncatedLabelsAreUnique() {
+        final char[] chars = new char[HibernateStatisticsExporter.MAX_QUERY_LABEL];
+
+        Arrays.fill(chars, 'x');
+
+        final String prefix = "select " + new String(chars);
+        final String first = HibernateStatisticsExporter.label(prefix + " from people");
+        final String second = HibernateStatisticsExporter.label(prefix + " from companies");
+
+        assertNotEquals(first, second);
+        assertEquals(HibernateStatisticsExporter.MAX_QUERY_LABEL, first.length());
+        assertEquals(HibernateStatisticsExporter.MAX_QUERY_LABEL, second.length());
+
+        query(prefix + " from people", 10);
+        query(prefix + " from companies", 20);
+
+        exporter.exportSlowQueries();
+
+        assertEquals(set(first, second), exported());
+    }
+
+    private void query(final String query, final long maxTime) {
+        final QueryStatistics queryStats = mock(QueryStatistics.class);
+
+        when(queryStats.getExecutionMaxTime()).thenReturn(maxTime);
+        when(queryStats.getExecutionCount()).thenReturn(7L);
+
+        queries.put(query, queryStats);
+    }
+
+    private Set<String> exported() {
+        final Set<String> labels = new HashSet<String>();
+
+        for(final MetricName name:registry.getGauges().keySet()) {
+            if(name.getName().equals(HibernateStatisticsExporter.SLOW_QUERY_MAX)) {
+                labels.add(name.getLabels().get(QUERY));
+            }
+        }
+
+        return labels;
+    }
+
+    private static Set<String> set(final String... values) {
+        return new HashSet<String>(Arrays.asList(values));
+    }
+}
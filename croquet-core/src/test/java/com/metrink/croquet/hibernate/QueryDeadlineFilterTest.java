@@ -0,0 +1,132 @@
+package com.metrink.croquet.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+
+public class QueryDeadlineFilterTest {
+    private static final String HEADER = "X-Request-Timeout";
+
+    @After
+    public void tearDown() {
+        QueryDeadline.clear();
+    }
+
+    @Test
+    public void testConfiguredDeadline() throws Exception {
+        final long remaining = filter(5000, null);
+
+        assertTrue(remaining > 4000 && remaining <= 5000);
+        assertNull(QueryDeadline.get());
+    }
+
+    @Test
+    public void testNoDeadline() throws Exception {
+        assertEquals(Long.MAX_VALUE, filter(0, null));
+        assertEquals(Long.MAX_VALUE, filter(0, "abc"));
+    }
+
+    @Test
+    public void testHeaderShortensDeadline() throws Exception {
+        final long remaining = filter(5000, " 2000 ");
+
+        assertTrue(remaining > 1000 && remaining <= 2000);
+    }
+
+    @Test
+    public void testHeaderCannotExtendDeadline() throws Exception {
+        final long remaining = filter(2000, "60000");
+
+        assertTrue(remaining > 1000 && remaining <= 2000);
+    }
+
+    @Test
+    public void testHeaderWithoutConfiguredDeadline() throws Exception {
+        final long remaining = filter(0, "2000");
+
+        assertTrue(remaining > 1000 && remaining <= 2000);
+    }
+
+    @Test
+    public void testClientGaveUp() throws Exception {
+        assertTrue(filter(5000, "0") <= 1);
+        assertTrue(filter(5000, "-10") <= 1);
+    }
+
+    @Test
+    public void testInvalidHeaderIgnored() throws Exception {
+        final long remaining = filter(5000, "soon");
+
+        assertTrue(remaining > 4000 && remaining <= 5000);
+    }
+
+    @Test
+    public void testDeadlineClearedWhenChainThrows() throws Exception {
+        final QueryDeadlineFilter filter = new QueryDeadlineFilter(settings(5000));
+        final FilterChain chain = mock(FilterChain.class);
+
+        doAnswer(invocation -> {
+            throw new IllegalStateException("page failed");
+        }).when(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+        try {
+            filter.doFilter(mock(HttpServletRequest.class), mock(HttpServletResponse.class), chain);
+        } catch (final IllegalStateException e) {
+            assertNull(QueryDeadline.get());
+            return;
+        }
+
+        throw new AssertionError("The chain's exception was swallowed");
+    }
+
+    /**
+     * Runs a request through the filter, returning the milliseconds remaining when the chain was called.
+     */
+    private static long filter(final long configured, final String header) throws Exception {
+        final QueryDeadlineFilter filter = new QueryDeadlineFilter(settings(configured));
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final FilterChain chain = mock(FilterChain.class);
+        final AtomicLong remaining = new AtomicLong();
+
+        when(request.getHeader(HEADER)).thenReturn(header);
+        doAnswer(invocation -> {
+            remaining.set(QueryDeadline.remainingMillis());
+            return null;
+        }).when(chain).doFilter(any(ServletRequest.class), any(ServletResponse.class));
+
+        filter.doFilter(request, mock(HttpServletResponse.class), chain);
+
+        assertNull(QueryDeadline.get());
+
+        return remaining.get();
+    }
+
+    private static AbstractSettings settings(final long deadline) {
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final DatabaseSettings dbSettings = mock(DatabaseSettings.class);
+
+        when(settings.getDatabaseSettings()).thenReturn(dbSettings);
+        when(dbSettings.getQueryDeadline()).thenReturn(deadline);
+        when(dbSettings.getQueryDeadlineHeader()).thenReturn(HEADER);
+
+        return settings;
+    }
+}
@@ -0,0 +1,175 @@
+package com.metrink.croquet.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.DatabaseSettings;
+
+public class StatementBudgetTest {
+    private static final String SELECT_PERSON = "SELECT * FROM people WHERE id = ?";
+    private static final String SELECT_COMPANY = "SELECT * FROM companies WHERE id = ?";
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    private final Logger logger = (Logger)LoggerFactory.getLogger(StatementBudget.class);
+
+    @Before
+    public void setUp() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    public void testWithinBudget() {
+        final StatementBudget statementBudget = create(3, 10, true);
+
+        statementBudget.begin();
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.end();
+
+        assertTrue(warnings().isEmpty());
+    }
+
+    @Test
+    public void testOverBudgetFails() {
+        final StatementBudget statementBudget = create(2, 10, true);
+
+        statementBudget.begin();
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+
+        try {
+            statementBudget.beforeExecute(null, SELECT_PERSON);
+            fail("The third statement is over budget");
+        } catch (final IllegalStateException e) {
+            assertTrue(e.getMessage().contains(SELECT_PERSON));
+        } finally {
+            statementBudget.end();
+        }
+    }
+
+    @Test
+    public void testOverBudgetLogged() {
+        final StatementBudget statementBudget = create(2, 10, false);
+
+        statementBudget.begin();
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.end();
+
+        assertEquals(1, warnings().size());
+        assertTrue(warnings().get(0).contains("executed 3 SQL statements, the budget is 2"));
+    }
+
+    @Test
+    public void testDuplicateStatements() {
+        final StatementBudget statementBudget = create(100, 3, false);
+
+        statementBudget.begin();
+
+        for(int i = 0; i < 3; ++i) {
+            statementBudget.beforeExecute(null, SELECT_PERSON);
+        }
+
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+        statementBudget.end();
+
+        assertEquals(1, warnings().size());
+        assertTrue(warnings().get(0).contains("N+1"));
+        assertTrue(warnings().get(0).contains(SELECT_PERSON));
+    }
+
+    @Test
+    public void testNotCountedOutsideUnitOfWork() {
+        final StatementBudget statementBudget = create(1, 1, true);
+
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+        statementBudget.end();
+
+        assertTrue(warnings().isEmpty());
+    }
+
+    @Test
+    public void testCountsResetEachUnitOfWork() {
+        final StatementBudget statementBudget = create(2, 10, true);
+
+        for(int i = 0; i < 3; ++i) {
+            statementBudget.begin();
+            statementBudget.beforeExecute(null, SELECT_PERSON);
+            statementBudget.beforeExecute(null, SELECT_COMPANY);
+            statementBudget.end();
+        }
+
+        assertTrue(warnings().isEmpty());
+    }
+
+    @Test
+    public void testCountedPerThread() throws Exception {
+        final StatementBudget statementBudget = create(2, 10, true);
+
+        statementBudget.begin();
+        statementBudget.beforeExecute(null, SELECT_PERSON);
+
+        final Thread other = new Thread(() -> {
+            statementBudget.begin();
+            statementBudget.beforeExecute(null, SELECT_PERSON);
+            statementBudget.beforeExecute(null, SELECT_PERSON);
+            statementBudget.end();
+        });
+
+        other.start();
+        other.join();
+
+        statementBudget.beforeExecute(null, SELECT_COMPANY);
+        statementBudget.end();
+
+        assertTrue(warnings().isEmpty());
+    }
+
+    private static StatementBudget create(final int budget, final int duplicateThreshold, final boolean fail) {
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final DatabaseSettings dbSettings = mock(DatabaseSettings.class);
+
+        when(settings.getDatabaseSettings()).thenReturn(dbSettings);
+        when(settings.getDevelopment()).thenReturn(Boolean.FALSE);
+        when(dbSettings.getStatementBudget()).thenReturn(budget);
+        when(dbSettings.getDuplicateStatementThreshold()).thenReturn(duplicateThreshold);
+        when(dbSettings.getStatementBudgetFail(anyBoolean())).thenReturn(fail);
+
+        return new StatementBudget(settings);
+    }
+
+    private List<String> warnings() {
+        return appender.list.stream()
+                            .filter(event -> event.getLevel() == Level.WARN)
+                            .map(ILoggingEvent::getFormattedMessage)
+                            .collect(Collectors.toList());
+    }
+}
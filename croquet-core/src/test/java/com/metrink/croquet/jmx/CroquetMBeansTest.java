@@ -0,0 +1,121 @@
+package com.metrink.croquet.jmx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import com.google.inject.Injector;
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.CroquetStatus;
+import com.metrink.croquet.modules.ManagedModule;
+
+public class CroquetMBeansTest {
+    private static final int PORT = 18123;
+
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final CroquetMBeans mbeans = new CroquetMBeans(PORT);
+    private final ManagedModule module = mock(ManagedModule.class);
+    private final ManagedModule other = mock(ManagedModule.class);
+
+    @Before
+    public void setUp() {
+        final Injector injector = mock(Injector.class);
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final Server server = mock(Server.class);
+        final Map<String, ManagedModule> modules = new LinkedHashMap<String, ManagedModule>();
+
+        when(injector.getInstance(AbstractSettings.class)).thenReturn(settings);
+        when(settings.getPort()).thenReturn(PORT);
+        when(server.getThreadPool()).thenReturn(new QueuedThreadPool());
+
+        modules.put("module", module);
+        modules.put("other", other);
+
+        mbeans.register(injector, server, () -> CroquetStatus.RUNNING, modules);
+    }
+
+    @After
+    public void tearDown() {
+        mbeans.unregister();
+    }
+
+    @Test
+    public void testRegistered() throws Exception {
+        final CroquetMXBean croquet = JMX.newMXBeanProxy(mbeanServer, name("Croquet"), CroquetMXBean.class);
+
+        assertEquals("RUNNING", croquet.getStatus());
+        assertEquals(PORT, croquet.getPort());
+        assertTrue(mbeanServer.isRegistered(name("Loggers")));
+        assertTrue(mbeanServer.isRegistered(name("ThreadPool")));
+
+        // the database isn't configured
+        assertFalse(mbeanServer.isRegistered(name("ConnectionPool")));
+        assertFalse(mbeanServer.isRegistered(name("Hibernate")));
+    }
+
+    @Test
+    public void testUnregistered() throws Exception {
+        mbeans.unregister();
+
+        assertFalse(mbeanServer.isRegistered(name("Croquet")));
+        assertFalse(mbeanServer.isRegistered(name("ManagedModules")));
+
+        // and again, as the application stops
+        mbeans.unregister();
+    }
+
+    @Test
+    public void testRestart() throws Exception {
+        final ManagedModulesMXBean modules =
+                JMX.newMXBeanProxy(mbeanServer, name("ManagedModules"), ManagedModulesMXBean.class);
+
+        assertEquals(Arrays.asList("module", "other"), modules.getModules());
+
+        modules.restart("module");
+
+        final InOrder order = inOrder(module);
+
+        order.verify(module).stop();
+        order.verify(module).start();
+        verify(other, never()).stop();
+    }
+
+    @Test
+    public void testRestartUnknownModule() throws Exception {
+        final ManagedModulesMXBean modules =
+                JMX.newMXBeanProxy(mbeanServer, name("ManagedModules"), ManagedModulesMXBean.class);
+
+        try {
+            modules.restart("missing");
+            fail("There is no module named missing");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("missing"));
+        }
+    }
+
+    private static ObjectName name(final String type) throws Exception {
+        return new ObjectName(CroquetMBeans.DOMAIN + ":type=" + type + ",port=" + PORT);
+    }
+}
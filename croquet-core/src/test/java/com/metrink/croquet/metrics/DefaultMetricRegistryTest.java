@@ -0,0 +1,160 @@
+package com.metrink.croquet.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class DefaultMetricRegistryTest {
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+
+    @Test
+    public void testSameInstance() {
+        final Counter counter = registry.counter("requests_total", "Requests", "route", "/people");
+
+        assertSame(counter, registry.counter("requests_total", "Requests", "route", "/people"));
+        assertNotSame(counter, registry.counter("requests_total", "Requests", "route", "/company"));
+        assertSame(registry.histogram("latency", "Latency"), registry.histogram("latency", "Latency"));
+        assertSame(registry.inFlight("active", "Active"), registry.inFlight("active", "Active"));
+    }
+
+    @Test
+    public void testLabelsKeepTheirOrder() {
+        final MetricName name = new MetricName("responses_total", "route", "/people", "status", "200");
+
+        assertEquals(Arrays.asList("route", "status"), Arrays.asList(name.getLabels().keySet().toArray()));
+        assertEquals(name, new MetricName("responses_total", "route", "/people", "status", "200"));
+        assertEquals("responses_total{route=/people, status=200}", name.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnpairedLabels() {
+        registry.counter("requests_total", "Requests", "route");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInFlightOverGauge() {
+        registry.gauge("active", "Active", () -> 1);
+        registry.inFlight("active", "Active");
+    }
+
+    @Test
+    public void testGaugeReplaced() {
+        registry.gauge("pool_size", "Pool size", () -> 1);
+        registry.gauge("pool_size", "Pool size", () -> 2);
+
+        assertEquals(1, registry.getGauges().size());
+        assertEquals(2.0, registry.getGauges().get(new MetricName("pool_size")).getValue(), 0);
+    }
+
+    @Test
+    public void testCallbackCounter() {
+        final long[] count = { 3 };
+
+        registry.counter("sessions_opened_total", "Sessions opened", () -> count[0]);
+        count[0] = 5;
+
+        assertEquals(5, registry.getCounters().get(new MetricName("sessions_opened_total")).getCount());
+    }
+
+    @Test
+    public void testScaledCounter() {
+        final Counter counter = registry.counter("cpu_seconds_total", "CPU time", 0.001);
+
+        counter.add(1500);
+
+        assertEquals(1500, counter.getCount());
+        assertEquals(1.5, counter.getValue(), 0);
+
+        registry.counter("gc_seconds_total", "GC time", () -> 250, 0.001);
+
+        assertEquals(0.25, registry.getCounters().get(new MetricName("gc_seconds_total")).getValue(), 0);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCallbackCounterNotIncremented() {
+        registry.counter("sessions_opened_total", "Sessions opened", () -> 3);
+        registry.counter("sessions_opened_total", "Sessions opened").inc();
+    }
+
+    @Test
+    public void testRemove() {
+        registry.counter("requests_total", "Requests", "route", "/people").inc();
+        registry.gauge("pool_size", "Pool size", () -> 1, "pool", "main");
+        registry.histogram("latency", "Latency");
+
+        registry.remove(new MetricName("requests_total", "route", "/people"));
+        registry.remove(new MetricName("pool_size", "pool", "main"));
+        registry.remove(new MetricName("latency"));
+
+        assertTrue(registry.getCounters().isEmpty());
+        assertTrue(registry.getGauges().isEmpty());
+        assertTrue(registry.getHistograms().isEmpty());
+        assertEquals(0, registry.counter("requests_total", "Requests", "route", "/people").getCount());
+    }
+
+    @Test
+    public void testFirstHelpKept() {
+        registry.counter("requests_total", "Requests");
+        registry.counter("requests_total", "Something else", "route", "/people");
+
+        assertEquals("Requests", registry.getHelp("requests_total"));
+    }
+
+    @Test
+    public void testCounter() {
+        final Counter counter = registry.counter("requests_total", "Requests");
+
+        counter.inc();
+        counter.add(41);
+
+        assertEquals(42, counter.getCount());
+    }
+
+    @Test
+    public void testInFlight() {
+        final InFlightGauge gauge = registry.inFlight("active", "Active");
+
+        gauge.enter();
+        gauge.enter();
+        gauge.exit();
+
+        assertEquals(1.0, gauge.getValue(), 0);
+    }
+
+    @Test
+    public void testHistogramAccumulatesAcrossSnapshots() {
+        final LatencyHistogram histogram = registry.histogram("latency", "Latency");
+
+        histogram.record(10, TimeUnit.MILLISECONDS);
+        assertEquals(1, histogram.getSnapshot().getCount());
+
+        histogram.record(20, TimeUnit.MILLISECONDS);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(30000, snapshot.getSum(), 30000 * 0.01);
+        assertEquals(2, snapshot.getRecent().getTotalCount());
+        assertEquals(20000, snapshot.getRecent().getMaxValue(), 20000 * 0.01);
+    }
+
+    @Test
+    public void testHistogramClampsOutOfRange() {
+        final LatencyHistogram histogram = registry.histogram("latency", "Latency");
+
+        histogram.record(-5, TimeUnit.MILLISECONDS);
+        histogram.record(2, TimeUnit.HOURS);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getRecent().getMinValue());
+        assertEquals(TimeUnit.HOURS.toMicros(1), snapshot.getRecent().getMaxValue(), TimeUnit.HOURS.toMicros(1) * 0.01);
+    }
+}
@@ -0,0 +1,59 @@
+package com.metrink.croquet.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    private final AtomicLong now = new AtomicLong(TimeUnit.DAYS.toMillis(1));
+    private final LatencyHistogram histogram = new LatencyHistogram(now::get);
+
+    @Test
+    public void testOldDurationsLeaveTheWindow() {
+        histogram.record(500, TimeUnit.MILLISECONDS);
+        assertEquals(500000, histogram.getSnapshot().getRecent().getMaxValue(), 500000 * 0.01);
+
+        now.addAndGet(LatencyHistogram.WINDOW / 2);
+        histogram.record(10, TimeUnit.MILLISECONDS);
+
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(2, snapshot.getRecent().getTotalCount());
+        assertEquals(500000, snapshot.getRecent().getMaxValue(), 500000 * 0.01);
+
+        now.addAndGet(LatencyHistogram.WINDOW / 2);
+        histogram.record(10, TimeUnit.MILLISECONDS);
+        snapshot = histogram.getSnapshot();
+
+        assertEquals(2, snapshot.getRecent().getTotalCount());
+        assertEquals(10000, snapshot.getRecent().getMaxValue(), 10000 * 0.01);
+        assertEquals(3, snapshot.getCount());
+        assertEquals(520000, snapshot.getSum(), 520000 * 0.01);
+    }
+
+    @Test
+    public void testIdleHistogramEmptiesButKeepsItsCount() {
+        histogram.record(10, TimeUnit.MILLISECONDS);
+        histogram.getSnapshot();
+
+        now.addAndGet(LatencyHistogram.WINDOW * 3);
+
+        final LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(0, snapshot.getRecent().getTotalCount());
+        assertEquals(1, snapshot.getCount());
+        assertEquals(10000, snapshot.getSum(), 10000 * 0.01);
+    }
+
+    @Test
+    public void testDurationsInOneBucketAccumulate() {
+        histogram.record(10, TimeUnit.MILLISECONDS);
+        histogram.getSnapshot();
+        histogram.record(20, TimeUnit.MILLISECONDS);
+
+        assertEquals(2, histogram.getSnapshot().getRecent().getTotalCount());
+    }
+}
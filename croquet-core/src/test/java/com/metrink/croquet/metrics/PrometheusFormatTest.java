@@ -0,0 +1,126 @@
+package com.metrink.croquet.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class PrometheusFormatTest {
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+
+    @Test
+    public void testEmpty() {
+        assertEquals("", PrometheusFormat.render(registry));
+    }
+
+    @Test
+    public void testCounters() {
+        registry.counter("requests_total", "Requests handled", "route", "/people", "status", "200").add(3);
+        registry.counter("requests_total", "Requests handled", "route", "/company", "status", "404").inc();
+        registry.counter("errors_total", "Errors").inc();
+
+        final String text = PrometheusFormat.render(registry);
+
+        // families are sorted by name, and each has one HELP and TYPE line ahead of its samples
+        assertTrue(text.startsWith("# HELP errors_total Errors\n"
+                                   + "# TYPE errors_total counter\n"
+                                   + "errors_total 1\n"
+                                   + "# HELP requests_total Requests handled\n"
+                                   + "# TYPE requests_total counter\n"));
+        assertTrue(text.contains("requests_total{route=\"/people\",status=\"200\"} 3\n"));
+        assertTrue(text.contains("requests_total{route=\"/company\",status=\"404\"} 1\n"));
+        assertEquals(7, text.split("\n").length);
+    }
+
+    @Test
+    public void testScaledCounters() {
+        registry.counter("cpu_seconds_total", "CPU time", 0.000001).add(1500000);
+        registry.counter("gc_seconds_total", "GC time", () -> 250, 0.001);
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertTrue(text.contains("cpu_seconds_total 1.5\n"));
+        assertTrue(text.contains("gc_seconds_total 0.25\n"));
+    }
+
+    @Test
+    public void testGauges() {
+        registry.gauge("pool_active", "Active connections", () -> 2);
+        registry.gauge("heap_ratio", "Heap used", () -> 0.25);
+        registry.gauge("hit_ratio", "Hits", () -> Double.NaN);
+        registry.gauge("limit", "Limit", () -> Double.POSITIVE_INFINITY);
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertTrue(text.contains("# TYPE pool_active gauge\npool_active 2\n"));
+        assertTrue(text.contains("heap_ratio 0.25\n"));
+        assertTrue(text.contains("hit_ratio NaN\n"));
+        assertTrue(text.contains("limit +Inf\n"));
+    }
+
+    @Test
+    public void testBrokenGaugeSkipped() {
+        registry.gauge("broken", "Broken", () -> {
+            throw new IllegalStateException("not started");
+        });
+        registry.gauge("working", "Working", () -> 1);
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertFalse(text.contains("broken "));
+        assertTrue(text.contains("working 1\n"));
+    }
+
+    @Test
+    public void testEscaping() {
+        registry.counter("queries_total", "Queries\nby \\text\\", "query", "select \"name\"\nfrom people \\").inc();
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertTrue(text.contains("# HELP queries_total Queries\\nby \\\\text\\\\\n"));
+        assertTrue(text.contains("queries_total{query=\"select \\\"name\\\"\\nfrom people \\\\\"} 1\n"));
+    }
+
+    @Test
+    public void testSummary() {
+        final LatencyHistogram histogram = registry.histogram("latency", "Latency", "route", "/people");
+
+        for(int i = 1; i <= 100; ++i) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertTrue(text.contains("# TYPE latency summary\n"));
+        assertEquals(0.05, value(text, "latency{route=\"/people\",quantile=\"0.5\"}"), 0.001);
+        assertEquals(0.099, value(text, "latency{route=\"/people\",quantile=\"0.99\"}"), 0.001);
+        assertEquals(5.05, value(text, "latency_sum{route=\"/people\"}"), 0.05);
+        assertEquals(100, value(text, "latency_count{route=\"/people\"}"), 0);
+    }
+
+    @Test
+    public void testSummaryWithoutLabels() {
+        registry.histogram("latency", "Latency").record(1, TimeUnit.SECONDS);
+
+        final String text = PrometheusFormat.render(registry);
+
+        assertTrue(text.contains("latency{quantile=\"0.5\"} "));
+        assertTrue(text.contains("latency_count 1\n"));
+    }
+
+    /**
+     * Gets the value of the sample with the given name and labels.
+     */
+    private static double value(final String text, final String sample) {
+        for(final String line:text.split("\n")) {
+            if(line.startsWith(sample + " ")) {
+                return Double.parseDouble(line.substring(sample.length() + 1));
+            }
+        }
+
+        throw new AssertionError("No sample " + sample + " in:\n" + text);
+    }
+}
@@ -0,0 +1,144 @@
+package com.metrink.croquet.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.metrink.croquet.AbstractSettings;
+import com.metrink.croquet.MetricsSettings;
+
+public class RequestMetricsFilterTest {
+    private static final String ROUTE = "/people";
+
+    private MetricRegistry registry;
+    private RequestMetricsFilter filter;
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        final AbstractSettings settings = mock(AbstractSettings.class);
+        final MetricsSettings metricsSettings = mock(MetricsSettings.class);
+
+        when(settings.getMetricsSettings()).thenReturn(metricsSettings);
+
+        registry = new DefaultMetricRegistry();
+        filter = new RequestMetricsFilter(settings, registry);
+        request = request();
+        response = mock(HttpServletResponse.class);
+
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+    }
+
+    @Test
+    public void testUnmatched() throws Exception {
+        filter.doFilter(request, response, mock(FilterChain.class));
+
+        assertEquals(1, responses(RequestMetricsFilter.UNMATCHED_ROUTE, "200"));
+        assertEquals(1, latencyCount(RequestMetricsFilter.UNMATCHED_ROUTE));
+    }
+
+    @Test
+    public void testMatchedRoute() throws Exception {
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_NOT_FOUND);
+
+        filter.doFilter(request, response, (req, resp) -> {
+            final ActiveRequest active = ActiveRequest.get(req);
+
+            assertNotNull(active);
+            assertNull(active.getRoute());
+
+            active.setRoute(ROUTE);
+            active.setRoute("/ignored");
+
+            assertEquals(ROUTE, active.getRoute());
+            assertEquals(1.0, gauge(RouteMetrics.IN_FLIGHT, "route", ROUTE), 0);
+            assertEquals(1.0, gauge("croquet_http_active_requests"), 0);
+        });
+
+        assertEquals(1, responses(ROUTE, "404"));
+        assertEquals(1, latencyCount(ROUTE));
+        assertEquals(0.0, gauge(RouteMetrics.IN_FLIGHT, "route", ROUTE), 0);
+        assertEquals(0.0, gauge("croquet_http_active_requests"), 0);
+        assertNull(registry.getCounters().get(new MetricName(RouteMetrics.RESPONSES,
+                                                             "route", "/ignored",
+                                                             "status", "404")));
+    }
+
+    @Test
+    public void testFailedRequest() throws Exception {
+        final ServletException exception = new ServletException("page failed");
+
+        try {
+            filter.doFilter(request, response, (req, resp) -> {
+                ActiveRequest.get(req).setRoute(ROUTE);
+                throw exception;
+            });
+            fail("The chain's exception was swallowed");
+        } catch (final ServletException e) {
+            assertSame(exception, e);
+        }
+
+        assertEquals(1, responses(ROUTE, "500"));
+        assertEquals(0.0, gauge(RouteMetrics.IN_FLIGHT, "route", ROUTE), 0);
+    }
+
+    @Test
+    public void testForwardNotCountedTwice() throws Exception {
+        filter.doFilter(request, response, (req, resp) -> {
+            filter.doFilter(req, resp, mock(FilterChain.class));
+        });
+
+        assertEquals(1, responses(RequestMetricsFilter.UNMATCHED_ROUTE, "200"));
+        assertEquals(1, latencyCount(RequestMetricsFilter.UNMATCHED_ROUTE));
+    }
+
+    private long responses(final String route, final String status) {
+        return registry.getCounters().get(new MetricName(RouteMetrics.RESPONSES, "route", route, "status", status))
+                                     .getCount();
+    }
+
+    private long latencyCount(final String route) {
+        return registry.getHistograms().get(new MetricName(RouteMetrics.LATENCY, "route", route))
+                                       .getSnapshot()
+                                       .getCount();
+    }
+
+    private double gauge(final String name, final String... labels) {
+        return registry.getGauges().get(new MetricName(name, labels)).getValue();
+    }
+
+    /**
+     * A request that keeps its attributes.
+     */
+    private static HttpServletRequest request() {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        final Map<String, Object> attributes = new HashMap<String, Object>();
+
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> attributes.put((String)invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(request).setAttribute(anyString(), any());
+
+        return request;
+    }
+}
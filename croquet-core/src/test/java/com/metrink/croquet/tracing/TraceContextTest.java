@@ -0,0 +1,73 @@
+package com.metrink.croquet.tracing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TraceContextTest {
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String SPAN_ID = "00f067aa0ba902b7";
+    private static final String SAMPLED = "00-" + TRACE_ID + "-" + SPAN_ID + "-01";
+
+    @Test
+    public void testParse() {
+        final TraceContext context = TraceContext.parse(SAMPLED, "vendor=value");
+
+        assertEquals(TRACE_ID, context.getTraceId());
+        assertEquals(SPAN_ID, context.getSpanId());
+        assertTrue(context.isSampled());
+        assertEquals("vendor=value", context.getTraceState());
+        assertEquals(SAMPLED, context.toTraceparent());
+    }
+
+    @Test
+    public void testNotSampled() {
+        assertFalse(TraceContext.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-00", null).isSampled());
+
+        // only the sampled bit counts
+        assertFalse(TraceContext.parse("00-" + TRACE_ID + "-" + SPAN_ID + "-02", null).isSampled());
+    }
+
+    @Test
+    public void testSurroundingWhitespace() {
+        assertNotNull(TraceContext.parse(" " + SAMPLED + " ", null));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertNull(TraceContext.parse(null, null));
+        assertNull(TraceContext.parse("", null));
+        assertNull(TraceContext.parse(SAMPLED.toUpperCase(), null));
+        assertNull(TraceContext.parse("ff-" + TRACE_ID + "-" + SPAN_ID + "-01", null));
+        assertNull(TraceContext.parse("00-00000000000000000000000000000000-" + SPAN_ID + "-01", null));
+        assertNull(TraceContext.parse("00-" + TRACE_ID + "-0000000000000000-01", null));
+        assertNull(TraceContext.parse("00-" + TRACE_ID + "-" + SPAN_ID, null));
+    }
+
+    @Test
+    public void testVersions() {
+        // version 00 has exactly four fields
+        assertNull(TraceContext.parse(SAMPLED + "-extra", null));
+
+        // later versions may add fields, separated as the first four are
+        assertNotNull(TraceContext.parse("01-" + TRACE_ID + "-" + SPAN_ID + "-01-extra", null));
+        assertNotNull(TraceContext.parse("01-" + TRACE_ID + "-" + SPAN_ID + "-01", null));
+        assertNull(TraceContext.parse("01-" + TRACE_ID + "-" + SPAN_ID + "-01extra", null));
+    }
+
+    @Test
+    public void testNewIds() {
+        final String traceId = TraceContext.newTraceId();
+        final String spanId = TraceContext.newSpanId();
+
+        assertEquals(32, traceId.length());
+        assertEquals(16, spanId.length());
+
+        // ids created here are accepted by the other side
+        assertNotNull(TraceContext.parse(new TraceContext(traceId, spanId, true, null).toTraceparent(), null));
+    }
+}
@@ -0,0 +1,230 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.wicket.page.IManageablePage;
+import org.apache.wicket.pageStore.IPageStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+public class AsynchronousPageStoreTest {
+    private static final String SESSION = "session";
+    private static final String OTHER_SESSION = "other";
+
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private IPageStore delegate;
+    private IManageablePage blocker;
+    private AsynchronousPageStore store;
+
+    @Before
+    public void setUp() {
+        delegate = mock(IPageStore.class);
+        blocker = page(99);
+
+        // holds the writer inside the delegate while storing the blocker
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).storePage(anyString(), same(blocker));
+    }
+
+    @After
+    public void tearDown() {
+        // lets a test that failed while the writer was held finish
+        release.countDown();
+    }
+
+    @Test
+    public void testWritesInTheBackground() {
+        store = new AsynchronousPageStore(delegate, null, 10);
+
+        final IManageablePage page = page(1);
+
+        store.storePage(SESSION, page);
+        store.destroy();
+
+        verify(delegate).storePage(SESSION, page);
+        verify(delegate).destroy();
+    }
+
+    @Test
+    public void testVersionsCoalesced() throws InterruptedException {
+        store = new AsynchronousPageStore(delegate, null, 10);
+        blockWriter();
+
+        final IManageablePage first = page(1);
+        final IManageablePage second = page(1);
+        final IManageablePage third = page(1);
+
+        store.storePage(SESSION, first);
+        store.storePage(SESSION, second);
+        store.storePage(SESSION, third);
+
+        // the waiting version is served until it is written
+        assertSame(third, store.getPage(SESSION, 1));
+
+        release.countDown();
+        store.destroy();
+
+        verify(delegate, never()).storePage(SESSION, first);
+        verify(delegate, never()).storePage(SESSION, second);
+        verify(delegate).storePage(SESSION, third);
+    }
+
+    @Test
+    public void testFullQueueStoresOnTheRequestThread() throws Exception {
+        store = new AsynchronousPageStore(delegate, null, 1);
+        blockWriter();
+
+        final IManageablePage overflow = page(2);
+        final IManageablePage newer = page(2);
+
+        store.storePage(SESSION, page(1));
+
+        // waits for the held writer before storing its page
+        final Thread request = new Thread(() -> store.storePage(SESSION, overflow));
+
+        request.start();
+
+        while(request.getState() != Thread.State.BLOCKED) {
+            assertTrue(request.isAlive());
+            Thread.yield();
+        }
+
+        // a later request finds the overflow page waiting, and leaves its page for the first request to store
+        store.storePage(SESSION, newer);
+
+        release.countDown();
+        request.join();
+
+        verify(delegate, never()).storePage(SESSION, overflow);
+        verify(delegate).storePage(SESSION, newer);
+
+        store.destroy();
+    }
+
+    @Test
+    public void testRemovedBeforeWritten() throws InterruptedException {
+        store = new AsynchronousPageStore(delegate, null, 10);
+        blockWriter();
+
+        final IManageablePage page = page(1);
+        final IManageablePage other = page(2);
+
+        whileWriting(() -> {
+            store.removePage(SESSION, 1);
+            store.unbind(OTHER_SESSION);
+        });
+        store.storePage(SESSION, page);
+        store.storePage(OTHER_SESSION, other);
+
+        release.countDown();
+        store.destroy();
+
+        verify(delegate, never()).storePage(SESSION, page);
+        verify(delegate, never()).storePage(OTHER_SESSION, other);
+        verify(delegate).removePage(SESSION, 1);
+        verify(delegate).unbind(OTHER_SESSION);
+    }
+
+    @Test
+    public void testPendingWrittenBeforeSerialization() throws InterruptedException {
+        store = new AsynchronousPageStore(delegate, null, 10);
+        blockWriter();
+
+        final IManageablePage page = page(1);
+
+        whileWriting(() -> store.prepareForSerialization(SESSION, page));
+        store.storePage(SESSION, page);
+
+        release.countDown();
+        store.destroy();
+
+        final InOrder order = inOrder(delegate);
+
+        order.verify(delegate).storePage(SESSION, page);
+        order.verify(delegate).prepareForSerialization(SESSION, page);
+    }
+
+    @Test
+    public void testWriterSurvivesAFailedPage() {
+        store = new AsynchronousPageStore(delegate, null, 10);
+
+        final IManageablePage failing = page(1);
+        final IManageablePage page = page(2);
+
+        doThrow(new IllegalStateException("not serializable")).when(delegate).storePage(SESSION, failing);
+
+        store.storePage(SESSION, failing);
+        store.storePage(SESSION, page);
+        store.destroy();
+
+        verify(delegate).storePage(SESSION, page);
+    }
+
+    @Test
+    public void testStoredDirectlyOnceDestroyed() {
+        store = new AsynchronousPageStore(delegate, null, 10);
+        store.destroy();
+
+        final IManageablePage page = page(1);
+
+        store.storePage(SESSION, page);
+
+        verify(delegate).storePage(SESSION, page);
+    }
+
+    /**
+     * Stores the blocker and waits until the writer is inside the delegate with it.
+     */
+    private void blockWriter() throws InterruptedException {
+        store.storePage(SESSION, blocker);
+
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Queues a page whose write runs the action on the writer thread, after the pages queued before it and before the
+     * pages queued after it.
+     */
+    private void whileWriting(final Runnable action) {
+        final IManageablePage trigger = page(98);
+        final AtomicBoolean ran = new AtomicBoolean();
+
+        // once, as the action may store the trigger again
+        doAnswer(invocation -> {
+            if(ran.compareAndSet(false, true)) {
+                action.run();
+            }
+            return null;
+        }).when(delegate).storePage(SESSION, trigger);
+
+        store.storePage(SESSION, trigger);
+    }
+
+    private static IManageablePage page(final int id) {
+        final IManageablePage page = mock(IManageablePage.class);
+
+        when(page.getPageId()).thenReturn(id);
+
+        return page;
+    }
+}
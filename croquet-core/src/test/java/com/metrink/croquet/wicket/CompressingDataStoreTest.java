@@ -0,0 +1,137 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.pageStore.IDataStore;
+import org.junit.After;
+import org.junit.Test;
+
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class CompressingDataStoreTest {
+    private static final String SESSION = "session";
+    private static final int THRESHOLD = 100;
+
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private final IDataStore delegate = new OffHeapDataStore(1024 * 1024, null, 0, 1024 * 1024, 1);
+    private final CompressingDataStore store = new CompressingDataStore(delegate, new DeflatePageCodec(), THRESHOLD, registry);
+
+    @After
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testCompressed() {
+        final byte[] page = compressible(1000);
+
+        store.storeData(SESSION, 1, page);
+
+        final byte[] stored = delegate.getData(SESSION, 1);
+
+        // the marker, then the uncompressed length, then the compressed page
+        assertEquals((byte)0xCE, stored[0]);
+        assertEquals(page.length, ByteBuffer.wrap(stored, 1, Integer.BYTES).getInt());
+        assertTrue(stored.length < page.length);
+        assertArrayEquals(page, store.getData(SESSION, 1));
+
+        assertEquals(1000, count(CompressingDataStore.UNCOMPRESSED_BYTES));
+        assertEquals(stored.length, count(CompressingDataStore.STORED_BYTES));
+        assertEquals(1, registry.getHistograms()
+                                .get(new MetricName(CompressingDataStore.DURATION, "operation", "compress"))
+                                .getSnapshot()
+                                .getCount());
+    }
+
+    @Test
+    public void testSmallPageStoredAsIs() {
+        final byte[] page = compressible(THRESHOLD - 1);
+
+        store.storeData(SESSION, 1, page);
+
+        assertArrayEquals(page, delegate.getData(SESSION, 1));
+        assertArrayEquals(page, store.getData(SESSION, 1));
+        assertEquals(1, count(CompressingDataStore.SKIPPED, "reason", "small"));
+    }
+
+    @Test
+    public void testIncompressiblePageStoredAsIs() {
+        final byte[] page = new byte[1000];
+
+        new Random(42).nextBytes(page);
+        page[0] = 0;
+
+        store.storeData(SESSION, 1, page);
+
+        assertArrayEquals(page, delegate.getData(SESSION, 1));
+        assertArrayEquals(page, store.getData(SESSION, 1));
+        assertEquals(1, count(CompressingDataStore.SKIPPED, "reason", "incompressible"));
+        assertEquals(count(CompressingDataStore.UNCOMPRESSED_BYTES), count(CompressingDataStore.STORED_BYTES));
+    }
+
+    @Test
+    public void testPagesStoredBeforeCompressionAreRead() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(Arrays.asList("page", "stored", "uncompressed"));
+        }
+
+        delegate.storeData(SESSION, 1, bytes.toByteArray());
+
+        assertArrayEquals(bytes.toByteArray(), store.getData(SESSION, 1));
+    }
+
+    @Test
+    public void testShorterThanTheHeader() {
+        final byte[] page = { (byte)0xCE, 0, 0 };
+
+        delegate.storeData(SESSION, 1, page);
+
+        assertArrayEquals(page, store.getData(SESSION, 1));
+    }
+
+    @Test
+    public void testMissing() {
+        assertNull(store.getData(SESSION, 1));
+    }
+
+    @Test(expected = WicketRuntimeException.class)
+    public void testWrongLength() {
+        store.storeData(SESSION, 1, compressible(1000));
+
+        final byte[] stored = delegate.getData(SESSION, 1);
+
+        ByteBuffer.wrap(stored).putInt(1, 2000);
+        delegate.storeData(SESSION, 1, stored);
+
+        store.getData(SESSION, 1);
+    }
+
+    private long count(final String name, final String... labels) {
+        return registry.getCounters().get(new MetricName(name, labels)).getCount();
+    }
+
+    private static byte[] compressible(final int length) {
+        final byte[] data = new byte[length];
+
+        for(int i = 0; i < length; ++i) {
+            data[i] = (byte)(i % 10);
+        }
+
+        return data;
+    }
+}
@@ -0,0 +1,156 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.same;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.hibernate.BatchWriter;
+import com.metrink.croquet.hibernate.BatchWriterFactory;
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class JdbcDataStoreTest {
+    private static final String SESSION = "session";
+    private static final byte[] DATA = { 1, 2, 3 };
+
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private BatchWriterFactory batchWriterFactory;
+    private BatchWriter batch;
+    private JdbcDataStore store;
+
+    @Before
+    public void setUp() {
+        batchWriterFactory = mock(BatchWriterFactory.class);
+        batch = mock(BatchWriter.class);
+
+        when(batchWriterFactory.create()).thenReturn(batch);
+
+        store = new JdbcDataStore(mock(DataSourceFactory.class), batchWriterFactory, 10, 10000, registry);
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testStored() throws SQLException {
+        store.storeData(SESSION, 1, DATA);
+
+        verify(batch).add(startsWith("DELETE"), eq(SESSION), eq(1));
+        verify(batch).add(startsWith("INSERT"), eq(SESSION), eq(1), same(DATA), anyLong());
+        verify(batch).flush();
+        assertEquals(1, registry.getCounters().get(new MetricName(JdbcDataStore.PAGES_STORED)).getCount());
+        assertEquals(1, registry.getCounters().get(new MetricName(JdbcDataStore.BATCHES)).getCount());
+    }
+
+    @Test
+    public void testFailedBatchThrows() throws SQLException {
+        final SQLException exception = new SQLException("connection refused");
+
+        doThrow(exception).when(batch).flush();
+
+        try {
+            store.storeData(SESSION, 1, DATA);
+            fail("The page was not written");
+        } catch (final WicketRuntimeException e) {
+            assertSame(exception, e.getCause());
+        }
+
+        assertEquals(0, registry.getCounters().get(new MetricName(JdbcDataStore.PAGES_STORED)).getCount());
+    }
+
+    @Test
+    public void testWriterSurvivesAnError() throws SQLException {
+        final AssertionError error = new AssertionError("out of something");
+
+        doThrow(error).doNothing().when(batch).flush();
+
+        try {
+            store.storeData(SESSION, 1, DATA);
+            fail("The page was not written");
+        } catch (final WicketRuntimeException e) {
+            assertSame(error, e.getCause());
+        }
+
+        store.storeData(SESSION, 2, DATA);
+
+        assertEquals(1, registry.getCounters().get(new MetricName(JdbcDataStore.PAGES_STORED)).getCount());
+    }
+
+    @Test
+    public void testTimeout() throws SQLException {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        store.destroy();
+        store = new JdbcDataStore(mock(DataSourceFactory.class), batchWriterFactory, 10, 50, registry);
+
+        doAnswer(invocation -> release.await(10, TimeUnit.SECONDS)).when(batch).flush();
+
+        try {
+            store.storeData(SESSION, 1, DATA);
+            fail("The page was not written in time");
+        } catch (final WicketRuntimeException e) {
+            assertTrue(e.getMessage().contains("50ms"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testRejectedOnceTheWriterStopped() throws InterruptedException {
+        final Thread writer = writerThread();
+
+        writer.interrupt();
+        writer.join(10000);
+
+        try {
+            store.storeData(SESSION, 1, DATA);
+            fail("The writer has stopped");
+        } catch (final WicketRuntimeException e) {
+            assertTrue(e.getMessage().contains("has stopped"));
+        }
+    }
+
+    @Test
+    public void testStoredDirectlyOnceDestroyed() throws SQLException {
+        store.destroy();
+        store.storeData(SESSION, 1, DATA);
+
+        verify(batch).flush();
+    }
+
+    /**
+     * Finds the store's writer, the only one running as the writers of the earlier tests were stopped.
+     */
+    private static Thread writerThread() {
+        for(final Thread thread:Thread.getAllStackTraces().keySet()) {
+            if(thread.getName().equals("croquet-jdbc-page-writer") && thread.isAlive()) {
+                return thread;
+            }
+        }
+
+        throw new AssertionError("No page writer running");
+    }
+}
@@ -0,0 +1,83 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class KryoSerializerTest {
+    private final KryoSerializer serializer = new KryoSerializer("test");
+
+    @Test
+    public void testRoundTrip() {
+        final List<String> list = new ArrayList<String>(Arrays.asList("a", "b"));
+
+        assertEquals(list, roundTrip(list));
+    }
+
+    @Test
+    public void testAnonymousClassKeepsOuterInstance() {
+        final Outer outer = roundTrip(new Outer("outer", " captured"));
+
+        assertEquals("outer captured", outer.getCallback().call());
+    }
+
+    @Test
+    public void testReferencesKept() {
+        final Outer outer = new Outer("outer", " captured");
+        final List<Outer> list = roundTrip(new ArrayList<Outer>(Arrays.asList(outer, outer)));
+
+        assertSame(list.get(0), list.get(1));
+    }
+
+    @Test
+    public void testWrappedCollection() {
+        final List<String> list = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList("a", "b")));
+
+        assertEquals(list, roundTrip(list));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(final T object) {
+        return (T)serializer.deserialize(serializer.serialize(object));
+    }
+
+    /**
+     * A callback that can be serialized, like a Wicket component's behaviour.
+     */
+    private interface Callback extends Serializable {
+        String call();
+    }
+
+    /**
+     * Holds an anonymous class that reads its outer instance and a captured variable.
+     */
+    private static final class Outer implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final Callback callback;
+
+        Outer(final String name, final String suffix) {
+            this.name = name;
+            this.callback = new Callback() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public String call() {
+                    return Outer.this.name + suffix;
+                }
+            };
+        }
+
+        Callback getCallback() {
+            return callback;
+        }
+    }
+}
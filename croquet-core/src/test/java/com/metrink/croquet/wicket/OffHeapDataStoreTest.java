@@ -0,0 +1,194 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OffHeapDataStoreTest {
+    private static final String SESSION = "session";
+    private static final String OTHER_SESSION = "other";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OffHeapDataStore store;
+
+    @After
+    public void tearDown() {
+        if(store != null) {
+            store.destroy();
+        }
+    }
+
+    @Test
+    public void testStoreAndGet() {
+        store = new OffHeapDataStore(1000, null, 0, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(SESSION, 2, page(2, 40));
+        store.storeData(OTHER_SESSION, 1, page(3, 40));
+
+        assertArrayEquals(page(1, 40), store.getData(SESSION, 1));
+        assertArrayEquals(page(2, 40), store.getData(SESSION, 2));
+        assertArrayEquals(page(3, 40), store.getData(OTHER_SESSION, 1));
+        assertNull(store.getData(SESSION, 3));
+        assertNull(store.getData("unknown", 1));
+    }
+
+    @Test
+    public void testReplace() {
+        store = new OffHeapDataStore(1000, null, 0, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(SESSION, 1, page(2, 20));
+
+        assertArrayEquals(page(2, 20), store.getData(SESSION, 1));
+    }
+
+    @Test
+    public void testRemove() {
+        store = new OffHeapDataStore(1000, null, 0, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(SESSION, 2, page(2, 40));
+        store.storeData(OTHER_SESSION, 1, page(3, 40));
+
+        store.removeData(SESSION, 1);
+
+        assertNull(store.getData(SESSION, 1));
+        assertArrayEquals(page(2, 40), store.getData(SESSION, 2));
+
+        store.removeData(SESSION);
+
+        assertNull(store.getData(SESSION, 2));
+        assertArrayEquals(page(3, 40), store.getData(OTHER_SESSION, 1));
+    }
+
+    @Test
+    public void testSessionLimitDropsOldest() {
+        store = new OffHeapDataStore(1000, null, 0, 100, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(SESSION, 2, page(2, 40));
+        store.storeData(OTHER_SESSION, 1, page(3, 40));
+        store.storeData(SESSION, 3, page(4, 40));
+
+        assertNull(store.getData(SESSION, 1));
+        assertArrayEquals(page(2, 40), store.getData(SESSION, 2));
+        assertArrayEquals(page(4, 40), store.getData(SESSION, 3));
+        assertArrayEquals(page(3, 40), store.getData(OTHER_SESSION, 1));
+    }
+
+    @Test
+    public void testDroppedWithoutFile() {
+        store = new OffHeapDataStore(100, null, 0, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(OTHER_SESSION, 1, page(2, 40));
+        store.storeData(SESSION, 2, page(3, 40));
+
+        // the oldest page was overwritten in memory
+        assertNull(store.getData(SESSION, 1));
+        assertArrayEquals(page(2, 40), store.getData(OTHER_SESSION, 1));
+        assertArrayEquals(page(3, 40), store.getData(SESSION, 2));
+    }
+
+    @Test
+    public void testSpilledToFile() throws IOException {
+        store = new OffHeapDataStore(100, folder.newFile(), 1000, 1000, 1);
+
+        for(int i = 0; i < 20; ++i) {
+            store.storeData(SESSION, i, page(i, 40));
+        }
+
+        // 2 pages fit in memory, the others were moved to the file as they were overwritten
+        for(int i = 0; i < 20; ++i) {
+            assertArrayEquals(page(i, 40), store.getData(SESSION, i));
+        }
+    }
+
+    @Test
+    public void testDroppedFromFile() throws IOException {
+        store = new OffHeapDataStore(100, folder.newFile(), 200, 10000, 1);
+
+        for(int i = 0; i < 20; ++i) {
+            store.storeData(SESSION, i, page(i, 40));
+        }
+
+        // the newest 2 pages are in memory, the 5 before them in the file
+        for(int i = 0; i < 20; ++i) {
+            if(i < 13) {
+                assertNull(store.getData(SESSION, i));
+            } else {
+                assertArrayEquals(page(i, 40), store.getData(SESSION, i));
+            }
+        }
+    }
+
+    @Test
+    public void testLargerThanMemory() throws IOException {
+        store = new OffHeapDataStore(100, folder.newFile(), 1000, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 200));
+
+        assertArrayEquals(page(1, 200), store.getData(SESSION, 1));
+    }
+
+    @Test
+    public void testTooLarge() throws IOException {
+        store = new OffHeapDataStore(100, folder.newFile(), 100, 1000, 1);
+
+        store.storeData(SESSION, 1, page(1, 40));
+        store.storeData(SESSION, 1, page(2, 200));
+
+        // the previous version of the page is gone too
+        assertNull(store.getData(SESSION, 1));
+    }
+
+    @Test
+    public void testSegments() {
+        store = new OffHeapDataStore(100000, null, 0, 1000, 4);
+
+        for(int i = 0; i < 100; ++i) {
+            store.storeData(SESSION + i, i, page(i, 100));
+        }
+
+        for(int i = 0; i < 100; ++i) {
+            assertArrayEquals(page(i, 100), store.getData(SESSION + i, i));
+        }
+    }
+
+    @Test
+    public void testDestroyDeletesTheFile() throws IOException {
+        final File file = new File(folder.getRoot(), "pages/data");
+
+        store = new OffHeapDataStore(100, file, 1000, 1000, 1);
+        store.storeData(SESSION, 1, page(1, 40));
+
+        assertTrue(file.exists());
+
+        store.destroy();
+        store = null;
+
+        assertFalse(file.exists());
+    }
+
+    private static byte[] page(final int id, final int length) {
+        final byte[] data = new byte[length];
+
+        Arrays.fill(data, (byte)id);
+        data[0] = (byte)length;
+
+        return data;
+    }
+}
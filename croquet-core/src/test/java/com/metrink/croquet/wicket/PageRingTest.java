@@ -0,0 +1,143 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.metrink.croquet.wicket.PageRing.Entry;
+
+public class PageRingTest {
+    private static final String SESSION = "session";
+
+    private final PageRing ring = new PageRing(ByteBuffer.allocate(100));
+    private final List<Integer> evicted = new ArrayList<Integer>();
+
+    @Test
+    public void testWriteAndRead() {
+        final Entry first = write(1, 30);
+        final Entry second = write(2, 40);
+
+        assertArrayEquals(page(1, 30), ring.read(first));
+        assertArrayEquals(page(2, 40), ring.read(second));
+        assertEquals(SESSION, second.getSessionId());
+        assertEquals(2, second.getPageId());
+        assertEquals(40, second.getLength());
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testTooLarge() {
+        assertNull(write(1, 101));
+        write(2, 100);
+
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testWrapsAround() {
+        write(1, 30);
+        final Entry second = write(2, 30);
+        final Entry third = write(3, 30);
+
+        // 10 bytes left at the end, so the fourth page goes to the start over the first
+        final Entry fourth = write(4, 30);
+
+        assertEquals(Arrays.asList(1), evicted);
+        assertArrayEquals(page(2, 30), ring.read(second));
+        assertArrayEquals(page(3, 30), ring.read(third));
+        assertArrayEquals(page(4, 30), ring.read(fourth));
+    }
+
+    @Test
+    public void testEvictsTheEndBeforeWrapping() {
+        write(1, 50);
+        write(2, 20);
+        write(3, 20);
+        write(4, 10);
+        write(5, 60);
+
+        assertEquals(Arrays.asList(1, 2), evicted);
+
+        // the pages at 70 and 90 are evicted before starting over at 0, oldest first
+        final Entry sixth = write(6, 45);
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), evicted);
+        assertArrayEquals(page(6, 45), ring.read(sixth));
+    }
+
+    @Test
+    public void testRemovedNotEvicted() {
+        write(1, 50).remove();
+        write(2, 50);
+        write(3, 60);
+
+        assertEquals(Arrays.asList(2), evicted);
+    }
+
+    @Test
+    public void testClear() {
+        write(1, 60);
+        ring.clear();
+        write(2, 60);
+
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    public void testLivePagesSurviveManyLaps() {
+        final Random random = new Random(42);
+        final Map<Integer, Entry> live = new HashMap<Integer, Entry>();
+        final Map<Integer, Integer> lengths = new HashMap<Integer, Integer>();
+
+        for(int id = 0; id < 10000; ++id) {
+            final int length = 1 + random.nextInt(40);
+            final Entry entry = ring.write(SESSION, id, ByteBuffer.wrap(page(id, length)), e -> {
+                // evicted pages are still readable when the callback runs
+                assertArrayEquals(page(e.getPageId(), lengths.get(e.getPageId())), ring.read(e));
+                live.remove(e.getPageId());
+            });
+
+            live.put(id, entry);
+            lengths.put(id, length);
+
+            // some pages are removed before they are overwritten
+            if(random.nextInt(4) == 0) {
+                live.remove(id).remove();
+            }
+
+            int bytes = 0;
+
+            for(final Entry page:live.values()) {
+                assertArrayEquals(page(page.getPageId(), page.getLength()), ring.read(page));
+                bytes += page.getLength();
+            }
+
+            assertTrue(bytes <= ring.capacity());
+        }
+    }
+
+    private Entry write(final int id, final int length) {
+        return ring.write(SESSION, id, ByteBuffer.wrap(page(id, length)), entry -> evicted.add(entry.getPageId()));
+    }
+
+    private static byte[] page(final int id, final int length) {
+        final byte[] data = new byte[length];
+
+        for(int i = 0; i < length; ++i) {
+            data[i] = (byte)(id * 31 + i);
+        }
+
+        return data;
+    }
+}
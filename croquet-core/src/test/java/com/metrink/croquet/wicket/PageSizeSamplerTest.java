@@ -0,0 +1,234 @@
+package com.metrink.croquet.wicket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.wicket.Component;
+import org.apache.wicket.markup.html.WebComponent;
+import org.apache.wicket.markup.html.WebMarkupContainer;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.serialize.ISerializer;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+import com.metrink.croquet.metrics.DefaultMetricRegistry;
+import com.metrink.croquet.metrics.MetricName;
+import com.metrink.croquet.metrics.MetricRegistry;
+
+public class PageSizeSamplerTest {
+    private static final int LARGE = 10000;
+    private static final int SMALL = 10;
+
+    private final ISerializer delegate = mock(ISerializer.class);
+    private final MetricRegistry registry = new DefaultMetricRegistry();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<ILoggingEvent>();
+    private final Logger logger = (Logger)LoggerFactory.getLogger(PageSizeSampler.class);
+    private WicketTester tester;
+    private int serializedSize;
+
+    @Before
+    public void setUp() {
+        // pages can only be created while an application is bound to the thread
+        tester = new WicketTester();
+        when(delegate.serialize(any())).thenAnswer(invocation -> new byte[serializedSize]);
+
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(appender);
+        tester.destroy();
+    }
+
+    @Test
+    public void testRecordedByPageClass() {
+        final PageSizeSampler sampler = new PageSizeSampler(delegate, registry, 1.0, 0);
+
+        serializedSize = 100;
+        sampler.serialize(new TestPage());
+        serializedSize = 300;
+        sampler.serialize(new TestPage());
+        serializedSize = 50;
+        sampler.serialize(new OtherPage());
+        sampler.serialize("not a page");
+
+        assertEquals(2, count(PageSizeSampler.SAMPLES, TestPage.class));
+        assertEquals(400, count(PageSizeSampler.BYTES, TestPage.class));
+        assertEquals(300, gauge(PageSizeSampler.MAX_BYTES, TestPage.class), 0);
+        assertEquals(1, count(PageSizeSampler.SAMPLES, OtherPage.class));
+        assertEquals(50, count(PageSizeSampler.BYTES, OtherPage.class));
+        assertEquals(2, registry.getCounters()
+                                .keySet()
+                                .stream()
+                                .filter(n -> n.getName().equals(PageSizeSampler.SAMPLES))
+                                .count());
+    }
+
+    @Test
+    public void testNotSampled() {
+        final PageSizeSampler sampler = new PageSizeSampler(delegate, registry, 0.0, 0);
+
+        serializedSize = 100;
+        sampler.serialize(new TestPage());
+
+        assertNull(registry.getCounters().get(name(PageSizeSampler.SAMPLES, TestPage.class)));
+    }
+
+    @Test
+    public void testTotalsByChildOfPage() {
+        final PageSizeSampler sampler = new PageSizeSampler(delegate, registry, 1.0, 0);
+
+        serializedSize = 100;
+        sampler.serialize(new TestPage());
+
+        // the holder nested in the container counts toward the container
+        assertTrue(componentBytes("container") >= LARGE);
+        assertTrue(componentBytes("small") < LARGE);
+        assertTrue(componentBytes("(page)") >= SMALL);
+    }
+
+    @Test
+    public void testComponentsSkippedInFieldSizes() {
+        final PageSizeSampler sampler = new PageSizeSampler(delegate, registry, 1.0, 0);
+
+        serializedSize = 100;
+        sampler.serialize(new TestPage());
+
+        // "pointer" reaches the large holder through a field, which must not count its payload
+        assertTrue(componentBytes("pointer") < LARGE);
+        assertTrue(componentBytes("large") >= LARGE);
+    }
+
+    @Test
+    public void testOverBudgetLoggedWhenSizeGrows() {
+        final PageSizeSampler sampler = new PageSizeSampler(delegate, registry, 1.0, 1000);
+
+        serializedSize = 500;
+        sampler.serialize(new TestPage());
+        assertEquals(0, warnings().size());
+
+        serializedSize = 2000;
+        sampler.serialize(new TestPage());
+        assertEquals(1, warnings().size());
+        assertTrue(warnings().get(0).contains("2000 bytes"));
+
+        serializedSize = 1500;
+        sampler.serialize(new TestPage());
+        serializedSize = 2000;
+        sampler.serialize(new TestPage());
+        assertEquals(1, warnings().size());
+
+        serializedSize = 3000;
+        sampler.serialize(new TestPage());
+        assertEquals(2, warnings().size());
+        assertTrue(warnings().get(1).contains("3000 bytes"));
+        assertTrue(warnings().get(1).contains("large"));
+
+        assertEquals(4, count(PageSizeSampler.OVER_BUDGET, TestPage.class));
+    }
+
+    private List<String> warnings() {
+        return appender.list.stream()
+                            .filter(e -> e.getLevel() == Level.WARN)
+                            .map(ILoggingEvent::getFormattedMessage)
+                            .collect(Collectors.toList());
+    }
+
+    private long count(final String name, final Class<?> pageClass) {
+        return registry.getCounters().get(name(name, pageClass)).getCount();
+    }
+
+    private double gauge(final String name, final Class<?> pageClass) {
+        return registry.getGauges().get(name(name, pageClass)).getValue();
+    }
+
+    private double componentBytes(final String id) {
+        return registry.getGauges().get(componentName(id)).getValue();
+    }
+
+    private static MetricName name(final String name, final Class<?> pageClass) {
+        return new MetricName(name, "page", pageClass.getName());
+    }
+
+    private static MetricName componentName(final String id) {
+        return new MetricName(PageSizeSampler.COMPONENT_BYTES, "page", TestPage.class.getName(), "component", id);
+    }
+
+    /**
+     * A page with a large component nested in a container, a small one, and one that refers to the large one.
+     */
+    private static final class TestPage extends WebPage {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] state = new byte[SMALL];
+
+        TestPage() {
+            final Holder large = new Holder("large", LARGE);
+            final WebMarkupContainer container = new WebMarkupContainer("container");
+
+            container.add(new Holder("nested", LARGE));
+            add(container);
+            add(new Holder("small", SMALL));
+            add(large);
+            add(new Holder("pointer", SMALL).setReference(new Reference(large)));
+        }
+    }
+
+    /**
+     * Another page class, recorded apart from {@link TestPage}.
+     */
+    private static final class OtherPage extends WebPage {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * A component holding a payload of a given size, and optionally an object that refers to another component.
+     */
+    private static final class Holder extends WebComponent {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] payload;
+        private Reference reference;
+
+        Holder(final String id, final int size) {
+            super(id);
+            this.payload = new byte[size];
+        }
+
+        Holder setReference(final Reference reference) {
+            this.reference = reference;
+            return this;
+        }
+    }
+
+    /**
+     * Refers to a component from a field that is not itself a component.
+     */
+    private static final class Reference implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Component target;
+
+        Reference(final Component target) {
+            this.target = target;
+        }
+    }
+}
@@ -64,6 +64,8 @@ public class Main {
             .addPageMount("/people", PeoplePage.class)
             .addPageMount("/company", CompanyPage.class)
             .addHealthCheck("/statuscheck", HealthCheck.class)
+            // serves every metric, slow query text included, to anyone who can reach the port
+            // .addMetricsEndpoint("/metrics")
             .setSqlDialect(HSQLDialect.class)
             .addJpaEntity(PeopleBean.class)
             .addJpaEntity(CompanyBean.class)
@@ -0,0 +1,93 @@
+package com.metrink.croquet.examples.crm.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the CRM example's tables and fills them with companies and people, for the benchmarks and the load test.
+ *
+ * Companies and people are numbered from zero, so company i has the id i, and person i has the id i and works for
+ * company i % companies.
+ */
+public final class CrmSeeder {
+    private static final Logger LOG = LoggerFactory.getLogger(CrmSeeder.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private CrmSeeder() {
+    }
+
+    /**
+     * Seeds the database.
+     * @param jdbcUrl the JDBC URL of the database.
+     * @param user the database user.
+     * @param pass the database password.
+     * @param companies the number of companies.
+     * @param people the number of people, spread evenly over the companies.
+     * @throws SQLException if the database cannot be seeded.
+     */
+    public static void seed(final String jdbcUrl,
+                            final String user,
+                            final String pass,
+                            final int companies,
+                            final int people) throws SQLException {
+        try(final Connection connection = DriverManager.getConnection(jdbcUrl, user, pass == null ? "" : pass)) {
+            seed(connection, companies, people);
+        }
+    }
+
+    /**
+     * Seeds the database through the connection, which is left open.
+     * @param connection the connection to the database, in auto-commit mode.
+     * @param companies the number of companies.
+     * @param people the number of people, spread evenly over the companies.
+     * @throws SQLException if the database cannot be seeded.
+     */
+    public static void seed(final Connection connection, final int companies, final int people) throws SQLException {
+        try(final Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE companies(companyId INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "name VARCHAR(64), street VARCHAR(64), city VARCHAR(64), state VARCHAR(2), zip VARCHAR(10))");
+            statement.execute("CREATE TABLE people(personId INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                    + "name VARCHAR(64), email VARCHAR(64), phone VARCHAR(64), companyId INTEGER)");
+        }
+
+        // companies must exist before the people that reference them
+        try(final PreparedStatement insert = connection.prepareStatement("INSERT INTO companies VALUES(?, ?, ?, ?, ?, ?)")) {
+            for(int i = 0; i < companies; ++i) {
+                add(insert, i, i, "Company " + i, i + " Main St", "New Haven", "CT", "06511");
+            }
+
+            insert.executeBatch();
+        }
+
+        try(final PreparedStatement insert = connection.prepareStatement("INSERT INTO people VALUES(?, ?, ?, ?, ?)")) {
+            for(int i = 0; i < people; ++i) {
+                add(insert, i, i, "Person " + i, "person" + i + "@example.com", "555-0100", i % companies);
+            }
+
+            insert.executeBatch();
+        }
+
+        LOG.info("Seeded {} companies and {} people", companies, people);
+    }
+
+    /**
+     * Adds a row to the batch, executing the batch every BATCH_SIZE rows.
+     */
+    private static void add(final PreparedStatement insert, final int row, final Object... values) throws SQLException {
+        for(int i = 0; i < values.length; ++i) {
+            insert.setObject(i + 1, values[i]);
+        }
+
+        insert.addBatch();
+
+        if((row + 1) % BATCH_SIZE == 0) {
+            insert.executeBatch();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.metrink.croquet.examples.crm.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.wicket.guice.GuiceInjectorHolder;
+import org.hibernate.Session;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.inject.Injector;
+import com.google.inject.persist.UnitOfWork;
+import com.metrink.croquet.CroquetTester;
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.WicketSettings;
+import com.metrink.croquet.examples.crm.Main;
+import com.metrink.croquet.hibernate.ReadOnlyQueries;
+
+public class ReadOnlyQueriesTest {
+    private static final int PEOPLE = 50;
+    private static final int COMPANIES = 5;
+    private static final String QUERY = "select p from PeopleBean p join fetch p.company";
+
+    private static Injector injector;
+    private static UnitOfWork unitOfWork;
+    private static ReadOnlyQueries readOnlyQueries;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        final CroquetTester<WicketSettings> croquetTester =
+                Main.configureBuilder(WicketSettings.class, new String[] { "src/test/resources/read-only-queries.yml" })
+                    .buildTester();
+
+        injector = croquetTester.getTester().getApplication().getMetaData(GuiceInjectorHolder.INJECTOR_KEY).getInjector();
+        unitOfWork = injector.getInstance(UnitOfWork.class);
+        readOnlyQueries = injector.getInstance(ReadOnlyQueries.class);
+
+        try(final Connection connection = injector.getInstance(DataSourceFactory.class).getDataSource().getConnection()) {
+            CrmSeeder.seed(connection, COMPANIES, PEOPLE);
+        }
+    }
+
+    @Test
+    public void testListIsReadOnly() {
+        unitOfWork.begin();
+
+        try {
+            final EntityManager em = injector.getInstance(EntityManager.class);
+
+            em.getTransaction().begin();
+
+            final List<PeopleBean> people = readOnlyQueries.list(em.createQuery(QUERY, PeopleBean.class));
+
+            assertEquals(PEOPLE, people.size());
+
+            for(final PeopleBean person:people) {
+                assertTrue(em.unwrap(Session.class).isReadOnly(person));
+                person.setName("Changed");
+            }
+
+            em.getTransaction().commit();
+        } finally {
+            unitOfWork.end();
+        }
+
+        // the changes were never flushed
+        unitOfWork.begin();
+
+        try {
+            final EntityManager em = injector.getInstance(EntityManager.class);
+
+            assertEquals(0L, (long)em.createQuery("select count(p) from PeopleBean p where p.name = 'Changed'", Long.class)
+                                     .getSingleResult());
+        } finally {
+            unitOfWork.end();
+        }
+    }
+
+    @Test
+    public void testScan() {
+        final long[] withCompany = { 0 };
+
+        final long count = readOnlyQueries.scan(PeopleBean.class, QUERY, null, person -> {
+            if(person.getCompany() != null) {
+                withCompany[0]++;
+            }
+
+            return true;
+        });
+
+        assertEquals(PEOPLE, count);
+        assertEquals(PEOPLE, withCompany[0]);
+    }
+
+    @Test
+    public void testScanWithParameters() {
+        final long count = readOnlyQueries.scan(PeopleBean.class,
+                                                QUERY + " where p.company.companyId = :companyId",
+                                                Collections.singletonMap("companyId", 0),
+                                                person -> true);
+
+        assertEquals(PEOPLE / COMPANIES, count);
+    }
+
+    @Test
+    public void testScanStopsWhenVisitorReturnsFalse() {
+        assertEquals(1, readOnlyQueries.scan(PeopleBean.class, QUERY, null, person -> false));
+    }
+}
@@ -0,0 +1,69 @@
+package com.metrink.croquet.examples.crm.pages;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.sql.Connection;
+
+import org.apache.wicket.Page;
+import org.apache.wicket.guice.GuiceInjectorHolder;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.metrink.croquet.CroquetTester;
+import com.metrink.croquet.DataSourceFactory;
+import com.metrink.croquet.examples.crm.CrmModule;
+import com.metrink.croquet.examples.crm.CrmSettings;
+import com.metrink.croquet.examples.crm.EmailModule;
+import com.metrink.croquet.examples.crm.Main;
+import com.metrink.croquet.examples.crm.data.CrmSeeder;
+import com.metrink.croquet.examples.crm.data.PeopleBean;
+import com.metrink.croquet.wicket.KryoSerializer;
+
+public class KryoSerializedPageTest {
+    private static final String EDIT_LINK = "people-table:body:rows:1:cells:1:cell:edit-link";
+
+    private WicketTester tester;
+    private KryoSerializer serializer;
+
+    @Before
+    public void setUp() throws Exception {
+        final CroquetTester<CrmSettings> croquetTester =
+                Main.configureBuilder(CrmSettings.class, new String[] { "src/test/resources/kryo-serialized-page.yml" })
+                    .buildTester();
+
+        croquetTester.addGuiceModule(new CrmModule(croquetTester.getSettings()));
+        croquetTester.addManagedModule(EmailModule.class);
+
+        tester = croquetTester.getTester();
+        serializer = new KryoSerializer(tester.getApplication().getApplicationKey());
+
+        final DataSourceFactory dataSourceFactory = tester.getApplication()
+                                                          .getMetaData(GuiceInjectorHolder.INJECTOR_KEY)
+                                                          .getInjector()
+                                                          .getInstance(DataSourceFactory.class);
+
+        try(final Connection connection = dataSourceFactory.getDataSource().getConnection()) {
+            CrmSeeder.seed(connection, 2, 10);
+        }
+    }
+
+    @Test
+    public void testLinkWorksAfterRoundTrip() {
+        tester.startPage(PeoplePage.class);
+
+        final Page rendered = tester.getLastRenderedPage();
+        final Page page = (Page)serializer.deserialize(serializer.serialize(rendered));
+
+        assertNotSame(rendered, page);
+
+        // the edit link is an anonymous class, which calls back into the page it was read back in with
+        tester.startPage(page);
+        tester.clickLink(EDIT_LINK, true);
+
+        tester.assertNoErrorMessage();
+        tester.assertModelValue("form:update-button", "Update");
+        assertEquals(PeopleBean.class, tester.getComponentFromLastRenderedPage("form").getDefaultModelObject().getClass());
+    }
+}
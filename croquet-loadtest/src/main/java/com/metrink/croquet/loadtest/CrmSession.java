@@ -0,0 +1,249 @@
+package com.metrink.croquet.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.wicket.util.io.IOUtils;
+
+/**
+ * One user of the CRM example: an HTTP session with its cookie and the state of the last people page it rendered.
+ *
+ * The Wicket URLs of the stateful people page, its form and its AJAX paging links, are scraped from the rendered
+ * markup, so the requests are the ones a browser would make. Not thread-safe, a session is used by one thread at a
+ * time.
+ */
+final class CrmSession {
+    private static final Pattern FORM_ACTION = Pattern.compile("<form[^>]*action=\"([^\"]+)\"");
+    private static final Pattern PAGING_LINK = Pattern.compile("\"u\":\"([^\"]*navigation[^\"]*)\"");
+    private static final Pattern SESSION_ID = Pattern.compile(";jsessionid=[^?#]*", Pattern.CASE_INSENSITIVE);
+    private static final String AJAX_RESPONSE = "<ajax-response";
+    private static final String SESSION_COOKIE = "JSESSIONID=";
+    private static final int MAX_REDIRECTS = 5;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final AtomicLong PEOPLE_ADDED = new AtomicLong();
+
+    private final URL base;
+    private final int timeoutMillis;
+    private String cookie;
+    private URL peoplePage;
+    private String formAction;
+    private List<String> pagingLinks = new ArrayList<String>();
+
+    /**
+     * Constructor.
+     * @param base the URL of the application, ending in /.
+     * @param timeoutMillis the connect and read timeout of each request.
+     */
+    CrmSession(final URL base, final int timeoutMillis) {
+        this.base = base;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Views the people page, remembering its form and paging links.
+     * @throws IOException if the request fails.
+     */
+    void viewPeople() throws IOException {
+        final Response response = request("GET", new URL(base, "people"), null, false);
+
+        rememberPeoplePage(response);
+    }
+
+    /**
+     * Views the company page.
+     * @throws IOException if the request fails.
+     */
+    void viewCompanies() throws IOException {
+        request("GET", new URL(base, "company"), null, false);
+    }
+
+    /**
+     * Clicks one of the people table's paging links, viewing the people page first if needed.
+     * @throws IOException if the request fails or does not return an AJAX response.
+     */
+    void pagePeople() throws IOException {
+        if(pagingLinks.isEmpty()) {
+            viewPeople();
+
+            if(pagingLinks.isEmpty()) {
+                throw new IOException("No paging links on " + peoplePage);
+            }
+        }
+
+        final String link = pagingLinks.get(ThreadLocalRandom.current().nextInt(pagingLinks.size()));
+        final Response response = request("GET", resolve(link), null, true);
+
+        if(!response.body.contains(AJAX_RESPONSE)) {
+            throw new IOException("Paging returned something other than an AJAX response");
+        }
+
+        final List<String> links = find(PAGING_LINK, response.body);
+
+        if(!links.isEmpty()) {
+            pagingLinks = links;
+        }
+    }
+
+    /**
+     * Submits the people form to add a person and follows the redirect, viewing the people page first if needed.
+     * @throws IOException if the request fails.
+     */
+    void addPerson() throws IOException {
+        if(formAction == null) {
+            viewPeople();
+
+            if(formAction == null) {
+                throw new IOException("No form on " + peoplePage);
+            }
+        }
+
+        final long person = PEOPLE_ADDED.incrementAndGet();
+        final String form = "name=" + encode("Load Test " + person)
+                + "&email=" + encode("loadtest" + person + "@example.com")
+                + "&phone=" + encode("555-0199")
+                + "&update-button=" + encode("New");
+
+        rememberPeoplePage(request("POST", resolve(formAction), form, false));
+    }
+
+    private void rememberPeoplePage(final Response response) {
+        peoplePage = response.url;
+
+        final List<String> actions = find(FORM_ACTION, response.body);
+
+        formAction = actions.isEmpty() ? null : actions.get(0);
+        pagingLinks = find(PAGING_LINK, response.body);
+    }
+
+    private URL resolve(final String link) throws IOException {
+        return new URL(peoplePage, SESSION_ID.matcher(link.replace("&amp;", "&").replace("\\/", "/")).replaceAll(""));
+    }
+
+    /**
+     * Makes a request, following redirects with GETs the way a browser does.
+     */
+    private Response request(final String method, final URL url, final String form, final boolean ajax) throws IOException {
+        String currentMethod = method;
+        URL current = url;
+        String body = form;
+
+        for(int i = 0; i <= MAX_REDIRECTS; ++i) {
+            final HttpURLConnection connection = (HttpURLConnection)current.openConnection();
+
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(timeoutMillis);
+            connection.setReadTimeout(timeoutMillis);
+            connection.setRequestMethod(currentMethod);
+
+            if(cookie != null) {
+                connection.setRequestProperty("Cookie", cookie);
+            }
+
+            if(ajax) {
+                connection.setRequestProperty("Wicket-Ajax", "true");
+                connection.setRequestProperty("Wicket-Ajax-BaseURL", peoplePage.getFile().substring(1));
+                connection.setRequestProperty("X-Requested-With", "XMLHttpRequest");
+            }
+
+            if(body != null) {
+                final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                connection.setFixedLengthStreamingMode(bytes.length);
+
+                try(final OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+
+            final int status = connection.getResponseCode();
+            final String responseBody =
+                    read(status >= HTTP_BAD_REQUEST ? connection.getErrorStream() : connection.getInputStream());
+
+            rememberCookie(connection);
+
+            if(status >= HTTP_BAD_REQUEST) {
+                throw new IOException("HTTP " + status + " from " + currentMethod + " " + current);
+            }
+
+            final String location = connection.getHeaderField("Location");
+
+            if(status < HttpURLConnection.HTTP_MULT_CHOICE || location == null) {
+                return new Response(current, responseBody);
+            }
+
+            current = new URL(current, SESSION_ID.matcher(location).replaceAll(""));
+            currentMethod = "GET";
+            body = null;
+        }
+
+        throw new IOException("Too many redirects from " + method + " " + url);
+    }
+
+    private void rememberCookie(final HttpURLConnection connection) {
+        final List<String> cookies = connection.getHeaderFields().get("Set-Cookie");
+
+        if(cookies == null) {
+            return;
+        }
+
+        for(final String setCookie:cookies) {
+            if(setCookie.startsWith(SESSION_COOKIE)) {
+                final int end = setCookie.indexOf(';');
+
+                cookie = end < 0 ? setCookie : setCookie.substring(0, end);
+            }
+        }
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        if(in == null) {
+            return "";
+        }
+
+        // reading to the end lets the connection be kept alive and reused
+        try(final InputStream input = in) {
+            return IOUtils.toString(input, StandardCharsets.UTF_8.name());
+        }
+    }
+
+    private static List<String> find(final Pattern pattern, final String body) {
+        final List<String> ret = new ArrayList<String>();
+        final Matcher matcher = pattern.matcher(body);
+
+        while(matcher.find()) {
+            ret.add(matcher.group(1));
+        }
+
+        return ret;
+    }
+
+    private static String encode(final String value) throws IOException {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+    }
+
+    /**
+     * The final URL and body of a request.
+     */
+    private static final class Response {
+        private final URL url;
+        private final String body;
+
+        private Response(final URL url, final String body) {
+            this.url = url;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.metrink.croquet.loadtest;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives the CRM example with a mix of operations from a set of users.
+ *
+ * In open mode requests are scheduled at a fixed rate and each latency is measured from when the request was scheduled,
+ * not from when a user got around to sending it, so a stalled server is charged for every request that queued behind
+ * it. In closed mode each user sends its next request when the previous one completes. That hides stalls, because a
+ * stalled user sends nothing, so when there is a think time the latencies are corrected for the requests a stalled user
+ * would have sent.
+ */
+final class LoadGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+    private static final long SHUTDOWN_GRACE_SECONDS = 60;
+
+    private final LoadTestOptions options;
+    private final List<CrmSession> sessions = new ArrayList<CrmSession>();
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    /**
+     * Creates the users and has each view the people page, so they have a session and a page to work with.
+     * @param options the options of the load test.
+     * @param base the URL of the application, ending in /.
+     * @throws IOException if a user cannot view the people page.
+     */
+    LoadGenerator(final LoadTestOptions options, final URL base) throws IOException {
+        this.options = options;
+
+        final Map<Operation, Integer> mix = options.getMix();
+
+        operations = mix.keySet().toArray(new Operation[mix.size()]);
+        cumulativeWeights = new int[operations.length];
+
+        int total = 0;
+
+        for(int i = 0; i < operations.length; ++i) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        if(total <= 0) {
+            throw new IllegalArgumentException("The mix must have a positive weight");
+        }
+
+        for(int i = 0; i < options.getUsers(); ++i) {
+            final CrmSession session = new CrmSession(base, options.getTimeoutMillis());
+
+            session.viewPeople();
+            sessions.add(session);
+        }
+    }
+
+    /**
+     * Runs the load.
+     * @param durationSeconds how long to generate load for.
+     * @return the latencies and errors of the run.
+     * @throws InterruptedException if interrupted while waiting for the users.
+     */
+    LoadTestResult run(final int durationSeconds) throws InterruptedException {
+        final LoadTestResult result = new LoadTestResult();
+        final long start = System.nanoTime();
+        final long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        if(options.getMode() == LoadTestOptions.Mode.OPEN) {
+            runOpen(result, start, end);
+        } else {
+            runClosed(result, end);
+        }
+
+        result.finish(System.nanoTime() - start);
+
+        return result;
+    }
+
+    private void runOpen(final LoadTestResult result, final long start, final long end) throws InterruptedException {
+        final long interval = TimeUnit.SECONDS.toNanos(1) / options.getRate();
+        final BlockingQueue<CrmSession> idle = new LinkedBlockingQueue<CrmSession>(sessions);
+        final ExecutorService executor = Executors.newFixedThreadPool(sessions.size());
+
+        for(long intended = start; intended < end; intended += interval) {
+            sleepUntil(intended);
+
+            final long scheduled = intended;
+            final Operation operation = nextOperation();
+
+            // requests wait in the executor's queue when every user is busy, that wait is part of their latency
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final CrmSession session;
+
+                    try {
+                        session = idle.take();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+
+                    try {
+                        execute(result, session, operation, scheduled, 0);
+                    } finally {
+                        idle.add(session);
+                    }
+                }
+            });
+        }
+
+        shutdown(executor);
+    }
+
+    private void runClosed(final LoadTestResult result, final long end) throws InterruptedException {
+        final long thinkNanos = TimeUnit.MILLISECONDS.toNanos(options.getThinkMillis());
+        final ExecutorService executor = Executors.newFixedThreadPool(sessions.size());
+
+        for(final CrmSession session:sessions) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    while(System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        execute(result, session, nextOperation(), System.nanoTime(), thinkNanos);
+
+                        if(thinkNanos > 0) {
+                            LockSupport.parkNanos(thinkNanos);
+                        }
+                    }
+                }
+            });
+        }
+
+        shutdown(executor);
+    }
+
+    private void execute(final LoadTestResult result,
+                         final CrmSession session,
+                         final Operation operation,
+                         final long intended,
+                         final long expectedInterval) {
+        boolean success = false;
+
+        try {
+            operation.execute(session);
+            success = true;
+        } catch (final IOException e) {
+            LOG.debug("{} failed: {}", operation.getName(), e.getMessage());
+        } finally {
+            result.record(operation, System.nanoTime() - intended, expectedInterval, success);
+        }
+    }
+
+    private Operation nextOperation() {
+        final int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+        for(int i = 0; i < cumulativeWeights.length; ++i) {
+            if(pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+
+        return operations[operations.length - 1];
+    }
+
+    private static void sleepUntil(final long deadline) {
+        long remaining = deadline - System.nanoTime();
+
+        while(remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    private static void shutdown(final ExecutorService executor) throws InterruptedException {
+        executor.shutdown();
+
+        if(!executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+            LOG.warn("Requests still running {} seconds after the end of the run", SHUTDOWN_GRACE_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+}
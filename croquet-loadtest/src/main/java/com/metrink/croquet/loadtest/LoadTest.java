@@ -0,0 +1,144 @@
+package com.metrink.croquet.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.metrink.croquet.CroquetWicket;
+import com.metrink.croquet.examples.crm.CrmModule;
+import com.metrink.croquet.examples.crm.CrmSettings;
+import com.metrink.croquet.examples.crm.EmailModule;
+import com.metrink.croquet.examples.crm.Main;
+import com.metrink.croquet.examples.crm.data.CrmSeeder;
+
+/**
+ * Load tests the CRM example.
+ *
+ * Unless --url is given, the application is started in this JVM, through the same builder as the example's
+ * {@link Main}, against an in-memory HSQLDB database seeded with companies and people. Users then view the people and
+ * company pages, page through the people table with AJAX and submit the people form, and the throughput and latency
+ * percentiles of each are printed.
+ *
+ * Options, each given as --name=value:
+ * <ul>
+ * <li>mode: closed (default) for a fixed number of users, or open for a fixed arrival rate</li>
+ * <li>users: the number of users, defaults to 16</li>
+ * <li>rate: requests per second in open mode, defaults to 200</li>
+ * <li>think-ms: the time a user waits between requests in closed mode, defaults to 0</li>
+ * <li>duration: the seconds to measure for, defaults to 60</li>
+ * <li>warmup: the seconds to run before measuring, defaults to 10</li>
+ * <li>mix: the weight of each operation, defaults to people=40,company=20,page=30,submit=10</li>
+ * <li>people, companies: the rows to seed the database with, default to 10000 and 100</li>
+ * <li>settings: the settings file to start the application with, defaults to the bundled loadtest.yml</li>
+ * <li>url: the URL of an already running application to test instead</li>
+ * <li>timeout-ms: the timeout of each request, defaults to 30000</li>
+ * <li>json: a file to also write the results to, in the JSON format JMH writes</li>
+ * </ul>
+ */
+public final class LoadTest {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTest.class);
+    private static final String SETTINGS_RESOURCE = "/loadtest.yml";
+    private static final int USAGE_ERROR = 2;
+
+    private LoadTest() {
+    }
+
+    /**
+     * Runs the load test, exiting with 1 if any request failed.
+     * @param args the options.
+     * @throws Exception if the application cannot be started or the load test fails.
+     */
+    public static void main(final String[] args) throws Exception {
+        final LoadTestOptions options;
+
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(USAGE_ERROR);
+            return;
+        }
+
+        final URL base = options.getUrl() == null ? start(options) : new URL(options.getUrl());
+        final LoadGenerator generator = new LoadGenerator(options, base);
+
+        if(options.getWarmupSeconds() > 0) {
+            LOG.info("Warming up for {} seconds", options.getWarmupSeconds());
+            generator.run(options.getWarmupSeconds());
+        }
+
+        LOG.info("Running for {} seconds", options.getDurationSeconds());
+
+        final LoadTestResult result = generator.run(options.getDurationSeconds());
+
+        System.out.printf("%s, %s, %d users, %d seconds%n",
+                          base,
+                          options.getMode() == LoadTestOptions.Mode.OPEN
+                              ? "open at " + options.getRate() + " req/s"
+                              : "closed with " + options.getThinkMillis() + " ms think time",
+                          options.getUsers(),
+                          options.getDurationSeconds());
+        result.print(System.out);
+
+        if(options.getJson() != null) {
+            result.writeJson(new File(options.getJson()));
+        }
+
+        // stopping Jetty and the modules is left to the application's shutdown hook
+        System.exit(result.getTotalErrors() > 0 ? 1 : 0);
+    }
+
+    /**
+     * Seeds the database and starts the CRM example.
+     * @return the URL of the application.
+     */
+    private static URL start(final LoadTestOptions options) throws IOException, SQLException {
+        final File settings = options.getSettings() == null ? copySettings() : new File(options.getSettings());
+        final JsonNode db = new ObjectMapper(new YAMLFactory()).readTree(settings).path("db");
+
+        final CroquetWicket<CrmSettings> croquet =
+                Main.configureBuilder(CrmSettings.class, new String[] { settings.getPath() }).build();
+
+        croquet.addGuiceModule(new CrmModule(croquet.getSettings()));
+        croquet.addManagedModule(EmailModule.class);
+
+        CrmSeeder.seed(text(db.path("jdbc_url")),
+                       text(db.path("user")),
+                       text(db.path("pass")),
+                       options.getCompanies(),
+                       options.getPeople());
+
+        croquet.run();
+
+        return new URL("http://localhost:" + croquet.getSettings().getPort() + "/");
+    }
+
+    private static String text(final JsonNode node) {
+        return node.isMissingNode() || node.isNull() ? null : node.asText();
+    }
+
+    /**
+     * Copies the bundled settings to a file, as the builder only reads files.
+     */
+    private static File copySettings() throws IOException {
+        final File file = File.createTempFile("croquet-loadtest", ".yml");
+
+        file.deleteOnExit();
+
+        try(final InputStream in = LoadTest.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return file;
+    }
+}
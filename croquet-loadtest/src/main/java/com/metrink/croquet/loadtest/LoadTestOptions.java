@@ -0,0 +1,250 @@
+package com.metrink.croquet.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The options of a load test, parsed from --name=value command line arguments.
+ */
+final class LoadTestOptions {
+    /**
+     * How requests are generated.
+     */
+    enum Mode {
+        /**
+         * A fixed number of users, each sending its next request once the previous one completes and it has thought.
+         */
+        CLOSED,
+
+        /**
+         * Requests arrive at a fixed rate whether or not earlier requests have completed.
+         */
+        OPEN
+    }
+
+    private static final int DEFAULT_USERS = 16;
+    private static final int DEFAULT_RATE = 200;
+    private static final int DEFAULT_DURATION = 60;
+    private static final int DEFAULT_WARMUP = 10;
+    private static final int DEFAULT_PEOPLE = 10000;
+    private static final int DEFAULT_COMPANIES = 100;
+    private static final int DEFAULT_TIMEOUT = 30000;
+    private static final String DEFAULT_MIX = "people=40,company=20,page=30,submit=10";
+
+    private Mode mode = Mode.CLOSED;
+    private int users = DEFAULT_USERS;
+    private int rate = DEFAULT_RATE;
+    private long thinkMillis;
+    private int durationSeconds = DEFAULT_DURATION;
+    private int warmupSeconds = DEFAULT_WARMUP;
+    private int people = DEFAULT_PEOPLE;
+    private int companies = DEFAULT_COMPANIES;
+    private int timeoutMillis = DEFAULT_TIMEOUT;
+    private String settings;
+    private String url;
+    private String json;
+    private Map<Operation, Integer> mix = parseMix(DEFAULT_MIX);
+
+    private LoadTestOptions() {
+    }
+
+    /**
+     * Parses the command line.
+     * @param args the arguments, each of the form --name=value.
+     * @return the options.
+     * @throws IllegalArgumentException if an argument is unknown or invalid.
+     */
+    static LoadTestOptions parse(final String[] args) {
+        final LoadTestOptions options = new LoadTestOptions();
+
+        for(final String arg:args) {
+            final int equals = arg.indexOf('=');
+
+            if(!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Arguments must be of the form --name=value: " + arg);
+            }
+
+            options.set(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        return options;
+    }
+
+    // CHECKSTYLE:OFF cyclomatic complexity of a flat switch
+    private void set(final String name, final String value) {
+    // CHECKSTYLE:ON
+        switch(name) {
+        case "mode":
+            mode = Mode.valueOf(value.toUpperCase());
+            break;
+        case "users":
+            users = positive(name, value);
+            break;
+        case "rate":
+            rate = positive(name, value);
+            break;
+        case "think-ms":
+            thinkMillis = Long.parseLong(value);
+            break;
+        case "duration":
+            durationSeconds = positive(name, value);
+            break;
+        case "warmup":
+            warmupSeconds = Integer.parseInt(value);
+            break;
+        case "people":
+            people = positive(name, value);
+            break;
+        case "companies":
+            companies = positive(name, value);
+            break;
+        case "timeout-ms":
+            timeoutMillis = positive(name, value);
+            break;
+        case "settings":
+            settings = value;
+            break;
+        case "url":
+            url = value.endsWith("/") ? value : value + "/";
+            break;
+        case "mix":
+            mix = parseMix(value);
+            break;
+        case "json":
+            json = value;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown option --" + name);
+        }
+    }
+
+    private static int positive(final String name, final String value) {
+        final int parsed = Integer.parseInt(value);
+
+        if(parsed <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+
+        return parsed;
+    }
+
+    private static Map<Operation, Integer> parseMix(final String value) {
+        final Map<Operation, Integer> ret = new EnumMap<Operation, Integer>(Operation.class);
+
+        for(final String entry:value.split(",")) {
+            final String[] parts = entry.trim().split("=");
+
+            if(parts.length != 2) {
+                throw new IllegalArgumentException("The mix must be of the form operation=weight,...: " + value);
+            }
+
+            ret.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets how requests are generated, defaults to closed.
+     * @return the mode.
+     */
+    Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the number of concurrent users, or connections in open mode, defaults to 16.
+     * @return the number of users.
+     */
+    int getUsers() {
+        return users;
+    }
+
+    /**
+     * Gets the requests per second in open mode, defaults to 200.
+     * @return the rate.
+     */
+    int getRate() {
+        return rate;
+    }
+
+    /**
+     * Gets the time each user waits between requests in closed mode, defaults to 0.
+     * @return the think time in milliseconds.
+     */
+    long getThinkMillis() {
+        return thinkMillis;
+    }
+
+    /**
+     * Gets the length of the measured run, defaults to 60.
+     * @return the duration in seconds.
+     */
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * Gets the length of the unmeasured run before it, defaults to 10.
+     * @return the warmup in seconds.
+     */
+    int getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    /**
+     * Gets the number of people to seed the database with, defaults to 10000.
+     * @return the number of people.
+     */
+    int getPeople() {
+        return people;
+    }
+
+    /**
+     * Gets the number of companies to seed the database with, defaults to 100.
+     * @return the number of companies.
+     */
+    int getCompanies() {
+        return companies;
+    }
+
+    /**
+     * Gets the connect and read timeout of each request, defaults to 30000.
+     * @return the timeout in milliseconds.
+     */
+    int getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * Gets the settings file to start the application with, defaults to the bundled loadtest.yml.
+     * @return the settings file, or null for the bundled one.
+     */
+    String getSettings() {
+        return settings;
+    }
+
+    /**
+     * Gets the URL of an already running application to test instead of starting one.
+     * @return the URL ending in /, or null to start the application in-process.
+     */
+    String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the file to write the results to, in the JSON format JMH writes, for comparison against a baseline.
+     * @return the file, or null to only print the results.
+     */
+    String getJson() {
+        return json;
+    }
+
+    /**
+     * Gets the relative weight of each operation, defaults to people=40,company=20,page=30,submit=10.
+     * @return the weights.
+     */
+    Map<Operation, Integer> getMix() {
+        return mix;
+    }
+}
@@ -0,0 +1,251 @@
+package com.metrink.croquet.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The latencies and errors of each operation during a run.
+ *
+ * Latencies are recorded in microseconds up to one minute with three significant digits. Recording is wait-free, so
+ * the users never block on each other.
+ */
+final class LoadTestResult {
+    private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toMicros(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+    private static final String MILLIS_FORMAT = " %9.2f";
+    private static final double[] JSON_PERCENTILES = { 50.0, 99.0 };
+    private static final String TOTAL = "total";
+    private static final String JSON_PREFIX = "loadtest.";
+    private static final String THROUGHPUT_MODE = "thrpt";
+    private static final String LATENCY_MODE = "latency";
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<Operation, Recorder>(Operation.class);
+    private final Map<Operation, AtomicLong> requests = new EnumMap<Operation, AtomicLong>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<Operation, AtomicLong>(Operation.class);
+    private final Map<Operation, Histogram> histograms = new EnumMap<Operation, Histogram>(Operation.class);
+    private long elapsedNanos;
+
+    /**
+     * Constructor.
+     */
+    LoadTestResult() {
+        for(final Operation operation:Operation.values()) {
+            recorders.put(operation, new Recorder(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS));
+            requests.put(operation, new AtomicLong());
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records a request.
+     * @param operation the operation.
+     * @param latencyNanos the time from when the request should have been sent until its response was read.
+     * @param expectedIntervalNanos the time expected between a user's requests, used to fill in the requests a stalled
+     * user did not send, or 0 if the latency already counts from when the request should have been sent.
+     * @param success false if the request failed.
+     */
+    void record(final Operation operation, final long latencyNanos, final long expectedIntervalNanos, final boolean success) {
+        final long latency = Math.min(HIGHEST_TRACKABLE, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        final long expectedInterval = TimeUnit.NANOSECONDS.toMicros(expectedIntervalNanos);
+
+        if(expectedInterval > 0) {
+            recorders.get(operation).recordValueWithExpectedInterval(latency, expectedInterval);
+        } else {
+            recorders.get(operation).recordValue(latency);
+        }
+
+        requests.get(operation).incrementAndGet();
+
+        if(!success) {
+            errors.get(operation).incrementAndGet();
+        }
+    }
+
+    /**
+     * Ends the run, taking the histograms of what was recorded.
+     * @param elapsed the length of the run in nanoseconds.
+     */
+    void finish(final long elapsed) {
+        this.elapsedNanos = elapsed;
+
+        for(final Operation operation:Operation.values()) {
+            histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+        }
+    }
+
+    /**
+     * Gets the latencies of an operation.
+     * @param operation the operation.
+     * @return the latencies in microseconds.
+     */
+    Histogram getHistogram(final Operation operation) {
+        return histograms.get(operation);
+    }
+
+    /**
+     * Gets the latencies of every operation.
+     * @return the latencies in microseconds.
+     */
+    Histogram getTotalHistogram() {
+        final Histogram total = new Histogram(HIGHEST_TRACKABLE, SIGNIFICANT_DIGITS);
+
+        for(final Histogram histogram:histograms.values()) {
+            total.add(histogram);
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets the number of requests of an operation, which is less than the histogram's count when it was corrected for
+     * stalled users.
+     * @param operation the operation.
+     * @return the number of requests.
+     */
+    long getRequests(final Operation operation) {
+        return requests.get(operation).get();
+    }
+
+    /**
+     * Gets the number of requests.
+     * @return the number of requests.
+     */
+    long getTotalRequests() {
+        return sum(requests);
+    }
+
+    /**
+     * Gets the number of failed requests of an operation.
+     * @param operation the operation.
+     * @return the number of errors.
+     */
+    long getErrors(final Operation operation) {
+        return errors.get(operation).get();
+    }
+
+    /**
+     * Gets the number of failed requests.
+     * @return the number of errors.
+     */
+    long getTotalErrors() {
+        return sum(errors);
+    }
+
+    /**
+     * Gets the length of the run.
+     * @return the elapsed time in nanoseconds.
+     */
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Prints the throughput and latency percentiles, in milliseconds, of each operation and in total.
+     * @param out the stream to print to.
+     */
+    void print(final PrintStream out) {
+        out.printf("%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                   "", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        for(final Operation operation:Operation.values()) {
+            if(getRequests(operation) > 0) {
+                printRow(out, operation.getName(), histograms.get(operation), getRequests(operation), getErrors(operation));
+            }
+        }
+
+        printRow(out, TOTAL, getTotalHistogram(), getTotalRequests(), getTotalErrors());
+    }
+
+    /**
+     * Writes the throughput, median and 99th percentile latency of each operation and in total, in the JSON format JMH
+     * writes, so they can be compared against a baseline like benchmark results.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeJson(final File file) throws IOException {
+        final List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
+        final double seconds = elapsedNanos / (double)TimeUnit.SECONDS.toNanos(1);
+
+        for(final Operation operation:Operation.values()) {
+            if(getRequests(operation) > 0) {
+                addResults(results, operation.getName(), histograms.get(operation), getRequests(operation) / seconds);
+            }
+        }
+
+        addResults(results, TOTAL, getTotalHistogram(), getTotalRequests() / seconds);
+
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, results);
+    }
+
+    private static void addResults(final List<Map<String, Object>> results,
+                                   final String name,
+                                   final Histogram histogram,
+                                   final double throughput) {
+        results.add(jmhResult(name + ".throughput", THROUGHPUT_MODE, throughput, "ops/s"));
+
+        for(final double percentile:JSON_PERCENTILES) {
+            results.add(jmhResult(name + ".p" + (int)percentile,
+                                  LATENCY_MODE,
+                                  histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI,
+                                  "ms"));
+        }
+    }
+
+    private static Map<String, Object> jmhResult(final String benchmark,
+                                                 final String mode,
+                                                 final double score,
+                                                 final String unit) {
+        final Map<String, Object> metric = new LinkedHashMap<String, Object>();
+        final Map<String, Object> result = new LinkedHashMap<String, Object>();
+
+        metric.put("score", score);
+        metric.put("scoreUnit", unit);
+
+        result.put("benchmark", JSON_PREFIX + benchmark);
+        result.put("mode", mode);
+        result.put("primaryMetric", metric);
+
+        return result;
+    }
+
+    private void printRow(final PrintStream out,
+                          final String name,
+                          final Histogram histogram,
+                          final long requestCount,
+                          final long errorCount) {
+        final double seconds = elapsedNanos / (double)TimeUnit.SECONDS.toNanos(1);
+
+        out.printf("%-8s %9d %7d %9.1f", name, requestCount, errorCount, requestCount / seconds);
+
+        for(final double percentile:PERCENTILES) {
+            out.printf(MILLIS_FORMAT, histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+        }
+
+        out.printf(MILLIS_FORMAT + "%n", histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static long sum(final Map<Operation, AtomicLong> counts) {
+        long total = 0;
+
+        for(final AtomicLong count:counts.values()) {
+            total += count.get();
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,85 @@
+package com.metrink.croquet.loadtest;
+
+import java.io.IOException;
+
+/**
+ * The requests a user of the CRM example makes.
+ */
+enum Operation {
+    /**
+     * Views the people page, which creates a stateful page and pages through the people table.
+     */
+    PEOPLE("people") {
+        @Override
+        void execute(final CrmSession session) throws IOException {
+            session.viewPeople();
+        }
+    },
+
+    /**
+     * Views the company page.
+     */
+    COMPANY("company") {
+        @Override
+        void execute(final CrmSession session) throws IOException {
+            session.viewCompanies();
+        }
+    },
+
+    /**
+     * Moves the people table to another page with an AJAX request.
+     */
+    PAGE("page") {
+        @Override
+        void execute(final CrmSession session) throws IOException {
+            session.pagePeople();
+        }
+    },
+
+    /**
+     * Submits the people form to add a person, then follows the redirect back to the people page.
+     */
+    SUBMIT("submit") {
+        @Override
+        void execute(final CrmSession session) throws IOException {
+            session.addPerson();
+        }
+    };
+
+    private final String name;
+
+    Operation(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name used in the mix option and the report.
+     * @return the name.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Makes the request.
+     * @param session the user making it.
+     * @throws IOException if the request fails or returns an error.
+     */
+    abstract void execute(CrmSession session) throws IOException;
+
+    /**
+     * Looks up an operation by name.
+     * @param name the name.
+     * @return the operation.
+     * @throws IllegalArgumentException if there is no operation with the name.
+     */
+    static Operation fromName(final String name) {
+        for(final Operation operation:values()) {
+            if(operation.name.equals(name)) {
+                return operation;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+}